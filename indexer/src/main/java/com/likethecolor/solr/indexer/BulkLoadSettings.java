@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer;
+
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.NamedList;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What a collection looked like before it was tuned for a bulk load, see
+ * {@link SolrJCloudClientFacet#startBulkLoad(org.apache.solr.client.solrj.impl.CloudSolrClient, BulkLoadSettings)}.
+ *
+ * For each of the {@link #INGEST_PROPERTIES} the value it had in the config
+ * overlay is kept, or that it was not in the overlay, so it can be set back or
+ * unset.  Each replica removed is recorded, as it is removed, so one of the
+ * same type can be added back.
+ */
+public final class BulkLoadSettings {
+  /**
+   * Config API properties set for a bulk load and the values they are set to.
+   * Automatic soft commits are turned off and the hard commit, which keeps the
+   * transaction log from growing without bound, is made every minute without
+   * opening a searcher.
+   */
+  public static final Map<String, Object> INGEST_PROPERTIES;
+  static {
+    final Map<String, Object> properties = new LinkedHashMap<>();
+    properties.put("updateHandler.autoCommit.maxTime", 60000);
+    properties.put("updateHandler.autoCommit.maxDocs", -1);
+    properties.put("updateHandler.autoCommit.openSearcher", false);
+    properties.put("updateHandler.autoSoftCommit.maxTime", -1);
+    properties.put("updateHandler.autoSoftCommit.maxDocs", -1);
+    INGEST_PROPERTIES = Collections.unmodifiableMap(properties);
+  }
+
+  private final String collectionName;
+  private final Map<String, Object> overlayProperties;
+  private final Map<String, List<Replica.Type>> removedReplicas;
+
+  /**
+   * @param collectionName collection being loaded
+   * @param overlay the "overlay" section of the response to
+   * {@code GET /config/overlay} - may be null if the collection has no
+   * overlay
+   */
+  public BulkLoadSettings(final String collectionName, final Object overlay) {
+    this.collectionName = collectionName;
+    overlayProperties = new LinkedHashMap<>();
+    final Object props = get(overlay, "props");
+    for(String property : INGEST_PROPERTIES.keySet()) {
+      Object value = props;
+      for(String key : property.split("\\.")) {
+        value = get(value, key);
+      }
+      if(value != null) {
+        overlayProperties.put(property, value);
+      }
+    }
+    removedReplicas = new LinkedHashMap<>();
+  }
+
+  public String getCollectionName() {
+    return collectionName;
+  }
+
+  /**
+   * @return the {@link #INGEST_PROPERTIES} that were in the config overlay and
+   * their values
+   */
+  public Map<String, Object> getOverlayProperties() {
+    return Collections.unmodifiableMap(overlayProperties);
+  }
+
+  /**
+   * Record that a replica was removed from the shard.
+   */
+  public synchronized void replicaRemoved(final String shardName, final Replica.Type type) {
+    List<Replica.Type> types = removedReplicas.get(shardName);
+    if(types == null) {
+      types = new ArrayList<>();
+      removedReplicas.put(shardName, types);
+    }
+    types.add(type);
+  }
+
+  /**
+   * @return by shard name, the type of each replica removed
+   */
+  public synchronized Map<String, List<Replica.Type>> getRemovedReplicas() {
+    final Map<String, List<Replica.Type>> copy = new LinkedHashMap<>();
+    for(Map.Entry<String, List<Replica.Type>> entry : removedReplicas.entrySet()) {
+      copy.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+    }
+    return copy;
+  }
+
+  /**
+   * @return Config API command that sets the {@link #INGEST_PROPERTIES}
+   */
+  public String getIngestCommand() {
+    return new JSONObject().put("set-property", new JSONObject(INGEST_PROPERTIES)).toString();
+  }
+
+  /**
+   * @return Config API command that sets the {@link #INGEST_PROPERTIES} that
+   * were in the overlay back to their values and unsets the rest
+   */
+  public String getRestoreCommand() {
+    final JSONObject command = new JSONObject();
+    if(!overlayProperties.isEmpty()) {
+      command.put("set-property", new JSONObject(overlayProperties));
+    }
+    final JSONArray unset = new JSONArray();
+    for(String property : INGEST_PROPERTIES.keySet()) {
+      if(!overlayProperties.containsKey(property)) {
+        unset.put(property);
+      }
+    }
+    if(unset.length() > 0) {
+      command.put("unset-property", unset);
+    }
+    return command.toString();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("collection: %s, overlay: %s, removed replicas: %s", collectionName, overlayProperties, getRemovedReplicas());
+  }
+
+  /**
+   * @return the value under the key if the container is a map or named list -
+   * null otherwise
+   */
+  private static Object get(final Object container, final String key) {
+    if(container instanceof Map) {
+      return ((Map<?, ?>) container).get(key);
+    }
+    if(container instanceof NamedList) {
+      return ((NamedList<?>) container).get(key);
+    }
+    return null;
+  }
+}
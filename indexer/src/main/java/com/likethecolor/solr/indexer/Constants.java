@@ -19,20 +19,49 @@ package com.likethecolor.solr.indexer;
 public interface Constants {
   String DATA_TYPE_CSV = "csv";
   String DATA_TYPE_JSON = "json";
+  String DATA_TYPE_JSON_ARRAY = "json-array";
+  String DATA_TYPE_FAST_CSV = "fast-csv";
   String DATA_TYPE_DEFAULT = "default";
 
+  String DOCUMENT_MODE_ATOMIC = "atomic";
+  String DOCUMENT_MODE_FULL = "full";
+  String DOCUMENT_MODE_INPLACE = "inplace";
+
   String ARGS_LEFT_DELIMITER = "(";
   String ARGS_LIST_DELIMITER = ",";
   String ARGS_RIGHT_DELIMITER = ")";
+  long DEFAULT_BATCH_LINGER_MILLIS = 0; // 0 = wait for a full batch
+  long DEFAULT_BATCH_MAX_BYTES = 0; // 0 = no limit, batches are closed by batch-size
+  int DEFAULT_BATCH_QUEUE_CAPACITY = 4;
   int DEFAULT_BATCH_SIZE = 1000;
+  long DEFAULT_BATCH_TARGET_LATENCY_MILLIS = 0; // 0 = byte target does not change
+  int DEFAULT_BUILDER_THREAD_COUNT = 1;
+  int DEFAULT_COMMIT_WITHIN_MILLIS = 0; // 0 = not set
   char DEFAULT_CSV_DELIMITER = ',';  // from CsvPreference#STANDARD_PREFERENCE
   char DEFAULT_CSV_QUOTE_CHARACTER = '"'; // from CsvPreference#STANDARD_PREFERENCE
+  int DEFAULT_CSV_SPLIT_COUNT = 1; // 1 = not split
+  String DEFAULT_DATA_FILE_ENCODING = "UTF-8";
   String DEFAULT_DATA_TYPE = DATA_TYPE_DEFAULT;
   String DEFAULT_DATE_FORMAT = "MM/dd/yyyy hh:mm:ssa"; // 03/01/2013 04:48:40am
+  int DEFAULT_DECOMPRESS_THREAD_COUNT = 1;
+  String DEFAULT_DOCUMENT_MODE = DOCUMENT_MODE_ATOMIC;
+  int DEFAULT_JSON_SPLIT_COUNT = 1; // 1 = not split
+  long DEFAULT_MAX_SLEEP_MILLIS_BETWEEN_RETRIES = 60000;
+  int DEFAULT_MAX_THREAD_COUNT = 16;
+  int DEFAULT_MIN_THREAD_COUNT = 1;
   String DEFAULT_MULTIVALUE_FIELD_DELIMITER = ",";
+  int DEFAULT_OPTIMIZE_MAX_SEGMENTS = 1;
+  int DEFAULT_READER_THREAD_COUNT = 1;
+  int DEFAULT_REBUILD_REPLICATION_FACTOR = 1;
+  int DEFAULT_REBUILD_SHARD_COUNT = 1;
+  long DEFAULT_RETRY_BUFFER_BYTES = 67108864;
   int DEFAULT_RETRY_COUNT = 4;
+  int DEFAULT_ROW_QUEUE_CAPACITY = 10000;
   long DEFAULT_SLEEP_MILLIS_BETWEEN_RETRIES = 5000;
   long DEFAULT_SOFT_COMMIT_FREQUENCY = 0; // 0 = never; >= 1 after every X batches
+  long DEFAULT_SOFT_COMMIT_INTERVAL_MILLIS = 0; // 0 = never
+  int DEFAULT_STREAM_MAX_DOCS = 100000;
+  long DEFAULT_STREAM_MAX_MILLIS = 30000;
   int DEFAULT_THREAD_COUNT = 4;
   String DEFAULT_UNIQUE_KEY_FIELD_NAME = "id";
   String DEFAULT_UNIQUE_KEY_FIELD_VALUE_DELIMITER = "";
@@ -51,6 +80,7 @@ public interface Constants {
   // and will/should never get updated
   //
   String KEY_FOR_UPDATE_DOCUMENT_ACTION = "set";
+  String KEY_FOR_INCREMENT_DOCUMENT_ACTION = "inc";
 
   // field types
   String FIELD_TYPE_ARRAY = "multivalued";
@@ -62,25 +92,65 @@ public interface Constants {
 
   // Command line/Properties flags
   // no short names
+  String ADAPTIVE_CONCURRENCY_OPTION = "adaptive-concurrency";
+  String BATCH_LINGER_MILLIS_OPTION = "batch-linger-millis";
+  String BATCH_MAX_BYTES_OPTION = "batch-max-bytes";
+  String BATCH_QUEUE_CAPACITY_OPTION = "batch-queue-capacity";
   String BATCH_SIZE_OPTION = "batch-size";
+  String BATCH_TARGET_LATENCY_MILLIS_OPTION = "batch-target-latency-millis";
+  String BUILDER_THREAD_COUNT_OPTION = "builder-thread-count";
+  String BULK_LOAD_OPTION = "bulk-load";
+  String CHECKPOINT_FILE_OPTION = "checkpoint-file";
   String COLLECTION_NAME_OPTION = "collection-name";
+  String COMMIT_WITHIN_MILLIS_OPTION = "commit-within-millis";
   String CSV_DELIMITER_OPTION = "csv-delimiter";
   String CSV_QUOTE_CHARACTER_OPTION = "csv-quote-character";
+  String CSV_SPLIT_COUNT_OPTION = "csv-split-count";
+  String DATA_FILE_ENCODING_OPTION = "data-file-encoding";
   String DATA_TYPE_OPTION = "data-type";
+  String DEAD_LETTER_FILE_OPTION = "dead-letter-file";
+  String DECOMPRESS_THREAD_COUNT_OPTION = "decompress-thread-count";
+  String DOCUMENT_MODE_OPTION = "document-mode";
   String DYNAMIC_OPTION = "dynamic-fields";
   String FIELDS_OPTION = "fields";
   String FIELDS_TO_JSON_OPTION = "fields-to-json";
   String FIRST_ROW_IS_HEADER_OPTION = "first-row-is-header";
   String HELP_OPTION = "help";
+  String INPLACE_FIELDS_OPTION = "inplace-fields";
+  String INPLACE_INCREMENT_FIELDS_OPTION = "inplace-increment-fields";
+  String JSON_ARRAY_PATH_OPTION = "json-array-path";
+  String JSON_SPLIT_COUNT_OPTION = "json-split-count";
   String LITERALS_OPTION = "literals";
+  String MAX_SLEEP_MILLIS_BETWEEN_RETRIES_OPTION = "max-sleep-millis-between-retries";
+  String MAX_THREAD_COUNT_OPTION = "max-thread-count";
+  String MIN_THREAD_COUNT_OPTION = "min-thread-count";
   String MULTIVALUE_FIELD_DELIMITER_OPTION = "multivalue-field-delimiter";
+  String NO_OVERWRITE_OPTION = "no-overwrite";
   String OPTIMIZE_INDEX_OPTION = "optimize-index";
+  String OPTIMIZE_MAX_SEGMENTS_OPTION = "optimize-max-segments";
   String PATH_TO_DATA_FILE_OPTION = "path-to-data-file";
   String PATH_TO_PROPERTIES_FILE_OPTION = "path-to-properties-file";
+  String PRE_SERIALIZE_BATCHES_OPTION = "pre-serialize-batches";
+  String READER_THREAD_COUNT_OPTION = "reader-thread-count";
+  String REBUILD_CONFIGSET_OPTION = "rebuild-configset";
+  String REBUILD_DELETE_OLD_OPTION = "rebuild-delete-old";
+  String REBUILD_MAX_MISSING_DOCS_OPTION = "rebuild-max-missing-docs";
+  String REBUILD_OPTION = "rebuild";
+  String REBUILD_REPLICATION_FACTOR_OPTION = "rebuild-replication-factor";
+  String REBUILD_SHARD_COUNT_OPTION = "rebuild-shard-count";
+  String RESUME_OPTION = "resume";
+  String RETRY_BUFFER_BYTES_OPTION = "retry-buffer-bytes";
   String RETRY_COUNT_OPTION = "retry-count";
+  String ROW_QUEUE_CAPACITY_OPTION = "row-queue-capacity";
+  String SHARD_ROUTING_OPTION = "shard-routing";
   String SKIP_FIELDS_OPTION = "skip-fields";
+  String SKIP_UPDATE_RESPONSE_PARSING_OPTION = "skip-update-response-parsing";
   String SLEEP_BETWEEN_RETRIES_OPTION = "sleep-millis-between-retries";
   String SOFT_COMMIT_FREQUENCY = "soft-commit-frequency";
+  String SOFT_COMMIT_INTERVAL_MILLIS_OPTION = "soft-commit-interval-millis";
+  String STREAMING_UPDATES_OPTION = "streaming-updates";
+  String STREAM_MAX_DOCS_OPTION = "stream-max-docs";
+  String STREAM_MAX_MILLIS_OPTION = "stream-max-millis";
   String THREAD_COUNT_OPTION = "thread-count";
   String UNIQUE_KEY_FIELD_NAME_OPTION = "unique-key-field-name";
   String UNIQUE_KEY_FIELD_VALUE_DELIMITER_OPTION = "unique-key-field-value-delimiter";
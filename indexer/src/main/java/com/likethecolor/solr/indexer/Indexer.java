@@ -19,10 +19,12 @@ package com.likethecolor.solr.indexer;
 import com.likethecolor.solr.indexer.configuration.Configuration;
 import com.likethecolor.solr.indexer.configuration.ConfigurationBuilder;
 import com.likethecolor.solr.indexer.configuration.ConfigurationValidator;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
 import com.likethecolor.solr.indexer.configuration.ZkHostParser;
 import com.likethecolor.solr.indexer.handler.indexer.AbstractSolrDocumentHandler;
 import com.likethecolor.solr.indexer.handler.indexer.DocumentHandler;
 import com.likethecolor.solr.indexer.handler.indexer.SolrDocumentHandlerFactory;
+import com.likethecolor.solr.indexer.handler.indexer.UpdateActions;
 import com.likethecolor.solr.indexer.util.conversion.ToTimeConversion;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
@@ -33,7 +35,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class uses SolrJ to index data found in a data file.  This should be
@@ -42,6 +48,12 @@ import java.util.concurrent.ExecutionException;
  */
 public class Indexer {
   private static final Logger LOGGER = LoggerFactory.getLogger(Indexer.class);
+  /**
+   * Longest a SIGTERM waits for the run to finish.
+   */
+  private static final long SHUTDOWN_DRAIN_MILLIS = 5 * 60 * 1000;
+  private volatile DocumentHandler documentHandler;
+  private volatile boolean stopped;
 
   public Indexer() {
   }
@@ -92,6 +104,15 @@ public class Indexer {
   public boolean index(final Configuration configuration, final CloudSolrClient cloudSolrClient) {
     boolean success = true;
     long startTime = System.currentTimeMillis();
+    BulkLoadSettings bulkLoadSettings = null;
+    final String aliasName = configuration.getCollectionName();
+    String rebuildCollectionName = null;
+    long numDocs = 0;
+    final CountDownLatch indexed = new CountDownLatch(1);
+    final Thread shutdownHook = useShutdownHook(configuration) ? getShutdownHook(indexed) : null;
+    if(shutdownHook != null) {
+      Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
     try {
       LOGGER.info(String.format("updating leaders only: %s", (
           cloudSolrClient.isUpdatesToLeaders()
@@ -115,21 +136,196 @@ public class Indexer {
       LOGGER.info("validate configuration");
       new ConfigurationValidator().validate(configuration);
 
-      final long numDocs = indexDataFile(configuration, cloudSolrClient);
+      if(configuration.rebuild()) {
+        rebuildCollectionName = SolrJCloudClientFacet.getRebuildCollectionName(aliasName, startTime);
+        SolrJCloudClientFacet.createCollection(cloudSolrClient, rebuildCollectionName, configuration.getRebuildConfigset(), configuration.getRebuildShardCount(), configuration.getRebuildReplicationFactor());
+        // from here on everything is done to the new collection
+        configuration.setCollectionName(rebuildCollectionName);
+        cloudSolrClient.setDefaultCollection(rebuildCollectionName);
+      }
+      else if(configuration.getDocumentMode() == DocumentModeEnum.INPLACE) {
+        checkInPlaceFields(configuration, SolrJCloudClientFacet.getInPlaceUpdatableFields(cloudSolrClient, configuration.getCollectionName()));
+      }
+      if(configuration.bulkLoad()) {
+        bulkLoadSettings = SolrJCloudClientFacet.getBulkLoadSettings(cloudSolrClient, configuration.getCollectionName());
+        SolrJCloudClientFacet.startBulkLoad(cloudSolrClient, bulkLoadSettings);
+      }
+      numDocs = indexDataFile(configuration, cloudSolrClient);
       LOGGER.info("added {} docs [{}]", numDocs, new ToTimeConversion(System.currentTimeMillis() - startTime).getMinutesSecondsMillisecondsFromMilliseconds());
 
-      // optimize/close
-      SolrJCloudClientFacet.optimize(cloudSolrClient, configuration.optimizeIndex());
-      SolrJCloudClientFacet.commitShutdown(cloudSolrClient);
+      // optimize/commit - before a bulk load is ended so the replicas added
+      // back copy the final index
+      SolrJCloudClientFacet.optimize(cloudSolrClient, configuration.optimizeIndex(), configuration.getOptimizeMaxSegments());
+      // a rebuild counts the documents so it waits for them to be searchable
+      SolrJCloudClientFacet.commit(cloudSolrClient, configuration.rebuild());
     }
     catch(Exception e) {
       LOGGER.error("index error", e);
-      SolrJCloudClientFacet.shutdown(cloudSolrClient);
       success = false;
     }
+    finally {
+      if(bulkLoadSettings != null && !SolrJCloudClientFacet.endBulkLoad(cloudSolrClient, bulkLoadSettings)) {
+        success = false;
+      }
+      if(rebuildCollectionName != null) {
+        configuration.setCollectionName(aliasName);
+        success = finishRebuild(configuration, cloudSolrClient, rebuildCollectionName, numDocs, success);
+      }
+      SolrJCloudClientFacet.shutdown(cloudSolrClient);
+      indexed.countDown();
+      if(shutdownHook != null) {
+        try {
+          Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        }
+        catch(IllegalStateException ignore) {
+          // the hook is what is stopping the run
+        }
+      }
+    }
     return success;
   }
 
+  /**
+   * @param configuration contains configuration information
+   *
+   * @return true if a SIGTERM must let the run finish - with a checkpoint file
+   * so the checkpoint is written for the last time and with a bulk load or
+   * rebuild so the collection's settings are put back, or the rebuild
+   * finished, even when the run is stopped
+   */
+  static boolean useShutdownHook(final Configuration configuration) {
+    return configuration.getCheckpointFile() != null || configuration.bulkLoad() || configuration.rebuild();
+  }
+
+  /**
+   * On SIGTERM stop reading and wait for the whole run to finish - the rows
+   * already read to be sent and everything done after indexing - before
+   * letting the process exit.
+   *
+   * @param indexed counted down once {@link #index(Configuration, CloudSolrClient)}
+   * has finished
+   */
+  Thread getShutdownHook(final CountDownLatch indexed) {
+    return new Thread(new Runnable() {
+      @Override
+      public void run() {
+        LOGGER.warn("shutting down - sending the rows already read then finishing the run");
+        stop();
+        try {
+          if(!indexed.await(SHUTDOWN_DRAIN_MILLIS, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("gave up waiting for the run to finish after {} ms", SHUTDOWN_DRAIN_MILLIS);
+          }
+        }
+        catch(InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }, "indexer-shutdown");
+  }
+
+  /**
+   * Stop reading the data files - the rows already read are still sent.
+   */
+  void stop() {
+    stopped = true;
+    final DocumentHandler handler = documentHandler;
+    if(handler != null) {
+      handler.stop();
+    }
+  }
+
+  /**
+   * Solr silently falls back to an atomic update, which rewrites the whole
+   * document, for a field it cannot update in place so such a field is
+   * treated as a configuration error.
+   *
+   * @param configuration configuration
+   * @param updatableFields fields the schema allows to be updated in place
+   *
+   * @throws IllegalArgumentException if an in-place field cannot be updated in
+   * place
+   */
+  static void checkInPlaceFields(final Configuration configuration, final Set<String> updatableFields) {
+    final Set<String> invalidFields = new TreeSet<>(UpdateActions.fromConfiguration(configuration).getInplaceFields());
+    invalidFields.removeAll(updatableFields);
+    if(!invalidFields.isEmpty()) {
+      throw new IllegalArgumentException(String.format(
+          "fields cannot be updated in place - they must be single valued numeric fields with docValues that are neither indexed nor stored: %s",
+          invalidFields));
+    }
+  }
+
+  /**
+   * Point the alias at the collection a rebuild indexed into if the rebuild
+   * succeeded and the collection has as many documents as solr accepted -
+   * otherwise delete the collection and leave the alias as it was.  Rows that
+   * share a unique key replace each other so the collection may be short by
+   * up to {@link Configuration#getRebuildMaxMissingDocs()} documents.  With
+   * {@link Configuration#rebuildDeleteOld()} the collections the alias pointed
+   * at before are deleted.
+   *
+   * @param configuration contains configuration information - the collection
+   * name is the alias
+   * @param cloudSolrClient cloud server
+   * @param collectionName collection the rebuild indexed into
+   * @param numDocs number of documents solr accepted - not counting those
+   * written to the dead letter file
+   * @param success true if indexing succeeded
+   *
+   * @return true if the alias points at the collection
+   */
+  boolean finishRebuild(final Configuration configuration, final CloudSolrClient cloudSolrClient, final String collectionName, final long numDocs, final boolean success) {
+    final String aliasName = configuration.getCollectionName();
+    List<String> oldCollections = null;
+    try {
+      if(success) {
+        final long docCount = SolrJCloudClientFacet.getDocCount(cloudSolrClient, collectionName);
+        if(docCount <= numDocs && numDocs - docCount <= configuration.getRebuildMaxMissingDocs()) {
+          if(docCount < numDocs) {
+            LOGGER.warn("{} has {} documents but {} were indexed - rows sharing a unique key are the likely cause", collectionName, docCount, numDocs);
+          }
+          oldCollections = SolrJCloudClientFacet.getAliasedCollections(cloudSolrClient, aliasName);
+          SolrJCloudClientFacet.createAlias(cloudSolrClient, aliasName, collectionName);
+        }
+        else if(docCount < numDocs) {
+          LOGGER.error("{} has {} documents but {} were indexed - rows sharing a unique key replace each other so the data file likely has {} duplicate keys - not pointing {} at it (see --{})", collectionName, docCount, numDocs, numDocs - docCount, aliasName, Constants.REBUILD_MAX_MISSING_DOCS_OPTION);
+        }
+        else {
+          LOGGER.error("{} has {} documents but {} were indexed - not pointing {} at it", collectionName, docCount, numDocs, aliasName);
+        }
+      }
+    }
+    catch(Exception e) {
+      LOGGER.error("rebuild error", e);
+      oldCollections = null;
+    }
+
+    if(oldCollections == null) {
+      try {
+        SolrJCloudClientFacet.deleteCollection(cloudSolrClient, collectionName);
+      }
+      catch(Exception e) {
+        LOGGER.error("could not delete " + collectionName + " - delete it by hand", e);
+      }
+      return false;
+    }
+
+    LOGGER.info("{} now points at {} [was {}]", aliasName, collectionName, oldCollections);
+    if(configuration.rebuildDeleteOld()) {
+      for(String oldCollection : oldCollections) {
+        if(!oldCollection.equals(collectionName)) {
+          try {
+            SolrJCloudClientFacet.deleteCollection(cloudSolrClient, oldCollection);
+          }
+          catch(Exception e) {
+            LOGGER.warn("could not delete " + oldCollection + " - delete it by hand", e);
+          }
+        }
+      }
+    }
+    return true;
+  }
+
   /**
    * Call {@link AbstractSolrDocumentHandler#handle(CloudSolrClient)}
    * to index the data found in the data file.
@@ -142,10 +338,15 @@ public class Indexer {
    * @throws SolrServerException when there is an exception with the cloudSolrClient server
    */
   private long indexDataFile(final Configuration configuration, final CloudSolrClient cloudSolrClient) throws SolrServerException, IOException, InterruptedException, ExecutionException {
-    final DocumentHandler solrDocumentHandler = getSolrDocumentHandler(configuration);
+    final DocumentHandler solrDocumentHandler;
     long numDocs;
     final long start = System.currentTimeMillis();
     try {
+      solrDocumentHandler = getSolrDocumentHandler(configuration);
+      documentHandler = solrDocumentHandler;
+      if(stopped) {
+        solrDocumentHandler.stop();
+      }
       LOGGER.info("start: data file processing and indexing");
       numDocs = solrDocumentHandler.handle(cloudSolrClient);
     }
@@ -169,7 +370,7 @@ public class Indexer {
     return numDocs;
   }
 
-  protected DocumentHandler getSolrDocumentHandler(final Configuration configuration) {
+  protected DocumentHandler getSolrDocumentHandler(final Configuration configuration) throws IOException {
     return SolrDocumentHandlerFactory.getInstance().getHandler(configuration);
   }
 }
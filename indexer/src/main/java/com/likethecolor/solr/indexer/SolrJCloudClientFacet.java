@@ -17,18 +17,47 @@
 package com.likethecolor.solr.indexer;
 
 import com.likethecolor.solr.indexer.util.conversion.ToTimeConversion;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.client.solrj.request.RequestWriter;
+import org.apache.solr.client.solrj.request.schema.SchemaRequest;
+import org.apache.solr.client.solrj.response.CollectionAdminResponse;
+import org.apache.solr.client.solrj.response.schema.FieldTypeRepresentation;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class SolrJCloudClientFacet {
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrJCloudClientFacet.class);
   private static final boolean SOFT_COMMIT_WAIT_FLUSH = false;
   private static final boolean SOFT_COMMIT_WAIT_SEARCHER = false;
   private static final boolean SOFT_COMMIT_SOFT_COMMIT = true;
+  private static final boolean HARD_COMMIT_WAIT_FLUSH = true;
+  private static final boolean HARD_COMMIT_WAIT_SEARCHER = false;
+  /**
+   * Field type classes solr can update in place - the numeric types.
+   */
+  private static final Set<String> IN_PLACE_UPDATABLE_TYPE_CLASSES = new HashSet<>(Arrays.asList(
+      "IntPointField", "LongPointField", "FloatPointField", "DoublePointField",
+      "TrieIntField", "TrieLongField", "TrieFloatField", "TrieDoubleField"));
 
   /**
    * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#commit()} to
@@ -56,43 +85,287 @@ public class SolrJCloudClientFacet {
   }
 
   /**
-   * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#commit()} then
-   * {@link #shutdown(org.apache.solr.client.solrj.impl.CloudSolrClient)}.
+   * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#commit(boolean, boolean)}
+   * to perform a hard commit.
+   * Unless asked to the commit does not wait for a new searcher to be
+   * opened - the documents are durable once it returns and become visible
+   * when solr has warmed the searcher.
    * The amount of time used for the commit call is logged.
    *
    * @param solr cloud server
+   * @param waitSearcher true to wait until the documents can be found
    *
    * @throws SolrServerException when there is an exception with the solr server
    * @throws IOException when there is an exception with IO
    */
-  public static void commitShutdown(final CloudSolrClient solr) throws IOException, SolrServerException {
+  public static void commit(final CloudSolrClient solr, final boolean waitSearcher) throws IOException, SolrServerException {
     final long start = System.currentTimeMillis();
-    LOGGER.info(getStartOfProcessMessage("sending commit call"));
-    solr.commit();
+    LOGGER.info(getStartOfProcessMessage(String.format("sending commit call [waitFlush = %s, waitSearcher = %s]", HARD_COMMIT_WAIT_FLUSH, waitSearcher)));
+    solr.commit(HARD_COMMIT_WAIT_FLUSH, waitSearcher);
     LOGGER.info(getEndOfProcessMessage("commit call", start, System.currentTimeMillis()));
-    shutdown(solr);
   }
 
   /**
-   * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#optimize()}.
+   * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#optimize(boolean, boolean, int)}.
+   * Like the final commit the optimize does not wait for a new searcher.
    * The amount of time used for the optimize call is logged.
    *
    * @param solr cloud server
    * @param optimize true to optimize
+   * @param maxSegments merge down to at most this many segments
    *
    * @throws SolrServerException when there is an exception with the solr server
    * @throws IOException when there is an exception with IO
    */
-  public static void optimize(final CloudSolrClient solr, final boolean optimize) throws SolrServerException, IOException {
+  public static void optimize(final CloudSolrClient solr, final boolean optimize, final int maxSegments) throws SolrServerException, IOException {
     if(optimize) {
       final String processName = "sending optimize call";
       long start = System.currentTimeMillis();
-      LOGGER.info(getStartOfProcessMessage(processName));
-      solr.optimize();
+      LOGGER.info(getStartOfProcessMessage(String.format("%s [maxSegments = %d]", processName, maxSegments)));
+      solr.optimize(HARD_COMMIT_WAIT_FLUSH, HARD_COMMIT_WAIT_SEARCHER, maxSegments);
       LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
     }
   }
 
+  /**
+   * Read the config overlay of the collection so the settings a bulk load
+   * changes can be put back afterwards.
+   *
+   * @param solr cloud server
+   * @param collectionName collection to be loaded
+   *
+   * @return settings to pass to {@link #startBulkLoad(CloudSolrClient, BulkLoadSettings)}
+   * and {@link #endBulkLoad(CloudSolrClient, BulkLoadSettings)}
+   *
+   * @throws SolrServerException when there is an exception with the solr server
+   * @throws IOException when there is an exception with IO
+   */
+  public static BulkLoadSettings getBulkLoadSettings(final CloudSolrClient solr, final String collectionName) throws SolrServerException, IOException {
+    final GenericSolrRequest request = new GenericSolrRequest(SolrRequest.METHOD.GET, "/config/overlay", new ModifiableSolrParams());
+    final BulkLoadSettings settings = new BulkLoadSettings(collectionName, solr.request(request, collectionName).get("overlay"));
+    LOGGER.info("settings before bulk load: {}", settings);
+    return settings;
+  }
+
+  /**
+   * Tune the collection for ingest: set the
+   * {@link BulkLoadSettings#INGEST_PROPERTIES} through the Config API and
+   * remove every replica but the leader from each shard through the
+   * Collections API.  Each replica is recorded in the settings as it is
+   * removed so {@link #endBulkLoad(CloudSolrClient, BulkLoadSettings)} can put
+   * back as much as was changed even if this fails part way.
+   * The amount of time used is logged.
+   *
+   * @param solr cloud server
+   * @param settings from {@link #getBulkLoadSettings(CloudSolrClient, String)}
+   *
+   * @throws SolrServerException when there is an exception with the solr server
+   * @throws IOException when there is an exception with IO
+   */
+  public static void startBulkLoad(final CloudSolrClient solr, final BulkLoadSettings settings) throws SolrServerException, IOException {
+    final String processName = "tuning collection for bulk load";
+    final long start = System.currentTimeMillis();
+    LOGGER.info(getStartOfProcessMessage(processName));
+    sendConfigCommand(solr, settings.getCollectionName(), settings.getIngestCommand());
+    final DocCollection collection = solr.getClusterStateProvider().getCollection(settings.getCollectionName());
+    for(Slice slice : collection.getActiveSlices()) {
+      final Replica leader = slice.getLeader();
+      for(Replica replica : slice.getReplicas()) {
+        if(leader != null && !replica.getName().equals(leader.getName())) {
+          LOGGER.info("removing replica {} [{}] from {}", replica.getName(), replica.getType(), slice.getName());
+          CollectionAdminRequest.deleteReplica(settings.getCollectionName(), slice.getName(), replica.getName()).process(solr);
+          settings.replicaRemoved(slice.getName(), replica.getType());
+        }
+      }
+    }
+    LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
+  }
+
+  /**
+   * Put the collection back the way it was before
+   * {@link #startBulkLoad(CloudSolrClient, BulkLoadSettings)}: a replica of the
+   * same type is added for each one removed and the Config API properties
+   * are set back, or unset if they were not in the overlay.  Every step is
+   * tried even if one fails; failures are logged along with what was not put
+   * back.
+   * The amount of time used is logged.
+   *
+   * @param solr cloud server
+   * @param settings from {@link #getBulkLoadSettings(CloudSolrClient, String)}
+   *
+   * @return true if everything was put back
+   */
+  public static boolean endBulkLoad(final CloudSolrClient solr, final BulkLoadSettings settings) {
+    final String processName = "restoring collection after bulk load";
+    final long start = System.currentTimeMillis();
+    LOGGER.info(getStartOfProcessMessage(processName));
+    boolean restored = true;
+    for(Map.Entry<String, List<Replica.Type>> entry : settings.getRemovedReplicas().entrySet()) {
+      for(Replica.Type type : entry.getValue()) {
+        try {
+          LOGGER.info("adding {} replica to {}", type, entry.getKey());
+          CollectionAdminRequest.addReplicaToShard(settings.getCollectionName(), entry.getKey(), type).process(solr);
+        }
+        catch(Exception e) {
+          LOGGER.error(String.format("could not add %s replica to %s of %s", type, entry.getKey(), settings.getCollectionName()), e);
+          restored = false;
+        }
+      }
+    }
+    try {
+      sendConfigCommand(solr, settings.getCollectionName(), settings.getRestoreCommand());
+    }
+    catch(Exception e) {
+      LOGGER.error(String.format("could not restore the config of %s - send %s to /config", settings.getCollectionName(), settings.getRestoreCommand()), e);
+      restored = false;
+    }
+    LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
+    return restored;
+  }
+
+  /**
+   * @param aliasName alias the collection is for
+   * @param timeInMS time the rebuild started
+   *
+   * @return name of the collection a rebuild indexes into, e.g.
+   * products_20181022013000
+   */
+  public static String getRebuildCollectionName(final String aliasName, final long timeInMS) {
+    return aliasName + "_" + new SimpleDateFormat("yyyyMMddHHmmss").format(new Date(timeInMS));
+  }
+
+  /**
+   * Create a collection through the Collections API.
+   * The amount of time used is logged.
+   *
+   * @param solr cloud server
+   * @param collectionName name of the new collection
+   * @param configset name of the configset the collection uses
+   * @param shardCount number of shards
+   * @param replicationFactor number of replicas of each shard
+   *
+   * @throws SolrServerException when solr could not create the collection
+   * @throws IOException when there is an exception with IO
+   */
+  public static void createCollection(final CloudSolrClient solr, final String collectionName, final String configset, final int shardCount, final int replicationFactor) throws SolrServerException, IOException {
+    final String processName = String.format("creating collection %s [configset = %s, shards = %d, replicationFactor = %d]", collectionName, configset, shardCount, replicationFactor);
+    final long start = System.currentTimeMillis();
+    LOGGER.info(getStartOfProcessMessage(processName));
+    checkResponse(CollectionAdminRequest.createCollection(collectionName, configset, shardCount, replicationFactor).process(solr), processName);
+    LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
+  }
+
+  /**
+   * Delete a collection through the Collections API.
+   *
+   * @param solr cloud server
+   * @param collectionName name of the collection
+   *
+   * @throws SolrServerException when solr could not delete the collection
+   * @throws IOException when there is an exception with IO
+   */
+  public static void deleteCollection(final CloudSolrClient solr, final String collectionName) throws SolrServerException, IOException {
+    final String processName = "deleting collection " + collectionName;
+    final long start = System.currentTimeMillis();
+    LOGGER.info(getStartOfProcessMessage(processName));
+    checkResponse(CollectionAdminRequest.deleteCollection(collectionName).process(solr), processName);
+    LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
+  }
+
+  /**
+   * @param solr cloud server
+   * @param aliasName name of the alias
+   *
+   * @return collections the alias points at - empty if there is no such alias
+   *
+   * @throws SolrServerException when there is an exception with the solr server
+   * @throws IOException when there is an exception with IO
+   */
+  public static List<String> getAliasedCollections(final CloudSolrClient solr, final String aliasName) throws SolrServerException, IOException {
+    final List<String> collections = new CollectionAdminRequest.ListAliases().process(solr).getAliasesAsLists().get(aliasName);
+    return collections == null ? Collections.<String>emptyList() : collections;
+  }
+
+  /**
+   * Create the alias, or change it if it exists, so that it points at the
+   * collection.  Solr makes the change in one step so a query sent to the
+   * alias goes to either the old or the new collection.
+   *
+   * @param solr cloud server
+   * @param aliasName name of the alias
+   * @param collectionName collection the alias is to point at
+   *
+   * @throws SolrServerException when solr could not change the alias
+   * @throws IOException when there is an exception with IO
+   */
+  public static void createAlias(final CloudSolrClient solr, final String aliasName, final String collectionName) throws SolrServerException, IOException {
+    final String processName = String.format("pointing alias %s at %s", aliasName, collectionName);
+    LOGGER.info(processName);
+    checkResponse(CollectionAdminRequest.createAlias(aliasName, collectionName).process(solr), processName);
+  }
+
+  /**
+   * @param solr cloud server
+   * @param collectionName name of the collection
+   *
+   * @return number of documents a search of the collection finds
+   *
+   * @throws SolrServerException when there is an exception with the solr server
+   * @throws IOException when there is an exception with IO
+   */
+  public static long getDocCount(final CloudSolrClient solr, final String collectionName) throws SolrServerException, IOException {
+    final SolrQuery query = new SolrQuery("*:*");
+    query.setRows(0);
+    return solr.query(collectionName, query).getResults().getNumFound();
+  }
+
+  /**
+   * Read the schema of the collection for the fields solr can update in place.
+   *
+   * @param solr cloud server
+   * @param collectionName name of the collection
+   *
+   * @return names of the fields that can be updated in place
+   *
+   * @throws SolrServerException when there is an exception with the solr server
+   * @throws IOException when there is an exception with IO
+   */
+  public static Set<String> getInPlaceUpdatableFields(final CloudSolrClient solr, final String collectionName) throws SolrServerException, IOException {
+    final ModifiableSolrParams params = new ModifiableSolrParams();
+    params.set("showDefaults", true);
+    final List<Map<String, Object>> fields = new SchemaRequest.Fields(params).process(solr, collectionName).getFields();
+    final Map<String, String> typeClasses = new HashMap<>();
+    for(FieldTypeRepresentation fieldType : new SchemaRequest.FieldTypes().process(solr, collectionName).getFieldTypes()) {
+      typeClasses.put(String.valueOf(fieldType.getAttributes().get("name")), String.valueOf(fieldType.getAttributes().get("class")));
+    }
+    return getInPlaceUpdatableFields(fields, typeClasses);
+  }
+
+  /**
+   * A field can be updated in place when it is neither indexed nor stored,
+   * has doc values, is single valued and is one of the numeric types.
+   *
+   * @param fields attributes of each field, with the defaults of its type
+   * @param typeClasses map of field type name to field type class
+   *
+   * @return names of the fields that can be updated in place
+   */
+  static Set<String> getInPlaceUpdatableFields(final List<Map<String, Object>> fields, final Map<String, String> typeClasses) {
+    final Set<String> updatableFields = new HashSet<>();
+    for(Map<String, Object> field : fields) {
+      final String typeClass = typeClasses.get(String.valueOf(field.get("type")));
+      if(typeClass != null
+         && IN_PLACE_UPDATABLE_TYPE_CLASSES.contains(typeClass.substring(typeClass.lastIndexOf('.') + 1))
+         && !isTrue(field.get("indexed"))
+         && !isTrue(field.get("stored"))
+         && isTrue(field.get("docValues"))
+         && !isTrue(field.get("multiValued"))) {
+        updatableFields.add(String.valueOf(field.get("name")));
+      }
+    }
+    return updatableFields;
+  }
+
   /**
    * Call {@link org.apache.solr.client.solrj.impl.CloudSolrClient#close()}
    * The amount of time used for the shutdown call is logged.
@@ -112,6 +385,27 @@ public class SolrJCloudClientFacet {
     LOGGER.info(getEndOfProcessMessage(processName, start, System.currentTimeMillis()));
   }
 
+  /**
+   * Solr throws when a Collections API call fails outright; failures on some
+   * of the nodes are only reported in the response.
+   */
+  private static void checkResponse(final CollectionAdminResponse response, final String processName) throws SolrServerException {
+    if(response.getErrorMessages() != null) {
+      throw new SolrServerException(String.format("failed %s: %s", processName, response.getErrorMessages()));
+    }
+  }
+
+  private static boolean isTrue(final Object value) {
+    return Boolean.TRUE.equals(value) || "true".equals(value);
+  }
+
+  private static void sendConfigCommand(final CloudSolrClient solr, final String collectionName, final String command) throws SolrServerException, IOException {
+    LOGGER.info("sending config command: {}", command);
+    final GenericSolrRequest request = new GenericSolrRequest(SolrRequest.METHOD.POST, "/config", new ModifiableSolrParams());
+    request.setContentWriter(new RequestWriter.StringPayloadContentWriter(command, "application/json"));
+    solr.request(request, collectionName);
+  }
+
   /**
    * Return a string formatted using the given values.
    * <p/>
@@ -19,6 +19,7 @@ package com.likethecolor.solr.indexer.configuration;
 import com.likethecolor.solr.indexer.Constants;
 import org.slf4j.Logger;
 
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,25 +27,65 @@ import java.util.List;
  * This class handles the properties file and the command line flags.
  */
 public class Configuration implements Constants {
+  private Boolean adaptiveConcurrency;
+  private Long batchLingerMillis;
+  private Long batchMaxBytes;
+  private Integer batchQueueCapacity;
   private Integer batchSize;
+  private Long batchTargetLatencyMillis;
+  private Integer builderThreadCount;
+  private Boolean bulkLoad;
+  private String checkpointFile;
   private String collectionName;
+  private Integer commitWithinMillis;
   private Character csvDelimiter;
   private Character csvQuoteCharacter;
+  private Integer csvSplitCount;
+  private String dataFileEncoding;
   private DataTypeEnum dataType;
+  private String deadLetterFile;
+  private Integer decompressThreadCount;
+  private DocumentModeEnum documentMode;
   private String dynamicFields;
   private String fields;
   private String fieldsToJson;
   private Boolean firstRowIsHeader;
   private Boolean help;
+  private String inplaceFields;
+  private String inplaceIncrementFields;
+  private String jsonArrayPath;
+  private Integer jsonSplitCount;
   private String literals;
+  private Long maxSleepMillisBetweenRetries;
+  private Integer maxThreadCount;
+  private Integer minThreadCount;
   private String multivalueFieldDelimiter;
+  private Boolean noOverwrite;
   private Boolean optimizeIndex;
+  private Integer optimizeMaxSegments;
   private String pathToDataFile;
   private String pathToPropertiesFile;
+  private Boolean preSerializeBatches;
+  private Integer readerThreadCount;
+  private Boolean rebuild;
+  private String rebuildConfigset;
+  private Boolean rebuildDeleteOld;
+  private Long rebuildMaxMissingDocs;
+  private Integer rebuildReplicationFactor;
+  private Integer rebuildShardCount;
+  private Boolean resume;
+  private Long retryBufferBytes;
   private Integer retryCount;
+  private Integer rowQueueCapacity;
+  private Boolean shardRouting;
   private String skipFields;
+  private Boolean skipUpdateResponseParsing;
   private Long sleepMillisBetweenRetries;
   private Long softCommitFrequency;
+  private Long softCommitIntervalMillis;
+  private Boolean streamingUpdates;
+  private Integer streamMaxDocs;
+  private Long streamMaxMillis;
   private Integer threadCount;
   private String uniqueKeyFieldName;
   private String uniqueKeyFieldValue;
@@ -54,7 +95,21 @@ public class Configuration implements Constants {
   private String zookeeperHost;
 
   public Configuration() {
+    adaptiveConcurrency = false;
+    batchLingerMillis = DEFAULT_BATCH_LINGER_MILLIS;
+    batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+    batchQueueCapacity = DEFAULT_BATCH_QUEUE_CAPACITY;
     batchSize = DEFAULT_BATCH_SIZE;
+    batchTargetLatencyMillis = DEFAULT_BATCH_TARGET_LATENCY_MILLIS;
+    builderThreadCount = DEFAULT_BUILDER_THREAD_COUNT;
+    bulkLoad = false;
+    checkpointFile = null;
+    commitWithinMillis = DEFAULT_COMMIT_WITHIN_MILLIS;
+    csvSplitCount = DEFAULT_CSV_SPLIT_COUNT;
+    dataFileEncoding = DEFAULT_DATA_FILE_ENCODING;
+    deadLetterFile = null;
+    decompressThreadCount = DEFAULT_DECOMPRESS_THREAD_COUNT;
+    documentMode = DocumentModeEnum.get(DEFAULT_DOCUMENT_MODE);
     dynamicFields = null;
     collectionName = null;
     csvDelimiter = DEFAULT_CSV_DELIMITER;
@@ -65,15 +120,41 @@ public class Configuration implements Constants {
     fieldsToJson = null;
     firstRowIsHeader = false;
     help = false;
+    inplaceFields = null;
+    inplaceIncrementFields = null;
+    jsonArrayPath = null;
+    jsonSplitCount = DEFAULT_JSON_SPLIT_COUNT;
     literals = null;
+    maxSleepMillisBetweenRetries = DEFAULT_MAX_SLEEP_MILLIS_BETWEEN_RETRIES;
+    maxThreadCount = DEFAULT_MAX_THREAD_COUNT;
+    minThreadCount = DEFAULT_MIN_THREAD_COUNT;
     multivalueFieldDelimiter = DEFAULT_MULTIVALUE_FIELD_DELIMITER;
+    noOverwrite = false;
     optimizeIndex = false;
+    optimizeMaxSegments = DEFAULT_OPTIMIZE_MAX_SEGMENTS;
     pathToDataFile = null;
     pathToPropertiesFile = null;
+    preSerializeBatches = false;
+    readerThreadCount = DEFAULT_READER_THREAD_COUNT;
+    rebuild = false;
+    rebuildConfigset = null;
+    rebuildDeleteOld = false;
+    rebuildMaxMissingDocs = 0L;
+    rebuildReplicationFactor = DEFAULT_REBUILD_REPLICATION_FACTOR;
+    rebuildShardCount = DEFAULT_REBUILD_SHARD_COUNT;
+    resume = false;
+    retryBufferBytes = DEFAULT_RETRY_BUFFER_BYTES;
     retryCount = DEFAULT_RETRY_COUNT;
+    rowQueueCapacity = DEFAULT_ROW_QUEUE_CAPACITY;
+    shardRouting = false;
     skipFields = null;
+    skipUpdateResponseParsing = false;
     sleepMillisBetweenRetries = DEFAULT_SLEEP_MILLIS_BETWEEN_RETRIES;
     softCommitFrequency = 0L; // 0 = no soft commit, >= 1 soft commit after every x batches
+    softCommitIntervalMillis = DEFAULT_SOFT_COMMIT_INTERVAL_MILLIS;
+    streamingUpdates = false;
+    streamMaxDocs = DEFAULT_STREAM_MAX_DOCS;
+    streamMaxMillis = DEFAULT_STREAM_MAX_MILLIS;
     threadCount = DEFAULT_THREAD_COUNT;
     uniqueKeyFieldName = DEFAULT_UNIQUE_KEY_FIELD_NAME;
     uniqueKeyFieldValue = null;
@@ -83,6 +164,58 @@ public class Configuration implements Constants {
     zookeeperHost = null;
   }
 
+  public Boolean adaptiveConcurrency() {
+    return adaptiveConcurrency;
+  }
+
+  @ConfigurationValues(optionName = ADAPTIVE_CONCURRENCY_OPTION,
+      defaultValueBoolean = false)
+  public void setAdaptiveConcurrency(Boolean adaptiveConcurrency) {
+    if(adaptiveConcurrency == null) {
+      adaptiveConcurrency = false;
+    }
+    this.adaptiveConcurrency = adaptiveConcurrency;
+  }
+
+  public Long getBatchLingerMillis() {
+    return batchLingerMillis;
+  }
+
+  @ConfigurationValues(optionName = BATCH_LINGER_MILLIS_OPTION,
+      defaultValueLong = DEFAULT_BATCH_LINGER_MILLIS)
+  public void setBatchLingerMillis(Long batchLingerMillis) {
+    if(batchLingerMillis == null || batchLingerMillis < 0) {
+      batchLingerMillis = 0L;
+    }
+    this.batchLingerMillis = batchLingerMillis;
+  }
+
+  public Long getBatchMaxBytes() {
+    return batchMaxBytes;
+  }
+
+  @ConfigurationValues(optionName = BATCH_MAX_BYTES_OPTION,
+      defaultValueLong = DEFAULT_BATCH_MAX_BYTES)
+  public void setBatchMaxBytes(Long batchMaxBytes) {
+    if(batchMaxBytes == null || batchMaxBytes < 0) {
+      batchMaxBytes = 0L;
+    }
+    this.batchMaxBytes = batchMaxBytes;
+  }
+
+  public Integer getBatchQueueCapacity() {
+    return batchQueueCapacity;
+  }
+
+  @ConfigurationValues(optionName = BATCH_QUEUE_CAPACITY_OPTION,
+      defaultValueInteger = DEFAULT_BATCH_QUEUE_CAPACITY)
+  public void setBatchQueueCapacity(Integer batchQueueCapacity) {
+    if(batchQueueCapacity == null || batchQueueCapacity <= 0) {
+      batchQueueCapacity = 1;
+    }
+    this.batchQueueCapacity = batchQueueCapacity;
+  }
+
   public Integer getBatchSize() {
     return batchSize;
   }
@@ -93,6 +226,60 @@ public class Configuration implements Constants {
     this.batchSize = batchSize;
   }
 
+  public Long getBatchTargetLatencyMillis() {
+    return batchTargetLatencyMillis;
+  }
+
+  @ConfigurationValues(optionName = BATCH_TARGET_LATENCY_MILLIS_OPTION,
+      defaultValueLong = DEFAULT_BATCH_TARGET_LATENCY_MILLIS)
+  public void setBatchTargetLatencyMillis(Long batchTargetLatencyMillis) {
+    if(batchTargetLatencyMillis == null || batchTargetLatencyMillis < 0) {
+      batchTargetLatencyMillis = 0L;
+    }
+    this.batchTargetLatencyMillis = batchTargetLatencyMillis;
+  }
+
+  public Integer getBuilderThreadCount() {
+    return builderThreadCount;
+  }
+
+  @ConfigurationValues(optionName = BUILDER_THREAD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_BUILDER_THREAD_COUNT)
+  public void setBuilderThreadCount(Integer builderThreadCount) {
+    if(builderThreadCount == null || builderThreadCount <= 0) {
+      builderThreadCount = 1;
+    }
+    this.builderThreadCount = builderThreadCount;
+  }
+
+  public Boolean bulkLoad() {
+    return bulkLoad;
+  }
+
+  @ConfigurationValues(optionName = BULK_LOAD_OPTION,
+      defaultValueBoolean = false)
+  public void setBulkLoad(Boolean bulkLoad) {
+    if(bulkLoad == null) {
+      bulkLoad = false;
+    }
+    this.bulkLoad = bulkLoad;
+  }
+
+  public String getCheckpointFile() {
+    return checkpointFile;
+  }
+
+  @ConfigurationValues(optionName = CHECKPOINT_FILE_OPTION)
+  public void setCheckpointFile(String checkpointFile) {
+    if(checkpointFile != null) {
+      checkpointFile = checkpointFile.trim();
+      if(checkpointFile.length() == 0) {
+        checkpointFile = null;
+      }
+    }
+    this.checkpointFile = checkpointFile;
+  }
+
   public String getCollectionName() {
     return collectionName;
   }
@@ -105,6 +292,19 @@ public class Configuration implements Constants {
     this.collectionName = collectionName;
   }
 
+  public Integer getCommitWithinMillis() {
+    return commitWithinMillis;
+  }
+
+  @ConfigurationValues(optionName = COMMIT_WITHIN_MILLIS_OPTION,
+      defaultValueInteger = DEFAULT_COMMIT_WITHIN_MILLIS)
+  public void setCommitWithinMillis(Integer commitWithinMillis) {
+    if(commitWithinMillis == null || commitWithinMillis < 0) {
+      commitWithinMillis = 0;
+    }
+    this.commitWithinMillis = commitWithinMillis;
+  }
+
   public char getCsvDelimiter() {
     return csvDelimiter;
   }
@@ -129,6 +329,45 @@ public class Configuration implements Constants {
     this.csvQuoteCharacter = csvQuoteCharacter;
   }
 
+  public Integer getCsvSplitCount() {
+    return csvSplitCount;
+  }
+
+  @ConfigurationValues(optionName = CSV_SPLIT_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_CSV_SPLIT_COUNT)
+  public void setCsvSplitCount(Integer csvSplitCount) {
+    if(csvSplitCount == null || csvSplitCount <= 0) {
+      csvSplitCount = 1;
+    }
+    this.csvSplitCount = csvSplitCount;
+  }
+
+  public String getDataFileEncoding() {
+    return dataFileEncoding;
+  }
+
+  @ConfigurationValues(optionName = DATA_FILE_ENCODING_OPTION,
+      defaultValue = DEFAULT_DATA_FILE_ENCODING)
+  public void setDataFileEncoding(String dataFileEncoding) {
+    if(dataFileEncoding != null) {
+      dataFileEncoding = dataFileEncoding.trim();
+    }
+    if(dataFileEncoding == null || dataFileEncoding.length() == 0) {
+      dataFileEncoding = DEFAULT_DATA_FILE_ENCODING;
+    }
+    this.dataFileEncoding = dataFileEncoding;
+  }
+
+  /**
+   * @return charset of the data file encoding
+   *
+   * @throws java.nio.charset.UnsupportedCharsetException if the encoding is not
+   * supported - see {@link ConfigurationValidator}
+   */
+  public Charset getDataFileCharset() {
+    return Charset.forName(dataFileEncoding);
+  }
+
   public DataTypeEnum getDataType() {
     return dataType;
   }
@@ -143,6 +382,44 @@ public class Configuration implements Constants {
     return dynamicFields;
   }
 
+  public String getDeadLetterFile() {
+    return deadLetterFile;
+  }
+
+  @ConfigurationValues(optionName = DEAD_LETTER_FILE_OPTION)
+  public void setDeadLetterFile(String deadLetterFile) {
+    if(deadLetterFile != null) {
+      deadLetterFile = deadLetterFile.trim();
+      if(deadLetterFile.length() == 0) {
+        deadLetterFile = null;
+      }
+    }
+    this.deadLetterFile = deadLetterFile;
+  }
+
+  public Integer getDecompressThreadCount() {
+    return decompressThreadCount;
+  }
+
+  @ConfigurationValues(optionName = DECOMPRESS_THREAD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_DECOMPRESS_THREAD_COUNT)
+  public void setDecompressThreadCount(Integer decompressThreadCount) {
+    if(decompressThreadCount == null || decompressThreadCount <= 0) {
+      decompressThreadCount = 1;
+    }
+    this.decompressThreadCount = decompressThreadCount;
+  }
+
+  public DocumentModeEnum getDocumentMode() {
+    return documentMode;
+  }
+
+  @ConfigurationValues(optionName = DOCUMENT_MODE_OPTION,
+      defaultValue = DEFAULT_DOCUMENT_MODE)
+  public void setDocumentMode(String documentMode) {
+    this.documentMode = DocumentModeEnum.get(documentMode);
+  }
+
   @ConfigurationValues(optionName = DYNAMIC_OPTION)
   public void setDynamicFields(String dynamicFields) {
     if(dynamicFields != null) {
@@ -200,6 +477,64 @@ public class Configuration implements Constants {
     return help;
   }
 
+  public String getInplaceFields() {
+    return inplaceFields;
+  }
+
+  @ConfigurationValues(optionName = INPLACE_FIELDS_OPTION)
+  public void setInplaceFields(String inplaceFields) {
+    if(inplaceFields != null) {
+      inplaceFields = inplaceFields.trim();
+      if(inplaceFields.length() == 0) {
+        inplaceFields = null;
+      }
+    }
+    this.inplaceFields = inplaceFields;
+  }
+
+  public String getInplaceIncrementFields() {
+    return inplaceIncrementFields;
+  }
+
+  @ConfigurationValues(optionName = INPLACE_INCREMENT_FIELDS_OPTION)
+  public void setInplaceIncrementFields(String inplaceIncrementFields) {
+    if(inplaceIncrementFields != null) {
+      inplaceIncrementFields = inplaceIncrementFields.trim();
+      if(inplaceIncrementFields.length() == 0) {
+        inplaceIncrementFields = null;
+      }
+    }
+    this.inplaceIncrementFields = inplaceIncrementFields;
+  }
+
+  public String getJsonArrayPath() {
+    return jsonArrayPath;
+  }
+
+  @ConfigurationValues(optionName = JSON_ARRAY_PATH_OPTION)
+  public void setJsonArrayPath(String jsonArrayPath) {
+    if(jsonArrayPath != null) {
+      jsonArrayPath = jsonArrayPath.trim();
+      if(jsonArrayPath.length() == 0) {
+        jsonArrayPath = null;
+      }
+    }
+    this.jsonArrayPath = jsonArrayPath;
+  }
+
+  public Integer getJsonSplitCount() {
+    return jsonSplitCount;
+  }
+
+  @ConfigurationValues(optionName = JSON_SPLIT_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_JSON_SPLIT_COUNT)
+  public void setJsonSplitCount(Integer jsonSplitCount) {
+    if(jsonSplitCount == null || jsonSplitCount <= 0) {
+      jsonSplitCount = 1;
+    }
+    this.jsonSplitCount = jsonSplitCount;
+  }
+
   public String getLiterals() {
     return literals;
   }
@@ -212,6 +547,45 @@ public class Configuration implements Constants {
     this.literals = literals;
   }
 
+  public Long getMaxSleepMillisBetweenRetries() {
+    return maxSleepMillisBetweenRetries;
+  }
+
+  @ConfigurationValues(optionName = MAX_SLEEP_MILLIS_BETWEEN_RETRIES_OPTION,
+      defaultValueLong = DEFAULT_MAX_SLEEP_MILLIS_BETWEEN_RETRIES)
+  public void setMaxSleepMillisBetweenRetries(Long maxSleepMillisBetweenRetries) {
+    if(maxSleepMillisBetweenRetries == null || maxSleepMillisBetweenRetries < 0) {
+      maxSleepMillisBetweenRetries = 0L;
+    }
+    this.maxSleepMillisBetweenRetries = maxSleepMillisBetweenRetries;
+  }
+
+  public Integer getMaxThreadCount() {
+    return maxThreadCount;
+  }
+
+  @ConfigurationValues(optionName = MAX_THREAD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_MAX_THREAD_COUNT)
+  public void setMaxThreadCount(Integer maxThreadCount) {
+    if(maxThreadCount == null || maxThreadCount <= 0) {
+      maxThreadCount = 1;
+    }
+    this.maxThreadCount = maxThreadCount;
+  }
+
+  public Integer getMinThreadCount() {
+    return minThreadCount;
+  }
+
+  @ConfigurationValues(optionName = MIN_THREAD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_MIN_THREAD_COUNT)
+  public void setMinThreadCount(Integer minThreadCount) {
+    if(minThreadCount == null || minThreadCount <= 0) {
+      minThreadCount = 1;
+    }
+    this.minThreadCount = minThreadCount;
+  }
+
   public String getMultivalueFieldDelimiter() {
     return multivalueFieldDelimiter;
   }
@@ -224,6 +598,19 @@ public class Configuration implements Constants {
     this.multivalueFieldDelimiter = multivalueFieldDelimiter;
   }
 
+  public Boolean noOverwrite() {
+    return noOverwrite;
+  }
+
+  @ConfigurationValues(optionName = NO_OVERWRITE_OPTION,
+      defaultValueBoolean = false)
+  public void setNoOverwrite(Boolean noOverwrite) {
+    if(noOverwrite == null) {
+      noOverwrite = false;
+    }
+    this.noOverwrite = noOverwrite;
+  }
+
   @ConfigurationValues(optionName = OPTIMIZE_INDEX_OPTION,
       defaultValueBoolean = false)
   public void setOptimizeIndex(Boolean optimizeIndex) {
@@ -237,6 +624,19 @@ public class Configuration implements Constants {
     return optimizeIndex;
   }
 
+  public Integer getOptimizeMaxSegments() {
+    return optimizeMaxSegments;
+  }
+
+  @ConfigurationValues(optionName = OPTIMIZE_MAX_SEGMENTS_OPTION,
+      defaultValueInteger = DEFAULT_OPTIMIZE_MAX_SEGMENTS)
+  public void setOptimizeMaxSegments(Integer optimizeMaxSegments) {
+    if(optimizeMaxSegments == null || optimizeMaxSegments <= 0) {
+      optimizeMaxSegments = 1;
+    }
+    this.optimizeMaxSegments = optimizeMaxSegments;
+  }
+
   public String getPathToDataFile() {
     return pathToDataFile;
   }
@@ -261,6 +661,138 @@ public class Configuration implements Constants {
     this.pathToPropertiesFile = pathToPropertiesFile;
   }
 
+  public Boolean preSerializeBatches() {
+    return preSerializeBatches;
+  }
+
+  @ConfigurationValues(optionName = PRE_SERIALIZE_BATCHES_OPTION,
+      defaultValueBoolean = false)
+  public void setPreSerializeBatches(Boolean preSerializeBatches) {
+    if(preSerializeBatches == null) {
+      preSerializeBatches = false;
+    }
+    this.preSerializeBatches = preSerializeBatches;
+  }
+
+  public Integer getReaderThreadCount() {
+    return readerThreadCount;
+  }
+
+  @ConfigurationValues(optionName = READER_THREAD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_READER_THREAD_COUNT)
+  public void setReaderThreadCount(Integer readerThreadCount) {
+    if(readerThreadCount == null || readerThreadCount <= 0) {
+      readerThreadCount = 1;
+    }
+    this.readerThreadCount = readerThreadCount;
+  }
+
+  public Boolean rebuild() {
+    return rebuild;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_OPTION,
+      defaultValueBoolean = false)
+  public void setRebuild(Boolean rebuild) {
+    if(rebuild == null) {
+      rebuild = false;
+    }
+    this.rebuild = rebuild;
+  }
+
+  public String getRebuildConfigset() {
+    return rebuildConfigset;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_CONFIGSET_OPTION)
+  public void setRebuildConfigset(String rebuildConfigset) {
+    if(rebuildConfigset != null) {
+      rebuildConfigset = rebuildConfigset.trim();
+      if(rebuildConfigset.length() == 0) {
+        rebuildConfigset = null;
+      }
+    }
+    this.rebuildConfigset = rebuildConfigset;
+  }
+
+  public Boolean rebuildDeleteOld() {
+    return rebuildDeleteOld;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_DELETE_OLD_OPTION,
+      defaultValueBoolean = false)
+  public void setRebuildDeleteOld(Boolean rebuildDeleteOld) {
+    if(rebuildDeleteOld == null) {
+      rebuildDeleteOld = false;
+    }
+    this.rebuildDeleteOld = rebuildDeleteOld;
+  }
+
+  public Long getRebuildMaxMissingDocs() {
+    return rebuildMaxMissingDocs;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_MAX_MISSING_DOCS_OPTION,
+      defaultValueLong = 0L)
+  public void setRebuildMaxMissingDocs(Long rebuildMaxMissingDocs) {
+    if(rebuildMaxMissingDocs == null || rebuildMaxMissingDocs < 0) {
+      rebuildMaxMissingDocs = 0L;
+    }
+    this.rebuildMaxMissingDocs = rebuildMaxMissingDocs;
+  }
+
+  public Integer getRebuildReplicationFactor() {
+    return rebuildReplicationFactor;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_REPLICATION_FACTOR_OPTION,
+      defaultValueInteger = DEFAULT_REBUILD_REPLICATION_FACTOR)
+  public void setRebuildReplicationFactor(Integer rebuildReplicationFactor) {
+    if(rebuildReplicationFactor == null || rebuildReplicationFactor <= 0) {
+      rebuildReplicationFactor = 1;
+    }
+    this.rebuildReplicationFactor = rebuildReplicationFactor;
+  }
+
+  public Integer getRebuildShardCount() {
+    return rebuildShardCount;
+  }
+
+  @ConfigurationValues(optionName = REBUILD_SHARD_COUNT_OPTION,
+      defaultValueInteger = DEFAULT_REBUILD_SHARD_COUNT)
+  public void setRebuildShardCount(Integer rebuildShardCount) {
+    if(rebuildShardCount == null || rebuildShardCount <= 0) {
+      rebuildShardCount = 1;
+    }
+    this.rebuildShardCount = rebuildShardCount;
+  }
+
+  public Boolean resume() {
+    return resume;
+  }
+
+  @ConfigurationValues(optionName = RESUME_OPTION,
+      defaultValueBoolean = false)
+  public void setResume(Boolean resume) {
+    if(resume == null) {
+      resume = false;
+    }
+    this.resume = resume;
+  }
+
+  public Long getRetryBufferBytes() {
+    return retryBufferBytes;
+  }
+
+  @ConfigurationValues(optionName = RETRY_BUFFER_BYTES_OPTION,
+      defaultValueLong = DEFAULT_RETRY_BUFFER_BYTES)
+  public void setRetryBufferBytes(Long retryBufferBytes) {
+    if(retryBufferBytes == null || retryBufferBytes < 0) {
+      retryBufferBytes = 0L;
+    }
+    this.retryBufferBytes = retryBufferBytes;
+  }
+
   public Integer getRetryCount() {
     return retryCount;
   }
@@ -274,6 +806,32 @@ public class Configuration implements Constants {
     this.retryCount = retryCount;
   }
 
+  public Integer getRowQueueCapacity() {
+    return rowQueueCapacity;
+  }
+
+  @ConfigurationValues(optionName = ROW_QUEUE_CAPACITY_OPTION,
+      defaultValueInteger = DEFAULT_ROW_QUEUE_CAPACITY)
+  public void setRowQueueCapacity(Integer rowQueueCapacity) {
+    if(rowQueueCapacity == null || rowQueueCapacity <= 0) {
+      rowQueueCapacity = 1;
+    }
+    this.rowQueueCapacity = rowQueueCapacity;
+  }
+
+  public Boolean shardRouting() {
+    return shardRouting;
+  }
+
+  @ConfigurationValues(optionName = SHARD_ROUTING_OPTION,
+      defaultValueBoolean = false)
+  public void setShardRouting(Boolean shardRouting) {
+    if(shardRouting == null) {
+      shardRouting = false;
+    }
+    this.shardRouting = shardRouting;
+  }
+
   public String getSkipFields() {
     return skipFields;
   }
@@ -286,6 +844,19 @@ public class Configuration implements Constants {
     this.skipFields = skipFields;
   }
 
+  public Boolean skipUpdateResponseParsing() {
+    return skipUpdateResponseParsing;
+  }
+
+  @ConfigurationValues(optionName = SKIP_UPDATE_RESPONSE_PARSING_OPTION,
+      defaultValueBoolean = false)
+  public void setSkipUpdateResponseParsing(Boolean skipUpdateResponseParsing) {
+    if(skipUpdateResponseParsing == null) {
+      skipUpdateResponseParsing = false;
+    }
+    this.skipUpdateResponseParsing = skipUpdateResponseParsing;
+  }
+
   public Long getSleepMillisBetweenRetries() {
     return sleepMillisBetweenRetries;
   }
@@ -312,6 +883,58 @@ public class Configuration implements Constants {
     this.softCommitFrequency = softCommitFrequency;
   }
 
+  public Long getSoftCommitIntervalMillis() {
+    return softCommitIntervalMillis;
+  }
+
+  @ConfigurationValues(optionName = SOFT_COMMIT_INTERVAL_MILLIS_OPTION,
+      defaultValueLong = DEFAULT_SOFT_COMMIT_INTERVAL_MILLIS)
+  public void setSoftCommitIntervalMillis(Long softCommitIntervalMillis) {
+    if(softCommitIntervalMillis == null || softCommitIntervalMillis < 0) {
+      softCommitIntervalMillis = 0L;
+    }
+    this.softCommitIntervalMillis = softCommitIntervalMillis;
+  }
+
+  public Boolean streamingUpdates() {
+    return streamingUpdates;
+  }
+
+  @ConfigurationValues(optionName = STREAMING_UPDATES_OPTION,
+      defaultValueBoolean = false)
+  public void setStreamingUpdates(Boolean streamingUpdates) {
+    if(streamingUpdates == null) {
+      streamingUpdates = false;
+    }
+    this.streamingUpdates = streamingUpdates;
+  }
+
+  public Integer getStreamMaxDocs() {
+    return streamMaxDocs;
+  }
+
+  @ConfigurationValues(optionName = STREAM_MAX_DOCS_OPTION,
+      defaultValueInteger = DEFAULT_STREAM_MAX_DOCS)
+  public void setStreamMaxDocs(Integer streamMaxDocs) {
+    if(streamMaxDocs == null || streamMaxDocs <= 0) {
+      streamMaxDocs = 1;
+    }
+    this.streamMaxDocs = streamMaxDocs;
+  }
+
+  public Long getStreamMaxMillis() {
+    return streamMaxMillis;
+  }
+
+  @ConfigurationValues(optionName = STREAM_MAX_MILLIS_OPTION,
+      defaultValueLong = DEFAULT_STREAM_MAX_MILLIS)
+  public void setStreamMaxMillis(Long streamMaxMillis) {
+    if(streamMaxMillis == null || streamMaxMillis <= 0) {
+      streamMaxMillis = 1L;
+    }
+    this.streamMaxMillis = streamMaxMillis;
+  }
+
   public Integer getThreadCount() {
     return threadCount;
   }
@@ -422,26 +1045,66 @@ public class Configuration implements Constants {
 
   private List<String> toStringList() {
     final List<String> toString = new ArrayList<>();
+    toString.add("adaptive concurrency: " + (adaptiveConcurrency() ? "true" : "false"));
+    toString.add("batch linger millis: " + getBatchLingerMillis());
+    toString.add("batch max bytes: " + getBatchMaxBytes());
+    toString.add("batch queue capacity: " + getBatchQueueCapacity());
     toString.add("batch size: " + getBatchSize());
+    toString.add("batch target latency millis: " + getBatchTargetLatencyMillis());
+    toString.add("builder thread count: " + getBuilderThreadCount());
+    toString.add("bulk load: " + (bulkLoad() ? "true" : "false"));
+    toString.add("checkpoint file: " + getCheckpointFile());
     toString.add("collection name: " + getCollectionName());
+    toString.add("commit within millis: " + getCommitWithinMillis());
     toString.add("csv delimiter: " + getCsvDelimiter());
     toString.add("csv quote character: " + getCsvQuoteCharacter());
+    toString.add("csv split count: " + getCsvSplitCount());
+    toString.add("data file encoding: " + getDataFileEncoding());
     toString.add("data type: " + getDataType().getName());
+    toString.add("dead letter file: " + getDeadLetterFile());
+    toString.add("decompress thread count: " + getDecompressThreadCount());
+    toString.add("document mode: " + getDocumentMode().getName());
     toString.add("dynamic fields: " + getDynamicFields());
     toString.add("fields: " + getFields());
     toString.add("fields to json: " + getFieldsToJSON());
     toString.add("first row is header: " + (firstRowIsHeader() ? "true"
                                                                : "false"));
     toString.add("help: " + (help() ? "true" : "false"));
+    toString.add("inplace fields: " + getInplaceFields());
+    toString.add("inplace increment fields: " + getInplaceIncrementFields());
+    toString.add("json array path: " + getJsonArrayPath());
+    toString.add("json split count: " + getJsonSplitCount());
     toString.add("literals: " + getLiterals());
+    toString.add("max sleep millis between retries: " + getMaxSleepMillisBetweenRetries());
+    toString.add("max thread count: " + getMaxThreadCount());
+    toString.add("min thread count: " + getMinThreadCount());
     toString.add("multi-value field delimiter: " + getMultivalueFieldDelimiter());
+    toString.add("no overwrite: " + (noOverwrite() ? "true" : "false"));
     toString.add("optimize index: " + (optimizeIndex() ? "true" : "false"));
+    toString.add("optimize max segments: " + getOptimizeMaxSegments());
     toString.add("path to data file: " + getPathToDataFile());
+    toString.add("pre-serialize batches: " + (preSerializeBatches() ? "true" : "false"));
     toString.add("property file: " + getPathToPropertiesFile());
+    toString.add("reader thread count: " + getReaderThreadCount());
+    toString.add("rebuild: " + (rebuild() ? "true" : "false"));
+    toString.add("rebuild configset: " + getRebuildConfigset());
+    toString.add("rebuild delete old: " + (rebuildDeleteOld() ? "true" : "false"));
+    toString.add("rebuild max missing docs: " + getRebuildMaxMissingDocs());
+    toString.add("rebuild replication factor: " + getRebuildReplicationFactor());
+    toString.add("rebuild shard count: " + getRebuildShardCount());
+    toString.add("resume: " + (resume() ? "true" : "false"));
+    toString.add("retry buffer bytes: " + getRetryBufferBytes());
     toString.add("retry count: " + getRetryCount());
+    toString.add("row queue capacity: " + getRowQueueCapacity());
+    toString.add("shard routing: " + (shardRouting() ? "true" : "false"));
     toString.add("skip fields: " + getSkipFields());
+    toString.add("skip update response parsing: " + (skipUpdateResponseParsing() ? "true" : "false"));
     toString.add("sleep millis between retries: " + getSleepMillisBetweenRetries());
     toString.add("soft commit frequency: " + getSoftCommitFrequency());
+    toString.add("soft commit interval millis: " + getSoftCommitIntervalMillis());
+    toString.add("stream max docs: " + getStreamMaxDocs());
+    toString.add("stream max millis: " + getStreamMaxMillis());
+    toString.add("streaming updates: " + (streamingUpdates() ? "true" : "false"));
     toString.add("thread count: " + getThreadCount());
     toString.add("unique key field name: " + getUniqueKeyFieldName());
     toString.add("unique key field value: " + getUniqueKeyFieldValue());
@@ -17,6 +17,10 @@
 package com.likethecolor.solr.indexer.configuration;
 
 import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.json.JSONPath;
+
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
 
 public class ConfigurationValidator implements Constants {
   public void validate(Configuration configuration) {
@@ -36,17 +40,109 @@ public class ConfigurationValidator implements Constants {
           "path to data file (--%s) is required",
           PATH_TO_DATA_FILE_OPTION));
     }
-    if(configuration.getDataType().getName().equals(DATA_TYPE_JSON)
+    if(isJSON(configuration)
         && isNullOrEmpty(configuration.getFieldsToJSON())) {
       throw new IllegalArgumentException(String.format(
           "--%s cannot be empty for %s data type (--%s)",
-          FIELDS_TO_JSON_OPTION, DATA_TYPE_JSON, DATA_TYPE_OPTION));
+          FIELDS_TO_JSON_OPTION, configuration.getDataType().getName(), DATA_TYPE_OPTION));
+    }
+    if(isJSON(configuration)) {
+      validateJSONPaths(configuration);
     }
-    if(configuration.getDataType().getName().equals(DATA_TYPE_CSV)
+    if(configuration.getJsonArrayPath() != null) {
+      if(configuration.getDataType() != DataTypeEnum.JSON_ARRAY) {
+        throw new IllegalArgumentException(String.format(
+            "--%s is only used with the %s data type (--%s)",
+            JSON_ARRAY_PATH_OPTION, DATA_TYPE_JSON_ARRAY, DATA_TYPE_OPTION));
+      }
+      if(!isArrayPath(configuration.getJsonArrayPath())) {
+        throw new IllegalArgumentException(String.format(
+            "--%s '%s' must be keys separated by '.'",
+            JSON_ARRAY_PATH_OPTION, configuration.getJsonArrayPath()));
+      }
+    }
+    if(isCSV(configuration)
         && isNullOrEmpty(configuration.getFields())) {
       throw new IllegalArgumentException(String.format(
           "--%s cannot be empty for %s data type (--%s)",
-          FIELDS_OPTION, DATA_TYPE_CSV, DATA_TYPE_OPTION));
+          FIELDS_OPTION, configuration.getDataType().getName(), DATA_TYPE_OPTION));
+    }
+    if(!isSupportedCharset(configuration.getDataFileEncoding())) {
+      throw new IllegalArgumentException(String.format(
+          "data file encoding (--%s) '%s' is not supported",
+          DATA_FILE_ENCODING_OPTION, configuration.getDataFileEncoding()));
+    }
+    if(configuration.resume() && isNullOrEmpty(configuration.getCheckpointFile())) {
+      throw new IllegalArgumentException(String.format(
+          "--%s requires a checkpoint file (--%s)",
+          RESUME_OPTION, CHECKPOINT_FILE_OPTION));
+    }
+    if(configuration.rebuild() && isNullOrEmpty(configuration.getRebuildConfigset())) {
+      throw new IllegalArgumentException(String.format(
+          "--%s requires a configset (--%s)",
+          REBUILD_OPTION, REBUILD_CONFIGSET_OPTION));
+    }
+    if(configuration.rebuild() && configuration.resume()) {
+      throw new IllegalArgumentException(String.format(
+          "--%s cannot be used with --%s as each rebuild indexes into a new collection",
+          REBUILD_OPTION, RESUME_OPTION));
+    }
+    if(configuration.noOverwrite() && !configuration.rebuild() && configuration.getDocumentMode() != DocumentModeEnum.FULL) {
+      throw new IllegalArgumentException(String.format(
+          "--%s requires --%s %s or --%s as updates must replace the existing document",
+          NO_OVERWRITE_OPTION, DOCUMENT_MODE_OPTION, DOCUMENT_MODE_FULL, REBUILD_OPTION));
+    }
+    if(!configuration.rebuild() && configuration.getDocumentMode() == DocumentModeEnum.INPLACE
+       && isNullOrEmpty(configuration.getInplaceFields()) && isNullOrEmpty(configuration.getInplaceIncrementFields())) {
+      throw new IllegalArgumentException(String.format(
+          "--%s %s requires the fields to update (--%s or --%s)",
+          DOCUMENT_MODE_OPTION, DOCUMENT_MODE_INPLACE, INPLACE_FIELDS_OPTION, INPLACE_INCREMENT_FIELDS_OPTION));
+    }
+  }
+
+  /**
+   * Only the paths are checked here - the rest of the mapping is checked as
+   * it always has been, when it is used.
+   */
+  private void validateJSONPaths(Configuration configuration) {
+    for(String mapping : configuration.getFieldsToJSON().split(LIST_DELIMITER)) {
+      String[] values = mapping.split(LIST_ELEMENT_DELIMITER);
+      if(values.length == 2 && JSONPath.isPath(values[1])) {
+        try {
+          JSONPath.compile(values[1]);
+        }
+        catch(IllegalArgumentException e) {
+          throw new IllegalArgumentException(String.format(
+              "--%s: %s",
+              FIELDS_TO_JSON_OPTION, e.getMessage()));
+        }
+      }
+    }
+  }
+
+  private boolean isJSON(Configuration configuration) {
+    return configuration.getDataType() == DataTypeEnum.JSON || configuration.getDataType() == DataTypeEnum.JSON_ARRAY;
+  }
+
+  private boolean isCSV(Configuration configuration) {
+    return configuration.getDataType() == DataTypeEnum.CSV || configuration.getDataType() == DataTypeEnum.FAST_CSV;
+  }
+
+  private boolean isArrayPath(String path) {
+    try {
+      return !JSONPath.compile(path).isMultivalued();
+    }
+    catch(IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private boolean isSupportedCharset(String charsetName) {
+    try {
+      return Charset.isSupported(charsetName);
+    }
+    catch(IllegalCharsetNameException e) {
+      return false;
     }
   }
 
@@ -25,12 +25,24 @@ public enum DataTypeEnum implements Constants {
       return DATA_TYPE_CSV;
     }
   },
+  FAST_CSV {
+    @Override
+    public String getName() {
+      return DATA_TYPE_FAST_CSV;
+    }
+  },
   JSON {
     @Override
     public String getName() {
       return DATA_TYPE_JSON;
     }
   },
+  JSON_ARRAY {
+    @Override
+    public String getName() {
+      return DATA_TYPE_JSON_ARRAY;
+    }
+  },
   DEFAULT {
     @Override
     public String getName() {
@@ -42,9 +54,15 @@ public enum DataTypeEnum implements Constants {
     if(CSV.getName().equalsIgnoreCase(dataType)) {
       return CSV;
     }
+    if(FAST_CSV.getName().equalsIgnoreCase(dataType)) {
+      return FAST_CSV;
+    }
     if(JSON.getName().equalsIgnoreCase(dataType)) {
       return JSON;
     }
+    if(JSON_ARRAY.getName().equalsIgnoreCase(dataType)) {
+      return JSON_ARRAY;
+    }
     return DEFAULT;
   }
 
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.configuration;
+
+import com.likethecolor.solr.indexer.Constants;
+
+/**
+ * How each row is sent to solr: as a whole document, as an atomic update or
+ * as an in-place update.
+ */
+public enum DocumentModeEnum implements Constants {
+  FULL {
+    @Override
+    public String getName() {
+      return DOCUMENT_MODE_FULL;
+    }
+  },
+  ATOMIC {
+    @Override
+    public String getName() {
+      return DOCUMENT_MODE_ATOMIC;
+    }
+  },
+  INPLACE {
+    @Override
+    public String getName() {
+      return DOCUMENT_MODE_INPLACE;
+    }
+  };
+
+  public static DocumentModeEnum get(String documentMode) {
+    if(FULL.getName().equalsIgnoreCase(documentMode)) {
+      return FULL;
+    }
+    if(INPLACE.getName().equalsIgnoreCase(documentMode)) {
+      return INPLACE;
+    }
+    return ATOMIC;
+  }
+
+  public abstract String getName();
+}
@@ -56,18 +56,78 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(ADAPTIVE_CONCURRENCY_OPTION)
+        .desc("Use if the number of batches sent at the same time should follow how solr is coping, between min-thread-count and max-thread-count.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(BULK_LOAD_OPTION)
+        .desc("Use to tune the collection for ingest while indexing and put its settings back afterwards.")
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(HELP_OPTION)
         .desc("This usage message.")
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(NO_OVERWRITE_OPTION)
+        .desc("Use with document-mode full when no document in the collection has the unique key of a row.")
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(OPTIMIZE_INDEX_OPTION)
         .desc("Use if the index should be optimized.")
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(PRE_SERIALIZE_BATCHES_OPTION)
+        .desc("Use if batches should be encoded to javabin by the builder threads so the sender threads only send bytes.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_OPTION)
+        .desc("Use to index into a new collection and point the collection-name alias at it.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_DELETE_OLD_OPTION)
+        .desc("Use to delete the collection the alias pointed at before --rebuild changed it.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(RESUME_OPTION)
+        .desc("Use to carry on from the row after the one recorded in the checkpoint file.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(SHARD_ROUTING_OPTION)
+        .desc("Use if documents should be grouped by shard before they are sent so each request goes to one shard leader.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(SKIP_UPDATE_RESPONSE_PARSING_OPTION)
+        .desc("Use with pre-serialize-batches if only the http status of an update response should be looked at.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(STREAMING_UPDATES_OPTION)
+        .desc("Use if documents should be streamed to each shard leader over one long lived update request rather than sent a batch per request.")
+        .build();
+    options.addOption(option);
+
     // requires an argument
     option = Option.builder()
         .longOpt(SOFT_COMMIT_FREQUENCY)
@@ -77,6 +137,30 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(BATCH_LINGER_MILLIS_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("Send a batch that is not full once its first document has waited this many milliseconds.  0 means wait for a full batch.", DEFAULT_BATCH_LINGER_MILLIS))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(BATCH_MAX_BYTES_OPTION)
+        .hasArg()
+        .argName("bytes")
+        .desc(getDescription("Close a batch once the estimated size of its documents reaches this many bytes.  0 means batches are only closed by the batch size.", DEFAULT_BATCH_MAX_BYTES))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(BATCH_QUEUE_CAPACITY_OPTION)
+        .hasArg()
+        .argName(String.valueOf(DEFAULT_BATCH_QUEUE_CAPACITY))
+        .desc(getDescription("Number of built batches that may wait to be sent to the solr server.", DEFAULT_BATCH_QUEUE_CAPACITY))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(BATCH_SIZE_OPTION)
         .hasArg()
@@ -85,6 +169,30 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(BATCH_TARGET_LATENCY_MILLIS_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("Grow or shrink the batch byte target so that each update request takes about this many milliseconds.  0 means the byte target does not change.", DEFAULT_BATCH_TARGET_LATENCY_MILLIS))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(BUILDER_THREAD_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Number of threads that turn rows from the data file into documents.", DEFAULT_BUILDER_THREAD_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(CHECKPOINT_FILE_OPTION)
+        .hasArg()
+        .argName("path")
+        .desc("Path of the file the position of the last row known to be indexed is written to.  See --resume.")
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(COLLECTION_NAME_OPTION)
         .hasArg()
@@ -93,6 +201,14 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(COMMIT_WITHIN_MILLIS_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("commitWithin sent with each update request.  0 means not sent.", DEFAULT_COMMIT_WITHIN_MILLIS))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(CSV_DELIMITER_OPTION)
         .hasArg()
@@ -109,10 +225,50 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(CSV_SPLIT_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Number of parts each CSV data file is split into to be parsed at the same time.  1 means not split.", DEFAULT_CSV_SPLIT_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(DATA_FILE_ENCODING_OPTION)
+        .hasArg()
+        .argName("charset")
+        .desc(getDescription("Character encoding of the data files.", DEFAULT_DATA_FILE_ENCODING))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(DATA_TYPE_OPTION)
         .hasArg()
-        .desc(String.format("Format of data file to be indexed (%s, %s)", DATA_TYPE_CSV, DATA_TYPE_JSON))
+        .desc(String.format("Format of data file to be indexed (%s, %s, %s, %s)", DATA_TYPE_CSV, DATA_TYPE_FAST_CSV, DATA_TYPE_JSON, DATA_TYPE_JSON_ARRAY))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(DEAD_LETTER_FILE_OPTION)
+        .hasArg()
+        .argName("path")
+        .desc("Path of the file documents SOLR rejects are written to, one JSON object per line.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(DECOMPRESS_THREAD_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Number of threads decompressing a block gzipped data file.", DEFAULT_DECOMPRESS_THREAD_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(DOCUMENT_MODE_OPTION)
+        .hasArg()
+        .argName("mode")
+        .desc(getDescription("How each document is sent: full, atomic or inplace.", DEFAULT_DOCUMENT_MODE))
         .build();
     options.addOption(option);
 
@@ -131,6 +287,38 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(INPLACE_FIELDS_OPTION)
+        .hasArg()
+        .argName("field0[;field1;...]")
+        .desc("FieldDefinition names of the fields document-mode inplace sets.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(INPLACE_INCREMENT_FIELDS_OPTION)
+        .hasArg()
+        .argName("field0[;field1;...]")
+        .desc("FieldDefinition names of the fields document-mode inplace increments.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(JSON_ARRAY_PATH_OPTION)
+        .hasArg()
+        .argName("path")
+        .desc("Keys, separated by '.', of the array of objects to index when the data type is json-array.  Without this the data file is itself the array.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(JSON_SPLIT_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Number of parts each JSON data file is split into to be parsed at the same time.  1 means not split.", DEFAULT_JSON_SPLIT_COUNT))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(LITERALS_OPTION)
         .hasArg()
@@ -139,6 +327,30 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(MAX_SLEEP_MILLIS_BETWEEN_RETRIES_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("Longest number of milliseconds to sleep between retries.", DEFAULT_MAX_SLEEP_MILLIS_BETWEEN_RETRIES))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(MAX_THREAD_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Most batches sent at the same time when adaptive-concurrency is used.", DEFAULT_MAX_THREAD_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(MIN_THREAD_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Fewest batches sent at the same time when adaptive-concurrency is used.", DEFAULT_MIN_THREAD_COUNT))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(MULTIVALUE_FIELD_DELIMITER_OPTION)
         .hasArg()
@@ -147,11 +359,67 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(OPTIMIZE_MAX_SEGMENTS_OPTION)
+        .hasArg()
+        .argName("segments")
+        .desc(getDescription("Number of segments optimize-index merges each index down to.", DEFAULT_OPTIMIZE_MAX_SEGMENTS))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(PATH_TO_DATA_FILE_OPTION)
         .hasArg()
         .argName("/path/to/file.csv")
-        .desc("Full path to the file containing the data to be indexed in CSV format.")
+        .desc("Full path to the file containing the data to be indexed in CSV format.  May also be a directory, a glob or @ followed by the path to a manifest listing the files.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(READER_THREAD_COUNT_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Number of data files read at the same time when path-to-data-file names more than one.", DEFAULT_READER_THREAD_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_CONFIGSET_OPTION)
+        .hasArg()
+        .argName("name")
+        .desc("Name of the configset the collection created by --rebuild uses.")
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_MAX_MISSING_DOCS_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Most documents the collection created by --rebuild may be short of the number indexed, such as when rows share a unique key.", 0))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_REPLICATION_FACTOR_OPTION)
+        .hasArg()
+        .argName("replicas")
+        .desc(getDescription("Number of replicas of each shard of the collection created by --rebuild.", DEFAULT_REBUILD_REPLICATION_FACTOR))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(REBUILD_SHARD_COUNT_OPTION)
+        .hasArg()
+        .argName("shards")
+        .desc(getDescription("Number of shards of the collection created by --rebuild.", DEFAULT_REBUILD_SHARD_COUNT))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(RETRY_BUFFER_BYTES_OPTION)
+        .hasArg()
+        .argName("bytes")
+        .desc(getDescription("Most estimated bytes of failed batches held waiting to be retried.  0 sleeps on the sender thread instead.", DEFAULT_RETRY_BUFFER_BYTES))
         .build();
     options.addOption(option);
 
@@ -163,6 +431,14 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(ROW_QUEUE_CAPACITY_OPTION)
+        .hasArg()
+        .argName(String.valueOf(DEFAULT_ROW_QUEUE_CAPACITY))
+        .desc(getDescription("Number of rows read from the data file that may wait to be turned into documents.", DEFAULT_ROW_QUEUE_CAPACITY))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(SKIP_FIELDS_OPTION)
         .hasArg()
@@ -179,6 +455,30 @@ public class IndexerCommandLineOptions implements Constants {
         .build();
     options.addOption(option);
 
+    option = Option.builder()
+        .longOpt(SOFT_COMMIT_INTERVAL_MILLIS_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("Milliseconds between soft commits.  0 means never.", DEFAULT_SOFT_COMMIT_INTERVAL_MILLIS))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(STREAM_MAX_DOCS_OPTION)
+        .hasArg()
+        .argName("count")
+        .desc(getDescription("Most documents written to one streamed update request when streaming-updates is used.", DEFAULT_STREAM_MAX_DOCS))
+        .build();
+    options.addOption(option);
+
+    option = Option.builder()
+        .longOpt(STREAM_MAX_MILLIS_OPTION)
+        .hasArg()
+        .argName("millis")
+        .desc(getDescription("Longest, in milliseconds, one streamed update request stays open when streaming-updates is used.", DEFAULT_STREAM_MAX_MILLIS))
+        .build();
+    options.addOption(option);
+
     option = Option.builder()
         .longOpt(THREAD_COUNT_OPTION)
         .hasArg()
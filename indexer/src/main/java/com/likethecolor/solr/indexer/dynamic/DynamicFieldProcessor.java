@@ -18,17 +18,9 @@ package com.likethecolor.solr.indexer.dynamic;
 
 import com.likethecolor.solr.indexer.configuration.Configuration;
 import com.likethecolor.solr.indexer.configuration.dynamic.DynamicField;
-import com.likethecolor.solr.indexer.exception.DynamicClassException;
 import org.apache.solr.common.SolrInputDocument;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.util.ArrayList;
-import java.util.List;
-
 public class DynamicFieldProcessor {
-  private static final String DYNAMIC_METHOD_NAME = "populate";
   private Configuration configuration;
   private SolrInputDocument solrInputDocument;
 
@@ -38,32 +30,6 @@ public class DynamicFieldProcessor {
   }
 
   public void process(DynamicField dynamicField) {
-    try {
-      Class<DynamicClass> dynamicClass = dynamicField.getDynamicClass();
-
-      Constructor ctor = dynamicClass.getDeclaredConstructor(Configuration.class, SolrInputDocument.class);
-      ctor.setAccessible(true);
-      Object iClass = ctor.newInstance(configuration, solrInputDocument);
-
-      Method method = dynamicClass.getDeclaredMethod(DYNAMIC_METHOD_NAME, List.class);
-      List<String> args = new ArrayList<>();
-      args.add(dynamicField.getFieldName());
-      for(String arg : dynamicField.getFieldNameArguments()) {
-        args.add(arg);
-      }
-      method.invoke(iClass, args);
-    }
-    catch(NoSuchMethodException e) {
-      throw new DynamicClassException(e);
-    }
-    catch(IllegalAccessException e) {
-      throw new DynamicClassException(e);
-    }
-    catch(InstantiationException e) {
-      throw new DynamicClassException(e);
-    }
-    catch(InvocationTargetException e) {
-      throw new DynamicClassException(e);
-    }
+    new ResolvedDynamicField(dynamicField).process(configuration, solrInputDocument);
   }
 }
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.dynamic;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.dynamic.DynamicField;
+import com.likethecolor.solr.indexer.exception.DynamicClassException;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link DynamicField} whose class, constructor and populate method have
+ * been looked up once so that applying it to a document does no class loading
+ * or reflective lookups.
+ */
+public final class ResolvedDynamicField {
+  private static final String DYNAMIC_METHOD_NAME = "populate";
+  private final Constructor<DynamicClass> constructor;
+  private final Method method;
+  private final List<String> args;
+
+  public ResolvedDynamicField(final DynamicField dynamicField) {
+    try {
+      final Class<DynamicClass> dynamicClass = dynamicField.getDynamicClass();
+      constructor = dynamicClass.getDeclaredConstructor(Configuration.class, SolrInputDocument.class);
+      constructor.setAccessible(true);
+      method = dynamicClass.getDeclaredMethod(DYNAMIC_METHOD_NAME, List.class);
+    }
+    catch(NoSuchMethodException e) {
+      throw new DynamicClassException(e);
+    }
+
+    final List<String> args = new ArrayList<>();
+    args.add(dynamicField.getFieldName());
+    args.addAll(dynamicField.getFieldNameArguments());
+    this.args = Collections.unmodifiableList(args);
+  }
+
+  /**
+   * Create a new instance of the dynamic class for the document and call its
+   * populate method.
+   *
+   * @param configuration configuration handed to the dynamic class
+   * @param solrInputDocument document the dynamic class reads from and writes to
+   */
+  public void process(final Configuration configuration, final SolrInputDocument solrInputDocument) {
+    try {
+      final Object iClass = constructor.newInstance(configuration, solrInputDocument);
+      method.invoke(iClass, args);
+    }
+    catch(IllegalAccessException e) {
+      throw new DynamicClassException(e);
+    }
+    catch(InstantiationException e) {
+      throw new DynamicClassException(e);
+    }
+    catch(InvocationTargetException e) {
+      throw new DynamicClassException(e);
+    }
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.field;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.CellProcessorAdaptor;
+import org.supercsv.util.CsvContext;
+
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Converts the values of one field to the field's type, worked out once from
+ * the {@link FieldDefinition} rather than for every value: the date format is
+ * compiled once and the multivalue field delimiter is compiled into a
+ * splitter once.
+ *
+ * A converter is a {@link org.supercsv.cellprocessor.ift.CellProcessor} so
+ * the reader of a CSV data file converts each column as the row is read, see
+ * {@link com.likethecolor.solr.indexer.handler.indexer.SolrDocumentBuilderForFields#getCellProcessors()}.
+ * As a cell processor a null or blank value is null, which the document
+ * builder leaves off the document, and a value that cannot be converted is
+ * the field definition's value.
+ *
+ * Converters hold no state for a value so one may be shared by threads.
+ */
+public abstract class FieldValueConverter extends CellProcessorAdaptor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FieldValueConverter.class);
+  private final FieldDefinition fieldDefinition;
+
+  FieldValueConverter(final FieldDefinition fieldDefinition) {
+    this.fieldDefinition = fieldDefinition;
+  }
+
+  /**
+   * @param fieldDefinition field the values are converted for
+   * @param multivalueFieldDelimiter delimiter of the values of a multivalued field
+   *
+   * @return converter for the field's type
+   */
+  public static FieldValueConverter forField(final FieldDefinition fieldDefinition, final String multivalueFieldDelimiter) {
+    final FieldTypeEnum type = fieldDefinition.getType();
+    if(FieldTypeEnum.ARRAY == type) {
+      return new MultivaluedConverter(fieldDefinition, multivalueFieldDelimiter);
+    }
+    if(FieldTypeEnum.DATETIME == type) {
+      return new DateConverter(fieldDefinition);
+    }
+    if(FieldTypeEnum.DOUBLE == type) {
+      return new FieldValueConverter(fieldDefinition) {
+        @Override
+        protected Object parse(final String value) {
+          return Double.parseDouble(value);
+        }
+      };
+    }
+    if(FieldTypeEnum.INTEGER == type) {
+      return new FieldValueConverter(fieldDefinition) {
+        @Override
+        protected Object parse(final String value) {
+          return Integer.parseInt(value);
+        }
+      };
+    }
+    if(FieldTypeEnum.LONG == type) {
+      return new FieldValueConverter(fieldDefinition) {
+        @Override
+        protected Object parse(final String value) {
+          return Long.parseLong(value);
+        }
+      };
+    }
+    if(FieldTypeEnum.STRING == type) {
+      return new FieldValueConverter(fieldDefinition) {
+        @Override
+        protected Object parse(final String value) {
+          return value;
+        }
+      };
+    }
+    return new FieldValueConverter(fieldDefinition) {
+      @Override
+      protected Object parse(final String value) {
+        LOGGER.error(String.format("cannot set field value unknown type: %s value: %s", type, value));
+        return null;
+      }
+    };
+  }
+
+  /**
+   * @return field the values are converted for
+   */
+  public FieldDefinition getFieldDefinition() {
+    return fieldDefinition;
+  }
+
+  /**
+   * Convert the value to the field's type.
+   *
+   * @param value value to convert
+   *
+   * @return converted value or null if the value is null or cannot be converted
+   */
+  public Object convert(final String value) {
+    if(value == null) {
+      return null;
+    }
+    try {
+      return parse(value);
+    }
+    catch(NumberFormatException e) {
+      LOGGER.error(String.format("cannot parse value - verify that the data type in the fields are valid (e.g., int when it should be long): field name: %s expected type: %s value: %s date format: %s list split delimiter '%s'", fieldDefinition.getName(), fieldDefinition.getType(), value, fieldDefinition.getDateFormat(), fieldDefinition.getListSplitDelimiter()), e);
+    }
+    catch(Exception e) {
+      LOGGER.error(String.format("cannot parse value field name: %s expected type: %s value: %s date format: %s list split delimiter: %s", fieldDefinition.getName(), fieldDefinition.getType(), value, fieldDefinition.getDateFormat(), fieldDefinition.getListSplitDelimiter()), e);
+    }
+    return null;
+  }
+
+  /**
+   * A value that is not a string has already been converted and is passed on
+   * as it is.
+   */
+  @Override
+  public <T> T execute(final Object value, final CsvContext context) {
+    Object converted = value;
+    if(value instanceof String) {
+      final String string = (String) value;
+      if(string.trim().length() == 0) {
+        converted = null;
+      }
+      else {
+        converted = convert(string);
+        if(converted == null) {
+          converted = fieldDefinition.getValue();
+        }
+      }
+    }
+    return next.execute(converted, context);
+  }
+
+  /**
+   * @param value value, never null, to convert
+   *
+   * @return converted value
+   *
+   * @throws Exception if the value cannot be converted
+   */
+  protected abstract Object parse(String value) throws Exception;
+
+  /**
+   * Splits the value on the multivalue field delimiter, taken as it is rather
+   * than as a regular expression, so a delimiter such as '|' splits on '|'
+   * and not between every character.  The delimiter is found with indexOf.
+   * The values are those {@link String#split(String)} gives for the quoted
+   * delimiter: trailing empty values are dropped.  A value cannot contain the
+   * delimiter.
+   */
+  private static class MultivaluedConverter extends FieldValueConverter {
+    private final String delimiter;
+    private final Pattern pattern;
+
+    MultivaluedConverter(final FieldDefinition fieldDefinition, final String delimiter) {
+      super(fieldDefinition);
+      this.delimiter = delimiter;
+      // indexOf would not move past an empty delimiter
+      pattern = delimiter == null || delimiter.length() > 0 ? null : Pattern.compile(Pattern.quote(delimiter));
+    }
+
+    @Override
+    protected Object parse(final String value) {
+      final List<String> values = new ArrayList<>();
+      if(pattern != null) {
+        for(String part : pattern.split(value)) {
+          values.add(part);
+        }
+        return values;
+      }
+      // a null delimiter fails here as String#split does
+      final int length = delimiter.length();
+      int start = 0;
+      int end;
+      while((end = value.indexOf(delimiter, start)) >= 0) {
+        values.add(value.substring(start, end));
+        start = end + length;
+      }
+      values.add(value.substring(start));
+      // as String#split trailing empty values are dropped unless all are empty
+      int size = values.size();
+      while(size > 1 && values.get(size - 1).isEmpty()) {
+        values.remove(--size);
+      }
+      if(size == 1 && values.get(0).isEmpty() && value.length() > 0) {
+        values.remove(0);
+      }
+      return values;
+    }
+  }
+
+  /**
+   * Parses the value as {@link com.likethecolor.solr.indexer.util.conversion.ToDateConversion}
+   * does with the format compiled once for each thread - a
+   * {@link SimpleDateFormat} cannot be shared by threads.
+   */
+  private static class DateConverter extends FieldValueConverter {
+    private final ThreadLocal<DateFormat> dateFormat;
+
+    DateConverter(final FieldDefinition fieldDefinition) {
+      super(fieldDefinition);
+      final String format = fieldDefinition.getDateFormat();
+      // a format that is not valid fails, and is logged, as each value is parsed
+      dateFormat = new ThreadLocal<DateFormat>() {
+        @Override
+        protected DateFormat initialValue() {
+          return format == null || format.trim().length() == 0 ? null : new SimpleDateFormat(format.trim());
+        }
+      };
+    }
+
+    @Override
+    protected Object parse(final String value) throws Exception {
+      final DateFormat format = dateFormat.get();
+      if(format == null) {
+        LOGGER.info("format value cannot be null/empty - returning null");
+        return null;
+      }
+      if(value.trim().length() == 0) {
+        LOGGER.info("date string value cannot be null/empty - returning null");
+        return null;
+      }
+      return format.parse(value.trim().toUpperCase());
+    }
+  }
+}
@@ -16,13 +16,6 @@
 package com.likethecolor.solr.indexer.field;
 
 import com.likethecolor.solr.indexer.configuration.Configuration;
-import com.likethecolor.solr.indexer.util.conversion.ToDateConversion;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
 
 /**
  * Add to the {@link FieldDefinition} the value.
@@ -30,7 +23,6 @@ import java.util.List;
  * if the type is double the string is converted to a double.
  */
 public class FieldValueSetter {
-  private static final Logger LOGGER = LoggerFactory.getLogger(FieldValueSetter.class);
   private Configuration configuration;
 
   public FieldValueSetter(final Configuration configuration) {
@@ -45,42 +37,35 @@ public class FieldValueSetter {
    * @param value value to apply to the field
    */
   public void setFieldValue(final FieldDefinition fieldDefinitionDefinition, String value) {
-    if(value == null) {
-      return;
+    final Object typedValue = getFieldValue(fieldDefinitionDefinition, value);
+    if(typedValue != null) {
+      fieldDefinitionDefinition.setValue(typedValue);
     }
+  }
 
-    try {
-      if(FieldTypeEnum.ARRAY == fieldDefinitionDefinition.getType()) {
-        final List<String> valuesList = new ArrayList<>();
-        String[] values = value.split(configuration.getMultivalueFieldDelimiter());
-        Collections.addAll(valuesList, values);
-        fieldDefinitionDefinition.setValue(valuesList);
-      }
-      else if(FieldTypeEnum.DATETIME == fieldDefinitionDefinition.getType()) {
-        final String dateFormat = fieldDefinitionDefinition.getDateFormat();
-        fieldDefinitionDefinition.setValue(new ToDateConversion(value, dateFormat).parseDate());
-      }
-      else if(FieldTypeEnum.DOUBLE == fieldDefinitionDefinition.getType()) {
-        fieldDefinitionDefinition.setValue(Double.parseDouble(value));
-      }
-      else if(FieldTypeEnum.INTEGER == fieldDefinitionDefinition.getType()) {
-        fieldDefinitionDefinition.setValue(Integer.parseInt(value));
-      }
-      else if(FieldTypeEnum.LONG == fieldDefinitionDefinition.getType()) {
-        fieldDefinitionDefinition.setValue(Long.parseLong(value));
-      }
-      else if(FieldTypeEnum.STRING == fieldDefinitionDefinition.getType()) {
-        fieldDefinitionDefinition.setValue(value);
-      }
-      else {
-        LOGGER.error(String.format("cannot set field value unknown type: %s value: %s", fieldDefinitionDefinition.getType(), value));
-      }
-    }
-    catch(NumberFormatException e) {
-      LOGGER.error(String.format("cannot parse value - verify that the data type in the fields are valid (e.g., int when it should be long): field name: %s expected type: %s value: %s date format: %s list split delimiter '%s'", fieldDefinitionDefinition.getName(), fieldDefinitionDefinition.getType(), value, fieldDefinitionDefinition.getDateFormat(), fieldDefinitionDefinition.getListSplitDelimiter()), e);
-    }
-    catch(Exception e) {
-      LOGGER.error(String.format("cannot parse value field name: %s expected type: %s value: %s date format: %s list split delimiter: %s", fieldDefinitionDefinition.getName(), fieldDefinitionDefinition.getType(), value, fieldDefinitionDefinition.getDateFormat(), fieldDefinitionDefinition.getListSplitDelimiter()), e);
-    }
+  /**
+   * Alter the value based on the field's type and return it without touching
+   * the field definition.  This allows one set of field definitions to be
+   * shared by every row.
+   *
+   * @param fieldDefinitionDefinition field object describing the type
+   * @param value value to convert
+   *
+   * @return converted value or null if the value is null or cannot be converted
+   */
+  public Object getFieldValue(final FieldDefinition fieldDefinitionDefinition, String value) {
+    return getConverter(fieldDefinitionDefinition).convert(value);
+  }
+
+  /**
+   * Compile a converter for the field's values.  Converting many values of a
+   * field through one converter saves working out the conversion for each.
+   *
+   * @param fieldDefinitionDefinition field object describing the type
+   *
+   * @return converter for the field
+   */
+  public FieldValueConverter getConverter(final FieldDefinition fieldDefinitionDefinition) {
+    return FieldValueConverter.forField(fieldDefinitionDefinition, configuration.getMultivalueFieldDelimiter());
   }
 }
@@ -32,13 +32,27 @@ public class UniqueKeyFieldValueGenerator {
   private static final Logger LOGGER = LoggerFactory.getLogger(UniqueKeyFieldValueGenerator.class);
   private Map<String, Object> fieldDefinitions;
   private Configuration configuration;
+  private List<String> uniqueKeyFieldValueList;
 
   public UniqueKeyFieldValueGenerator(Configuration configuration) {
+    this(configuration, null);
+  }
+
+  /**
+   * Use an already split unique key field value so that the configuration
+   * string is not split each time {@link #getId()} is called.
+   *
+   * @param configuration configuration
+   * @param uniqueKeyFieldValueList field names making up the unique key field
+   * value - if null the configuration value is split when needed
+   */
+  public UniqueKeyFieldValueGenerator(Configuration configuration, List<String> uniqueKeyFieldValueList) {
     // the code uses the list of values in the unique key field value, in the
     // order in which they appear in the unique key field value.  This structure
     // doesn't need to know anything about order.
     fieldDefinitions = new HashMap<>();
     this.configuration = configuration;
+    this.uniqueKeyFieldValueList = uniqueKeyFieldValueList;
   }
 
   /**
@@ -67,7 +81,7 @@ public class UniqueKeyFieldValueGenerator {
   public String getId() {
     final StringBuilder id = new StringBuilder();
     if(configuration.hasUniqueKeyFieldValue()) {
-      final List<String> uniqueKeyFieldValueList = new ToListConversion(configuration.getUniqueKeyFieldValue()).toList();
+      final List<String> uniqueKeyFieldValueList = this.uniqueKeyFieldValueList != null ? this.uniqueKeyFieldValueList : new ToListConversion(configuration.getUniqueKeyFieldValue()).toList();
 
       for(String fieldName : uniqueKeyFieldValueList) {
         if(fieldDefinitions.containsKey(fieldName)) {
@@ -16,16 +16,13 @@
 
 package com.likethecolor.solr.indexer.handler.indexer;
 
-import com.likethecolor.solr.indexer.dynamic.DynamicFieldProcessor;
+import com.likethecolor.solr.indexer.Constants;
 import com.likethecolor.solr.indexer.configuration.Configuration;
-import com.likethecolor.solr.indexer.configuration.dynamic.DynamicField;
-import com.likethecolor.solr.indexer.configuration.dynamic.DynamicFieldParser;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
 import com.likethecolor.solr.indexer.field.FieldValueSetter;
-import com.likethecolor.solr.indexer.field.FieldsParser;
 import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
 import com.likethecolor.solr.indexer.reader.DataReader;
-import com.likethecolor.solr.indexer.util.conversion.ToListConversion;
+import com.likethecolor.solr.indexer.reader.UnorderedDataReader;
 import com.likethecolor.solr.indexer.util.conversion.ToTimeConversion;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
@@ -36,27 +33,45 @@ import org.supercsv.cellprocessor.ift.CellProcessor;
 import org.supercsv.exception.SuperCsvConstraintViolationException;
 import org.supercsv.exception.SuperCsvException;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public abstract class AbstractSolrDocumentHandler implements DocumentHandler {
   private static final Logger LOGGER = LoggerFactory.getLogger(AbstractSolrDocumentHandler.class);
-  private static long batchCount = 0;
-  private final DataReader dataReader;
+  private static final AtomicLong batchCount = new AtomicLong();
+  private final Map<String, DataReader> dataReaders;
   private FieldValueSetter fieldValueSetter;
   private Configuration configuration;
+  private volatile RowPlan rowPlan;
+  private DeadLetterWriter deadLetterWriter;
+  private volatile List<RowReaderStage> runningReaderStages;
+  private volatile boolean stopped;
 
   public AbstractSolrDocumentHandler(final Configuration configuration, final DataReader dataReader) {
-    this.dataReader = dataReader;
+    this(configuration, Collections.singletonMap(configuration.getPathToDataFile(), dataReader));
+  }
+
+  /**
+   * @param configuration configuration
+   * @param dataReaders map of data file to the reader for it, in the order
+   * the files are to be read
+   */
+  public AbstractSolrDocumentHandler(final Configuration configuration, final Map<String, DataReader> dataReaders) {
+    this.dataReaders = new LinkedHashMap<>(dataReaders);
     fieldValueSetter = new FieldValueSetter(configuration);
     this.configuration = configuration;
   }
@@ -81,75 +96,167 @@ public abstract class AbstractSolrDocumentHandler implements DocumentHandler {
   abstract protected SolrInputDocument buildSolrInputDocument(List<Object> rowValues);
 
   public long getBatchCount() {
-    return batchCount;
+    return batchCount.get();
   }
 
+  /**
+   * Index the data file.  This runs as a pipeline of three stages joined by
+   * bounded queues:
+   * <ol>
+   *   <li>one thread for each data file reads its rows
+   *   ({@link RowReaderStage}) - with more than one data file
+   *   {@link Configuration#getReaderThreadCount()} of them are read at the
+   *   same time</li>
+   *   <li>{@link Configuration#getBuilderThreadCount()} threads turn the rows
+   *   into batches of documents ({@link DocumentBuilderStage}) - a batch is
+   *   closed by document count, estimated bytes or linger time, see
+   *   {@link DocumentBatcher}.  With {@link Configuration#shardRouting()}
+   *   the calling thread regroups the documents into a batch per shard, see
+   *   {@link ShardBatchCollector}.  With
+   *   {@link Configuration#streamingUpdates()} the documents are instead
+   *   streamed to each shard leader, see {@link StreamingUpdateSender}</li>
+   *   <li>{@link Configuration#getThreadCount()} threads send the batches to
+   *   solr ({@link IndexService}) - the batches are handed to them by the
+   *   calling thread through a {@link BatchDispatcher}.  With
+   *   {@link Configuration#adaptiveConcurrency()} the number in flight is
+   *   changed as solr copes or struggles, see {@link ConcurrencyController}.
+   *   A failed batch is held by a {@link RetryScheduler} until it is time to
+   *   retry it so the sender thread is free meanwhile</li>
+   * </ol>
+   * Soft commits are made by a {@link CommitScheduler} on a thread of its own
+   * so no stage waits for them.
+   * A full queue, or all of the senders being busy, blocks the stage feeding
+   * it so a slow stage slows down the stages before it rather than letting
+   * rows or batches pile up in memory.  Nothing spins while it waits.
+   *
+   * Documents solr rejects are logged and, with
+   * {@link Configuration#getDeadLetterFile()}, written to the dead letter file
+   * while the rest are indexed, see {@link IndexService}.
+   *
+   * With {@link Configuration#getCheckpointFile()} how far the run has got is
+   * written to the checkpoint file, see {@link CheckpointTracker}, and a run
+   * may carry on from it with {@link Configuration#resume()}.
+   * {@link #stop()}, called on SIGTERM, stops the readers and lets the rows
+   * already read be sent before the checkpoint is written for the last time.  The checkpoint file cannot be used with
+   * more than one data file.
+   *
+   * A data file that cannot be read does not stop the other files being
+   * indexed.  The rows read and documents built from each file are logged,
+   * see {@link DataFileReport}, and the failure of the first file that could
+   * not be read is then thrown.
+   *
+   * @param cloudSolrServer solr client
+   *
+   * @return number of documents indexed
+   */
   public long handle(final CloudSolrClient cloudSolrServer) throws SolrServerException, IOException, InterruptedException, ExecutionException {
-    final SoftCommitter softCommitter = new SoftCommitter(configuration, cloudSolrServer);
     final long startTimeInMS = System.currentTimeMillis();
-    long numDocs = 0;
-    final Map<String, FieldDefinition> fieldDefinitions = getFieldDefinitions();
-    List<SolrInputDocument> docs = new ArrayList<>();
-    List<Object> rowValues;
-    SolrInputDocument doc;
+    final BatchSizeController sizeController = BatchSizeController.fromConfiguration(getConfiguration());
+    final CheckpointTracker checkpointTracker = getCheckpointTracker();
+    final CommitScheduler commitScheduler = CommitScheduler.fromConfiguration(getConfiguration(), cloudSolrServer);
+    final List<DataFileReport> reports = new ArrayList<>(dataReaders.size());
+    final List<RowReaderStage> readerStages = new ArrayList<>(dataReaders.size());
+    final BatchCompletionListener listener = new BatchCompletionListener(commitScheduler, sizeController, checkpointTracker, startTimeInMS);
+    final Map<String, FieldDefinition> fieldDefinitions = getRowPlan().getFieldDefinitions();
+    final int builderCount = getConfiguration().getBuilderThreadCount();
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(getConfiguration().getRowQueueCapacity());
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(getConfiguration().getBatchQueueCapacity());
+    final ExecutorService readers = Executors.newFixedThreadPool(Math.min(getConfiguration().getReaderThreadCount(), dataReaders.size()));
+    final List<Future<Long>> readerFutures = new ArrayList<>();
+    final ExecutorService stages = Executors.newFixedThreadPool(builderCount);
+    final List<Future<Long>> stageFutures = new ArrayList<>();
 
-    ExecutorService es = Executors.newFixedThreadPool(getConfiguration().getThreadCount());
-    List<Future<SolrjUpdateResponse>> futures = new ArrayList<>();
+    // with adaptive concurrency there is a thread for the most batches that
+    // may be in flight; the limiter decides how many are used
+    final ConcurrencyController concurrencyController = getConfiguration().adaptiveConcurrency() ? ConcurrencyController.fromConfiguration(getConfiguration()) : null;
+    final InFlightLimiter limiter = concurrencyController != null ? concurrencyController.getLimiter() : new InFlightLimiter(getConfiguration().getThreadCount());
+    final ExecutorService es = Executors.newFixedThreadPool(concurrencyController != null ? concurrencyController.getMaxLimit() : getConfiguration().getThreadCount());
+    final BatchDispatcher dispatcher = new BatchDispatcher(es, limiter, listener);
+    final RetryScheduler retryScheduler = RetryScheduler.fromConfiguration(getConfiguration(), dispatcher);
 
+    deadLetterWriter = getConfiguration().getDeadLetterFile() == null ? null : new DeadLetterWriter(getConfiguration().getDeadLetterFile());
+    StreamingUpdateSender streamingSender = null;
+    boolean complete = false;
     LOGGER.info("start: file parsing");
     try {
-      // The argument, if true, ensures that getHeader is only called when reading
-      // the first line (as that's where the header is meant to be)
-      // Either way, true or false, it returns the first row.
-      //
-      final Object[] headerOrFirstRow = dataReader.getHeader(getConfiguration().firstRowIsHeader()); // skip the header (can't be used with CsvListReader)
-      if(!getConfiguration().firstRowIsHeader() && headerOrFirstRow != null) {
-        doc = buildSolrInputDocument(Arrays.asList(headerOrFirstRow));
-        addDocToDocsList(doc, docs, dataReader.getLineNumber(), Arrays.asList(headerOrFirstRow));
+      // a chunked reader converts the values on the threads reading its parts;
+      // the other readers have a single thread so the builders convert them
+      final CellProcessor[] processors = getProcessors(fieldDefinitions);
+      final CellProcessor[] noProcessors = new CellProcessor[processors.length];
+      final boolean preSerialize = usePreSerializedBatches();
+      final AtomicInteger runningReaders = new AtomicInteger(dataReaders.size());
+      for(Map.Entry<String, DataReader> entry : dataReaders.entrySet()) {
+        final DataFileReport report = new DataFileReport(entry.getKey());
+        reports.add(report);
+        readerStages.add(new RowReaderStage(entry.getValue(), entry.getValue() instanceof UnorderedDataReader ? processors : noProcessors, getConfiguration().firstRowIsHeader(), rowQueue, builderCount, checkpointTracker, report, runningReaders));
+      }
+      runningReaderStages = readerStages;
+      if(stopped) {
+        stopReaderStages(readerStages);
+      }
+      commitScheduler.start();
+      for(int i = 0; i < builderCount; i++) {
+        stageFutures.add(stages.submit(new DocumentBuilderStage(this, rowQueue, batchQueue, new DocumentBatcher(getConfiguration().getBatchSize(), getConfiguration().getBatchLingerMillis(), sizeController), preSerialize, checkpointTracker)));
+      }
+      for(RowReaderStage readerStage : readerStages) {
+        readerFutures.add(readers.submit(readerStage));
       }
 
-      final CellProcessor[] processors = getProcessors(fieldDefinitions);
-      while((rowValues = dataReader.read(processors)) != null) {
-        doc = buildSolrInputDocument(rowValues);
-        addDocToDocsList(doc, docs, dataReader.getLineNumber(), rowValues);
-
-        int docSize = docs.size();
-        if(docSize > 0 && (docSize % getConfiguration().getBatchSize()) == 0) {
-          final IndexService service = getIndexService(cloudSolrServer, docs);
-          docs.clear();
-          futures.add(es.submit(service));
-          if(futures.size() < getConfiguration().getThreadCount()) {
-            continue;
-          }
-          while(futures.size() >= getConfiguration().getThreadCount()) {
-            for(int i = 0; i < futures.size(); i++) {
-              final Future<SolrjUpdateResponse> future = futures.get(i);
-              if(future.isDone()) {
-                futures.remove(future);
-                final SolrjUpdateResponse response = future.get();
-                numDocs += response.getDocSize();
-                logBatchMessage(response);
-                softCommitter.doSoftCommit(batchCount);
-                if(numDocs != 0 && numDocs % REPORT_MODULUS == 0) {
-                  LOGGER.info(String.format("processed %d documents [elapsed time: %s]", numDocs, new ToTimeConversion(System.currentTimeMillis() - startTimeInMS).getMinutesSecondsMillisecondsFromMilliseconds()));
-                }
-              }
-            }
-          }
+      streamingSender = getConfiguration().streamingUpdates() ? getStreamingUpdateSender(cloudSolrServer, listener) : null;
+      if(streamingSender != null) {
+        streamingSender.setDeadLetterWriter(deadLetterWriter);
+      }
+      final ShardBatchCollector shardCollector = streamingSender == null && getConfiguration().shardRouting() ? new ShardBatchCollector(getShardRouter(cloudSolrServer), getConfiguration().getBatchSize(), getConfiguration().getBatchLingerMillis(), sizeController) : null;
+      int runningBuilders = builderCount;
+      while(runningBuilders > 0) {
+        final DocumentBatch batch = takeBatch(batchQueue, shardCollector);
+        if(batch == null) {
+          // the linger time of a shard batch ran out
+          dispatch(dispatcher, retryScheduler, cloudSolrServer, shardCollector.drainExpired(), concurrencyController);
+          continue;
+        }
+        if(batch == DocumentBuilderStage.END_OF_BATCHES) {
+          runningBuilders--;
+          checkStages(stageFutures);
+          continue;
+        }
+
+        if(streamingSender != null) {
+          streamingSender.send(batch);
+        }
+        else if(shardCollector == null) {
+          dispatch(dispatcher, retryScheduler, cloudSolrServer, batch, concurrencyController);
         }
+        else {
+          dispatch(dispatcher, retryScheduler, cloudSolrServer, shardCollector.add(batch), concurrencyController);
+        }
+      }
+      if(shardCollector != null) {
+        dispatch(dispatcher, retryScheduler, cloudSolrServer, shardCollector.drainAll(), concurrencyController);
       }
+      // every builder has finished so the readers have too
+      for(Future<Long> stageFuture : stageFutures) {
+        getStageResult(stageFuture);
+      }
+      logDataFileReports(reports);
 
-      //catch any docs that didn't make in a batch
-      if(docs.size() > 0) {
-        final IndexService service = getIndexService(cloudSolrServer, docs);
-        docs.clear();
-        final SolrjUpdateResponse response = service.call();
-        numDocs += response.getDocSize();
-        logBatchMessage(response);
-        softCommitter.doSoftCommit(batchCount);
+      if(streamingSender != null) {
+        streamingSender.close();
+      }
+      LOGGER.info("batches left: {}", dispatcher.getLimiter().getInFlight());
+      dispatcher.awaitCompletion();
+      // the rows read from a file that failed, and the other files, have
+      // been sent so now the run fails
+      for(Future<Long> readerFuture : readerFutures) {
+        getStageResult(readerFuture);
+      }
+      complete = !isAnyStopped(readerStages);
+      if(deadLetterWriter != null && deadLetterWriter.getCount() > 0) {
+        LOGGER.warn("{} rejected documents written to {}", deadLetterWriter.getCount(), deadLetterWriter.getFileName());
       }
-      numDocs += cleanUpRemainingFutures(futures);
       LOGGER.info("end: file parsing and indexing [{}]", new ToTimeConversion(System.currentTimeMillis() - startTimeInMS).getMinutesSecondsMillisecondsFromMilliseconds());
+      commitScheduler.close();
     }
     catch(SuperCsvConstraintViolationException e) {
       LOGGER.error("error parsing csv data");
@@ -172,15 +279,31 @@ public abstract class AbstractSolrDocumentHandler implements DocumentHandler {
       throw e;
     }
     finally {
-      if(dataReader != null) {
+      // on success the stages are already done; on failure this stops any
+      // stage blocked on a queue
+      readers.shutdownNow();
+      stages.shutdownNow();
+      es.shutdownNow();
+      commitScheduler.shutdownNow();
+      if(retryScheduler != null) {
+        retryScheduler.shutdownNow();
+      }
+      if(streamingSender != null) {
+        streamingSender.shutdownNow();
+      }
+      if(deadLetterWriter != null) {
         try {
-          dataReader.close();
+          deadLetterWriter.close();
         }
-        catch(IOException ignore) {
+        catch(IOException e) {
+          LOGGER.warn("could not close the dead letter file " + deadLetterWriter.getFileName(), e);
         }
       }
+      if(checkpointTracker != null) {
+        writeCheckpoint(checkpointTracker, complete);
+      }
     }
-    return numDocs;
+    return listener.getNumDocs();
   }
 
   protected Configuration getConfiguration() {
@@ -192,49 +315,154 @@ public abstract class AbstractSolrDocumentHandler implements DocumentHandler {
   }
 
   protected UniqueKeyFieldValueGenerator getUniqueKeyFieldValueGenerator() {
-    return new UniqueKeyFieldValueGenerator(getConfiguration());
+    return getRowPlan().newUniqueKeyFieldValueGenerator();
   }
-  
-  protected Map<String, FieldDefinition> getFieldDefinitions() {
-    return getFieldDefinitions(getConfiguration().getFields());
+
+  /**
+   * The plan used to build every document.  It is compiled from the
+   * configuration the first time it is needed.
+   *
+   * @return row plan
+   */
+  protected RowPlan getRowPlan() {
+    RowPlan plan = rowPlan;
+    if(plan == null) {
+      synchronized(this) {
+        plan = rowPlan;
+        if(plan == null) {
+          plan = RowPlan.compile(getConfiguration(), getFieldValueSetter());
+          rowPlan = plan;
+        }
+      }
+    }
+    return plan;
   }
 
-  protected Map<String, FieldDefinition> getLiteralsDefinitions() {
-    return getLiteralsFieldDefinitions(getConfiguration().getLiterals());
+  /**
+   * Batches are only encoded by the builders when they are sent as built -
+   * shard routing and streaming regroup the documents afterwards.
+   *
+   * @return true if the builders should encode each batch to javabin
+   */
+  protected boolean usePreSerializedBatches() {
+    if(!getConfiguration().preSerializeBatches()) {
+      return false;
+    }
+    if(getConfiguration().shardRouting() || getConfiguration().streamingUpdates()) {
+      LOGGER.warn("pre-serialize-batches is not used with shard-routing or streaming-updates");
+      return false;
+    }
+    return true;
   }
 
-  protected Map<String, DynamicField> getDynamicFields() {
-    return new DynamicFieldParser().parse(getConfiguration().getDynamicFields());
+  /**
+   * @return tracker for the checkpoint file or null if there is no checkpoint
+   * file or it cannot be used
+   *
+   * @throws IOException if the data file could not be read or, when resuming,
+   * the checkpoint was written for another data file or the data file changed
+   * @throws IllegalArgumentException if there is more than one data file
+   */
+  protected CheckpointTracker getCheckpointTracker() throws IOException {
+    if(getConfiguration().getCheckpointFile() == null) {
+      return null;
+    }
+    if(getConfiguration().streamingUpdates()) {
+      LOGGER.warn("checkpoint-file is not used with streaming-updates");
+      return null;
+    }
+    if(dataReaders.size() > 1) {
+      throw new IllegalArgumentException(String.format(
+          "--%s cannot be used with %d data files", Constants.CHECKPOINT_FILE_OPTION, dataReaders.size()));
+    }
+    final File checkpointFile = new File(getConfiguration().getCheckpointFile());
+    final File dataFile = new File(dataReaders.keySet().iterator().next()).getAbsoluteFile();
+    final String fingerprint = Checkpoint.fingerprint(dataFile);
+    int startLineNumber = 0;
+    if(getConfiguration().resume()) {
+      final Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+      if(checkpoint == null) {
+        LOGGER.info("no checkpoint file {} - indexing the whole data file", checkpointFile);
+      }
+      else if(!checkpoint.matches(dataFile.getPath(), fingerprint)) {
+        throw new IOException(String.format("checkpoint file %s was written for %s [%s] not %s [%s]", checkpointFile, checkpoint.getDataFile(), checkpoint.getFingerprint(), dataFile.getPath(), fingerprint));
+      }
+      else {
+        startLineNumber = checkpoint.getLineNumber();
+        LOGGER.info("resuming from checkpoint file {} after line {}{}", checkpointFile, startLineNumber, checkpoint.isComplete() ? " - the last run was complete" : "");
+      }
+    }
+    return new CheckpointTracker(checkpointFile, dataFile.getPath(), fingerprint, startLineNumber);
   }
 
-  protected List<String> getSkipFields() {
-    return new ToListConversion(getConfiguration().getSkipFields()).toList();
+  @Override
+  public void stop() {
+    stopped = true;
+    final List<RowReaderStage> readerStages = runningReaderStages;
+    if(readerStages != null) {
+      stopReaderStages(readerStages);
+    }
   }
 
-  protected IndexService getIndexService(CloudSolrClient solr, List<SolrInputDocument> docs) {
-    return new IndexService(configuration, solr, docs);
+  private static void stopReaderStages(final List<RowReaderStage> readerStages) {
+    for(RowReaderStage readerStage : readerStages) {
+      readerStage.stop();
+    }
   }
 
-  /**
-   * Return a mapping of field definitions.
-   *
-   * @param fields list of fields as a delimited string
-   *
-   * @return mapping of field definitions
-   */
-  private Map<String, FieldDefinition> getFieldDefinitions(final String fields) {
-    return new FieldsParser(configuration).parse(fields);
+  private static boolean isAnyStopped(final List<RowReaderStage> readerStages) {
+    for(RowReaderStage readerStage : readerStages) {
+      if(readerStage.isStopped()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   /**
-   * Return a mapping of literals field definitions.
-   *
-   * @param fields list of fields as a delimited string
-   *
-   * @return mapping of literals field definitions
+   * Log the counts and read rate of each data file and, for those that could
+   * not be read, why.
    */
-  private Map<String, FieldDefinition> getLiteralsFieldDefinitions(final String fields) {
-    return new FieldsParser(configuration).parse(fields, true);
+  private void logDataFileReports(final List<DataFileReport> reports) {
+    int failed = 0;
+    long bytesRead = 0;
+    for(DataFileReport report : reports) {
+      final String readTime = new ToTimeConversion(report.getReadTimeInMS()).getMinutesSecondsMillisecondsFromMilliseconds();
+      final String readRate = String.format("%.1f MB at %.1f MB/s", report.getMegabytesRead(), report.getMegabytesPerSecond());
+      bytesRead += report.getBytesRead();
+      if(report.getFailure() == null) {
+        LOGGER.info("data file {}: {} rows read, {} documents built, {} [{}]", report.getDataFile(), report.getRowsRead(), report.getDocumentsBuilt(), readRate, readTime);
+      }
+      else {
+        failed++;
+        LOGGER.error("data file {} failed after {} rows read, {} documents built, {} [{}]: {}", report.getDataFile(), report.getRowsRead(), report.getDocumentsBuilt(), readRate, readTime, report.getFailure().toString());
+      }
+    }
+    if(reports.size() > 1) {
+      LOGGER.info("{} data files read, {} MB - {} failed", reports.size(), String.format("%.1f", bytesRead / (1024.0 * 1024.0)), failed);
+    }
+  }
+
+  private void writeCheckpoint(final CheckpointTracker checkpointTracker, final boolean complete) {
+    try {
+      checkpointTracker.write(complete);
+      LOGGER.info("checkpoint at line {}{}", checkpointTracker.getLineNumber(), complete ? " - complete" : "");
+    }
+    catch(IOException e) {
+      LOGGER.error("could not write checkpoint file " + getConfiguration().getCheckpointFile(), e);
+    }
+  }
+
+  protected ShardRouter getShardRouter(CloudSolrClient solr) {
+    return new ShardRouter(solr, getConfiguration().getCollectionName(), getConfiguration().getUniqueKeyFieldName());
+  }
+
+  protected StreamingUpdateSender getStreamingUpdateSender(CloudSolrClient solr, BatchDispatcher.Listener listener) {
+    return new StreamingUpdateSender(getConfiguration(), solr, getShardRouter(solr), listener);
+  }
+
+  protected IndexService getIndexService(CloudSolrClient solr, List<SolrInputDocument> docs) {
+    return new IndexService(configuration, solr, docs);
   }
 
   /**
@@ -253,51 +481,141 @@ public abstract class AbstractSolrDocumentHandler implements DocumentHandler {
   }
 
   protected void handleDynamicClasses(SolrInputDocument solrInputDocument) {
-    Map<String, DynamicField> dynamicFieldMap = getDynamicFields();
+    getRowPlan().processDynamicFields(solrInputDocument);
+  }
 
-    Configuration configuration = new Configuration();
+  /**
+   * Take the next batch from the builders.  When shard batches are lingering
+   * this waits no longer than the first of them may.
+   *
+   * @return next batch or null if a shard batch's linger time ran out
+   */
+  private DocumentBatch takeBatch(final BlockingQueue<DocumentBatch> batchQueue, final ShardBatchCollector shardCollector) throws InterruptedException {
+    if(shardCollector != null) {
+      final long remainingLingerNanos = shardCollector.getRemainingLingerNanos();
+      if(remainingLingerNanos >= 0) {
+        return batchQueue.poll(remainingLingerNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+    return batchQueue.take();
+  }
+
+  private void dispatch(final BatchDispatcher dispatcher, final RetryScheduler retryScheduler, final CloudSolrClient cloudSolrServer, final List<DocumentBatch> batches, final ConcurrencyController concurrencyController) throws InterruptedException, ExecutionException {
+    for(DocumentBatch batch : batches) {
+      dispatch(dispatcher, retryScheduler, cloudSolrServer, batch, concurrencyController);
+    }
+  }
 
-    Set<String> fieldNames = dynamicFieldMap.keySet();
-    for(String fieldName : fieldNames) {
-      DynamicField dynamicField = dynamicFieldMap.get(fieldName);
-      DynamicFieldProcessor processor = new DynamicFieldProcessor(configuration, solrInputDocument);
-      processor.process(dynamicField);
+  private void dispatch(final BatchDispatcher dispatcher, final RetryScheduler retryScheduler, final CloudSolrClient cloudSolrServer, final DocumentBatch batch, final ConcurrencyController concurrencyController) throws InterruptedException, ExecutionException {
+    if(batch.getShard() != null) {
+      LOGGER.debug("sending {} documents to shard '{}'", batch.size(), batch.getShard());
     }
+    final IndexService indexService = getIndexService(cloudSolrServer, batch.getDocuments());
+    indexService.setEstimatedBytes(batch.getEstimatedBytes());
+    indexService.setPayload(batch.getPayload());
+    indexService.setLineNumbers(batch.getLineNumbers());
+    indexService.setDeadLetterWriter(deadLetterWriter);
+    indexService.setRetryScheduler(retryScheduler);
+    indexService.setAttemptListener(concurrencyController);
+    dispatcher.dispatch(indexService);
   }
 
   /**
-   * If the code does not wait for all remaining futures to finish before
-   * committing and cleaning up solr cloud resources batches will get dropped.
+   * Fail fast if a reader or builder stage has failed.  Stages that are still
+   * running are not waited on.
    *
-   * @param futures collection of futures remaining to be processed
+   * @param stageFutures futures of the reader and builder stages
+   */
+  private void checkStages(final List<Future<Long>> stageFutures) throws IOException, InterruptedException, ExecutionException {
+    for(Future<Long> stageFuture : stageFutures) {
+      if(stageFuture.isDone()) {
+        getStageResult(stageFuture);
+      }
+    }
+  }
+
+  /**
+   * Wait for a stage and rethrow what made it fail as if it had been thrown
+   * by this thread.  This keeps the csv error handling in {@link #handle(CloudSolrClient)}
+   * working for errors thrown while reading.
    *
-   * @return number of documents that the remaining futures process
+   * @param stageFuture future of a reader or builder stage
    *
-   * @throws ExecutionException if the computation threw an exception
-   * @throws InterruptedException if the current thread was interrupted while waiting
+   * @return the stage's count of rows or documents
    */
-  private int cleanUpRemainingFutures(List<Future<SolrjUpdateResponse>> futures) throws ExecutionException, InterruptedException {
-    int numDocs = 0;
-    LOGGER.info("batches left: {}", futures.size());
-    if(futures.size() > 0) {
-      while(futures.size() > 0) {
-        Iterator<Future<SolrjUpdateResponse>> iter = futures.iterator();
-        while(iter.hasNext()) {
-          final Future<SolrjUpdateResponse> future = iter.next();
-          if(future.isDone()) {
-            iter.remove();
-            final SolrjUpdateResponse response = future.get();
-            numDocs += response.getDocSize();
-            logBatchMessage(response);
-          }
-        }
+  private long getStageResult(final Future<Long> stageFuture) throws IOException, InterruptedException, ExecutionException {
+    try {
+      return stageFuture.get();
+    }
+    catch(ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if(cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if(cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if(cause instanceof InterruptedException) {
+        throw (InterruptedException) cause;
       }
+      throw e;
+    }
+  }
+
+  /**
+   * The elapsed time is that of the batch's own update requests, not a
+   * running total.  A response without an update response, as the dead
+   * letter and retry paths may give, has no elapsed time.
+   */
+  private long logBatchMessage(final SolrjUpdateResponse response) {
+    final long batchNumber = batchCount.incrementAndGet();
+    if(response.getUpdateResponse() == null) {
+      LOGGER.info(String.format("%5d: Added a batch of %5d documents", batchNumber, response.getDocSize()));
+    }
+    else {
+      final long elapsedTime = response.getUpdateResponse().getElapsedTime();
+      LOGGER.info(String.format("%5d: Added a batch of %5d documents [batch elapsed time %5d ms = %s]", batchNumber, response.getDocSize(), elapsedTime, new ToTimeConversion(elapsedTime).getMinutesSecondsMillisecondsFromMilliseconds()));
     }
-    return numDocs;
+    return batchNumber;
   }
 
-  private void logBatchMessage(final SolrjUpdateResponse response) {
-    batchCount++;
-    LOGGER.info(String.format("%5d: Added a batch of %5d documents [total %5d = %s]", batchCount, response.getDocSize(), response.getUpdateResponse().getElapsedTime(), new ToTimeConversion(response.getUpdateResponse().getElapsedTime()).getMinutesSecondsMillisecondsFromMilliseconds()));
+  /**
+   * Handles each batch as soon as it has been sent.  This runs on the sender
+   * threads.
+   */
+  private class BatchCompletionListener implements BatchDispatcher.Listener {
+    private final CommitScheduler commitScheduler;
+    private final BatchSizeController sizeController;
+    private final CheckpointTracker checkpointTracker;
+    private final long startTimeInMS;
+    private final AtomicLong numDocs = new AtomicLong();
+
+    BatchCompletionListener(final CommitScheduler commitScheduler, final BatchSizeController sizeController, final CheckpointTracker checkpointTracker, final long startTimeInMS) {
+      this.commitScheduler = commitScheduler;
+      this.sizeController = sizeController;
+      this.checkpointTracker = checkpointTracker;
+      this.startTimeInMS = startTimeInMS;
+    }
+
+    @Override
+    public void batchCompleted(final SolrjUpdateResponse response) {
+      final long previousNumDocs = numDocs.getAndAdd(response.getDocSize());
+      final long currentNumDocs = previousNumDocs + response.getDocSize();
+      if(response.getUpdateResponse() != null) {
+        sizeController.record(response.getEstimatedBytes(), response.getUpdateResponse().getElapsedTime());
+      }
+      commitScheduler.batchCompleted(logBatchMessage(response));
+      if(checkpointTracker != null) {
+        checkpointTracker.documentsDone(response.getLineNumbers());
+        checkpointTracker.writeIfDue();
+      }
+      if(currentNumDocs / REPORT_MODULUS != previousNumDocs / REPORT_MODULUS) {
+        LOGGER.info(String.format("processed %d documents [elapsed time: %s]", currentNumDocs, new ToTimeConversion(System.currentTimeMillis() - startTimeInMS).getMinutesSecondsMillisecondsFromMilliseconds()));
+      }
+    }
+
+    long getNumDocs() {
+      return numDocs.get();
+    }
   }
 }
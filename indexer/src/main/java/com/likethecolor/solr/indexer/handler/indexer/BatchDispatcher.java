@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands batches to the sender threads.  {@link #dispatch(Callable)} blocks,
+ * without using CPU, while the {@link InFlightLimiter} is at its limit.  The
+ * {@link Listener} is told about each batch on the sender thread as soon as
+ * the batch is done rather than when the dispatching thread gets around to
+ * checking.
+ *
+ * A batch whose response says a retry was scheduled, see
+ * {@link RetryScheduler}, is not finished: the listener is not told about it
+ * and {@link #awaitCompletion()} waits until the retry, sent through
+ * {@link #retry(Callable)}, is done.
+ *
+ * The first failure is kept and rethrown, wrapped in an
+ * {@link ExecutionException}, by the next call to {@link #dispatch(Callable)}
+ * or {@link #awaitCompletion()}.
+ */
+public class BatchDispatcher {
+  private final Executor executor;
+  private final InFlightLimiter limiter;
+  private final Listener listener;
+  private final AtomicReference<Throwable> failure;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition finished = lock.newCondition();
+  private int unfinished;
+
+  public BatchDispatcher(final Executor executor, final InFlightLimiter limiter, final Listener listener) {
+    this.executor = executor;
+    this.limiter = limiter;
+    this.listener = listener;
+    failure = new AtomicReference<>();
+    unfinished = 0;
+  }
+
+  /**
+   * Wait for room then send the batch on a sender thread.
+   *
+   * @param service sends the batch
+   *
+   * @throws InterruptedException if interrupted while waiting for room
+   * @throws ExecutionException if an earlier batch failed
+   */
+  public void dispatch(final Callable<SolrjUpdateResponse> service) throws InterruptedException, ExecutionException {
+    throwIfFailed();
+    started();
+    try {
+      limiter.acquire();
+    }
+    catch(InterruptedException e) {
+      finished();
+      throw e;
+    }
+    execute(service);
+  }
+
+  /**
+   * Wait for room then send again a batch that was dispatched before and
+   * scheduled a retry.  If the wait is interrupted, or the sender threads are
+   * gone, the batch is counted as failed.
+   *
+   * @param service sends the batch
+   */
+  void retry(final Callable<SolrjUpdateResponse> service) {
+    try {
+      limiter.acquire();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      failure.compareAndSet(null, e);
+      finished();
+      return;
+    }
+    try {
+      execute(service);
+    }
+    catch(RejectedExecutionException e) {
+      failure.compareAndSet(null, e);
+    }
+  }
+
+  /**
+   * Wait for every dispatched batch, including any retries scheduled, to
+   * finish.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   * @throws ExecutionException if a batch failed
+   */
+  public void awaitCompletion() throws InterruptedException, ExecutionException {
+    lock.lockInterruptibly();
+    try {
+      while(unfinished > 0) {
+        finished.await();
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+    throwIfFailed();
+  }
+
+  public InFlightLimiter getLimiter() {
+    return limiter;
+  }
+
+  /**
+   * @param service sends the batch - a slot must already have been acquired
+   */
+  private void execute(final Callable<SolrjUpdateResponse> service) {
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          boolean done = true;
+          try {
+            final SolrjUpdateResponse response = service.call();
+            if(response.isRetryScheduled()) {
+              done = false;
+            }
+            else {
+              listener.batchCompleted(response);
+            }
+          }
+          catch(Throwable t) {
+            failure.compareAndSet(null, t);
+          }
+          finally {
+            limiter.release();
+            if(done) {
+              finished();
+            }
+          }
+        }
+      });
+    }
+    catch(RejectedExecutionException e) {
+      limiter.release();
+      finished();
+      throw e;
+    }
+  }
+
+  private void started() {
+    lock.lock();
+    try {
+      unfinished++;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  private void finished() {
+    lock.lock();
+    try {
+      unfinished--;
+      finished.signalAll();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  private void throwIfFailed() throws ExecutionException {
+    final Throwable t = failure.get();
+    if(t != null) {
+      throw new ExecutionException(t);
+    }
+  }
+
+  /**
+   * Told about each batch that was sent successfully.  Called on the sender
+   * thread so implementations must be thread safe.
+   */
+  public interface Listener {
+    void batchCompleted(SolrjUpdateResponse response);
+  }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Holds the byte size at which a batch is closed.  When there is a target
+ * latency the byte target is moved after each batch toward the size that
+ * would have taken the target latency, going by how long solr says the batch
+ * took.  Each move is damped and limited to halving or doubling so one slow
+ * request does not throw the target off.
+ *
+ * With no target latency the byte target never changes.  A byte target of 0
+ * means batches are not closed by size.
+ */
+public class BatchSizeController {
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchSizeController.class);
+
+  /**
+   * Byte target used, and the most it may grow to, when there is a target
+   * latency but no max bytes.
+   */
+  public static final long DEFAULT_ADAPTIVE_MAX_BYTES = 8L * 1024 * 1024;
+  public static final long MIN_BYTES = 16L * 1024;
+
+  /**
+   * How far to move toward the wanted size after each batch.
+   */
+  static final double SMOOTHING = 0.25;
+
+  private final long targetLatencyMillis;
+  private final long minBytes;
+  private final long maxBytes;
+  private volatile long targetBytes;
+
+  /**
+   * @param maxBytes starting byte target and the most it may grow to - 0 for
+   * no byte target
+   * @param targetLatencyMillis wanted elapsed time of each request - 0 to keep
+   * the byte target fixed
+   */
+  public BatchSizeController(final long maxBytes, final long targetLatencyMillis) {
+    this.targetLatencyMillis = Math.max(0, targetLatencyMillis);
+    if(this.targetLatencyMillis > 0) {
+      this.maxBytes = maxBytes > 0 ? Math.max(MIN_BYTES, maxBytes) : DEFAULT_ADAPTIVE_MAX_BYTES;
+      minBytes = MIN_BYTES;
+    }
+    else {
+      this.maxBytes = Math.max(0, maxBytes);
+      minBytes = this.maxBytes;
+    }
+    targetBytes = this.maxBytes;
+  }
+
+  public static BatchSizeController fromConfiguration(final Configuration configuration) {
+    return new BatchSizeController(configuration.getBatchMaxBytes(), configuration.getBatchTargetLatencyMillis());
+  }
+
+  /**
+   * @return byte size at which to close a batch - 0 if batches are not
+   * closed by size
+   */
+  public long getTargetBytes() {
+    return targetBytes;
+  }
+
+  public boolean isAdaptive() {
+    return targetLatencyMillis > 0;
+  }
+
+  /**
+   * Move the byte target after a batch was sent.  Does nothing when there is
+   * no target latency or the batch has no size or time.
+   *
+   * @param batchBytes estimated size of the batch
+   * @param elapsedMillis time solr took to handle the batch
+   */
+  public synchronized void record(final long batchBytes, final long elapsedMillis) {
+    if(!isAdaptive() || batchBytes <= 0 || elapsedMillis <= 0) {
+      return;
+    }
+    final long current = targetBytes;
+    double wanted = (double) batchBytes * targetLatencyMillis / elapsedMillis;
+    wanted = Math.min(current * 2.0, Math.max(current / 2.0, wanted));
+    final long next = Math.min(maxBytes, Math.max(minBytes, Math.round(current + (wanted - current) * SMOOTHING)));
+    if(next != current) {
+      LOGGER.debug("batch byte target {} -> {} [batch: {} bytes in {} ms]", current, next, batchBytes, elapsedMillis);
+      targetBytes = next;
+    }
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * How far a run got through a data file: every row up to and including the
+ * row ending on {@link #getLineNumber()} has been indexed.  Stored as a
+ * properties file along with the data file's path and a fingerprint of it so
+ * a run is not resumed against another file.
+ */
+public final class Checkpoint {
+  static final String DATA_FILE_KEY = "data-file";
+  static final String FINGERPRINT_KEY = "fingerprint";
+  static final String LINE_NUMBER_KEY = "line-number";
+  static final String COMPLETE_KEY = "complete";
+  /**
+   * Bytes at the start of the data file that go into the fingerprint.
+   */
+  private static final int FINGERPRINT_BYTES = 64 * 1024;
+  private final String dataFile;
+  private final String fingerprint;
+  private final int lineNumber;
+  private final boolean complete;
+
+  public Checkpoint(final String dataFile, final String fingerprint, final int lineNumber, final boolean complete) {
+    this.dataFile = dataFile;
+    this.fingerprint = fingerprint;
+    this.lineNumber = lineNumber;
+    this.complete = complete;
+  }
+
+  /**
+   * @return absolute path of the data file
+   */
+  public String getDataFile() {
+    return dataFile;
+  }
+
+  public String getFingerprint() {
+    return fingerprint;
+  }
+
+  /**
+   * @return line the last indexed row ends on - 0 if none
+   */
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * @return true if every row in the data file was indexed
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * @return true if this checkpoint was written for the data file as it is
+   * now
+   */
+  public boolean matches(final String dataFile, final String fingerprint) {
+    return this.dataFile.equals(dataFile) && this.fingerprint.equals(fingerprint);
+  }
+
+  /**
+   * @param file checkpoint file
+   *
+   * @return the checkpoint or null if the file does not exist
+   *
+   * @throws IOException if the file could not be read or is not a checkpoint
+   */
+  public static Checkpoint read(final File file) throws IOException {
+    if(!file.exists()) {
+      return null;
+    }
+    final Properties properties = new Properties();
+    try(InputStream in = new FileInputStream(file)) {
+      properties.load(in);
+    }
+    final String dataFile = properties.getProperty(DATA_FILE_KEY);
+    final String fingerprint = properties.getProperty(FINGERPRINT_KEY);
+    final String lineNumber = properties.getProperty(LINE_NUMBER_KEY);
+    if(dataFile == null || fingerprint == null || lineNumber == null) {
+      throw new IOException("not a checkpoint file: " + file);
+    }
+    try {
+      return new Checkpoint(dataFile, fingerprint, Integer.parseInt(lineNumber.trim()), Boolean.parseBoolean(properties.getProperty(COMPLETE_KEY)));
+    }
+    catch(NumberFormatException e) {
+      throw new IOException("not a checkpoint file: " + file, e);
+    }
+  }
+
+  /**
+   * Write the checkpoint to a temporary file then move it over the file so
+   * the file is never left half written.
+   *
+   * @param file checkpoint file
+   *
+   * @throws IOException if the file could not be written
+   */
+  public void write(final File file) throws IOException {
+    final Properties properties = new Properties();
+    properties.setProperty(DATA_FILE_KEY, dataFile);
+    properties.setProperty(FINGERPRINT_KEY, fingerprint);
+    properties.setProperty(LINE_NUMBER_KEY, String.valueOf(lineNumber));
+    properties.setProperty(COMPLETE_KEY, String.valueOf(complete));
+    final File temp = new File(file.getPath() + ".tmp");
+    try(OutputStream out = new FileOutputStream(temp)) {
+      properties.store(out, "solr-indexer checkpoint");
+    }
+    try {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    catch(AtomicMoveNotSupportedException e) {
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+  }
+
+  /**
+   * @param dataFile the data file
+   *
+   * @return the file's size and a checksum of its first bytes - cheap to work
+   * out even for a very large file
+   *
+   * @throws IOException if the file could not be read
+   */
+  public static String fingerprint(final File dataFile) throws IOException {
+    final CRC32 crc = new CRC32();
+    final byte[] buffer = new byte[8192];
+    int remaining = FINGERPRINT_BYTES;
+    try(InputStream in = new FileInputStream(dataFile)) {
+      int read;
+      while(remaining > 0 && (read = in.read(buffer, 0, Math.min(buffer.length, remaining))) != -1) {
+        crc.update(buffer, 0, read);
+        remaining -= read;
+      }
+    }
+    return dataFile.length() + "-" + Long.toHexString(crc.getValue());
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Works out how far through the data file every row has been indexed and
+ * writes it to the checkpoint file.  Batches finish out of order so the
+ * checkpoint is the end of the run of finished rows from the top of the file.
+ *
+ * Each row is counted from when it is read until it is built into no
+ * documents or all of its documents are in batches that finished.  Only the
+ * rows not yet finished are kept, which the queues and the in flight limit
+ * keep small.
+ *
+ * A reader that does not read the rows in line order, see
+ * {@link com.likethecolor.solr.indexer.reader.UnorderedDataReader}, reads
+ * parts of the file each in line order.  The run of finished rows is kept for
+ * each part, so a row finished in a later part is let go without waiting for
+ * the earlier parts.  The checkpoint is the end of the run in the first part
+ * not yet done, and does not move past the line the reader has read every row
+ * up to.
+ *
+ * Safe to use from the reader, builder and sender threads.
+ */
+public class CheckpointTracker {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CheckpointTracker.class);
+  /**
+   * Least time between writes of the checkpoint file while the run goes on.
+   */
+  static final long WRITE_INTERVAL_MILLIS = 1000;
+  private final File file;
+  private final String dataFile;
+  private final String fingerprint;
+  private final int startLineNumber;
+  /**
+   * Parts of the file by the line each starts after.
+   */
+  private final TreeMap<Integer, Part> parts;
+  private int lineNumber;
+  private int readThroughLineNumber;
+  private int writtenLineNumber;
+  private long lastWriteMillis;
+
+  /**
+   * @param file checkpoint file
+   * @param dataFile absolute path of the data file
+   * @param fingerprint fingerprint of the data file
+   * @param startLineNumber line the run starts after - 0 unless resuming
+   */
+  public CheckpointTracker(final File file, final String dataFile, final String fingerprint, final int startLineNumber) {
+    this.file = file;
+    this.dataFile = dataFile;
+    this.fingerprint = fingerprint;
+    this.startLineNumber = startLineNumber;
+    parts = new TreeMap<>();
+    parts.put(0, new Part(startLineNumber));
+    lineNumber = startLineNumber;
+    readThroughLineNumber = Integer.MAX_VALUE;
+    writtenLineNumber = startLineNumber;
+    lastWriteMillis = System.currentTimeMillis();
+  }
+
+  /**
+   * @return line the run started after - rows up to it are skipped
+   */
+  public int getStartLineNumber() {
+    return startLineNumber;
+  }
+
+  /**
+   * @return line every row up to which has been indexed
+   */
+  public synchronized int getLineNumber() {
+    return lineNumber;
+  }
+
+  /**
+   * Called by a reader that does not read in line order, before the first
+   * row, with the parts of the file it reads each in line order.
+   *
+   * @param partStartLineNumbers line each part starts after
+   */
+  public synchronized void setPartStartLineNumbers(final List<Integer> partStartLineNumbers) {
+    parts.clear();
+    parts.put(0, new Part(startLineNumber));
+    for(Integer partStartLineNumber : partStartLineNumbers) {
+      parts.put(partStartLineNumber, new Part(Math.max(partStartLineNumber, startLineNumber)));
+    }
+  }
+
+  /**
+   * Called by the reader, in line order, for each row put on the row queue.
+   */
+  public synchronized void rowRead(final int line) {
+    getPart(line).rows.put(line, 1);
+  }
+
+  /**
+   * Called by a reader that does not read in line order for each row put on
+   * the row queue.
+   *
+   * @param line line of the row
+   * @param readThroughLineNumber line every row up to which has been read
+   */
+  public synchronized void rowRead(final int line, final int readThroughLineNumber) {
+    getPart(line).rows.put(line, 1);
+    readThrough(readThroughLineNumber);
+  }
+
+  /**
+   * Called by a reader that does not read in line order once every row up to
+   * the line has been read.
+   *
+   * @param readThroughLineNumber line every row up to which has been read
+   */
+  public synchronized void readThrough(final int readThroughLineNumber) {
+    this.readThroughLineNumber = readThroughLineNumber;
+    advance();
+  }
+
+  /**
+   * Called by a builder once the row has been turned into documents.
+   *
+   * @param line line of the row
+   * @param documentCount number of documents built from the row
+   */
+  public synchronized void rowBuilt(final int line, final int documentCount) {
+    final Part part = getPart(line);
+    if(part.rows.containsKey(line)) {
+      part.rows.put(line, documentCount);
+      advance();
+    }
+  }
+
+  /**
+   * Called when a batch has finished, whether its documents were indexed or
+   * written to the dead letter file.
+   *
+   * @param lines line of each document in the batch - unknown (-1) lines are
+   * ignored
+   */
+  public synchronized void documentsDone(final List<Integer> lines) {
+    if(lines == null) {
+      return;
+    }
+    for(Integer line : lines) {
+      if(line == null) {
+        continue;
+      }
+      final Map<Integer, Integer> rows = getPart(line).rows;
+      final Integer remaining = rows.get(line);
+      if(remaining != null) {
+        rows.put(line, remaining - 1);
+      }
+    }
+    advance();
+  }
+
+  /**
+   * Write the checkpoint if it moved and it has not been written for a
+   * while.  A failure to write is logged and the run carries on.
+   */
+  public synchronized void writeIfDue() {
+    if(lineNumber != writtenLineNumber && System.currentTimeMillis() - lastWriteMillis >= WRITE_INTERVAL_MILLIS) {
+      try {
+        write(false);
+      }
+      catch(IOException e) {
+        LOGGER.warn("could not write checkpoint file " + file, e);
+      }
+    }
+  }
+
+  /**
+   * Write the checkpoint as it is now.
+   *
+   * @param complete true if every row in the data file was indexed
+   *
+   * @throws IOException if the file could not be written
+   */
+  public synchronized void write(final boolean complete) throws IOException {
+    new Checkpoint(dataFile, fingerprint, lineNumber, complete).write(file);
+    writtenLineNumber = lineNumber;
+    lastWriteMillis = System.currentTimeMillis();
+    LOGGER.debug("checkpoint at line {}", lineNumber);
+  }
+
+  /**
+   * @return number of rows not yet finished
+   */
+  synchronized int getPendingRowCount() {
+    int count = 0;
+    for(Part part : parts.values()) {
+      count += part.rows.size();
+    }
+    return count;
+  }
+
+  /**
+   * @return the part the row is in - the last one starting before its line
+   */
+  private Part getPart(final int line) {
+    final Map.Entry<Integer, Part> entry = parts.lowerEntry(line);
+    return entry == null ? parts.firstEntry().getValue() : entry.getValue();
+  }
+
+  private void advance() {
+    int checkpoint = -1;
+    Map.Entry<Integer, Part> entry = parts.firstEntry();
+    while(entry != null) {
+      final Part part = entry.getValue();
+      part.advance();
+      final Map.Entry<Integer, Part> next = parts.higherEntry(entry.getKey());
+      // a part is done once its rows are finished and every row in it read
+      if(checkpoint < 0 && (next == null || !part.rows.isEmpty() || readThroughLineNumber < next.getKey())) {
+        checkpoint = part.doneThroughLineNumber;
+      }
+      entry = next;
+    }
+    lineNumber = Math.max(lineNumber, checkpoint);
+  }
+
+  /**
+   * Part of the file read in line order.
+   */
+  private static class Part {
+    /**
+     * Rows not yet finished, by line number, to the number of documents not
+     * yet indexed.  A row that has not been built yet counts as one.
+     */
+    private final TreeMap<Integer, Integer> rows = new TreeMap<>();
+    /**
+     * Line every row of the part up to which is finished.
+     */
+    private int doneThroughLineNumber;
+
+    private Part(final int doneThroughLineNumber) {
+      this.doneThroughLineNumber = doneThroughLineNumber;
+    }
+
+    private void advance() {
+      Map.Entry<Integer, Integer> first;
+      while((first = rows.firstEntry()) != null && first.getValue() <= 0) {
+        doneThroughLineNumber = first.getKey();
+        rows.pollFirstEntry();
+      }
+    }
+  }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.SolrJCloudClientFacet;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.util.conversion.ToTimeConversion;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Makes soft commits on a thread of its own so neither the sender threads
+ * nor the dispatching thread wait for them.  A soft commit is asked for every
+ * {@link Configuration#getSoftCommitFrequency()} batches and/or every
+ * {@link Configuration#getSoftCommitIntervalMillis()} milliseconds.  A soft
+ * commit asked for while another is waiting to be made is folded into it.
+ *
+ * The number of soft commits and the time they took are kept apart from the
+ * indexing time and logged by {@link #close()}.
+ */
+public class CommitScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(CommitScheduler.class);
+  private final CloudSolrClient solr;
+  private final long batchFrequency;
+  private final long intervalMillis;
+  private final ScheduledExecutorService executor;
+  private final AtomicBoolean pending;
+  private long commitCount;
+  private long commitMillis;
+  private long longestCommitMillis;
+
+  /**
+   * @param solr client to commit with
+   * @param batchFrequency soft commit after every this many batches - 0 for
+   * never
+   * @param intervalMillis soft commit every this many milliseconds - 0 for
+   * never
+   */
+  public CommitScheduler(final CloudSolrClient solr, final long batchFrequency, final long intervalMillis) {
+    this.solr = solr;
+    this.batchFrequency = batchFrequency;
+    this.intervalMillis = intervalMillis;
+    executor = Executors.newSingleThreadScheduledExecutor();
+    pending = new AtomicBoolean(false);
+  }
+
+  public static CommitScheduler fromConfiguration(final Configuration configuration, final CloudSolrClient solr) {
+    return new CommitScheduler(solr, configuration.getSoftCommitFrequency(), configuration.getSoftCommitIntervalMillis());
+  }
+
+  /**
+   * Start the soft commits made every interval, if any.
+   */
+  public void start() {
+    if(intervalMillis > 0) {
+      executor.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          softCommit("interval");
+        }
+      }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Called as each batch finishes.  Asks for a soft commit if one is due and
+   * returns straight away.
+   *
+   * @param batchNumber number of the batch, counting from 1
+   */
+  public void batchCompleted(final long batchNumber) {
+    if(isDue(batchFrequency, batchNumber)) {
+      requestSoftCommit("batch #" + batchNumber);
+    }
+  }
+
+  /**
+   * Ask for a soft commit.  Returns straight away.
+   *
+   * @param reason logged with the commit
+   */
+  public void requestSoftCommit(final String reason) {
+    if(!pending.compareAndSet(false, true)) {
+      LOGGER.debug("soft commit already waiting - not asking for another after {}", reason);
+      return;
+    }
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          softCommit(reason);
+        }
+      });
+    }
+    catch(RejectedExecutionException e) {
+      pending.set(false);
+      LOGGER.debug("commit scheduler closed - no soft commit after {}", reason);
+    }
+  }
+
+  /**
+   * Stop asking for soft commits and wait for the one being made, if any.
+   * The soft commit totals are logged.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   */
+  public void close() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    if(getCommitCount() > 0) {
+      LOGGER.info("soft commits: {} [total {}, longest {}]", getCommitCount(), new ToTimeConversion(getCommitMillis()).getMinutesSecondsMillisecondsFromMilliseconds(), new ToTimeConversion(getLongestCommitMillis()).getMinutesSecondsMillisecondsFromMilliseconds());
+    }
+  }
+
+  /**
+   * Stop without waiting for the soft commit being made.
+   */
+  public void shutdownNow() {
+    executor.shutdownNow();
+  }
+
+  public synchronized long getCommitCount() {
+    return commitCount;
+  }
+
+  /**
+   * @return total milliseconds spent in soft commits
+   */
+  public synchronized long getCommitMillis() {
+    return commitMillis;
+  }
+
+  public synchronized long getLongestCommitMillis() {
+    return longestCommitMillis;
+  }
+
+  /**
+   * @return true if a soft commit is due after the batch
+   */
+  static boolean isDue(final long batchFrequency, final long batchNumber) {
+    return batchFrequency >= 1 && batchNumber != 0 && batchNumber % batchFrequency == 0;
+  }
+
+  private void softCommit(final String reason) {
+    // clear first so a request made during the commit gets a commit of its own
+    pending.set(false);
+    LOGGER.info("requesting soft commit after {}", reason);
+    final long start = System.currentTimeMillis();
+    SolrJCloudClientFacet.softCommit(solr);
+    recordCommit(System.currentTimeMillis() - start);
+  }
+
+  private synchronized void recordCommit(final long millis) {
+    commitCount++;
+    commitMillis += millis;
+    longestCommitMillis = Math.max(longestCommitMillis, millis);
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Changes how many batches may be in flight based on how solr is coping
+ * (additive increase, multiplicative decrease):
+ * <ul>
+ *   <li>after a full round of requests - as many as the current limit - that
+ *   succeeded with flat latency the limit goes up by one</li>
+ *   <li>when latency rises above the baseline, a request times out or solr
+ *   answers 503 or 429 the limit is cut in half</li>
+ * </ul>
+ * The limit stays between the min and max.  After a change another round of
+ * requests has to finish before the limit is cut again, since the requests
+ * in flight at the time of the change were sent under the old limit.
+ *
+ * Latency is a moving average of the elapsed time solr reports.  The baseline
+ * is the lowest average seen, drifting slowly toward the current average so a
+ * lasting change (bigger documents, for instance) does not pin the limit at
+ * the min.
+ */
+public class ConcurrencyController implements IndexService.AttemptListener {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyController.class);
+  static final int TOO_MANY_REQUESTS = 429;
+  static final int SERVICE_UNAVAILABLE = 503;
+  static final double DECREASE_FACTOR = 0.5;
+  /**
+   * Latency this many times the baseline counts as rising.
+   */
+  static final double LATENCY_TOLERANCE = 1.5;
+  static final double LATENCY_WEIGHT = 0.2;
+  static final double BASELINE_DRIFT = 0.01;
+
+  private final InFlightLimiter limiter;
+  private final int minLimit;
+  private final int maxLimit;
+  private double latency;
+  private double baseline;
+  private int attemptsSinceChange;
+  private int successesSinceChange;
+
+  /**
+   * @param initialLimit starting limit - kept between the min and max
+   * @param minLimit fewest in flight - values {@code <= 0} are set to 1
+   * @param maxLimit most in flight - values below the min are set to the min
+   */
+  public ConcurrencyController(final int initialLimit, final int minLimit, final int maxLimit) {
+    this.minLimit = Math.max(1, minLimit);
+    this.maxLimit = Math.max(this.minLimit, maxLimit);
+    limiter = new InFlightLimiter(Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit)));
+    latency = -1;
+    baseline = -1;
+  }
+
+  public static ConcurrencyController fromConfiguration(final Configuration configuration) {
+    return new ConcurrencyController(configuration.getThreadCount(), configuration.getMinThreadCount(), configuration.getMaxThreadCount());
+  }
+
+  public InFlightLimiter getLimiter() {
+    return limiter;
+  }
+
+  public int getMinLimit() {
+    return minLimit;
+  }
+
+  public int getMaxLimit() {
+    return maxLimit;
+  }
+
+  /**
+   * Called after every attempt to send a batch, including retries.
+   *
+   * @param response result of the attempt
+   */
+  @Override
+  public synchronized void attemptCompleted(final SolrjUpdateResponse response) {
+    attemptsSinceChange++;
+    if(!response.isUpdateSucceeded()) {
+      if(isOverloaded(response)) {
+        decrease(response.isTimedOut() ? "request timed out" : "solr returned " + response.getErrorCode());
+      }
+      // other failures (bad documents, for instance) say nothing about load
+      return;
+    }
+
+    successesSinceChange++;
+    if(response.getUpdateResponse() != null && response.getUpdateResponse().getElapsedTime() > 0) {
+      recordLatency(response.getUpdateResponse().getElapsedTime());
+    }
+    if(latency > baseline * LATENCY_TOLERANCE) {
+      decrease(String.format("latency rising: %.0f ms, baseline %.0f ms", latency, baseline));
+    }
+    else if(successesSinceChange >= limiter.getLimit()) {
+      increase();
+    }
+  }
+
+  private boolean isOverloaded(final SolrjUpdateResponse response) {
+    return response.isTimedOut() || response.getErrorCode() == SERVICE_UNAVAILABLE || response.getErrorCode() == TOO_MANY_REQUESTS;
+  }
+
+  private void recordLatency(final long elapsedMillis) {
+    if(latency < 0) {
+      latency = elapsedMillis;
+      baseline = elapsedMillis;
+      return;
+    }
+    latency += (elapsedMillis - latency) * LATENCY_WEIGHT;
+    if(latency < baseline) {
+      baseline = latency;
+    }
+    else {
+      baseline += (latency - baseline) * BASELINE_DRIFT;
+    }
+  }
+
+  private void increase() {
+    final int limit = limiter.getLimit();
+    if(limit < maxLimit) {
+      change(limit, limit + 1, "latency flat");
+    }
+    else {
+      successesSinceChange = 0;
+    }
+  }
+
+  private void decrease(final String reason) {
+    final int limit = limiter.getLimit();
+    if(attemptsSinceChange < limit) {
+      // still hearing about requests sent before the last change
+      return;
+    }
+    final int next = Math.max(minLimit, (int) (limit * DECREASE_FACTOR));
+    if(next < limit) {
+      change(limit, next, reason);
+    }
+    else {
+      attemptsSinceChange = 0;
+      successesSinceChange = 0;
+    }
+  }
+
+  private void change(final int from, final int to, final String reason) {
+    LOGGER.info("sender concurrency {} -> {} [{}]", from, to, reason);
+    limiter.setLimit(to);
+    attemptsSinceChange = 0;
+    successesSinceChange = 0;
+  }
+}
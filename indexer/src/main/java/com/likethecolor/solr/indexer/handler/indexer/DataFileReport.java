@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts for one data file: the rows read from it by its
+ * {@link RowReaderStage} and the documents built from those rows by the
+ * {@link DocumentBuilderStage}s.  If reading the file failed the failure is
+ * kept here so it can be reported along with the other files.
+ *
+ * The read time is how long the reader stage ran, including any time spent
+ * waiting for room on the row queue, so the read rate is that of the file
+ * within the run rather than of the disk.
+ */
+final class DataFileReport {
+  private final String dataFile;
+  private final AtomicLong rowsRead;
+  private final AtomicLong documentsBuilt;
+  private volatile Throwable failure;
+  private volatile long readTimeInMS;
+  private volatile long bytesRead;
+
+  DataFileReport(final String dataFile) {
+    this.dataFile = dataFile;
+    rowsRead = new AtomicLong();
+    documentsBuilt = new AtomicLong();
+  }
+
+  String getDataFile() {
+    return dataFile;
+  }
+
+  void rowRead() {
+    rowsRead.incrementAndGet();
+  }
+
+  long getRowsRead() {
+    return rowsRead.get();
+  }
+
+  void documentsBuilt(final int count) {
+    documentsBuilt.addAndGet(count);
+  }
+
+  long getDocumentsBuilt() {
+    return documentsBuilt.get();
+  }
+
+  void setFailure(final Throwable failure) {
+    this.failure = failure;
+  }
+
+  /**
+   * @return what stopped the file being read or null if it was read to the end
+   */
+  Throwable getFailure() {
+    return failure;
+  }
+
+  void setReadTimeInMS(final long readTimeInMS) {
+    this.readTimeInMS = readTimeInMS;
+  }
+
+  long getReadTimeInMS() {
+    return readTimeInMS;
+  }
+
+  void setBytesRead(final long bytesRead) {
+    this.bytesRead = bytesRead;
+  }
+
+  long getBytesRead() {
+    return bytesRead;
+  }
+
+  /**
+   * @return MB (2^20 bytes) read
+   */
+  double getMegabytesRead() {
+    return bytesRead / (1024.0 * 1024.0);
+  }
+
+  /**
+   * @return MB read a second - 0 if no time was taken
+   */
+  double getMegabytesPerSecond() {
+    if(readTimeInMS <= 0) {
+      return 0;
+    }
+    return getMegabytesRead() * 1000 / readTimeInMS;
+  }
+}
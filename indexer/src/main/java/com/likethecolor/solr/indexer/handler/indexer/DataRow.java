@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import java.util.List;
+
+/**
+ * A row of values read from the data file along with the line number it was
+ * read from and, when there is one, the report of the data file it was read
+ * from.  This is what is handed from the reader stage to the builder stage.
+ */
+final class DataRow {
+  /**
+   * Put on the row queue, once per builder, when there are no more rows.
+   */
+  static final DataRow END = new DataRow(-1, null);
+
+  private final int lineNumber;
+  private final List<Object> values;
+  private final DataFileReport report;
+
+  DataRow(final int lineNumber, final List<Object> values) {
+    this(lineNumber, values, null);
+  }
+
+  DataRow(final int lineNumber, final List<Object> values, final DataFileReport report) {
+    this.lineNumber = lineNumber;
+    this.values = values;
+    this.report = report;
+  }
+
+  int getLineNumber() {
+    return lineNumber;
+  }
+
+  List<Object> getValues() {
+    return values;
+  }
+
+  /**
+   * @return report of the data file the row was read from - may be null
+   */
+  DataFileReport getReport() {
+    return report;
+  }
+}
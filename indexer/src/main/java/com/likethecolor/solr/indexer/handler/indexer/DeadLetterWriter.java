@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes documents solr rejected to a file, one JSON object per line, so they
+ * can be looked at and fixed without stopping the run.  Each line holds the
+ * line number of the data file the document came from, the http status, the
+ * error solr returned and the document's fields.
+ *
+ * The file is opened, for appending, when the first document is written so a
+ * run with no rejected documents leaves no file behind.  Safe to use from
+ * several sender threads.
+ */
+public class DeadLetterWriter implements Closeable {
+  private final String fileName;
+  private Writer writer;
+  private long count;
+
+  public DeadLetterWriter(final String fileName) {
+    this.fileName = fileName;
+  }
+
+  /**
+   * @param doc the rejected document
+   * @param lineNumber line of the data file the document came from - -1 if
+   * not known
+   * @param errorCode http status solr returned
+   * @param error the error solr returned - may be null
+   *
+   * @throws IOException if the file could not be written
+   */
+  public synchronized void write(final SolrInputDocument doc, final int lineNumber, final int errorCode, final String error) throws IOException {
+    final JSONObject json = new JSONObject();
+    json.put("line", lineNumber);
+    json.put("code", errorCode);
+    json.put("error", error == null ? JSONObject.NULL : error);
+    json.put("document", toJSON(doc));
+    if(writer == null) {
+      writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName, true), StandardCharsets.UTF_8));
+    }
+    writer.write(json.toString());
+    writer.write('\n');
+    // rejected documents are rare - flush so none are lost if the run dies
+    writer.flush();
+    count++;
+  }
+
+  /**
+   * @return number of documents written
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  public String getFileName() {
+    return fileName;
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if(writer != null) {
+      writer.close();
+      writer = null;
+    }
+  }
+
+  static JSONObject toJSON(final SolrInputDocument doc) {
+    final JSONObject json = new JSONObject();
+    for(SolrInputField field : doc) {
+      if(field.getValueCount() > 1) {
+        final JSONArray values = new JSONArray();
+        for(Object value : field.getValues()) {
+          values.put(toJSONValue(value));
+        }
+        json.put(field.getName(), values);
+      }
+      else {
+        json.put(field.getName(), toJSONValue(field.getFirstValue()));
+      }
+    }
+    if(doc.hasChildDocuments()) {
+      final JSONArray children = new JSONArray();
+      for(SolrInputDocument child : doc.getChildDocuments()) {
+        children.put(toJSON(child));
+      }
+      json.put("_childDocuments_", children);
+    }
+    return json;
+  }
+
+  private static Object toJSONValue(final Object value) {
+    if(value == null) {
+      return JSONObject.NULL;
+    }
+    if(value instanceof Number || value instanceof Boolean || value instanceof String) {
+      return value;
+    }
+    // dates, atomic update maps and the like are written as text
+    return String.valueOf(value);
+  }
+}
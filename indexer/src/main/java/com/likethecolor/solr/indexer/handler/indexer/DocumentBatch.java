@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A batch of documents ready to be sent to solr along with the estimated
+ * size, in bytes, of its documents and, when the documents were grouped by
+ * shard, the shard they belong to.  The line number of the data file each
+ * document came from is kept, when known, for reporting documents solr
+ * rejects.  A batch may also carry its documents already encoded as the body
+ * of an update request.
+ */
+public class DocumentBatch {
+  private final List<SolrInputDocument> documents;
+  private final List<Integer> lineNumbers;
+  private final long estimatedBytes;
+  private final String shard;
+  private final byte[] payload;
+
+  public DocumentBatch(final List<SolrInputDocument> documents, final long estimatedBytes) {
+    this(documents, null, estimatedBytes, null);
+  }
+
+  public DocumentBatch(final List<SolrInputDocument> documents, final long estimatedBytes, final String shard) {
+    this(documents, null, estimatedBytes, shard);
+  }
+
+  /**
+   * @param documents documents in the batch
+   * @param lineNumbers line number of each document - null if not known
+   * @param estimatedBytes estimated size of the documents
+   * @param shard shard the documents belong to - null if not grouped by shard
+   */
+  public DocumentBatch(final List<SolrInputDocument> documents, final List<Integer> lineNumbers, final long estimatedBytes, final String shard) {
+    this(documents, lineNumbers, estimatedBytes, shard, null);
+  }
+
+  private DocumentBatch(final List<SolrInputDocument> documents, final List<Integer> lineNumbers, final long estimatedBytes, final String shard, final byte[] payload) {
+    this.documents = documents == null ? new ArrayList<SolrInputDocument>(0) : documents;
+    this.lineNumbers = lineNumbers;
+    this.estimatedBytes = estimatedBytes;
+    this.shard = shard;
+    this.payload = payload;
+  }
+
+  /**
+   * @param payload the documents encoded as the body of an update request
+   *
+   * @return copy of this batch carrying the payload - its size becomes the
+   * batch's estimated bytes
+   */
+  public DocumentBatch withPayload(final byte[] payload) {
+    return new DocumentBatch(documents, lineNumbers, payload.length, shard, payload);
+  }
+
+  public List<SolrInputDocument> getDocuments() {
+    return documents;
+  }
+
+  /**
+   * @return line number of each document - null if not known
+   */
+  public List<Integer> getLineNumbers() {
+    return lineNumbers;
+  }
+
+  /**
+   * @param index index of a document in the batch
+   *
+   * @return line number the document came from - -1 if not known
+   */
+  public int getLineNumber(final int index) {
+    if(lineNumbers == null || index >= lineNumbers.size()) {
+      return -1;
+    }
+    return lineNumbers.get(index);
+  }
+
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  /**
+   * @return shard all the documents belong to - null if the documents were
+   * not grouped by shard
+   */
+  public String getShard() {
+    return shard;
+  }
+
+  /**
+   * @return the documents encoded as the body of an update request - null if
+   * they were not encoded
+   */
+  public byte[] getPayload() {
+    return payload;
+  }
+
+  public int size() {
+    return documents.size();
+  }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects documents into a batch and says when the batch should be sent:
+ * when it holds the max number of documents, when its estimated size reaches
+ * the byte target or when its first document has waited the linger time -
+ * whichever comes first.  Not thread safe; each builder has its own.
+ */
+class DocumentBatcher {
+  private final int maxDocs;
+  private final long lingerNanos;
+  private final BatchSizeController sizeController;
+  private List<SolrInputDocument> docs;
+  private List<Integer> lineNumbers;
+  private int countedDocs;
+  private long bytes;
+  private long firstDocNanos;
+
+  /**
+   * @param maxDocs most documents in a batch
+   * @param lingerMillis longest the first document waits - 0 to wait for a
+   * full batch
+   * @param sizeController supplies the byte target
+   */
+  DocumentBatcher(final int maxDocs, final long lingerMillis, final BatchSizeController sizeController) {
+    this.maxDocs = Math.max(1, maxDocs);
+    this.lingerNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, lingerMillis));
+    this.sizeController = sizeController;
+    reset();
+  }
+
+  /**
+   * The documents in the current batch.  Documents are added to this list
+   * directly; they are counted the next time {@link #isFull()} is called.
+   *
+   * @return documents in the current batch
+   */
+  List<SolrInputDocument> getDocuments() {
+    return docs;
+  }
+
+  /**
+   * Give the documents added to {@link #getDocuments()} since the last call a
+   * line number.
+   *
+   * @param lineNumber line of the data file the documents came from
+   */
+  void setLineNumber(final int lineNumber) {
+    while(lineNumbers.size() < docs.size()) {
+      lineNumbers.add(lineNumber);
+    }
+  }
+
+  /**
+   * @param doc document to add - nulls are ignored
+   *
+   * @return true if the batch should now be sent
+   */
+  boolean add(final SolrInputDocument doc) {
+    return add(doc, -1);
+  }
+
+  /**
+   * @param doc document to add - nulls are ignored
+   * @param lineNumber line of the data file the document came from
+   *
+   * @return true if the batch should now be sent
+   */
+  boolean add(final SolrInputDocument doc, final int lineNumber) {
+    if(doc != null) {
+      docs.add(doc);
+      setLineNumber(lineNumber);
+    }
+    return isFull();
+  }
+
+  boolean isFull() {
+    countNewDocuments();
+    if(docs.isEmpty()) {
+      return false;
+    }
+    if(docs.size() >= maxDocs) {
+      return true;
+    }
+    final long targetBytes = sizeController.getTargetBytes();
+    if(targetBytes > 0 && bytes >= targetBytes) {
+      return true;
+    }
+    return lingerNanos > 0 && System.nanoTime() - firstDocNanos >= lingerNanos;
+  }
+
+  boolean isLingering() {
+    return lingerNanos > 0 && !docs.isEmpty();
+  }
+
+  /**
+   * @return nanoseconds left before the batch has to be sent because of the
+   * linger time - never less than 0
+   */
+  long getRemainingLingerNanos() {
+    return Math.max(0, lingerNanos - (System.nanoTime() - firstDocNanos));
+  }
+
+  /**
+   * Hand over the batch and start a new one.
+   *
+   * @return the batch
+   */
+  DocumentBatch drain() {
+    countNewDocuments();
+    setLineNumber(-1);
+    final DocumentBatch batch = new DocumentBatch(docs, lineNumbers, bytes, null);
+    reset();
+    return batch;
+  }
+
+  private void countNewDocuments() {
+    if(countedDocs == 0 && !docs.isEmpty()) {
+      firstDocNanos = System.nanoTime();
+    }
+    for(; countedDocs < docs.size(); countedDocs++) {
+      bytes += DocumentSizeEstimator.estimate(docs.get(countedDocs));
+    }
+  }
+
+  private void reset() {
+    docs = new ArrayList<>(Math.min(maxDocs, 1024));
+    lineNumbers = new ArrayList<>(Math.min(maxDocs, 1024));
+    countedDocs = 0;
+    bytes = 0;
+    firstDocNanos = 0;
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Second stage of the indexing pipeline.  Takes rows off the row queue, turns
+ * them into documents and puts batches on the batch queue.  There may be
+ * several of these running at once.
+ *
+ * A batch is put on the queue once the {@link DocumentBatcher} says it is
+ * full: by document count, by estimated bytes or because its first document
+ * has waited the linger time.  When asked to, the batch is encoded to javabin
+ * here, on a builder thread, so the senders only have to send bytes.  While a
+ * batch is lingering the row queue is polled with a timeout so a slow reader
+ * cannot hold a batch back.
+ *
+ * When {@link DataRow#END} is taken the partial batch, if any, is put on the
+ * batch queue followed by {@link #END_OF_BATCHES}.  The end marker is always
+ * put on the queue, even on failure, so the sender never waits on a builder
+ * that is gone.
+ */
+class DocumentBuilderStage implements Callable<Long> {
+  /**
+   * Put on the batch queue by each builder when it is done.  Compared by
+   * identity.
+   */
+  static final DocumentBatch END_OF_BATCHES = new DocumentBatch(new ArrayList<SolrInputDocument>(0), 0);
+
+  private final AbstractSolrDocumentHandler handler;
+  private final BlockingQueue<DataRow> rowQueue;
+  private final BlockingQueue<DocumentBatch> batchQueue;
+  private final DocumentBatcher batcher;
+  private final boolean preSerialize;
+  private final CheckpointTracker checkpointTracker;
+
+  DocumentBuilderStage(final AbstractSolrDocumentHandler handler, final BlockingQueue<DataRow> rowQueue, final BlockingQueue<DocumentBatch> batchQueue, final int batchSize) {
+    this(handler, rowQueue, batchQueue, new DocumentBatcher(batchSize, 0, new BatchSizeController(0, 0)), false, null);
+  }
+
+  DocumentBuilderStage(final AbstractSolrDocumentHandler handler, final BlockingQueue<DataRow> rowQueue, final BlockingQueue<DocumentBatch> batchQueue, final DocumentBatcher batcher, final boolean preSerialize, final CheckpointTracker checkpointTracker) {
+    this.handler = handler;
+    this.rowQueue = rowQueue;
+    this.batchQueue = batchQueue;
+    this.batcher = batcher;
+    this.preSerialize = preSerialize;
+    this.checkpointTracker = checkpointTracker;
+  }
+
+  /**
+   * @return number of documents put on the batch queue
+   *
+   * @throws Exception if a document could not be built or the thread was
+   * interrupted
+   */
+  @Override
+  public Long call() throws Exception {
+    long docCount = 0;
+    try {
+      DataRow row;
+      while((row = nextRow()) != DataRow.END) {
+        if(row != null) {
+          final SolrInputDocument doc = handler.buildSolrInputDocument(row.getValues());
+          final int before = batcher.getDocuments().size();
+          handler.addDocToDocsList(doc, batcher.getDocuments(), row.getLineNumber(), row.getValues());
+          batcher.setLineNumber(row.getLineNumber());
+          final int built = batcher.getDocuments().size() - before;
+          if(checkpointTracker != null) {
+            checkpointTracker.rowBuilt(row.getLineNumber(), built);
+          }
+          if(row.getReport() != null) {
+            row.getReport().documentsBuilt(built);
+          }
+        }
+        // a null row means the linger time ran out
+        if(batcher.isFull()) {
+          docCount += putBatch();
+        }
+      }
+
+      //catch any docs that didn't make in a batch
+      docCount += putBatch();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw e;
+    }
+    finally {
+      endBatches();
+    }
+    return docCount;
+  }
+
+  /**
+   * @return the next row or null if the linger time of the current batch ran
+   * out while waiting
+   */
+  private DataRow nextRow() throws InterruptedException {
+    if(batcher.isLingering()) {
+      return rowQueue.poll(batcher.getRemainingLingerNanos(), TimeUnit.NANOSECONDS);
+    }
+    return rowQueue.take();
+  }
+
+  private int putBatch() throws InterruptedException {
+    DocumentBatch batch = batcher.drain();
+    if(batch.size() > 0) {
+      if(preSerialize) {
+        batch = batch.withPayload(JavabinBatchEncoder.encode(batch.getDocuments(), batch.getEstimatedBytes()));
+      }
+      batchQueue.put(batch);
+    }
+    return batch.size();
+  }
+  private void endBatches() {
+    if(Thread.currentThread().isInterrupted()) {
+      // the pipeline is being torn down so no one is waiting for the marker
+      batchQueue.offer(END_OF_BATCHES);
+      return;
+    }
+    try {
+      batchQueue.put(END_OF_BATCHES);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -27,4 +27,11 @@ public interface DocumentHandler extends Constants {
   long handle(CloudSolrClient cloudSolrClient) throws SolrServerException, IOException, InterruptedException, ExecutionException;
 
   long getBatchCount();
+
+  /**
+   * Stop reading the data files.  The rows already read are still sent and
+   * {@link #handle(CloudSolrClient)} returns once they have been.  May be
+   * called from any thread, before or during {@link #handle(CloudSolrClient)}.
+   */
+  void stop();
 }
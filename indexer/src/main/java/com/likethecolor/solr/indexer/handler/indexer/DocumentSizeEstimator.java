@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estimates how many bytes a document takes up once it is serialized for an
+ * update request.  The estimate is made from the field names and values so it
+ * is cheap enough to do for every document.  It does not need to be exact,
+ * only close enough to keep batches near a byte target.
+ */
+public final class DocumentSizeEstimator {
+  /**
+   * Per document and per field bookkeeping in the request.
+   */
+  static final int DOCUMENT_OVERHEAD = 8;
+  static final int FIELD_OVERHEAD = 4;
+  static final int NUMBER_SIZE = 8;
+
+  private DocumentSizeEstimator() {
+  }
+
+  /**
+   * @param doc document to estimate
+   *
+   * @return estimated size, in bytes, of the document - 0 if the document is
+   * null
+   */
+  public static long estimate(final SolrInputDocument doc) {
+    if(doc == null) {
+      return 0;
+    }
+    long size = DOCUMENT_OVERHEAD;
+    for(SolrInputField field : doc) {
+      size += FIELD_OVERHEAD + field.getName().length() + estimateValue(field.getValue());
+    }
+    final List<SolrInputDocument> children = doc.getChildDocuments();
+    if(children != null) {
+      for(SolrInputDocument child : children) {
+        size += estimate(child);
+      }
+    }
+    return size;
+  }
+
+  private static long estimateValue(final Object value) {
+    if(value == null) {
+      return 0;
+    }
+    if(value instanceof CharSequence) {
+      // mostly ascii in practice
+      return ((CharSequence) value).length();
+    }
+    if(value instanceof Number || value instanceof Date || value instanceof Boolean) {
+      return NUMBER_SIZE;
+    }
+    if(value instanceof Collection) {
+      long size = 0;
+      for(Object element : (Collection<?>) value) {
+        size += FIELD_OVERHEAD + estimateValue(element);
+      }
+      return size;
+    }
+    if(value instanceof Map) {
+      // atomic update, e.g. {"set": value}
+      long size = 0;
+      for(Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        size += FIELD_OVERHEAD + String.valueOf(entry.getKey()).length() + estimateValue(entry.getValue());
+      }
+      return size;
+    }
+    if(value instanceof byte[]) {
+      return ((byte[]) value).length;
+    }
+    if(value instanceof SolrInputDocument) {
+      return estimate((SolrInputDocument) value);
+    }
+    return String.valueOf(value).length();
+  }
+}
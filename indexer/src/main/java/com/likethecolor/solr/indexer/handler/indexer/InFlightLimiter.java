@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of batches being sent to solr at the same time.  A thread
+ * that wants to send a batch blocks in {@link #acquire()} until there is room,
+ * using no CPU while it waits.  Unlike a {@link java.util.concurrent.Semaphore}
+ * the limit can be changed while batches are in flight.
+ */
+public class InFlightLimiter {
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private int limit;
+  private int inFlight;
+
+  public InFlightLimiter(final int limit) {
+    this.limit = Math.max(1, limit);
+    inFlight = 0;
+  }
+
+  /**
+   * Block until fewer than the limit are in flight then count one more.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void acquire() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while(inFlight >= limit) {
+        changed.await();
+      }
+      inFlight++;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Count one less in flight.  Must be called once for each {@link #acquire()}.
+   */
+  public void release() {
+    lock.lock();
+    try {
+      inFlight--;
+      changed.signalAll();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Block until nothing is in flight.
+   *
+   * @throws InterruptedException if the thread is interrupted while waiting
+   */
+  public void awaitIdle() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while(inFlight > 0) {
+        changed.await();
+      }
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return limit;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Change the limit.  Lowering it does not affect batches already in flight,
+   * it only makes {@link #acquire()} wait longer.
+   *
+   * @param limit new limit - values {@code <= 0} are set to 1
+   */
+  public void setLimit(final int limit) {
+    lock.lock();
+    try {
+      this.limit = Math.max(1, limit);
+      changed.signalAll();
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+
+  public int getInFlight() {
+    lock.lock();
+    try {
+      return inFlight;
+    }
+    finally {
+      lock.unlock();
+    }
+  }
+}
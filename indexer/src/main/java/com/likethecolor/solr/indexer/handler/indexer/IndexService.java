@@ -16,72 +16,438 @@
 package com.likethecolor.solr.indexer.handler.indexer;
 
 import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.request.AbstractUpdateRequest;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.ContentStreamBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class IndexService implements Callable<SolrjUpdateResponse> {
   private static final Logger LOGGER = LoggerFactory.getLogger(IndexService.class);
   private CloudSolrClient cloudSolrServer;
-  private Collection<SolrInputDocument> docs;
+  private List<SolrInputDocument> docs;
+  private List<Integer> lineNumbers;
   private Configuration configuration;
+  private long estimatedBytes;
+  private byte[] payload;
+  private AttemptListener attemptListener;
+  private DeadLetterWriter deadLetterWriter;
+  private RetryScheduler retryScheduler;
+  private int attempts;
+  private final boolean repeatable;
+  // the parts of a rejected batch still to be sent, first part on top
+  private Deque<int[]> parts;
+  private SolrjUpdateResponse total;
 
   public IndexService(Configuration configuration, final CloudSolrClient cloudSolrServer, final Collection<SolrInputDocument> docs) {
     this.cloudSolrServer = cloudSolrServer;
     this.configuration = configuration;
     this.docs = new ArrayList<>(docs);
+    repeatable = isRepeatable(configuration);
   }
 
+  /**
+   * A document sent again after a failure may already have been applied by
+   * solr, such as when the response timed out.  That is harmless unless a
+   * field is incremented, which would be incremented twice, or the documents
+   * are sent with overwrite=false, which would add a second copy.
+   *
+   * @param configuration configuration
+   *
+   * @return true if the documents of a failed batch may be sent again
+   */
+  static boolean isRepeatable(final Configuration configuration) {
+    return !configuration.noOverwrite() && UpdateActions.fromConfiguration(configuration).isIdempotent();
+  }
+
+  /**
+   * @param estimatedBytes estimated size, in bytes, of the documents - passed
+   * along in the response
+   */
+  public void setEstimatedBytes(final long estimatedBytes) {
+    this.estimatedBytes = estimatedBytes;
+  }
+
+  /**
+   * @param payload the documents already encoded as javabin - when set these
+   * bytes are sent as they are instead of the documents
+   */
+  public void setPayload(final byte[] payload) {
+    this.payload = payload;
+  }
+
+  /**
+   * @param lineNumbers line of the data file each document came from, in the
+   * same order as the documents - may be null
+   */
+  public void setLineNumbers(final List<Integer> lineNumbers) {
+    this.lineNumbers = lineNumbers;
+  }
+
+  /**
+   * @param deadLetterWriter where documents solr rejects are written - may be
+   * null in which case they are only logged
+   */
+  public void setDeadLetterWriter(final DeadLetterWriter deadLetterWriter) {
+    this.deadLetterWriter = deadLetterWriter;
+  }
+
+  /**
+   * @param retryScheduler holds the batch between retries so the sender
+   * thread is free to send other batches - may be null in which case the
+   * sender thread sleeps between retries
+   */
+  public void setRetryScheduler(final RetryScheduler retryScheduler) {
+    this.retryScheduler = retryScheduler;
+  }
+
+  /**
+   * @param attemptListener told about every attempt, including retries - may
+   * be null
+   */
+  public void setAttemptListener(final AttemptListener attemptListener) {
+    this.attemptListener = attemptListener;
+  }
+
+  /**
+   * Send the batch, retrying when it fails.  The sleep before each retry
+   * doubles, with jitter, up to the maximum.  With a {@link RetryScheduler}
+   * that has room the batch is handed to it instead of sleeping and the
+   * response says a retry was scheduled - the scheduler calls this again
+   * after the sleep and the attempts carry on from where they were.
+   *
+   * A batch solr rejects as a bad request is not retried as a whole.  It is
+   * split in half and each half is sent, and so on, until the documents solr
+   * rejects are found.  Those are written to the dead letter writer, if there
+   * is one, and logged.  The rest are indexed.  A half that fails is retried
+   * in the same way as the batch, through the scheduler when it has room, and
+   * the next call carries on with the halves from where they were.
+   *
+   * When the documents cannot be sent again, see
+   * {@link #isRepeatable(Configuration)}, the batch is sent once.  If that
+   * fails every document in it is written to the dead letter writer, if there
+   * is one, and logged, since it is not known which of them solr applied.
+   *
+   * @return response covering the whole batch - the doc size is the number of
+   * documents indexed
+   *
+   * @throws InterruptedException if the batch, or part of it, still failed
+   * after retry count attempts
+   */
   public SolrjUpdateResponse call() throws InterruptedException {
-    SolrjUpdateResponse response = makeTheCall();
-    if(response.isUpdateSucceeded()) {
-      response.setNumberOfAttempts(1);
-      return response;
-    }
-
-    // start at 1 since we already tried once above
-    for(int i = 1; i < configuration.getRetryCount(); i++) {
-      LOGGER.info("retrying batch - attempt #{}", i);
-      response = makeTheCall();
-      // +1 since one attempt was made above
-      response.setNumberOfAttempts(i + 1);
+    if(parts == null) {
+      final SolrjUpdateResponse response = send(docs, estimatedBytes, payload);
       if(response.isUpdateSucceeded()) {
-        LOGGER.info("retry of #{} was a success", i);
-        break;
+        response.setLineNumbers(lineNumbers);
+        return response;
+      }
+      if(response.isRetryScheduled()) {
+        return response;
+      }
+      if(!repeatable) {
+        return deadLetterAll(response);
+      }
+      if(response.getErrorCode() != SolrException.ErrorCode.BAD_REQUEST.code) {
+        LOGGER.error("after {} attempts retry failed", response.getNumberOfAttempts());
+        throw new InterruptedException("too many attempts with too many failures");
+      }
+      total = new SolrjUpdateResponse();
+      total.setEstimatedBytes(estimatedBytes);
+      total.setUpdateResponse(new UpdateResponse());
+      add(total, response);
+      parts = new ArrayDeque<>();
+      attempts = 0;
+      split(0, docs.size(), response);
+    }
+    final SolrjUpdateResponse scheduled = isolateRejected();
+    if(scheduled != null) {
+      return scheduled;
+    }
+    total.setUpdateSucceeded(true);
+    total.setLineNumbers(lineNumbers);
+    LOGGER.warn("solr rejected {} of {} documents in the batch", total.getDeadLetterCount(), docs.size());
+    return total;
+  }
+
+  /**
+   * Send the parts still to be sent, first to last, splitting those solr
+   * rejects until the rejected documents are found.
+   *
+   * @return the response of a part whose retry was scheduled or null once
+   * every part has been sent
+   */
+  private SolrjUpdateResponse isolateRejected() throws InterruptedException {
+    while(!parts.isEmpty()) {
+      final int[] part = parts.peek();
+      final List<SolrInputDocument> partDocs = docs.subList(part[0], part[1]);
+      final long partBytes = docs.isEmpty() ? 0 : estimatedBytes * partDocs.size() / docs.size();
+      final SolrjUpdateResponse response = send(partDocs, partBytes, null);
+      if(response.isRetryScheduled()) {
+        return response;
+      }
+      parts.pop();
+      attempts = 0;
+      add(total, response);
+      if(response.isUpdateSucceeded()) {
+        total.setDocSize(total.getDocSize() + partDocs.size());
+        continue;
+      }
+      if(response.getErrorCode() != SolrException.ErrorCode.BAD_REQUEST.code) {
+        LOGGER.error("after {} attempts retry failed", response.getNumberOfAttempts());
+        throw new InterruptedException("too many attempts with too many failures");
+      }
+      split(part[0], part[1], response);
+    }
+    return null;
+  }
+
+  /**
+   * Dead letter docs[from, to), which solr has just rejected, if it is a
+   * single document, otherwise put its halves in front of the parts to send.
+   */
+  private void split(final int from, final int to, final SolrjUpdateResponse rejected) throws InterruptedException {
+    if(to - from == 1) {
+      deadLetter(docs.get(from), getLineNumber(from), rejected);
+      total.setDeadLetterCount(total.getDeadLetterCount() + 1);
+      return;
+    }
+    final int middle = from + (to - from) / 2;
+    parts.push(new int[] {middle, to});
+    parts.push(new int[] {from, middle});
+  }
+
+  /**
+   * Write every document of the batch, which failed and is not sent again, to
+   * the dead letter writer.
+   *
+   * @param failed response to the failed attempt
+   *
+   * @return response covering the whole batch - the doc size is 0
+   *
+   * @throws InterruptedException if the dead letter file could not be
+   * written
+   */
+  SolrjUpdateResponse deadLetterAll(final SolrjUpdateResponse failed) throws InterruptedException {
+    LOGGER.error("not sending the batch again as it may have been applied in part - writing its {} documents to the dead letter file", docs.size());
+    final SolrjUpdateResponse total = new SolrjUpdateResponse();
+    total.setEstimatedBytes(estimatedBytes);
+    total.setUpdateResponse(new UpdateResponse());
+    add(total, failed);
+    for(int i = 0; i < docs.size(); i++) {
+      deadLetter(docs.get(i), getLineNumber(i), failed);
+    }
+    total.setDeadLetterCount(docs.size());
+    total.setUpdateSucceeded(true);
+    total.setLineNumbers(lineNumbers);
+    return total;
+  }
+
+  private void deadLetter(final SolrInputDocument doc, final int lineNumber, final SolrjUpdateResponse rejected) throws InterruptedException {
+    LOGGER.error("solr rejected the document from line {} [{}]: {}", lineNumber, rejected.getErrorCode(), rejected.getErrorMessage());
+    if(deadLetterWriter == null) {
+      return;
+    }
+    try {
+      deadLetterWriter.write(doc, lineNumber, rejected.getErrorCode(), rejected.getErrorMessage());
+    }
+    catch(IOException e) {
+      LOGGER.error("could not write to the dead letter file " + deadLetterWriter.getFileName(), e);
+      throw new InterruptedException("could not write to the dead letter file " + deadLetterWriter.getFileName());
+    }
+  }
+
+  private int getLineNumber(final int index) {
+    if(lineNumbers == null || index >= lineNumbers.size()) {
+      return -1;
+    }
+    return lineNumbers.get(index);
+  }
+
+  private static void add(final SolrjUpdateResponse total, final SolrjUpdateResponse response) {
+    total.setNumberOfAttempts(total.getNumberOfAttempts() + response.getNumberOfAttempts());
+    if(response.getUpdateResponse() != null) {
+      final UpdateResponse updateResponse = total.getUpdateResponse();
+      updateResponse.setElapsedTime(updateResponse.getElapsedTime() + response.getUpdateResponse().getElapsedTime());
+    }
+  }
+
+  /**
+   * Send the documents, counting the attempts made by earlier calls, until
+   * they succeed, are rejected, a retry is scheduled or retry count attempts
+   * have been made.  Used for the whole batch and for each of its parts.
+   */
+  private SolrjUpdateResponse send(final List<SolrInputDocument> docs, final long estimatedBytes, final byte[] payload) {
+    if(attempts > 0) {
+      LOGGER.info("retrying batch - attempt #{}", attempts);
+    }
+    SolrjUpdateResponse response = makeTheCall(docs, estimatedBytes, payload);
+    attempts++;
+    response.setNumberOfAttempts(attempts);
+    while(!response.isUpdateSucceeded() && repeatable && attempts < configuration.getRetryCount() && response.getErrorCode() != SolrException.ErrorCode.BAD_REQUEST.code) {
+      final long sleepMillis = getBackoffMillis(configuration.getSleepMillisBetweenRetries(), configuration.getMaxSleepMillisBetweenRetries(), attempts);
+      if(retryScheduler != null && retryScheduler.schedule(this, payload == null ? estimatedBytes : payload.length, sleepMillis)) {
+        response.setRetryScheduled(true);
+        return response;
       }
       try {
-        Thread.sleep(configuration.getSleepMillisBetweenRetries());
+        Thread.sleep(sleepMillis);
       }
       catch(InterruptedException e) {
         LOGGER.warn("retry thread interrupted", e);
       }
+      LOGGER.info("retrying batch - attempt #{}", attempts);
+      response = makeTheCall(docs, estimatedBytes, payload);
+      attempts++;
+      response.setNumberOfAttempts(attempts);
     }
-    if(!response.isUpdateSucceeded()) {
-      LOGGER.error("after {} attempts retry failed", response.getNumberOfAttempts());
-      throw new InterruptedException("too many attempts with too many failures");
+    if(response.isUpdateSucceeded() && attempts > 1) {
+      LOGGER.info("retry of #{} was a success", attempts - 1);
     }
     return response;
   }
 
-  private SolrjUpdateResponse makeTheCall() {
+  /**
+   * Exponential backoff with "equal jitter": the sleep before retry n is
+   * {@code base * 2^(n - 1)}, capped, of which the first half is always slept
+   * and the second half is random.
+   *
+   * @param baseMillis sleep before the first retry
+   * @param maxMillis largest sleep - if less than the base the base is used
+   * @param retry the retry about to be made - starting at 1
+   *
+   * @return milliseconds to sleep
+   */
+  static long getBackoffMillis(final long baseMillis, final long maxMillis, final int retry) {
+    if(baseMillis <= 0) {
+      return 0;
+    }
+    final long cap = Math.max(baseMillis, maxMillis);
+    long delay = baseMillis;
+    for(int i = 1; i < retry && delay < cap; i++) {
+      delay *= 2;
+    }
+    delay = Math.min(delay, cap);
+    final long half = delay / 2;
+    return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+  }
+
+  private SolrjUpdateResponse makeTheCall(final List<SolrInputDocument> docs, final long estimatedBytes, final byte[] payload) {
     final SolrjUpdateResponse response = new SolrjUpdateResponse();
     response.setDocSize(docs.size());
+    response.setEstimatedBytes(estimatedBytes);
     UpdateResponse updateResponse = new UpdateResponse();
     try {
-      updateResponse = cloudSolrServer.add(docs);
+      updateResponse = payload == null ? addDocs(docs) : sendPayload(payload);
       response.setUpdateSucceeded(true);
     }
     catch(Exception e) {
       LOGGER.error("could not add documents to the solr server", e);
       response.setUpdateSucceeded(false);
+      response.setErrorCode(getErrorCode(e));
+      response.setErrorMessage(e.getMessage());
+      response.setTimedOut(isTimeout(e));
     }
     response.setUpdateResponse(updateResponse);
+    if(attemptListener != null) {
+      attemptListener.attemptCompleted(response);
+    }
     return response;
   }
+
+  /**
+   * With {@link Configuration#getCommitWithinMillis()} solr is asked to make
+   * the documents visible within that time so no commit has to be sent.
+   */
+  private UpdateResponse addDocs(final List<SolrInputDocument> docs) throws IOException, SolrServerException {
+    if(configuration.getCommitWithinMillis() <= 0 && !configuration.noOverwrite()) {
+      return cloudSolrServer.add(docs);
+    }
+    final UpdateRequest request = new UpdateRequest();
+    request.add(docs);
+    setUpdateParams(configuration, request);
+    return request.process(cloudSolrServer);
+  }
+
+  /**
+   * Set the parameters every update request is sent with:
+   * {@link Configuration#getCommitWithinMillis()} and, with
+   * {@link Configuration#noOverwrite()}, overwrite=false so solr does not look
+   * up the unique key of each document to replace an older version.
+   *
+   * @param configuration configuration
+   * @param request request to set the parameters on
+   */
+  static void setUpdateParams(final Configuration configuration, final AbstractUpdateRequest request) {
+    if(configuration.getCommitWithinMillis() > 0) {
+      request.setCommitWithin(configuration.getCommitWithinMillis());
+    }
+    if(configuration.noOverwrite()) {
+      request.setParam(UpdateParams.OVERWRITE, Boolean.FALSE.toString());
+    }
+  }
+
+  private UpdateResponse sendPayload(final byte[] payload) throws IOException, SolrServerException {
+    final ContentStreamUpdateRequest request = new ContentStreamUpdateRequest("/update");
+    request.addContentStream(new ContentStreamBase.ByteArrayStream(payload, "batch", JavabinBatchEncoder.CONTENT_TYPE));
+    setUpdateParams(configuration, request);
+    if(configuration.skipUpdateResponseParsing()) {
+      request.setResponseParser(new StatusOnlyResponseParser());
+    }
+    final UpdateResponse updateResponse = new UpdateResponse();
+    final long startTimeInMS = System.currentTimeMillis();
+    updateResponse.setResponse(cloudSolrServer.request(request));
+    updateResponse.setElapsedTime(System.currentTimeMillis() - startTimeInMS);
+    return updateResponse;
+  }
+
+  /**
+   * @return http status code carried by the exception or one of its causes -
+   * 0 if there is none
+   */
+  static int getErrorCode(final Throwable t) {
+    for(Throwable cause = t; cause != null; cause = cause.getCause()) {
+      if(cause instanceof SolrException) {
+        return ((SolrException) cause).code();
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @return true if the exception or one of its causes is a connect or read
+   * timeout
+   */
+  static boolean isTimeout(final Throwable t) {
+    for(Throwable cause = t; cause != null; cause = cause.getCause()) {
+      if(cause instanceof InterruptedIOException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Told about the result of every attempt to send a batch.  Called on the
+   * sender thread so implementations must be thread safe.
+   */
+  public interface AttemptListener {
+    void attemptCompleted(SolrjUpdateResponse response);
+  }
 }
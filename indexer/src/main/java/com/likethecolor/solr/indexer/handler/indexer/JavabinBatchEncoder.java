@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * Encodes a batch of documents to the javabin bytes solr's update handler
+ * reads - the same bytes SolrJ would write while sending the batch.
+ */
+public final class JavabinBatchEncoder {
+  public static final String CONTENT_TYPE = "application/javabin";
+  /**
+   * Smallest and largest starting size of the buffer.  The buffer grows if
+   * the estimate was low.
+   */
+  static final int MIN_BUFFER_SIZE = 1024;
+  static final int MAX_BUFFER_SIZE = 64 * 1024 * 1024;
+
+  private JavabinBatchEncoder() {
+  }
+
+  /**
+   * @param docs documents to encode
+   * @param estimatedBytes estimated size of the documents, used to size the
+   * buffer
+   *
+   * @return javabin encoded update request adding the documents
+   */
+  public static byte[] encode(final List<SolrInputDocument> docs, final long estimatedBytes) {
+    final UpdateRequest request = new UpdateRequest();
+    request.add(docs);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream((int) Math.min(MAX_BUFFER_SIZE, Math.max(MIN_BUFFER_SIZE, estimatedBytes)));
+    try {
+      new JavaBinUpdateRequestCodec().marshal(request, out);
+    }
+    catch(IOException e) {
+      // a ByteArrayOutputStream does not throw
+      throw new UncheckedIOException(e);
+    }
+    return out.toByteArray();
+  }
+}
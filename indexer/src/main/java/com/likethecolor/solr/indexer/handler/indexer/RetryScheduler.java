@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds failed batches until their sleep between retries is over then hands
+ * them back to the {@link BatchDispatcher} to be retried by whichever sender
+ * thread is free.  The sender thread that saw the failure goes back to
+ * sending other batches instead of sleeping.
+ *
+ * The estimated bytes of the batches being held is capped.  When a batch
+ * does not fit {@link #schedule(Callable, long, long)} says no and the sender
+ * sleeps and retries the batch itself, as it did before, which slows the
+ * senders down rather than letting failed batches pile up in memory.
+ *
+ * A single timer thread holds the batches.  It never waits: when a batch's
+ * sleep is over it is queued for a second thread, which waits for room in the
+ * {@link InFlightLimiter} like any other batch and hands the due batches back
+ * in turn.  A batch is held, and counts against the cap, until a sender
+ * thread starts on it.
+ */
+public class RetryScheduler {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RetryScheduler.class);
+  private final BatchDispatcher dispatcher;
+  private final long maxHeldBytes;
+  private final ScheduledExecutorService timer;
+  private final ExecutorService retrier;
+  private long heldBytes;
+  private int held;
+  private int waiting;
+
+  /**
+   * @param dispatcher where batches are sent when their sleep is over
+   * @param maxHeldBytes most estimated bytes held at one time
+   */
+  public RetryScheduler(final BatchDispatcher dispatcher, final long maxHeldBytes) {
+    this.dispatcher = dispatcher;
+    this.maxHeldBytes = maxHeldBytes;
+    timer = Executors.newSingleThreadScheduledExecutor();
+    retrier = Executors.newSingleThreadExecutor();
+    heldBytes = 0;
+    held = 0;
+    waiting = 0;
+  }
+
+  /**
+   * @return a scheduler or null if {@link Configuration#getRetryBufferBytes()}
+   * is 0
+   */
+  public static RetryScheduler fromConfiguration(final Configuration configuration, final BatchDispatcher dispatcher) {
+    if(configuration.getRetryBufferBytes() <= 0) {
+      return null;
+    }
+    return new RetryScheduler(dispatcher, configuration.getRetryBufferBytes());
+  }
+
+  /**
+   * Hold the batch then retry it after the delay.
+   *
+   * @param service sends the batch again
+   * @param bytes estimated size of the batch
+   * @param delayMillis how long to hold the batch
+   *
+   * @return true if the batch will be retried, false if holding it would go
+   * over the cap and the caller must retry it
+   */
+  public boolean schedule(final Callable<SolrjUpdateResponse> service, final long bytes, final long delayMillis) {
+    synchronized(this) {
+      if(heldBytes + bytes > maxHeldBytes) {
+        LOGGER.debug("retry buffer full [{} of {} bytes held] - retrying on the sender thread", heldBytes, maxHeldBytes);
+        return false;
+      }
+      heldBytes += bytes;
+      held++;
+    }
+    try {
+      timer.schedule(new Runnable() {
+        @Override
+        public void run() {
+          due(service, bytes);
+        }
+      }, delayMillis, TimeUnit.MILLISECONDS);
+    }
+    catch(RejectedExecutionException e) {
+      // shutting down
+      release(bytes);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return estimated bytes of the batches being held
+   */
+  public synchronized long getHeldBytes() {
+    return heldBytes;
+  }
+
+  /**
+   * @return number of batches being held
+   */
+  public synchronized int getHeld() {
+    return held;
+  }
+
+  /**
+   * @return number of held batches whose sleep is over and are waiting for
+   * room in the {@link InFlightLimiter}
+   */
+  public synchronized int getWaiting() {
+    return waiting;
+  }
+
+  /**
+   * Stop the timer.  Batches still being held are not retried.
+   */
+  public void shutdownNow() {
+    timer.shutdownNow();
+    retrier.shutdownNow();
+  }
+
+  /**
+   * Run on the timer thread when the sleep of the batch is over.  The batch
+   * is queued for the retrier thread so the timer is free to hand over the
+   * other batches that are due.
+   */
+  private void due(final Callable<SolrjUpdateResponse> service, final long bytes) {
+    synchronized(this) {
+      waiting++;
+    }
+    try {
+      retrier.execute(new Runnable() {
+        @Override
+        public void run() {
+          dispatcher.retry(new Callable<SolrjUpdateResponse>() {
+            @Override
+            public SolrjUpdateResponse call() throws Exception {
+              retried(bytes);
+              return service.call();
+            }
+          });
+        }
+      });
+    }
+    catch(RejectedExecutionException e) {
+      // shutting down
+      retried(bytes);
+    }
+  }
+
+  private synchronized void retried(final long bytes) {
+    waiting--;
+    release(bytes);
+  }
+
+  private synchronized void release(final long bytes) {
+    heldBytes -= bytes;
+    held--;
+  }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
+import com.likethecolor.solr.indexer.configuration.dynamic.DynamicField;
+import com.likethecolor.solr.indexer.configuration.dynamic.DynamicFieldParser;
+import com.likethecolor.solr.indexer.dynamic.ResolvedDynamicField;
+import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.field.FieldValueSetter;
+import com.likethecolor.solr.indexer.field.FieldsParser;
+import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
+import com.likethecolor.solr.indexer.util.conversion.ToListConversion;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.SolrInputField;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Everything needed to turn a row of values into a solr document, worked out
+ * once from the {@link Configuration} rather than for every row.  The field,
+ * literal, skip field, unique key field value and dynamic field configuration
+ * strings are parsed a single time and the dynamic classes are resolved a
+ * single time.  The field types are compiled into a converter for each
+ * column, see {@link #getCellProcessors()}.
+ *
+ * The {@link UpdateActions} decide how each value is added.  With
+ * {@link DocumentModeEnum#FULL}, which {@link Configuration#rebuild()} always
+ * uses, the documents are built whole without atomic update maps.  With
+ * {@link DocumentModeEnum#INPLACE} only the unique key field and the in-place
+ * fields are kept on the document, including after the dynamic classes run.
+ *
+ * A plan is immutable once compiled so it can be shared by every thread
+ * building documents.
+ */
+public final class RowPlan {
+  private final Configuration configuration;
+  private final Map<String, FieldDefinition> fieldDefinitions;
+  private final Map<String, FieldDefinition> literalsDefinitions;
+  private final Set<String> skipFields;
+  private final List<String> uniqueKeyFieldValueList;
+  private final List<ResolvedDynamicField> dynamicFields;
+  private final Configuration dynamicClassConfiguration;
+  private final SolrDocumentBuilderForFields builderForFields;
+  private final SolrDocumentBuilderForLiterals builderForLiterals;
+  private final UpdateActions updateActions;
+
+  private RowPlan(final Configuration configuration,
+                  final Map<String, FieldDefinition> fieldDefinitions,
+                  final Map<String, FieldDefinition> literalsDefinitions,
+                  final Set<String> skipFields,
+                  final List<String> uniqueKeyFieldValueList,
+                  final List<ResolvedDynamicField> dynamicFields,
+                  final FieldValueSetter fieldValueSetter) {
+    this.configuration = configuration;
+    this.fieldDefinitions = Collections.unmodifiableMap(fieldDefinitions);
+    this.literalsDefinitions = Collections.unmodifiableMap(literalsDefinitions);
+    this.skipFields = Collections.unmodifiableSet(skipFields);
+    this.uniqueKeyFieldValueList = uniqueKeyFieldValueList == null ? null : Collections.unmodifiableList(uniqueKeyFieldValueList);
+    this.dynamicFields = Collections.unmodifiableList(dynamicFields);
+    // dynamic classes have always been handed an empty configuration
+    this.dynamicClassConfiguration = new Configuration();
+
+    updateActions = UpdateActions.fromConfiguration(configuration);
+
+    builderForFields = new SolrDocumentBuilderForFields(fieldValueSetter, null, configuration.getUniqueKeyFieldName());
+    builderForFields.setSkipFields(this.skipFields);
+    builderForFields.setFieldDefinitionMap(this.fieldDefinitions);
+    builderForFields.setUpdateActions(updateActions);
+    builderForFields.setUniqueKeyFieldValueFields(this.uniqueKeyFieldValueList == null ? Collections.<String>emptyList() : this.uniqueKeyFieldValueList);
+    builderForLiterals = new SolrDocumentBuilderForLiterals(null, this.literalsDefinitions, SolrDocumentBuilderForLiterals.buildUpdateValues(this.literalsDefinitions, updateActions));
+  }
+
+  /**
+   * Parse the configuration and resolve the dynamic classes.
+   *
+   * @param configuration configuration
+   * @param fieldValueSetter used to convert the row values to their field types
+   *
+   * @return compiled plan
+   */
+  public static RowPlan compile(final Configuration configuration, final FieldValueSetter fieldValueSetter) {
+    final Map<String, FieldDefinition> fieldDefinitions = new FieldsParser(configuration).parse(configuration.getFields());
+    final Map<String, FieldDefinition> literalsDefinitions = new FieldsParser(configuration).parse(configuration.getLiterals(), true);
+    final Set<String> skipFields = new HashSet<>(new ToListConversion(configuration.getSkipFields()).toList());
+
+    List<String> uniqueKeyFieldValueList = null;
+    if(configuration.hasUniqueKeyFieldValue()) {
+      uniqueKeyFieldValueList = new ToListConversion(configuration.getUniqueKeyFieldValue()).toList();
+    }
+
+    final Map<String, DynamicField> dynamicFieldMap = new DynamicFieldParser().parse(configuration.getDynamicFields());
+    final List<ResolvedDynamicField> dynamicFields = new ArrayList<>(dynamicFieldMap.size());
+    for(DynamicField dynamicField : dynamicFieldMap.values()) {
+      dynamicFields.add(new ResolvedDynamicField(dynamicField));
+    }
+
+    return new RowPlan(configuration, fieldDefinitions, literalsDefinitions, skipFields, uniqueKeyFieldValueList, dynamicFields, fieldValueSetter);
+  }
+
+  /**
+   * @return map of field definitions in the order of the columns in the data file
+   */
+  public Map<String, FieldDefinition> getFieldDefinitions() {
+    return fieldDefinitions;
+  }
+
+  public Map<String, FieldDefinition> getLiteralsDefinitions() {
+    return literalsDefinitions;
+  }
+
+  public Set<String> getSkipFields() {
+    return skipFields;
+  }
+
+  public List<ResolvedDynamicField> getDynamicFields() {
+    return dynamicFields;
+  }
+
+  /**
+   * @return a cell processor for each column that converts its values to the
+   * field's type as the row is read - null for the columns whose values are
+   * not used
+   */
+  public CellProcessor[] getCellProcessors() {
+    return builderForFields.getCellProcessors();
+  }
+
+  /**
+   * @return a generator for a single row - generators hold the values of the
+   * row being built so one must not be shared between rows
+   */
+  public UniqueKeyFieldValueGenerator newUniqueKeyFieldValueGenerator() {
+    return new UniqueKeyFieldValueGenerator(configuration, uniqueKeyFieldValueList);
+  }
+
+  /**
+   * Build a document from a row of values.  The unique key field is added
+   * first, then the fields, then the literals and finally the dynamic fields
+   * which may use any of the values already on the document.
+   *
+   * @param rowValues list of values from the data file
+   *
+   * @return solr document populated with the values from the row of values
+   *
+   * @throws IllegalStateException if the unique key field value cannot be generated
+   */
+  public SolrInputDocument build(final List<Object> rowValues) {
+    final SolrInputDocument doc = new SolrInputDocument();
+    final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator = newUniqueKeyFieldValueGenerator();
+
+    new SolrDocumentBuilderForUniqueKeyField(uniqueKeyFieldValueGenerator, configuration.getUniqueKeyFieldName()).build(doc);
+    builderForFields.build(doc, rowValues, uniqueKeyFieldValueGenerator);
+    builderForLiterals.build(doc, uniqueKeyFieldValueGenerator);
+
+    // NOTE: This should almost always fire last.  Previous builders will
+    // populate values on the document and this will/may use those values.
+    processDynamicFields(doc);
+    if(updateActions.getDocumentMode() == DocumentModeEnum.FULL) {
+      removeUpdateMaps(doc);
+    }
+    else if(updateActions.getDocumentMode() == DocumentModeEnum.INPLACE) {
+      removeNonInplaceFields(doc);
+    }
+    return doc;
+  }
+
+  /**
+   * @return how the values are added to the document
+   */
+  public DocumentModeEnum getDocumentMode() {
+    return updateActions.getDocumentMode();
+  }
+
+  /**
+   * Run each of the dynamic classes against the document.
+   *
+   * @param doc solr input document
+   */
+  public void processDynamicFields(final SolrInputDocument doc) {
+    for(ResolvedDynamicField dynamicField : dynamicFields) {
+      dynamicField.process(dynamicClassConfiguration, doc);
+    }
+  }
+
+  /**
+   * Replace each {"set": value} a dynamic class put on the document with the
+   * value.
+   *
+   * @param doc solr input document
+   */
+  private static void removeUpdateMaps(final SolrInputDocument doc) {
+    for(SolrInputField field : doc) {
+      final Object value = field.getValue();
+      if(value instanceof Map && ((Map<?, ?>) value).size() == 1 && ((Map<?, ?>) value).containsKey(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION)) {
+        field.setValue(((Map<?, ?>) value).get(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION));
+      }
+    }
+  }
+
+  /**
+   * Remove every field, other than the unique key field, that is not updated
+   * in place.  A dynamic class may have added any field so this is done after
+   * they have all run.
+   *
+   * @param doc solr input document
+   */
+  private void removeNonInplaceFields(final SolrInputDocument doc) {
+    final Set<String> inplaceFields = updateActions.getInplaceFields();
+    final Iterator<String> fieldNames = doc.getFieldNames().iterator();
+    while(fieldNames.hasNext()) {
+      final String fieldName = fieldNames.next();
+      if(!fieldName.equals(configuration.getUniqueKeyFieldName()) && !inplaceFields.contains(fieldName)) {
+        fieldNames.remove();
+      }
+    }
+  }
+}
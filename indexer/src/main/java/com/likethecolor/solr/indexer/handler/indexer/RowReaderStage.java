@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.reader.DataReader;
+import com.likethecolor.solr.indexer.reader.UnorderedDataReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * First stage of the indexing pipeline.  Reads rows from the data file and
+ * puts them on the row queue.  When the queue is full this blocks until the
+ * builders have made room.
+ *
+ * With a {@link CheckpointTracker} the rows up to its start line are skipped
+ * without being processed and every row read is counted by it.  Reading may
+ * be stopped early, see {@link #stop()}, in which case the rows already read
+ * are still built and sent.
+ *
+ * When there are several data files there is a reader stage for each and
+ * they share the row queue.  Each counts its rows in the
+ * {@link DataFileReport} of its file, which the rows carry to the builders,
+ * and keeps any failure there.  The data reader is closed when the stage is
+ * done so files read one after another are not all left open, once the
+ * bytes it read are counted in the report.
+ *
+ * Whether the reading ends normally or not, once the last of the reader
+ * stages sharing the queue is done {@link DataRow#END} is put on the queue
+ * once for each builder so that every builder finishes.
+ *
+ * An {@link UnorderedDataReader} returns rows out of line order so the
+ * checkpoint tracker is also told the line every row up to which has been
+ * read.
+ */
+class RowReaderStage implements Callable<Long> {
+  private static final Logger LOGGER = LoggerFactory.getLogger(RowReaderStage.class);
+  private final DataReader dataReader;
+  private final CellProcessor[] processors;
+  private final boolean firstRowIsHeader;
+  private final BlockingQueue<DataRow> rowQueue;
+  private final int builderCount;
+  private final CheckpointTracker checkpointTracker;
+  private final DataFileReport report;
+  private final AtomicInteger runningReaders;
+  private volatile boolean stopped;
+
+  RowReaderStage(final DataReader dataReader, final CellProcessor[] processors, final boolean firstRowIsHeader, final BlockingQueue<DataRow> rowQueue, final int builderCount) {
+    this(dataReader, processors, firstRowIsHeader, rowQueue, builderCount, null);
+  }
+
+  RowReaderStage(final DataReader dataReader, final CellProcessor[] processors, final boolean firstRowIsHeader, final BlockingQueue<DataRow> rowQueue, final int builderCount, final CheckpointTracker checkpointTracker) {
+    this(dataReader, processors, firstRowIsHeader, rowQueue, builderCount, checkpointTracker, null, new AtomicInteger(1));
+  }
+
+  /**
+   * @param report counts for the data file - may be null
+   * @param runningReaders number of reader stages sharing the row queue that
+   * have not finished - shared by all of them
+   */
+  RowReaderStage(final DataReader dataReader, final CellProcessor[] processors, final boolean firstRowIsHeader, final BlockingQueue<DataRow> rowQueue, final int builderCount, final CheckpointTracker checkpointTracker, final DataFileReport report, final AtomicInteger runningReaders) {
+    this.dataReader = dataReader;
+    this.processors = processors;
+    this.firstRowIsHeader = firstRowIsHeader;
+    this.rowQueue = rowQueue;
+    this.builderCount = builderCount;
+    this.checkpointTracker = checkpointTracker;
+    this.report = report;
+    this.runningReaders = runningReaders;
+    stopped = false;
+  }
+
+  /**
+   * Stop reading after the current row.  Safe to call from any thread.
+   */
+  void stop() {
+    stopped = true;
+  }
+
+  /**
+   * @return true if reading was stopped before the end of the data file
+   */
+  boolean isStopped() {
+    return stopped;
+  }
+
+  /**
+   * @return number of rows put on the queue
+   *
+   * @throws Exception if the data file could not be read or the thread was
+   * interrupted
+   */
+  @Override
+  public Long call() throws Exception {
+    final long startTimeInMS = System.currentTimeMillis();
+    long rowCount = 0;
+    try {
+      // The argument, if true, ensures that getHeader is only called when reading
+      // the first line (as that's where the header is meant to be)
+      // Either way, true or false, it returns the first row.
+      //
+      if(checkpointTracker != null && dataReader instanceof UnorderedDataReader) {
+        checkpointTracker.setPartStartLineNumbers(((UnorderedDataReader) dataReader).getPartStartLineNumbers());
+      }
+      final Object[] headerOrFirstRow = dataReader.getHeader(firstRowIsHeader); // skip the header (can't be used with CsvListReader)
+      final int startLineNumber = checkpointTracker == null ? 0 : checkpointTracker.getStartLineNumber();
+      if(!firstRowIsHeader && headerOrFirstRow != null) {
+        final int lineNumber = dataReader.getLineNumber();
+        if(lineNumber > startLineNumber) {
+          put(new DataRow(lineNumber, Arrays.asList(headerOrFirstRow), report));
+          rowCount++;
+        }
+      }
+      if(startLineNumber > 0 && dataReader.getLineNumber() < startLineNumber) {
+        LOGGER.info("resuming after line {} - skipped {} rows", startLineNumber, dataReader.skipTo(startLineNumber));
+      }
+
+      List<Object> rowValues;
+      while(!stopped && (rowValues = dataReader.read(processors)) != null) {
+        put(new DataRow(dataReader.getLineNumber(), rowValues, report));
+        rowCount++;
+      }
+      if(!stopped && checkpointTracker != null && dataReader instanceof UnorderedDataReader) {
+        checkpointTracker.readThrough(((UnorderedDataReader) dataReader).getReadThroughLineNumber());
+      }
+      if(stopped) {
+        LOGGER.info("reading stopped at line {}", dataReader.getLineNumber());
+      }
+      LOGGER.debug("read {} rows", rowCount);
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      setFailure(e);
+      throw e;
+    }
+    catch(Exception e) {
+      setFailure(e);
+      throw e;
+    }
+    finally {
+      if(report != null) {
+        report.setBytesRead(dataReader.getBytesRead());
+      }
+      closeDataReader();
+      if(report != null) {
+        report.setReadTimeInMS(System.currentTimeMillis() - startTimeInMS);
+      }
+      if(runningReaders.decrementAndGet() == 0) {
+        endBuilders();
+      }
+    }
+    return rowCount;
+  }
+
+  private void setFailure(final Exception e) {
+    if(report != null) {
+      report.setFailure(e);
+    }
+  }
+
+  private void closeDataReader() {
+    try {
+      dataReader.close();
+    }
+    catch(IOException e) {
+      LOGGER.warn("could not close data reader", e);
+    }
+  }
+
+  private void put(final DataRow row) throws InterruptedException {
+    if(checkpointTracker != null) {
+      if(dataReader instanceof UnorderedDataReader) {
+        checkpointTracker.rowRead(row.getLineNumber(), ((UnorderedDataReader) dataReader).getReadThroughLineNumber());
+      }
+      else {
+        checkpointTracker.rowRead(row.getLineNumber());
+      }
+    }
+    if(report != null) {
+      report.rowRead();
+    }
+    rowQueue.put(row);
+  }
+
+  private void endBuilders() {
+    try {
+      for(int i = 0; i < builderCount; i++) {
+        if(Thread.currentThread().isInterrupted()) {
+          // the pipeline is being torn down - the builders are interrupted
+          // too so there is no need to wait for room on the queue
+          rowQueue.offer(DataRow.END);
+        }
+        else {
+          rowQueue.put(DataRow.END);
+        }
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Regroups batches from the builders into a batch per shard.  Each shard has
+ * its own {@link DocumentBatcher} so a shard's batch is sent once it is full
+ * by count, bytes or linger time, and each request holds documents for one
+ * shard leader only.
+ *
+ * When the cluster state changes the documents still waiting are routed
+ * again.  Used only by the thread that hands batches to the senders so it is
+ * not thread safe.
+ */
+class ShardBatchCollector {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ShardBatchCollector.class);
+  private final ShardRouter router;
+  private final int maxDocs;
+  private final long lingerMillis;
+  private final BatchSizeController sizeController;
+  private final Map<String, DocumentBatcher> batchers;
+
+  ShardBatchCollector(final ShardRouter router, final int maxDocs, final long lingerMillis, final BatchSizeController sizeController) {
+    this.router = router;
+    this.maxDocs = maxDocs;
+    this.lingerMillis = lingerMillis;
+    this.sizeController = sizeController;
+    batchers = new LinkedHashMap<>();
+  }
+
+  /**
+   * Route the documents in the batch to their shards.
+   *
+   * @param batch batch from a builder
+   *
+   * @return shard batches that are now ready to send
+   */
+  List<DocumentBatch> add(final DocumentBatch batch) {
+    final List<DocumentBatch> ready = new ArrayList<>();
+    if(router.refresh() && !batchers.isEmpty()) {
+      reroute(ready);
+    }
+    final List<SolrInputDocument> docs = batch.getDocuments();
+    for(int i = 0; i < docs.size(); i++) {
+      add(docs.get(i), batch.getLineNumber(i), ready);
+    }
+    return ready;
+  }
+
+  /**
+   * @return shard batches whose linger time has run out
+   */
+  List<DocumentBatch> drainExpired() {
+    final List<DocumentBatch> ready = new ArrayList<>();
+    for(Map.Entry<String, DocumentBatcher> entry : batchers.entrySet()) {
+      if(entry.getValue().isFull()) {
+        ready.add(drain(entry.getKey(), entry.getValue()));
+      }
+    }
+    return ready;
+  }
+
+  /**
+   * @return every shard batch that has documents
+   */
+  List<DocumentBatch> drainAll() {
+    final List<DocumentBatch> ready = new ArrayList<>();
+    for(Map.Entry<String, DocumentBatcher> entry : batchers.entrySet()) {
+      final DocumentBatch batch = drain(entry.getKey(), entry.getValue());
+      if(batch.size() > 0) {
+        ready.add(batch);
+      }
+    }
+    return ready;
+  }
+
+  /**
+   * @return nanoseconds until the first shard batch has to be sent because of
+   * its linger time - -1 if no batch is lingering
+   */
+  long getRemainingLingerNanos() {
+    long remaining = -1;
+    for(DocumentBatcher batcher : batchers.values()) {
+      if(batcher.isLingering()) {
+        final long batcherRemaining = batcher.getRemainingLingerNanos();
+        if(remaining < 0 || batcherRemaining < remaining) {
+          remaining = batcherRemaining;
+        }
+      }
+    }
+    return remaining;
+  }
+
+  private void add(final SolrInputDocument doc, final int lineNumber, final List<DocumentBatch> ready) {
+    final String shard = router.getShard(doc);
+    DocumentBatcher batcher = batchers.get(shard);
+    if(batcher == null) {
+      batcher = new DocumentBatcher(maxDocs, lingerMillis, sizeController);
+      batchers.put(shard, batcher);
+    }
+    if(batcher.add(doc, lineNumber)) {
+      ready.add(drain(shard, batcher));
+    }
+  }
+
+  private void reroute(final List<DocumentBatch> ready) {
+    final List<DocumentBatch> pending = new ArrayList<>();
+    int pendingCount = 0;
+    for(DocumentBatcher batcher : batchers.values()) {
+      final DocumentBatch batch = batcher.drain();
+      pending.add(batch);
+      pendingCount += batch.size();
+    }
+    batchers.clear();
+    LOGGER.info("cluster state changed - routing {} waiting documents to {} shards", pendingCount, router.getShardCount());
+    for(DocumentBatch batch : pending) {
+      for(int i = 0; i < batch.size(); i++) {
+        add(batch.getDocuments().get(i), batch.getLineNumber(i), ready);
+      }
+    }
+  }
+
+  private DocumentBatch drain(final String shard, final DocumentBatcher batcher) {
+    final DocumentBatch batch = batcher.drain();
+    return new DocumentBatch(batch.getDocuments(), batch.getLineNumbers(), batch.getEstimatedBytes(), shard);
+  }
+}
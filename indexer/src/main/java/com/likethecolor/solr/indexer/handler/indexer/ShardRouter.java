@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.client.solrj.impl.ClusterStateProvider;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.ClusterState;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+
+/**
+ * Works out which shard a document belongs to the same way solr does: the
+ * document's unique key is hashed by the collection's {@link
+ * org.apache.solr.common.cloud.DocRouter} against the slices in the cluster
+ * state.
+ *
+ * The cluster state is read from the client, which keeps it up to date.
+ * {@link #refresh()} says when it has changed so documents waiting to be sent
+ * can be routed again.
+ */
+public class ShardRouter {
+  /**
+   * Shard for documents that could not be routed.  The client routes them
+   * itself.
+   */
+  public static final String UNROUTED = "";
+
+  private final CloudSolrClient cloudSolrClient;
+  private final String collectionName;
+  private final String uniqueKeyFieldName;
+  private DocCollection docCollection;
+
+  public ShardRouter(final CloudSolrClient cloudSolrClient, final String collectionName, final String uniqueKeyFieldName) {
+    this.cloudSolrClient = cloudSolrClient;
+    this.collectionName = collectionName;
+    this.uniqueKeyFieldName = uniqueKeyFieldName;
+  }
+
+  /**
+   * Read the cluster state of the collection.
+   *
+   * @return true if the cluster state is new or has changed since the last
+   * call
+   *
+   * @throws IllegalStateException if the collection is not in the cluster
+   * state
+   */
+  public boolean refresh() {
+    final DocCollection current = getDocCollection();
+    if(current == null) {
+      throw new IllegalStateException("collection not found in cluster state: " + collectionName);
+    }
+    final boolean changed = docCollection == null
+        || current.getZNodeVersion() != docCollection.getZNodeVersion()
+        || !current.getSlicesMap().keySet().equals(docCollection.getSlicesMap().keySet());
+    docCollection = current;
+    return changed;
+  }
+
+  /**
+   * @param doc document to route - {@link #refresh()} must have been called
+   *
+   * @return name of the shard the document belongs to or {@link #UNROUTED}
+   */
+  public String getShard(final SolrInputDocument doc) {
+    final Object id = doc.getFieldValue(uniqueKeyFieldName);
+    if(id == null) {
+      return UNROUTED;
+    }
+    try {
+      final Slice slice = docCollection.getRouter().getTargetSlice(id.toString(), doc, null, null, docCollection);
+      return slice == null ? UNROUTED : slice.getName();
+    }
+    catch(SolrException e) {
+      // e.g. the implicit router with no shard named in the document
+      return UNROUTED;
+    }
+  }
+
+  /**
+   * @param shard name of the shard
+   *
+   * @return core url of the shard's leader - null if it is not known
+   */
+  public String getLeaderUrl(final String shard) {
+    if(docCollection == null) {
+      return null;
+    }
+    final Replica leader = docCollection.getLeader(shard);
+    return leader == null ? null : leader.getCoreUrl();
+  }
+
+  public int getShardCount() {
+    return docCollection == null ? 0 : docCollection.getSlicesMap().size();
+  }
+
+  protected DocCollection getDocCollection() {
+    final ClusterStateProvider provider = cloudSolrClient.getClusterStateProvider();
+    final ClusterState.CollectionRef ref = provider.getState(collectionName);
+    return ref == null ? null : ref.get();
+  }
+}
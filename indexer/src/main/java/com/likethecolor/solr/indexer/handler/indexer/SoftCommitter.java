@@ -1,44 +0,0 @@
-/*
- * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
- * <p/>
- * Licensed under the Apache License, Version 2.0 (the "License"); you may not
- * use this file except in compliance with the License.  You may obtain a copy
- * of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
- * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
- * License for the specific language governing permissions and limitations under
- * the License.
- */
-
-package com.likethecolor.solr.indexer.handler.indexer;
-
-import com.likethecolor.solr.indexer.SolrJCloudClientFacet;
-import com.likethecolor.solr.indexer.configuration.Configuration;
-import org.apache.solr.client.solrj.impl.CloudSolrClient;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-final public class SoftCommitter {
-  private static final Logger LOGGER = LoggerFactory.getLogger(SoftCommitter.class);
-  private Configuration configuration;
-  private CloudSolrClient cloudSolrServer;
-
-  public SoftCommitter(final Configuration configuration, final CloudSolrClient cloudSolrServer) {
-    this.configuration = configuration;
-    this.cloudSolrServer = cloudSolrServer;
-  }
-
-  public void doSoftCommit(long batchCount) {
-    if(configuration.getSoftCommitFrequency() >= 1) {
-      if(batchCount != 0 && batchCount % configuration.getSoftCommitFrequency() == 0) {
-        LOGGER.info("requesting soft commit after batch #{}", batchCount);
-        SolrJCloudClientFacet.softCommit(cloudSolrServer);
-        LOGGER.info("soft commit done");
-      }
-    }
-  }
-}
@@ -15,35 +15,63 @@
  */
 package com.likethecolor.solr.indexer.handler.indexer;
 
-import com.likethecolor.solr.indexer.Constants;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.field.FieldValueConverter;
 import com.likethecolor.solr.indexer.field.FieldValueSetter;
 import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
 import org.apache.solr.common.SolrInputDocument;
+import org.supercsv.cellprocessor.ift.CellProcessor;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Class used to add the field values to a document.  This takes into account the
  * skip fields and will not add those fields.
+ *
+ * By default each value, other than the unique key field's, is added as an
+ * atomic update, see {@link #setUpdateActions(UpdateActions)}.
+ *
+ * A value may arrive as read, a string, or already converted to its field's
+ * type by the reader, see {@link #getCellProcessors()}.  A string is
+ * converted here.
  */
 public class SolrDocumentBuilderForFields {
-  private Map<String, FieldDefinition> fieldDefinitionMap;
+  private FieldDefinition[] fieldDefinitions;
+  private boolean[] skipped;
+  private boolean[] uniqueKey;
+  private boolean[] unused;
+  private String[] actions;
+  private FieldValueConverter[] converters;
   private FieldValueSetter fieldValueSetter;
-  private List<String> skipFields;
+  private Set<String> skipFields;
+  private Set<String> uniqueKeyFieldValueFields;
   private String uniqueKeyFieldName;
   private UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator;
+  private UpdateActions updateActions;
 
   public SolrDocumentBuilderForFields(final FieldValueSetter fieldValueSetter, final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator, final String uniqueKeyFieldName) {
     this.fieldValueSetter = fieldValueSetter;
     this.uniqueKeyFieldName = uniqueKeyFieldName;
 
-    fieldDefinitionMap = new HashMap<>();
-    skipFields = new ArrayList<>();
+    fieldDefinitions = new FieldDefinition[0];
+    skipFields = new HashSet<>();
     this.uniqueKeyFieldValueGenerator = uniqueKeyFieldValueGenerator;
+    updateActions = UpdateActions.ATOMIC;
+    compile();
+  }
+
+  /**
+   * @param updateActions how each value is added - fields it does not send
+   * are treated like skip fields
+   */
+  public void setUpdateActions(final UpdateActions updateActions) {
+    this.updateActions = updateActions;
+    compile();
   }
 
   /**
@@ -52,7 +80,8 @@ public class SolrDocumentBuilderForFields {
    * @param fieldDefinitionMap map to set
    */
   public void setFieldDefinitionMap(final Map<String, FieldDefinition> fieldDefinitionMap) {
-    this.fieldDefinitionMap = fieldDefinitionMap;
+    fieldDefinitions = fieldDefinitionMap.values().toArray(new FieldDefinition[fieldDefinitionMap.size()]);
+    compile();
   }
 
   /**
@@ -61,8 +90,38 @@ public class SolrDocumentBuilderForFields {
    *
    * @param skipFields list of field names to not include in the document.
    */
-  public void setSkipFields(final List<String> skipFields) {
-    this.skipFields = skipFields;
+  public void setSkipFields(final Collection<String> skipFields) {
+    this.skipFields = skipFields instanceof Set ? (Set<String>) skipFields : new HashSet<>(skipFields);
+    compile();
+  }
+
+  /**
+   * Set the fields the unique key field value is made of.  A skip field that
+   * is not one of these is not needed at all so its values are not
+   * converted.  Until this is set every field's value is converted.
+   *
+   * @param uniqueKeyFieldValueFields names of the fields in the unique key
+   * field value
+   */
+  public void setUniqueKeyFieldValueFields(final Collection<String> uniqueKeyFieldValueFields) {
+    this.uniqueKeyFieldValueFields = new HashSet<>(uniqueKeyFieldValueFields);
+    compile();
+  }
+
+  /**
+   * A processor for each column, in the order of the field definitions, that
+   * converts the column's values to its field's type while the row is read.
+   * Columns whose values are not needed have no processor so are never
+   * converted.
+   *
+   * @return cell processors for the reader
+   */
+  public CellProcessor[] getCellProcessors() {
+    final CellProcessor[] cellProcessors = new CellProcessor[fieldDefinitions.length];
+    for(int i = 0; i < fieldDefinitions.length; i++) {
+      cellProcessors[i] = unused[i] ? null : converters[i];
+    }
+    return cellProcessors;
   }
 
   /**
@@ -73,37 +132,79 @@ public class SolrDocumentBuilderForFields {
    * @param rowValues list of data values
    */
   public void build(final SolrInputDocument doc, final List<Object> rowValues) {
-    int fieldIndex = 0;
-    for(String fieldName : fieldDefinitionMap.keySet()) {
-      // use clone to avoid overwriting the original field definitions
-      FieldDefinition fieldDefinitionDefinition = fieldDefinitionMap.get(fieldName).clone();
-      String value = (String) rowValues.get(fieldIndex);
-      if(value == null || value.trim().length() == 0) {
-        fieldIndex++;
+    build(doc, rowValues, uniqueKeyFieldValueGenerator);
+  }
+
+  /**
+   * Add the values from a row in the data file to the solr input document
+   * collecting the unique key field values in the given generator.  This
+   * allows a single builder to be shared by every row.
+   *
+   * @param doc solr input document
+   * @param rowValues list of data values
+   * @param uniqueKeyFieldValueGenerator generator for the row being built
+   */
+  public void build(final SolrInputDocument doc, final List<Object> rowValues, final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator) {
+    for(int fieldIndex = 0; fieldIndex < fieldDefinitions.length; fieldIndex++) {
+      // the field definitions are shared by every row so they are never modified
+      final FieldDefinition fieldDefinition = fieldDefinitions[fieldIndex];
+      if(unused[fieldIndex]) {
+        continue;
+      }
+      final Object value = rowValues.get(fieldIndex);
+      if(value == null) {
         continue;
       }
-      fieldValueSetter.setFieldValue(fieldDefinitionDefinition, value);
-      uniqueKeyFieldValueGenerator.addField(fieldDefinitionDefinition.getName(), fieldDefinitionDefinition.getValue());
-      fieldIndex++;
+      Object fieldValue = value;
+      if(value instanceof String) {
+        final String stringValue = (String) value;
+        if(stringValue.trim().length() == 0) {
+          continue;
+        }
+        fieldValue = converters[fieldIndex].convert(stringValue);
+        if(fieldValue == null) {
+          fieldValue = fieldDefinition.getValue();
+        }
+      }
+      uniqueKeyFieldValueGenerator.addField(fieldDefinition.getName(), fieldValue);
 
       // do not add the skip fields
-      if(skipFields.contains(fieldName)) {
+      if(skipped[fieldIndex]) {
         continue;
       }
 
-
       // use this map to always update fields
       // see: http://lucene.472066.n3.nabble.com/Updating-document-with-the-Solr-Java-API-td3998411.html
       //
       // NOTE: This cannot be done on the unique id field - that field is unique
       // and will/should never get updated
       //
-      Object valueToSet = fieldDefinitionDefinition.getValue();
-      if(!fieldName.equalsIgnoreCase(uniqueKeyFieldName)) {
-        valueToSet = new HashMap<String, Object>();
-        ((Map<String, Object>) valueToSet).put(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, fieldDefinitionDefinition.getValue());
+      Object valueToSet = fieldValue;
+      if(actions[fieldIndex] != null) {
+        valueToSet = Collections.singletonMap(actions[fieldIndex], fieldValue);
       }
-      doc.addField(fieldDefinitionDefinition.getName(), valueToSet);
+      doc.addField(fieldDefinition.getName(), valueToSet);
+    }
+  }
+
+  /**
+   * Work out once, rather than for every row, which fields are skipped,
+   * which field is the unique key field, how each value is added and how it
+   * is converted.
+   */
+  private void compile() {
+    skipped = new boolean[fieldDefinitions.length];
+    uniqueKey = new boolean[fieldDefinitions.length];
+    unused = new boolean[fieldDefinitions.length];
+    actions = new String[fieldDefinitions.length];
+    converters = new FieldValueConverter[fieldDefinitions.length];
+    for(int i = 0; i < fieldDefinitions.length; i++) {
+      final String fieldName = fieldDefinitions[i].getName();
+      uniqueKey[i] = fieldName.equalsIgnoreCase(uniqueKeyFieldName);
+      skipped[i] = skipFields.contains(fieldName) || (!uniqueKey[i] && !updateActions.isSent(fieldName));
+      unused[i] = skipped[i] && uniqueKeyFieldValueFields != null && !uniqueKeyFieldValueFields.contains(fieldName);
+      actions[i] = uniqueKey[i] ? null : updateActions.getAction(fieldName);
+      converters[i] = fieldValueSetter.getConverter(fieldDefinitions[i]);
     }
   }
 }
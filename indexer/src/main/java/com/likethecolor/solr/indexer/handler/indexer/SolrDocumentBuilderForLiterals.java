@@ -15,7 +15,6 @@
  */
 package com.likethecolor.solr.indexer.handler.indexer;
 
-import com.likethecolor.solr.indexer.Constants;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
 import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
 import org.apache.solr.common.SolrInputDocument;
@@ -28,28 +27,86 @@ import java.util.Map;
  */
 public class SolrDocumentBuilderForLiterals {
   private Map<String, FieldDefinition> literalsDefinitions;
+  private Map<String, Object> literalsUpdateValues;
   private UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator;
 
   public SolrDocumentBuilderForLiterals(final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator, final Map<String, FieldDefinition> literalsDefinitions) {
+    this(uniqueKeyFieldValueGenerator, literalsDefinitions, buildUpdateValues(literalsDefinitions));
+  }
+
+  /**
+   * Use update values that were built ahead of time, see
+   * {@link #buildUpdateValues(Map)}, so they are not created for every document.
+   *
+   * @param uniqueKeyFieldValueGenerator unique key field value generator
+   * @param literalsDefinitions map of literal field definitions
+   * @param literalsUpdateValues map of literal field name to update value
+   */
+  public SolrDocumentBuilderForLiterals(final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator, final Map<String, FieldDefinition> literalsDefinitions, final Map<String, Object> literalsUpdateValues) {
     this.literalsDefinitions = literalsDefinitions;
+    this.literalsUpdateValues = literalsUpdateValues;
     this.uniqueKeyFieldValueGenerator = uniqueKeyFieldValueGenerator;
   }
 
+  /**
+   * Build the value added to the document for each literal.  The values never
+   * change from document to document so they are immutable and can be shared.
+   *
+   * @param literalsDefinitions map of literal field definitions
+   *
+   * @return map of literal field name to update value
+   */
+  public static Map<String, Object> buildUpdateValues(final Map<String, FieldDefinition> literalsDefinitions) {
+    return buildUpdateValues(literalsDefinitions, UpdateActions.ATOMIC);
+  }
+
+  /**
+   * Build the value added to the document for each literal.  A literal the
+   * update actions do not send is left out of the map and so is not added to
+   * the document.
+   *
+   * @param literalsDefinitions map of literal field definitions
+   * @param updateActions how each value is added
+   *
+   * @return map of literal field name to value
+   */
+  public static Map<String, Object> buildUpdateValues(final Map<String, FieldDefinition> literalsDefinitions, final UpdateActions updateActions) {
+    final Map<String, Object> updateValues = new HashMap<>();
+    for(Map.Entry<String, FieldDefinition> entry : literalsDefinitions.entrySet()) {
+      final FieldDefinition literalFieldDefinition = entry.getValue();
+      if(updateActions.isSent(literalFieldDefinition.getName())) {
+        // use this map to always update fields
+        // see: http://lucene.472066.n3.nabble.com/Updating-document-with-the-Solr-Java-API-td3998411.html
+        updateValues.put(entry.getKey(), updateActions.wrap(literalFieldDefinition.getName(), literalFieldDefinition.getValue()));
+      }
+    }
+    return updateValues;
+  }
+
   /**
    * Add the literal fields to the solr input document.
    *
    * @param doc solr input document
    */
   public void build(final SolrInputDocument doc) {
+    build(doc, uniqueKeyFieldValueGenerator);
+  }
+
+  /**
+   * Add the literal fields to the solr input document collecting the unique
+   * key field values in the given generator.  This allows a single builder to
+   * be shared by every row.
+   *
+   * @param doc solr input document
+   * @param uniqueKeyFieldValueGenerator generator for the row being built
+   */
+  public void build(final SolrInputDocument doc, final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator) {
     // handle values in the fields list - making sure to exclude skip fields
-    for(String literalFieldName : literalsDefinitions.keySet()) {
-      FieldDefinition literalsFieldDefinitionDefinition = literalsDefinitions.get(literalFieldName);
-
-      // use this map to always update fields
-      // see: http://lucene.472066.n3.nabble.com/Updating-document-with-the-Solr-Java-API-td3998411.html
-      Map<String, Object> updateMap = new HashMap<>();
-      updateMap.put(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, literalsFieldDefinitionDefinition.getValue());
-      doc.addField(literalsFieldDefinitionDefinition.getName(), updateMap);
+    for(Map.Entry<String, FieldDefinition> entry : literalsDefinitions.entrySet()) {
+      final FieldDefinition literalsFieldDefinitionDefinition = entry.getValue();
+      if(literalsUpdateValues.containsKey(entry.getKey())) {
+        doc.addField(literalsFieldDefinitionDefinition.getName(), literalsUpdateValues.get(entry.getKey()));
+      }
       uniqueKeyFieldValueGenerator.addField(literalsFieldDefinitionDefinition.getName(), literalsFieldDefinitionDefinition.getValue());
     }
   }
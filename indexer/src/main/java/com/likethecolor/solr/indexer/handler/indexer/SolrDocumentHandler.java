@@ -18,7 +18,6 @@ package com.likethecolor.solr.indexer.handler.indexer;
 
 import com.likethecolor.solr.indexer.configuration.Configuration;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
-import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
 import com.likethecolor.solr.indexer.reader.DataReader;
 import org.apache.solr.common.SolrInputDocument;
 import org.slf4j.Logger;
@@ -35,6 +34,21 @@ public class SolrDocumentHandler extends AbstractSolrDocumentHandler {
     super(configuration, dataReader);
   }
 
+  private SolrDocumentHandler(final Configuration configuration, final Map<String, DataReader> dataReaders) {
+    super(configuration, dataReaders);
+  }
+
+  /**
+   * @param configuration configuration
+   * @param dataReaders map of data file to the reader for it, in the order
+   * the files are to be read
+   *
+   * @return handler indexing every one of the data files
+   */
+  public static SolrDocumentHandler forDataFiles(final Configuration configuration, final Map<String, DataReader> dataReaders) {
+    return new SolrDocumentHandler(configuration, dataReaders);
+  }
+
   /**
    * Loop through field definitions and add the value in the corresponding row
    * of values to a solr document.
@@ -42,24 +56,10 @@ public class SolrDocumentHandler extends AbstractSolrDocumentHandler {
    * @param rowValues list of values from the data file   @return solr document populated with the values from the row of values
    */
   protected SolrInputDocument buildSolrInputDocument(List<Object> rowValues) {
-    SolrInputDocument doc = new SolrInputDocument();
+    SolrInputDocument doc;
 
     try {
-      final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator = getUniqueKeyFieldValueGenerator();
-      final SolrDocumentBuilderForFields builderForFields = new SolrDocumentBuilderForFields(getFieldValueSetter(), uniqueKeyFieldValueGenerator, getConfiguration().getUniqueKeyFieldName());
-      builderForFields.setSkipFields(getSkipFields());
-      builderForFields.setFieldDefinitionMap(getFieldDefinitions());
-
-      final SolrDocumentBuilderForLiterals builderForLiterals = new SolrDocumentBuilderForLiterals(uniqueKeyFieldValueGenerator, getLiteralsDefinitions());
-      final SolrDocumentBuilderForUniqueKeyField builderForUniqueKeyField = new SolrDocumentBuilderForUniqueKeyField(uniqueKeyFieldValueGenerator, getConfiguration().getUniqueKeyFieldName());
-      builderForUniqueKeyField.build(doc);
-
-      builderForFields.build(doc, rowValues);
-      builderForLiterals.build(doc);
-
-      // NOTE: This should almost always fire last.  Previous builders will
-      // populate values on the document and this will/may use those values.
-      handleDynamicClasses(doc);
+      doc = getRowPlan().build(rowValues);
     }
     catch(IllegalStateException e) {
       LOGGER.error("processing error - skipping document", e);
@@ -71,19 +71,18 @@ public class SolrDocumentHandler extends AbstractSolrDocumentHandler {
 
 
   /**
-   * Sets up the processors used for the examples. If there are 10 CSV columns
-   * there must be 10 processors defined. Empty columns are read as null (hence
-   * the NotNull() for mandatory columns).
+   * A processor for each column, compiled from its field definition, that
+   * converts the values to the field's type as the row is read.  Only a
+   * chunked reader is given them, so the values are converted on the threads
+   * reading its parts; the values from the other readers are converted by the
+   * document builders with the same converters.  A null or blank value is read
+   * as null and the field is left off the document, so a row with null fields
+   * is still indexed.  The columns whose values are not used have no processor
+   * and are never converted.
    *
    * @return the cell processors
    */
   protected CellProcessor[] getProcessors(final Map<String, FieldDefinition> fieldDefinitions) {
-    // TODO: Perhaps define more specific processors
-    // I had this set up to use NotNull() for those fields not in the skip
-    // fields list.  However, in some cases I found that the data file contained
-    // null fields.  I wanted to be able to just skip that row and continue;
-    // I found that to be more complicated than I have time for so I'm just setting
-    // all the processors to be null.
-    return new CellProcessor[fieldDefinitions.size()];
+    return getRowPlan().getCellProcessors();
   }
 }
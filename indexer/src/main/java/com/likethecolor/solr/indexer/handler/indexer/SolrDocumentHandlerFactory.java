@@ -18,22 +18,24 @@ package com.likethecolor.solr.indexer.handler.indexer;
 
 import com.likethecolor.solr.indexer.Constants;
 import com.likethecolor.solr.indexer.configuration.Configuration;
-import com.likethecolor.solr.indexer.field.FieldDefinition;
-import com.likethecolor.solr.indexer.field.FieldsParser;
 import com.likethecolor.solr.indexer.handler.CsvPreferencesBuilder;
-import com.likethecolor.solr.indexer.json.JSONParser;
-import com.likethecolor.solr.indexer.reader.CSVDataReader;
+import com.likethecolor.solr.indexer.reader.DataFileResolver;
 import com.likethecolor.solr.indexer.reader.DataReader;
-import com.likethecolor.solr.indexer.reader.JSONDataReader;
+import com.likethecolor.solr.indexer.reader.DataReaderFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.supercsv.prefs.CsvPreference;
 
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
  * This is the factory used to provide the correct document handler.  The handler
- * uses and implementation of {@link DataReader} to read.
+ * uses and implementation of {@link DataReader} to read.  There is a reader
+ * for each data file the path to the data file names, see
+ * {@link DataFileResolver}.
  */
 public class SolrDocumentHandlerFactory implements Constants {
   private static final Logger LOGGER = LoggerFactory.getLogger(SolrDocumentHandlerFactory.class);
@@ -46,26 +48,54 @@ public class SolrDocumentHandlerFactory implements Constants {
     return INSTANCE;
   }
 
-  public DocumentHandler getHandler(Configuration configuration) {
+  /**
+   * @param configuration configuration
+   *
+   * @return handler for the data type
+   *
+   * @throws IOException if the data files could not be found
+   */
+  public DocumentHandler getHandler(Configuration configuration) throws IOException {
     DataReader dataReader = null;
 
-    String pathToDataFile = configuration.getPathToDataFile();
-    if(configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_CSV)) {
-      dataReader = new CSVDataReader(pathToDataFile, getCsvPreference(configuration));
-      LOGGER.debug("using CSVDataReader using data file: {}", pathToDataFile);
-      return new SolrDocumentHandler(configuration, dataReader);
-    }
-    if(configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_JSON)) {
-      Map<String, FieldDefinition> fieldDefinitionMap = new FieldsParser(configuration).parse(configuration.getFields());
-      dataReader = new JSONDataReader(pathToDataFile, fieldDefinitionMap, new JSONParser(configuration));
-      LOGGER.debug("using JSONDataReader using data file: {}", pathToDataFile);
-      return new SolrDocumentHandler(configuration, dataReader);
+    if(configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_CSV)
+        || configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_FAST_CSV)
+        || configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_JSON)
+        || configuration.getDataType().getName().equalsIgnoreCase(DATA_TYPE_JSON_ARRAY)) {
+      final CsvPreference csvPreference = getCsvPreference(configuration);
+      final Map<String, DataReader> dataReaders = new LinkedHashMap<>();
+      for(String dataFile : resolveDataFiles(configuration)) {
+        // each reader is used by a thread of its own
+        dataReaders.put(dataFile, DataReaderFactory.getInstance().getDataReader(configuration, csvPreference, dataFile));
+      }
+      LOGGER.debug("using {} readers for data files: {}", configuration.getDataType().getName(), dataReaders.keySet());
+      return SolrDocumentHandler.forDataFiles(configuration, dataReaders);
     }
 
     LOGGER.error("cannot create document handler - returning DoNothing document handler!");
     return new DoNothingSolrDocumentHandler(configuration, dataReader);
   }
 
+  /**
+   * The checkpoint file records the progress through one data file so it
+   * cannot be used when the path names more than one.
+   *
+   * @return data files the path to the data file names
+   *
+   * @throws IOException if the data files could not be found
+   * @throws IllegalArgumentException if there is a checkpoint file and more
+   * than one data file
+   */
+  private List<String> resolveDataFiles(Configuration configuration) throws IOException {
+    final List<String> dataFiles = new DataFileResolver().resolve(configuration.getPathToDataFile());
+    if(configuration.getCheckpointFile() != null && dataFiles.size() > 1) {
+      throw new IllegalArgumentException(String.format(
+          "--%s cannot be used with --%s %s as it names %d data files",
+          CHECKPOINT_FILE_OPTION, PATH_TO_DATA_FILE_OPTION, configuration.getPathToDataFile(), dataFiles.size()));
+    }
+    return dataFiles;
+  }
+
   private CsvPreference getCsvPreference(Configuration configuration) {
     return new CsvPreferencesBuilder(configuration).getCsvPreference();
   }
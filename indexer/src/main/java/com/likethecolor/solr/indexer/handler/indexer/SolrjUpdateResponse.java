@@ -17,10 +17,19 @@ package com.likethecolor.solr.indexer.handler.indexer;
 
 import org.apache.solr.client.solrj.response.UpdateResponse;
 
+import java.util.List;
+
 public class SolrjUpdateResponse {
   private UpdateResponse updateResponse;
   private int docSize;
+  private List<Integer> lineNumbers;
+  private long estimatedBytes;
   private int numberOfAttempts;
+  private int errorCode;
+  private String errorMessage;
+  private int deadLetterCount;
+  private boolean timedOut;
+  private boolean retryScheduled;
   private boolean updateSucceeded;
 
   public int getDocSize() {
@@ -31,6 +40,65 @@ public class SolrjUpdateResponse {
     this.docSize = docSize;
   }
 
+  /**
+   * @return line number of each document in the batch, including any solr
+   * rejected - null if not known
+   */
+  public List<Integer> getLineNumbers() {
+    return lineNumbers;
+  }
+
+  public void setLineNumbers(List<Integer> lineNumbers) {
+    this.lineNumbers = lineNumbers;
+  }
+
+  /**
+   * @return estimated size, in bytes, of the batch's documents - 0 if not
+   * known
+   */
+  public long getEstimatedBytes() {
+    return estimatedBytes;
+  }
+
+  public void setEstimatedBytes(long estimatedBytes) {
+    this.estimatedBytes = estimatedBytes;
+  }
+
+  /**
+   * @return http status code solr returned for a failed attempt - 0 if the
+   * attempt succeeded or there was no response
+   */
+  public int getErrorCode() {
+    return errorCode;
+  }
+
+  public void setErrorCode(int errorCode) {
+    this.errorCode = errorCode;
+  }
+
+  /**
+   * @return message of the error for a failed attempt - null if the attempt
+   * succeeded
+   */
+  public String getErrorMessage() {
+    return errorMessage;
+  }
+
+  public void setErrorMessage(String errorMessage) {
+    this.errorMessage = errorMessage;
+  }
+
+  /**
+   * @return number of documents in the batch solr rejected
+   */
+  public int getDeadLetterCount() {
+    return deadLetterCount;
+  }
+
+  public void setDeadLetterCount(int deadLetterCount) {
+    this.deadLetterCount = deadLetterCount;
+  }
+
   public int getNumberOfAttempts() {
     return numberOfAttempts;
   }
@@ -47,6 +115,26 @@ public class SolrjUpdateResponse {
     this.updateResponse = updateResponse;
   }
 
+  /**
+   * @return true if the batch failed and was handed to a
+   * {@link RetryScheduler} to be sent again later
+   */
+  public boolean isRetryScheduled() {
+    return retryScheduled;
+  }
+
+  public void setRetryScheduled(boolean retryScheduled) {
+    this.retryScheduled = retryScheduled;
+  }
+
+  public boolean isTimedOut() {
+    return timedOut;
+  }
+
+  public void setTimedOut(boolean timedOut) {
+    this.timedOut = timedOut;
+  }
+
   public boolean isUpdateSucceeded() {
     return updateSucceeded;
   }
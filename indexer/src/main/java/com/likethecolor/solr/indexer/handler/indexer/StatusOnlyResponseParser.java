@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.client.solrj.ResponseParser;
+import org.apache.solr.common.SolrException;
+import org.apache.solr.common.util.NamedList;
+import org.apache.solr.common.util.SimpleOrderedMap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+
+/**
+ * Reads and throws away the body of an update response.  The http client
+ * has already failed the request if the status was not 200 so a response
+ * that gets here succeeded; a response header with a status of 0 is returned
+ * so callers that look at it still work.
+ */
+public class StatusOnlyResponseParser extends ResponseParser {
+  private static final int BUFFER_SIZE = 8192;
+
+  @Override
+  public String getWriterType() {
+    return "javabin";
+  }
+
+  /**
+   * @return null so the client does not check the content type of a body
+   * that is not going to be read
+   */
+  @Override
+  public String getContentType() {
+    return null;
+  }
+
+  @Override
+  public NamedList<Object> processResponse(final InputStream body, final String encoding) {
+    try {
+      final byte[] buffer = new byte[BUFFER_SIZE];
+      while(body.read(buffer) != -1) {
+        // drain so the connection can be reused
+      }
+    }
+    catch(IOException e) {
+      throw new SolrException(SolrException.ErrorCode.SERVER_ERROR, "could not read update response", e);
+    }
+    return getOkResponse();
+  }
+
+  @Override
+  public NamedList<Object> processResponse(final Reader reader) {
+    throw new UnsupportedOperationException("update responses are read as bytes");
+  }
+
+  static NamedList<Object> getOkResponse() {
+    final NamedList<Object> header = new SimpleOrderedMap<>();
+    header.add("status", 0);
+    final NamedList<Object> response = new NamedList<>();
+    response.add("responseHeader", header);
+    return response;
+  }
+}
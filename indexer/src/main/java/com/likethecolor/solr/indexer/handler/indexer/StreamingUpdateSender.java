@@ -0,0 +1,371 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.impl.BinaryRequestWriter;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Streams documents to each shard leader over one long lived update request
+ * at a time instead of sending a request per batch.  Each shard has a queue
+ * and a thread.  The thread opens an update request whose documents come from
+ * an iterator over the queue; the request is closed once it has the max
+ * number of documents or has been open the max time, then the next one is
+ * opened.
+ *
+ * The documents written to a request are kept until the request is done.  If
+ * it fails they are sent again as a batch through {@link IndexService}, with
+ * its retries - unless sending them again is not safe, see
+ * {@link IndexService#isRepeatable(Configuration)}, when they are written to
+ * the dead letter file instead.  Documents that cannot be routed to a shard are sent as a
+ * batch straight away.
+ *
+ * {@link #send(DocumentBatch)} blocks while a shard's queue is full.  The
+ * first failure is rethrown, wrapped in an {@link ExecutionException}, by the
+ * next call to {@link #send(DocumentBatch)} or {@link #close()}.
+ */
+public class StreamingUpdateSender {
+  private static final Logger LOGGER = LoggerFactory.getLogger(StreamingUpdateSender.class);
+  /**
+   * How often a thread waiting for documents checks whether it should stop.
+   */
+  static final long POLL_MILLIS = 100;
+
+  private final Configuration configuration;
+  private final CloudSolrClient cloudSolrClient;
+  private final ShardRouter router;
+  private final BatchDispatcher.Listener listener;
+  private final int queueCapacity;
+  private final Map<String, LeaderStream> streams;
+  private final List<Future<?>> streamFutures;
+  private final ExecutorService executor;
+  private final AtomicReference<Throwable> failure;
+  private volatile boolean closed;
+  private volatile DeadLetterWriter deadLetterWriter;
+
+  public StreamingUpdateSender(final Configuration configuration, final CloudSolrClient cloudSolrClient, final ShardRouter router, final BatchDispatcher.Listener listener) {
+    this.configuration = configuration;
+    this.cloudSolrClient = cloudSolrClient;
+    this.router = router;
+    this.listener = listener;
+    queueCapacity = Math.max(1, configuration.getBatchSize());
+    streams = new HashMap<>();
+    streamFutures = new ArrayList<>();
+    executor = Executors.newCachedThreadPool();
+    failure = new AtomicReference<>();
+  }
+
+  /**
+   * @param deadLetterWriter where documents solr rejects are written when a
+   * failed stream is sent again - may be null
+   */
+  public void setDeadLetterWriter(final DeadLetterWriter deadLetterWriter) {
+    this.deadLetterWriter = deadLetterWriter;
+  }
+
+  /**
+   * Put the batch's documents on the queues of their shards.
+   *
+   * @param batch documents to send
+   *
+   * @throws InterruptedException if interrupted while waiting for room
+   * @throws ExecutionException if sending has failed
+   */
+  public void send(final DocumentBatch batch) throws InterruptedException, ExecutionException {
+    throwIfFailed();
+    router.refresh();
+    final List<SolrInputDocument> unrouted = new ArrayList<>();
+    for(SolrInputDocument doc : batch.getDocuments()) {
+      final String shard = router.getShard(doc);
+      if(ShardRouter.UNROUTED.equals(shard)) {
+        unrouted.add(doc);
+      }
+      else {
+        getStream(shard).put(doc);
+      }
+    }
+    if(!unrouted.isEmpty()) {
+      listener.batchCompleted(sendBatch(unrouted, null));
+    }
+  }
+
+  /**
+   * Let the streams send what is left on their queues and wait for them.
+   *
+   * @throws InterruptedException if interrupted while waiting
+   * @throws ExecutionException if sending failed
+   */
+  public void close() throws InterruptedException, ExecutionException {
+    closed = true;
+    for(Future<?> streamFuture : streamFutures) {
+      streamFuture.get();
+    }
+    executor.shutdown();
+    throwIfFailed();
+  }
+
+  /**
+   * Stop the streams without waiting for them.
+   */
+  public void shutdownNow() {
+    closed = true;
+    executor.shutdownNow();
+  }
+
+  /**
+   * @param leaderUrl core url of a shard leader
+   *
+   * @return client that sends to the leader
+   */
+  protected SolrClient getLeaderClient(final String leaderUrl) {
+    final HttpSolrClient client = new HttpSolrClient.Builder(leaderUrl)
+        .withHttpClient(cloudSolrClient.getLbClient().getHttpClient())
+        .build();
+    client.setRequestWriter(new BinaryRequestWriter());
+    return client;
+  }
+
+  private LeaderStream getStream(final String shard) {
+    LeaderStream stream = streams.get(shard);
+    if(stream == null) {
+      stream = new LeaderStream(shard);
+      streams.put(shard, stream);
+      streamFutures.add(executor.submit(stream));
+    }
+    return stream;
+  }
+
+  /**
+   * @param failed response to the streamed request that failed with the
+   * documents - null if they have not been sent
+   */
+  private SolrjUpdateResponse sendBatch(final List<SolrInputDocument> docs, final SolrjUpdateResponse failed) throws InterruptedException {
+    final IndexService indexService = new IndexService(configuration, cloudSolrClient, docs);
+    indexService.setDeadLetterWriter(deadLetterWriter);
+    if(failed != null && !IndexService.isRepeatable(configuration)) {
+      return indexService.deadLetterAll(failed);
+    }
+    return indexService.call();
+  }
+
+  private void throwIfFailed() throws ExecutionException {
+    final Throwable t = failure.get();
+    if(t != null) {
+      throw new ExecutionException(t);
+    }
+  }
+
+  /**
+   * Sends one shard's documents, one streamed request after another.
+   */
+  private class LeaderStream implements Runnable {
+    private final String shard;
+    private final BlockingQueue<SolrInputDocument> queue;
+
+    LeaderStream(final String shard) {
+      this.shard = shard;
+      queue = new ArrayBlockingQueue<>(queueCapacity);
+    }
+
+    void put(final SolrInputDocument doc) throws InterruptedException, ExecutionException {
+      while(!queue.offer(doc, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        // don't wait forever on a stream that has died
+        throwIfFailed();
+      }
+    }
+
+    @Override
+    public void run() {
+      try {
+        SolrInputDocument first;
+        while((first = takeFirst()) != null) {
+          stream(first);
+        }
+      }
+      catch(Throwable t) {
+        failure.compareAndSet(null, t);
+        if(t instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }
+
+    /**
+     * @return first document of the next request or null when closed and
+     * there is nothing left
+     */
+    private SolrInputDocument takeFirst() throws InterruptedException {
+      while(true) {
+        final SolrInputDocument doc = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if(doc != null) {
+          return doc;
+        }
+        if(closed && queue.isEmpty()) {
+          return null;
+        }
+        if(failure.get() != null) {
+          return null;
+        }
+      }
+    }
+
+    private void stream(final SolrInputDocument first) throws InterruptedException, IOException {
+      final QueueIterator docs = new QueueIterator(queue, first, configuration.getStreamMaxDocs(), configuration.getStreamMaxMillis());
+      final String leaderUrl = router.getLeaderUrl(shard);
+      SolrjUpdateResponse response = null;
+      SolrjUpdateResponse failed = null;
+      if(leaderUrl != null) {
+        final UpdateRequest request = new UpdateRequest();
+        request.setDocIterator(docs);
+        IndexService.setUpdateParams(configuration, request);
+        final SolrClient client = getLeaderClient(leaderUrl);
+        final long startTimeInMS = System.currentTimeMillis();
+        try {
+          final NamedList<Object> namedList = client.request(request);
+          final UpdateResponse updateResponse = new UpdateResponse();
+          updateResponse.setResponse(namedList);
+          updateResponse.setElapsedTime(System.currentTimeMillis() - startTimeInMS);
+          response = new SolrjUpdateResponse();
+          response.setUpdateResponse(updateResponse);
+          response.setDocSize(docs.getSent().size());
+          response.setNumberOfAttempts(1);
+          response.setUpdateSucceeded(true);
+        }
+        catch(Exception e) {
+          LOGGER.error(String.format("streamed update to shard '%s' failed with %d documents sent", shard, docs.getSent().size()), e);
+          failed = new SolrjUpdateResponse();
+          failed.setNumberOfAttempts(1);
+          failed.setErrorCode(IndexService.getErrorCode(e));
+          failed.setErrorMessage(e.getMessage());
+        }
+        finally {
+          client.close();
+        }
+      }
+      if(response == null) {
+        // no leader or the stream failed; documents not yet taken stay on the
+        // queue for the next request
+        docs.finish();
+        response = sendBatch(docs.getSent(), failed);
+      }
+      LOGGER.debug("streamed {} documents to shard '{}'", response.getDocSize(), shard);
+      listener.batchCompleted(response);
+    }
+  }
+
+  /**
+   * Hands out documents from a queue until the max number of documents have
+   * been handed out, the time is up or the sender is closed and the queue is
+   * empty.  Keeps every document it hands out.
+   */
+  class QueueIterator implements Iterator<SolrInputDocument> {
+    private final BlockingQueue<SolrInputDocument> queue;
+    private final int maxDocs;
+    private final long deadlineNanos;
+    private final List<SolrInputDocument> sent;
+    private SolrInputDocument next;
+    private boolean done;
+
+    QueueIterator(final BlockingQueue<SolrInputDocument> queue, final SolrInputDocument first, final int maxDocs, final long maxMillis) {
+      this.queue = queue;
+      this.maxDocs = Math.max(1, maxDocs);
+      deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxMillis);
+      sent = new ArrayList<>();
+      next = first;
+    }
+
+    @Override
+    public boolean hasNext() {
+      if(next != null) {
+        return true;
+      }
+      if(done || sent.size() >= maxDocs) {
+        done = true;
+        return false;
+      }
+      try {
+        while(next == null) {
+          final long remainingNanos = deadlineNanos - System.nanoTime();
+          if(remainingNanos <= 0 || (closed && queue.isEmpty()) || failure.get() != null) {
+            done = true;
+            return false;
+          }
+          next = queue.poll(Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(POLL_MILLIS)), TimeUnit.NANOSECONDS);
+        }
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        done = true;
+        return false;
+      }
+      return true;
+    }
+
+    @Override
+    public SolrInputDocument next() {
+      if(!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      final SolrInputDocument doc = next;
+      next = null;
+      sent.add(doc);
+      return doc;
+    }
+
+    /**
+     * Stop handing out documents.  A document already taken from the queue
+     * counts as sent.
+     */
+    void finish() {
+      if(next != null) {
+        sent.add(next);
+        next = null;
+      }
+      done = true;
+    }
+
+    List<SolrInputDocument> getSent() {
+      return sent;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
+import com.likethecolor.solr.indexer.util.conversion.ToListConversion;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * How the value of each field, other than the unique key field, is added to a
+ * document for a {@link DocumentModeEnum}:
+ * <ul>
+ *   <li>{@link DocumentModeEnum#FULL} - as it is</li>
+ *   <li>{@link DocumentModeEnum#ATOMIC} - as {"set": value}</li>
+ *   <li>{@link DocumentModeEnum#INPLACE} - as {"set": value} or
+ *   {"inc": value} for the fields listed for each and not at all for the
+ *   rest</li>
+ * </ul>
+ * The unique key field's value is always added as it is.
+ */
+public final class UpdateActions {
+  public static final UpdateActions ATOMIC = new UpdateActions(DocumentModeEnum.ATOMIC, null, null);
+
+  private final DocumentModeEnum documentMode;
+  private final Set<String> setFields;
+  private final Set<String> incrementFields;
+
+  /**
+   * @param documentMode how the values are added
+   * @param setFields with {@link DocumentModeEnum#INPLACE} the fields added as
+   * {"set": value} - may be null
+   * @param incrementFields with {@link DocumentModeEnum#INPLACE} the fields
+   * added as {"inc": value} - may be null
+   */
+  public UpdateActions(final DocumentModeEnum documentMode, final Collection<String> setFields, final Collection<String> incrementFields) {
+    this.documentMode = documentMode;
+    this.setFields = toSet(setFields);
+    this.incrementFields = toSet(incrementFields);
+  }
+
+  /**
+   * With {@link Configuration#rebuild()} the mode is always
+   * {@link DocumentModeEnum#FULL}.
+   */
+  public static UpdateActions fromConfiguration(final Configuration configuration) {
+    if(configuration.rebuild()) {
+      return new UpdateActions(DocumentModeEnum.FULL, null, null);
+    }
+    return new UpdateActions(configuration.getDocumentMode(), getFieldNames(configuration.getInplaceFields()), getFieldNames(configuration.getInplaceIncrementFields()));
+  }
+
+  /**
+   * @param fieldNames list of field names, see {@link ToListConversion} - may
+   * be null
+   *
+   * @return the field names trimmed
+   */
+  public static Set<String> getFieldNames(final String fieldNames) {
+    final Set<String> names = new HashSet<>();
+    for(String name : new ToListConversion(fieldNames).toList()) {
+      if(name.trim().length() > 0) {
+        names.add(name.trim());
+      }
+    }
+    return names;
+  }
+
+  public DocumentModeEnum getDocumentMode() {
+    return documentMode;
+  }
+
+  /**
+   * @return with {@link DocumentModeEnum#INPLACE} the fields set and
+   * incremented - empty otherwise
+   */
+  public Set<String> getInplaceFields() {
+    final Set<String> fields = new HashSet<>(setFields);
+    fields.addAll(incrementFields);
+    return fields;
+  }
+
+  /**
+   * @return false if a field is incremented, in which case sending the same
+   * document twice does not give the same result
+   */
+  public boolean isIdempotent() {
+    return documentMode != DocumentModeEnum.INPLACE || incrementFields.isEmpty();
+  }
+
+  /**
+   * @param fieldName name of a field other than the unique key field
+   *
+   * @return true if the field is added to the document
+   */
+  public boolean isSent(final String fieldName) {
+    return documentMode != DocumentModeEnum.INPLACE || setFields.contains(fieldName) || incrementFields.contains(fieldName);
+  }
+
+  /**
+   * @param fieldName name of a field other than the unique key field
+   *
+   * @return key of the update map the value is put in or null if the value is
+   * added as it is
+   */
+  public String getAction(final String fieldName) {
+    if(documentMode == DocumentModeEnum.FULL) {
+      return null;
+    }
+    if(documentMode == DocumentModeEnum.INPLACE && incrementFields.contains(fieldName)) {
+      return Constants.KEY_FOR_INCREMENT_DOCUMENT_ACTION;
+    }
+    return Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION;
+  }
+
+  /**
+   * @return the value as it is to be added for the field
+   */
+  public Object wrap(final String fieldName, final Object value) {
+    final String action = getAction(fieldName);
+    return action == null ? value : Collections.singletonMap(action, value);
+  }
+
+  private static Set<String> toSet(final Collection<String> fields) {
+    return fields == null ? Collections.<String>emptySet() : Collections.unmodifiableSet(new HashSet<>(fields));
+  }
+}
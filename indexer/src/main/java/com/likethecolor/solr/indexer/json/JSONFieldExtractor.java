@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.json;
+
+import com.likethecolor.solr.indexer.field.FieldDefinition;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Does what {@link MapToListValuesBuilder#build(Map)} of
+ * {@link JSONParser#parse(String)} does, in a single scan of the line: the
+ * values of the {@code fields-to-json} keys and paths are put straight into
+ * the slots of their fields and every other value is stepped over without
+ * being turned into an object.  There is no {@link JSONObject} or map for the
+ * line.
+ *
+ * The mappings are compiled once into a tree of accessors, one for each key
+ * on a path, see {@link JSONPath}, so nested objects and the elements of
+ * arrays are read in the same scan.  The values of a multivalued path are
+ * joined as the parser joins them, see {@link JSONPath#join(List, String)}.
+ *
+ * The values are the same strings the parser gives: a string is unescaped,
+ * a number, true, false or null is as {@link JSONObject#stringToValue(String)}
+ * turns it into a string, an object or an array is written back out by
+ * org.json and a missing key is "".
+ *
+ * Only standard JSON is scanned.  A line the scan cannot handle is handed to
+ * the parser so it is either read as before or fails as before.  That
+ * includes the relaxed forms org.json accepts, such as single quoted strings,
+ * a key whose value is extracted appearing twice and a top level key named
+ * the same as a path, which the parser uses before the path.  A key that is
+ * not extracted, or is only a step on a path, appearing twice is not an
+ * error.
+ *
+ * An extractor holds no state for a line so one may be shared by threads.
+ */
+public class JSONFieldExtractor {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JSONFieldExtractor.class);
+  private static final int MAX_DEPTH = 512;
+  private static final int NOT_SCANNED = -1;
+  private final JSONParser parser;
+  private final MapToListValuesBuilder mapToListValuesBuilder;
+  private final String multivalueFieldDelimiter;
+  private final boolean[] multivalued;
+  private final KeyTable topLevelKeys;
+
+  /**
+   * @param fields2JSON field name to JSON key or path
+   * @param mapToListValuesBuilder gives the order of the fields
+   * @param multivalueFieldDelimiter joins the values of a multivalued path
+   * @param parser used for the lines that cannot be scanned - its compiled
+   * paths are used for those in the mapping
+   */
+  JSONFieldExtractor(final Fields2JSON fields2JSON, final MapToListValuesBuilder mapToListValuesBuilder, final String multivalueFieldDelimiter, final JSONParser parser) {
+    this.parser = parser;
+    this.mapToListValuesBuilder = mapToListValuesBuilder;
+    this.multivalueFieldDelimiter = multivalueFieldDelimiter;
+    final Accessor root = new Accessor();
+    final List<Boolean> multivaluedSlots = new ArrayList<>();
+    for(String fieldName : mapToListValuesBuilder.getFieldDefinitionMap().keySet()) {
+      if(!fields2JSON.contains(fieldName)) {
+        LOGGER.error("field is not in fields-to-json so has no value: field name: {}", fieldName);
+        continue;
+      }
+      final String key = fields2JSON.get(fieldName);
+      final int slot = multivaluedSlots.size();
+      final JSONPath path = parser.getPath(key);
+      if(path != null) {
+        Accessor accessor = root;
+        for(int step = 0; step < path.getKeys().size(); step++) {
+          accessor = accessor.field(path.getKeys().get(step));
+          for(int i = 0; i < path.getArrayDepth(step); i++) {
+            accessor = accessor.elements();
+          }
+        }
+        accessor.slots.add(slot);
+        root.field(key).literal = true;
+        multivaluedSlots.add(path.isMultivalued());
+      }
+      else {
+        root.field(key).slots.add(slot);
+        multivaluedSlots.add(false);
+      }
+    }
+    multivalued = new boolean[multivaluedSlots.size()];
+    for(int i = 0; i < multivalued.length; i++) {
+      multivalued[i] = multivaluedSlots.get(i);
+    }
+    topLevelKeys = new KeyTable(root.fields);
+  }
+
+  /**
+   * @param rowOfData a line of JSON
+   *
+   * @return the values in field order
+   *
+   * @throws JSONException if the line is not a JSON object
+   */
+  public List<Object> extract(final String rowOfData) throws JSONException {
+    if(rowOfData != null && rowOfData.trim().length() > 0) {
+      final Object[] values = new Object[multivalued.length];
+      final int start = skipWhitespace(rowOfData, 0);
+      if(start < rowOfData.length() && rowOfData.charAt(start) == '{'
+         && scanObject(rowOfData, start, topLevelKeys, values, 0) != NOT_SCANNED) {
+        for(int i = 0; i < values.length; i++) {
+          if(values[i] == null) {
+            values[i] = "";
+          }
+          else if(multivalued[i]) {
+            values[i] = JSONPath.join((List<?>) values[i], multivalueFieldDelimiter);
+          }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+      }
+    }
+    return mapToListValuesBuilder.build(parser.parse(rowOfData));
+  }
+
+  /**
+   * @return index after the value or {@link #NOT_SCANNED}
+   */
+  private int scanValue(final String s, final int i, final CompiledAccessor accessor, final Object[] values, final int depth) {
+    if(i >= s.length() || depth > MAX_DEPTH || accessor.literal) {
+      return NOT_SCANNED;
+    }
+    final int end;
+    if(accessor.fields != null && s.charAt(i) == '{') {
+      end = scanObject(s, i, accessor.fields, values, depth + 1);
+    }
+    else if(accessor.elements != null && s.charAt(i) == '[') {
+      end = scanArray(s, i, accessor.elements, values, depth + 1);
+    }
+    else {
+      end = skipValue(s, i, depth);
+    }
+    if(end != NOT_SCANNED && accessor.slots.length > 0) {
+      final String value = toValue(s, i, end);
+      if(value == null) {
+        return NOT_SCANNED;
+      }
+      for(int slot : accessor.slots) {
+        if(!put(values, slot, value)) {
+          return NOT_SCANNED;
+        }
+      }
+    }
+    return end;
+  }
+
+  /**
+   * @return index after the closing brace or {@link #NOT_SCANNED}
+   */
+  private int scanObject(final String s, int i, final KeyTable keys, final Object[] values, final int depth) {
+    i = skipWhitespace(s, i + 1);
+    if(i < s.length() && s.charAt(i) == '}') {
+      return i + 1;
+    }
+    while(i < s.length()) {
+      if(s.charAt(i) != '"') {
+        return NOT_SCANNED;
+      }
+      final int keyEnd = skipString(s, i);
+      if(keyEnd == NOT_SCANNED) {
+        return NOT_SCANNED;
+      }
+      final CompiledAccessor accessor = keys.find(s, i + 1, keyEnd - 1);
+      i = skipWhitespace(s, keyEnd);
+      if(i >= s.length() || s.charAt(i) != ':') {
+        return NOT_SCANNED;
+      }
+      i = skipWhitespace(s, i + 1);
+      final int valueEnd = accessor == null ? skipValue(s, i, depth) : scanValue(s, i, accessor, values, depth);
+      if(valueEnd == NOT_SCANNED) {
+        return NOT_SCANNED;
+      }
+      i = skipWhitespace(s, valueEnd);
+      if(i >= s.length()) {
+        return NOT_SCANNED;
+      }
+      if(s.charAt(i) == '}') {
+        return i + 1;
+      }
+      if(s.charAt(i) != ',') {
+        return NOT_SCANNED;
+      }
+      i = skipWhitespace(s, i + 1);
+    }
+    return NOT_SCANNED;
+  }
+
+  /**
+   * @return index after the closing bracket or {@link #NOT_SCANNED}
+   */
+  private int scanArray(final String s, int i, final CompiledAccessor elements, final Object[] values, final int depth) {
+    i = skipWhitespace(s, i + 1);
+    if(i < s.length() && s.charAt(i) == ']') {
+      return i + 1;
+    }
+    while(i < s.length()) {
+      i = scanValue(s, i, elements, values, depth);
+      if(i == NOT_SCANNED) {
+        return NOT_SCANNED;
+      }
+      i = skipWhitespace(s, i);
+      if(i < s.length() && s.charAt(i) == ']') {
+        return i + 1;
+      }
+      if(i >= s.length() || s.charAt(i) != ',') {
+        return NOT_SCANNED;
+      }
+      i = skipWhitespace(s, i + 1);
+    }
+    return NOT_SCANNED;
+  }
+
+  /**
+   * @return false if a single value slot already has a value
+   */
+  @SuppressWarnings("unchecked")
+  private boolean put(final Object[] values, final int slot, final String value) {
+    if(!multivalued[slot]) {
+      if(values[slot] != null) {
+        // a duplicate key is left to the parser to report
+        return false;
+      }
+      values[slot] = value;
+      return true;
+    }
+    if(values[slot] == null) {
+      values[slot] = new ArrayList<String>();
+    }
+    ((List<String>) values[slot]).add(value);
+    return true;
+  }
+
+  /**
+   * @return the value as the parser would give it or null if it cannot be
+   * scanned
+   */
+  private static String toValue(final String s, final int start, final int end) {
+    final char c = s.charAt(start);
+    if(c == '"') {
+      return unescape(s, start + 1, end - 1);
+    }
+    try {
+      if(c == '{') {
+        return new JSONObject(s.substring(start, end)).toString();
+      }
+      if(c == '[') {
+        return new JSONArray(s.substring(start, end)).toString();
+      }
+    }
+    catch(JSONException e) {
+      return null;
+    }
+    return JSONObject.stringToValue(s.substring(start, end)).toString();
+  }
+
+  /**
+   * @return index after the value or {@link #NOT_SCANNED}
+   */
+  private static int skipValue(final String s, int i, final int depth) {
+    if(i >= s.length() || depth > MAX_DEPTH) {
+      return NOT_SCANNED;
+    }
+    final char c = s.charAt(i);
+    if(c == '"') {
+      return skipString(s, i);
+    }
+    if(c == '{') {
+      i = skipWhitespace(s, i + 1);
+      if(i < s.length() && s.charAt(i) == '}') {
+        return i + 1;
+      }
+      while(i < s.length() && s.charAt(i) == '"') {
+        i = skipString(s, i);
+        if(i == NOT_SCANNED) {
+          return NOT_SCANNED;
+        }
+        i = skipWhitespace(s, i);
+        if(i >= s.length() || s.charAt(i) != ':') {
+          return NOT_SCANNED;
+        }
+        i = skipValue(s, skipWhitespace(s, i + 1), depth + 1);
+        if(i == NOT_SCANNED) {
+          return NOT_SCANNED;
+        }
+        i = skipWhitespace(s, i);
+        if(i < s.length() && s.charAt(i) == '}') {
+          return i + 1;
+        }
+        if(i >= s.length() || s.charAt(i) != ',') {
+          return NOT_SCANNED;
+        }
+        i = skipWhitespace(s, i + 1);
+      }
+      return NOT_SCANNED;
+    }
+    if(c == '[') {
+      i = skipWhitespace(s, i + 1);
+      if(i < s.length() && s.charAt(i) == ']') {
+        return i + 1;
+      }
+      while(i < s.length()) {
+        i = skipValue(s, i, depth + 1);
+        if(i == NOT_SCANNED) {
+          return NOT_SCANNED;
+        }
+        i = skipWhitespace(s, i);
+        if(i < s.length() && s.charAt(i) == ']') {
+          return i + 1;
+        }
+        if(i >= s.length() || s.charAt(i) != ',') {
+          return NOT_SCANNED;
+        }
+        i = skipWhitespace(s, i + 1);
+      }
+      return NOT_SCANNED;
+    }
+    return skipLiteral(s, i);
+  }
+
+  /**
+   * @return index after the closing quote of the string starting at the index
+   * or {@link #NOT_SCANNED}
+   */
+  private static int skipString(final String s, int i) {
+    for(i++; i < s.length(); i++) {
+      final char c = s.charAt(i);
+      if(c == '"') {
+        return i + 1;
+      }
+      if(c == '\\') {
+        i++;
+      }
+      else if(c == '\n' || c == '\r' || c == 0) {
+        return NOT_SCANNED;
+      }
+    }
+    return NOT_SCANNED;
+  }
+
+  /**
+   * A number, true, false or null.
+   *
+   * @return index after the literal or {@link #NOT_SCANNED}
+   */
+  private static int skipLiteral(final String s, final int start) {
+    if(s.startsWith("true", start)) {
+      return start + 4;
+    }
+    if(s.startsWith("false", start)) {
+      return start + 5;
+    }
+    if(s.startsWith("null", start)) {
+      return start + 4;
+    }
+    int i = start;
+    while(i < s.length()) {
+      final char c = s.charAt(i);
+      if((c < '0' || c > '9') && c != '-' && c != '+' && c != '.' && c != 'e' && c != 'E') {
+        break;
+      }
+      i++;
+    }
+    return i == start ? NOT_SCANNED : i;
+  }
+
+  private static int skipWhitespace(final String s, int i) {
+    while(i < s.length() && s.charAt(i) <= ' ' && s.charAt(i) != 0) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * @return the characters between the quotes with the escapes org.json
+   * knows replaced or null if there is one it does not know
+   */
+  private static String unescape(final String s, final int start, final int end) {
+    int escape = indexOfEscape(s, start, end);
+    if(escape < 0) {
+      return s.substring(start, end);
+    }
+    final StringBuilder sb = new StringBuilder(end - start);
+    int i = start;
+    while(escape >= 0) {
+      sb.append(s, i, escape);
+      final char c = s.charAt(escape + 1);
+      i = escape + 2;
+      switch(c) {
+        case 'b':
+          sb.append('\b');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'n':
+          sb.append('\n');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 'u':
+          if(i + 4 > end) {
+            return null;
+          }
+          try {
+            sb.append((char) Integer.parseInt(s.substring(i, i + 4), 16));
+          }
+          catch(NumberFormatException e) {
+            return null;
+          }
+          i += 4;
+          break;
+        case '"':
+        case '\'':
+        case '\\':
+        case '/':
+          sb.append(c);
+          break;
+        default:
+          return null;
+      }
+      escape = indexOfEscape(s, i, end);
+    }
+    sb.append(s, i, end);
+    return sb.toString();
+  }
+
+  private static int indexOfEscape(final String s, final int start, final int end) {
+    for(int i = start; i < end; i++) {
+      if(s.charAt(i) == '\\') {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static int spread(final int hash) {
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * What is done with the value of a key, or of the elements of an array,
+   * while the mappings are being compiled.
+   */
+  private static final class Accessor {
+    private final List<Integer> slots = new ArrayList<>();
+    private final Map<String, Accessor> fields = new LinkedHashMap<>();
+    private Accessor elements;
+    private boolean literal;
+
+    private Accessor field(final String key) {
+      if(!fields.containsKey(key)) {
+        fields.put(key, new Accessor());
+      }
+      return fields.get(key);
+    }
+
+    private Accessor elements() {
+      if(elements == null) {
+        elements = new Accessor();
+      }
+      return elements;
+    }
+
+    private CompiledAccessor compile() {
+      final int[] slotArray = new int[slots.size()];
+      for(int i = 0; i < slotArray.length; i++) {
+        slotArray[i] = slots.get(i);
+      }
+      return new CompiledAccessor(slotArray, fields.isEmpty() ? null : new KeyTable(fields), elements == null ? null : elements.compile(), literal);
+    }
+  }
+
+  /**
+   * What is done with the value of a key, or of the elements of an array:
+   * the value is put in the slots, its keys are looked up if it is an object
+   * and its elements are read if it is an array.
+   */
+  private static final class CompiledAccessor {
+    private final int[] slots;
+    private final KeyTable fields;
+    private final CompiledAccessor elements;
+    private final boolean literal;
+
+    private CompiledAccessor(final int[] slots, final KeyTable fields, final CompiledAccessor elements, final boolean literal) {
+      this.slots = slots;
+      this.fields = fields;
+      this.elements = elements;
+      this.literal = literal;
+    }
+  }
+
+  /**
+   * The keys of an object that are read, in an open addressed table looked up
+   * by the hash of the characters of the key in the line.
+   */
+  private static final class KeyTable {
+    private final String[] keys;
+    private final CompiledAccessor[] accessors;
+    private final int mask;
+
+    private KeyTable(final Map<String, Accessor> fields) {
+      int tableSize = 2;
+      while(tableSize < fields.size() * 2) {
+        tableSize <<= 1;
+      }
+      mask = tableSize - 1;
+      keys = new String[tableSize];
+      accessors = new CompiledAccessor[tableSize];
+      for(Map.Entry<String, Accessor> entry : fields.entrySet()) {
+        int index = spread(entry.getKey().hashCode()) & mask;
+        while(keys[index] != null) {
+          index = (index + 1) & mask;
+        }
+        keys[index] = entry.getKey();
+        accessors[index] = entry.getValue().compile();
+      }
+    }
+
+    /**
+     * @return accessor of the key between the quotes or null if it is not read
+     */
+    private CompiledAccessor find(final String s, final int start, final int end) {
+      int hash = 0;
+      for(int i = start; i < end; i++) {
+        final char c = s.charAt(i);
+        if(c == '\\') {
+          // an escaped key is unescaped to be looked up - rare enough to allocate
+          final String key = unescape(s, start, end);
+          return key == null ? null : lookup(key, 0, key.length(), key.hashCode());
+        }
+        hash = 31 * hash + c;
+      }
+      return lookup(s, start, end, hash);
+    }
+
+    private CompiledAccessor lookup(final String s, final int start, final int end, final int hash) {
+      final int length = end - start;
+      int index = spread(hash) & mask;
+      while(keys[index] != null) {
+        if(keys[index].length() == length && s.regionMatches(start, keys[index], 0, length)) {
+          return accessors[index];
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+  }
+}
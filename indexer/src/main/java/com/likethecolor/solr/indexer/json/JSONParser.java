@@ -24,14 +24,34 @@ import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 public class JSONParser {
   private static final Logger LOGGER = LoggerFactory.getLogger(JSONParser.class);
   private Configuration configuration;
+  private final Fields2JSON fields2JSON;
+  private final Map<String, JSONPath> paths;
 
+  /**
+   * The fields-to-json mapping is read, and its paths compiled, once here
+   * rather than for every line.
+   *
+   * @param configuration configuration
+   *
+   * @throws IllegalArgumentException if a path is not valid
+   */
   public JSONParser(Configuration configuration) {
     this.configuration = configuration;
+    fields2JSON = new Fields2JSON(configuration);
+    paths = new HashMap<>();
+    Iterator<String> fieldsIter = fields2JSON.iterator();
+    while(fieldsIter.hasNext()) {
+      String key = fields2JSON.get(fieldsIter.next());
+      if(JSONPath.isPath(key)) {
+        paths.put(key, JSONPath.compile(key));
+      }
+    }
   }
 
   /**
@@ -55,6 +75,25 @@ public class JSONParser {
     return map;
   }
 
+  /**
+   * @param mapToListValuesBuilder gives the order of the fields
+   *
+   * @return extractor of the values of the fields in a single scan of a line
+   * that falls back to this parser
+   */
+  public JSONFieldExtractor newFieldExtractor(MapToListValuesBuilder mapToListValuesBuilder) {
+    return new JSONFieldExtractor(fields2JSON, mapToListValuesBuilder, configuration.getMultivalueFieldDelimiter(), this);
+  }
+
+  /**
+   * @param key JSON key or path from the fields-to-json mapping
+   *
+   * @return the compiled path or null if the key is not a path
+   */
+  JSONPath getPath(String key) {
+    return paths.get(key);
+  }
+
   /**
    * Subclasses should do the actual populating of the map from a JSONObject.
    * The keys of the map should be the same as the field values defined in solr's
@@ -65,8 +104,6 @@ public class JSONParser {
    * @return map populated from the json string
    */
   private Map<String, String> getSpecificMap(JSONObject jsonObject) throws JSONException {
-    Fields2JSON fields2JSON = new Fields2JSON(configuration);
-
     Map<String, String> map = new HashMap<>();
 
     Iterator<String> fieldsIter = fields2JSON.iterator();
@@ -114,9 +151,33 @@ public class JSONParser {
     if(hasKey(key, jsonObject)) {
       value = jsonObject.get(key);
     }
+    else if(jsonObject != null && paths.containsKey(key)) {
+      value = getPathValue(paths.get(key), jsonObject, defaultValue);
+    }
     return value;
   }
 
+  /**
+   * A top level key with the same name as the path is used before the path.
+   *
+   * @param path path to the value
+   * @param jsonObject data used to populate the map
+   * @param defaultValue value to use if the path finds nothing
+   *
+   * @return value found by the path - the values found by a multivalued path
+   * are joined, see {@link JSONPath#join(List, String)}
+   */
+  private Object getPathValue(JSONPath path, JSONObject jsonObject, Object defaultValue) {
+    List<Object> found = path.evaluate(jsonObject);
+    if(found.isEmpty()) {
+      return defaultValue;
+    }
+    if(!path.isMultivalued()) {
+      return found.get(0);
+    }
+    return JSONPath.join(found, configuration.getMultivalueFieldDelimiter());
+  }
+
   /**
    * Fetch a JSONObject from the provided string.
    *
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.json;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A path into the objects and arrays nested in a JSON object, used as the
+ * JSON side of a {@code fields-to-json} mapping.  The keys are separated by
+ * '.' and a key followed by {@code [*]} stands for each element of the array
+ * it holds, e.g. {@code user.geo.country} or {@code items[*].sku}.
+ *
+ * A path with {@code [*]} is multivalued: it finds a value for each element.
+ * An element without the rest of the path, or a step that is not an object
+ * or an array as the path expects, finds nothing.  The values are joined,
+ * see {@link #join(List, String)}, into the single value of the field.
+ */
+public final class JSONPath {
+  private static final String EACH = "[*]";
+  private final String path;
+  private final List<String> keys;
+  private final List<Integer> arrayDepths;
+
+  private JSONPath(final String path, final List<String> keys, final List<Integer> arrayDepths) {
+    this.path = path;
+    this.keys = Collections.unmodifiableList(keys);
+    this.arrayDepths = Collections.unmodifiableList(arrayDepths);
+  }
+
+  /**
+   * @param key JSON side of a mapping
+   *
+   * @return true if the key is a path rather than the name of a top level key
+   */
+  public static boolean isPath(final String key) {
+    return key != null && (key.indexOf('.') >= 0 || key.contains(EACH));
+  }
+
+  /**
+   * @param path the path
+   *
+   * @return compiled path
+   *
+   * @throws IllegalArgumentException if a key is empty or a bracket is not
+   * {@code [*]}
+   */
+  public static JSONPath compile(final String path) {
+    final List<String> keys = new ArrayList<>();
+    final List<Integer> arrayDepths = new ArrayList<>();
+    for(String step : path.split("\\.", -1)) {
+      int arrayDepth = 0;
+      String key = step;
+      while(key.endsWith(EACH)) {
+        key = key.substring(0, key.length() - EACH.length());
+        arrayDepth++;
+      }
+      if(key.isEmpty() || key.indexOf('[') >= 0 || key.indexOf(']') >= 0) {
+        throw new IllegalArgumentException(String.format("invalid JSON path \"%s\" - each key must be a name optionally followed by %s", path, EACH));
+      }
+      keys.add(key);
+      arrayDepths.add(arrayDepth);
+    }
+    return new JSONPath(path, keys, arrayDepths);
+  }
+
+  /**
+   * @return the keys from the top level object down
+   */
+  public List<String> getKeys() {
+    return keys;
+  }
+
+  /**
+   * @param step index of the key
+   *
+   * @return number of {@code [*]} after the key
+   */
+  public int getArrayDepth(final int step) {
+    return arrayDepths.get(step);
+  }
+
+  public boolean isMultivalued() {
+    for(int arrayDepth : arrayDepths) {
+      if(arrayDepth > 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param jsonObject top level object
+   *
+   * @return values found in document order - empty if none
+   */
+  public List<Object> evaluate(final JSONObject jsonObject) {
+    final List<Object> found = new ArrayList<>();
+    collect(jsonObject, 0, found);
+    return found;
+  }
+
+  private void collect(final Object value, final int step, final List<Object> found) {
+    if(step == keys.size()) {
+      found.add(value);
+      return;
+    }
+    if(value instanceof JSONObject && ((JSONObject) value).has(keys.get(step))) {
+      collectElements(((JSONObject) value).get(keys.get(step)), step, arrayDepths.get(step), found);
+    }
+  }
+
+  private void collectElements(final Object value, final int step, final int arrayDepth, final List<Object> found) {
+    if(arrayDepth == 0) {
+      collect(value, step + 1, found);
+    }
+    else if(value instanceof JSONArray) {
+      for(Object element : (JSONArray) value) {
+        collectElements(element, step, arrayDepth - 1, found);
+      }
+    }
+  }
+
+  /**
+   * Join the values found by a multivalued path with the multivalue field
+   * delimiter.  The converter of a multivalued field splits them again on the
+   * delimiter, taken as it is, so a value must not contain the delimiter.
+   *
+   * @param found values found by the path
+   * @param delimiter multivalue field delimiter
+   *
+   * @return the values as a single value
+   */
+  public static String join(final List<?> found, final String delimiter) {
+    final StringBuilder joined = new StringBuilder();
+    for(int i = 0; i < found.size(); i++) {
+      if(i > 0) {
+        joined.append(delimiter);
+      }
+      joined.append(found.get(i));
+    }
+    return joined.toString();
+  }
+
+  @Override
+  public String toString() {
+    return path;
+  }
+}
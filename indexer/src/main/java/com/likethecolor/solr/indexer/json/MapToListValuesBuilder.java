@@ -38,6 +38,10 @@ public class MapToListValuesBuilder {
     this.fieldDefinitionMap = fieldDefinitionMap;
   }
 
+  public Map<String, FieldDefinition> getFieldDefinitionMap() {
+    return fieldDefinitionMap;
+  }
+
   public List<Object> build(Map<String, String> dataMap) {
     List<Object> list = new ArrayList<>();
     for(String fieldName : fieldDefinitionMap.keySet()) {
@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reads a data file split into parts, see {@link FileChunk}, that are each
+ * read on a thread of its own.  The rows are returned as the threads read
+ * them so they are not in line order.  The line numbers, on the rows and in
+ * the exceptions, are those of the whole file.
+ *
+ * The threads are started by the first call to {@link #read(CellProcessor[])}
+ * or {@link #skipTo(int)}.  Each thread may get ahead of the reading by
+ * {@link #ROWS_QUEUED_PER_PART} rows.  Once {@link #read(CellProcessor[])}
+ * has been called the rows are processed on the thread of their part, so the
+ * conversion of the values is spread across the parts.
+ *
+ * This is not thread safe - it is meant to be used by a single reader stage.
+ */
+public abstract class AbstractChunkedDataReader implements UnorderedDataReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(AbstractChunkedDataReader.class);
+  static final int ROWS_QUEUED_PER_PART = 1000;
+  private final String pathToDataFile;
+  private final int splitCount;
+  private final AtomicInteger skippedCount;
+  private final AtomicLong bytesRead;
+  private List<FileChunk> chunks;
+  private PartReader headerReader;
+  private BlockingQueue<ReadRow> rows;
+  private ExecutorService partReaders;
+  private CountDownLatch skipped;
+  private volatile int skipThroughLineNumber;
+  private volatile CellProcessor[] cellProcessors;
+  private int[] readThroughLineNumbers;
+  private boolean[] finished;
+  private int runningParts;
+  private int lineNumber;
+  private Throwable failure;
+
+  /**
+   * @param pathToDataFile path to the data file
+   * @param splitCount number of parts to split the file into
+   */
+  protected AbstractChunkedDataReader(final String pathToDataFile, final int splitCount) {
+    this.pathToDataFile = pathToDataFile;
+    this.splitCount = splitCount;
+    skippedCount = new AtomicInteger(0);
+    bytesRead = new AtomicLong(0);
+    skipThroughLineNumber = 0;
+    lineNumber = 0;
+  }
+
+  /**
+   * Split the file into parts that each start at the beginning of a row.
+   *
+   * @param file data file
+   * @param splitCount number of parts wanted
+   *
+   * @return parts in file order
+   *
+   * @throws IOException if the file could not be read
+   */
+  protected abstract List<FileChunk> split(File file, int splitCount) throws IOException;
+
+  /**
+   * @param chunk part of the file
+   *
+   * @return reader of the rows in the part - called on the thread that reads
+   * the part, except for the first part when there is a header
+   *
+   * @throws IOException if the part could not be opened
+   */
+  protected abstract PartReader openPart(FileChunk chunk) throws IOException;
+
+  /**
+   * Turn the values read from a part into the row returned by
+   * {@link #read(CellProcessor[])}.  Called on the thread of the part, or on
+   * the thread calling {@link #read(CellProcessor[])} for the rows a part
+   * queued before the processors were known.
+   *
+   * @param values values read by the part reader
+   * @param cellProcessors processors passed to {@link #read(CellProcessor[])}
+   * @param lineNumber line of the row
+   *
+   * @return values of the row
+   */
+  protected abstract List<Object> process(List<?> values, CellProcessor[] cellProcessors, int lineNumber);
+
+  /**
+   * @return the List of values, or null once every part has been read
+   *
+   * @throws IOException if a part could not be read or the thread was
+   * interrupted while waiting for a row
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public List<Object> read(final CellProcessor[] cellProcessors) throws IOException {
+    this.cellProcessors = cellProcessors;
+    start();
+    while(runningParts > 0) {
+      final ReadRow row = take();
+      if(row.failure != null) {
+        failure = row.failure;
+        throwFailure();
+      }
+      if(row.values == null) {
+        finished[row.part] = true;
+        runningParts--;
+        continue;
+      }
+      readThroughLineNumbers[row.part] = row.lineNumber;
+      lineNumber = row.lineNumber;
+      return row.processed ? (List<Object>) row.values : process(row.values, cellProcessors, lineNumber);
+    }
+    return null;
+  }
+
+  /**
+   * The header is the first row of the first part.  Without a header null is
+   * returned and the first row is returned by {@link #read(CellProcessor[])}
+   * like any other.
+   */
+  @Override
+  public Object[] getHeader(final boolean firstLineCheck) throws IOException {
+    if(!firstLineCheck || getChunks().isEmpty()) {
+      return null;
+    }
+    headerReader = openPart(chunks.get(0));
+    final List<?> header = headerReader.read();
+    if(header == null) {
+      return null;
+    }
+    lineNumber = headerReader.getLineNumber();
+    readThroughLineNumbers[0] = lineNumber;
+    return header.toArray();
+  }
+
+  /**
+   * @return line of the last row returned
+   */
+  @Override
+  public int getLineNumber() {
+    return lineNumber;
+  }
+
+  @Override
+  public int getReadThroughLineNumber() {
+    if(chunks == null) {
+      return 0;
+    }
+    int readThrough = Integer.MAX_VALUE;
+    for(int i = 0; i < chunks.size(); i++) {
+      if(!finished[i]) {
+        readThrough = Math.min(readThrough, Math.max(readThroughLineNumbers[i], skipThroughLineNumber));
+      }
+    }
+    return readThrough;
+  }
+
+  @Override
+  public List<Integer> getPartStartLineNumbers() throws IOException {
+    final List<Integer> startLineNumbers = new ArrayList<>();
+    for(FileChunk chunk : getChunks()) {
+      startLineNumbers.add(chunk.getStartLineNumber());
+    }
+    return startLineNumbers;
+  }
+
+  /**
+   * Every part skips, without processing, its rows that end on or before the
+   * line.  Blocks until each part has found its first row after the line.
+   */
+  @Override
+  public int skipTo(final int lineNumber) throws IOException {
+    if(partReaders != null) {
+      throw new IllegalStateException("cannot skip once reading has started");
+    }
+    skipThroughLineNumber = lineNumber;
+    start();
+    try {
+      skipped.await();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while skipping to line " + lineNumber);
+    }
+    return skippedCount.get();
+  }
+
+  /**
+   * @return bytes read by the parts that are done
+   */
+  @Override
+  public long getBytesRead() {
+    return bytesRead.get();
+  }
+
+  /**
+   * Stops the threads, which close their parts of the file.
+   */
+  @Override
+  public void close() throws IOException {
+    if(partReaders != null) {
+      partReaders.shutdownNow();
+    }
+    else if(headerReader != null) {
+      bytesRead.addAndGet(headerReader.getBytesRead());
+      headerReader.close();
+    }
+    headerReader = null;
+  }
+
+  /**
+   * @return the parts of the file - split on first use
+   */
+  List<FileChunk> getChunks() throws IOException {
+    if(chunks == null) {
+      chunks = split(new File(pathToDataFile), splitCount);
+      LOGGER.info("split {} into {} parts", pathToDataFile, chunks.size());
+      readThroughLineNumbers = new int[chunks.size()];
+      finished = new boolean[chunks.size()];
+      for(int i = 0; i < chunks.size(); i++) {
+        readThroughLineNumbers[i] = chunks.get(i).getStartLineNumber();
+      }
+    }
+    return chunks;
+  }
+
+  protected String getPathToDataFile() {
+    return pathToDataFile;
+  }
+
+  private void start() throws IOException {
+    if(failure != null) {
+      throwFailure();
+    }
+    if(partReaders != null) {
+      return;
+    }
+    final int count = getChunks().size();
+    rows = new LinkedBlockingQueue<>(ROWS_QUEUED_PER_PART * Math.max(1, count));
+    skipped = new CountDownLatch(count);
+    runningParts = count;
+    partReaders = Executors.newFixedThreadPool(Math.max(1, count));
+    for(int i = 0; i < count; i++) {
+      final int part = i;
+      partReaders.execute(new Runnable() {
+        @Override
+        public void run() {
+          readPart(part);
+        }
+      });
+    }
+    partReaders.shutdown();
+  }
+
+  /**
+   * Run on the thread of the part.  Puts each row of the part on the queue
+   * followed by an end marker, or the failure if the part could not be read.
+   */
+  private void readPart(final int part) {
+    PartReader reader = null;
+    boolean skipping = true;
+    try {
+      reader = part == 0 && headerReader != null ? headerReader : openPart(chunks.get(part));
+      List<?> values;
+      while((values = reader.read()) != null) {
+        final int line = reader.getLineNumber();
+        if(skipping) {
+          if(line <= skipThroughLineNumber) {
+            skippedCount.incrementAndGet();
+            continue;
+          }
+          skipping = false;
+          skipped.countDown();
+        }
+        final CellProcessor[] processors = cellProcessors;
+        if(processors == null) {
+          rows.put(new ReadRow(part, line, values, null, false));
+        }
+        else {
+          rows.put(new ReadRow(part, line, process(values, processors, line), null, true));
+        }
+      }
+      rows.put(new ReadRow(part, 0, null, null, false));
+    }
+    catch(InterruptedException e) {
+      // closed before the part was read
+      Thread.currentThread().interrupt();
+    }
+    catch(Throwable t) {
+      try {
+        rows.put(new ReadRow(part, 0, null, t, false));
+      }
+      catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    finally {
+      if(skipping) {
+        skipped.countDown();
+      }
+      if(reader != null) {
+        bytesRead.addAndGet(reader.getBytesRead());
+        try {
+          reader.close();
+        }
+        catch(IOException e) {
+          LOGGER.warn("could not close part " + part + " of " + pathToDataFile, e);
+        }
+      }
+    }
+  }
+
+  private ReadRow take() throws IOException {
+    try {
+      return rows.take();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while waiting for a row of " + pathToDataFile);
+    }
+  }
+
+  private void throwFailure() throws IOException {
+    if(failure instanceof IOException) {
+      throw (IOException) failure;
+    }
+    if(failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if(failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IOException(failure);
+  }
+
+  /**
+   * Reads the rows of one part of the file, on the thread of the part.
+   */
+  protected interface PartReader {
+    /**
+     * @return values of the next row or null at the end of the part
+     *
+     * @throws IOException if the part could not be read
+     */
+    List<?> read() throws IOException;
+
+    /**
+     * @return line, in the whole file, the last row read ended on
+     */
+    int getLineNumber();
+
+    /**
+     * @return number of bytes read from the part
+     */
+    long getBytesRead();
+
+    void close() throws IOException;
+  }
+
+  /**
+   * A row from one of the parts.  Without values it marks the end of the part
+   * or, with a failure, that the part could not be read.  The values are
+   * processed when the part had the processors before it queued the row.
+   */
+  private static final class ReadRow {
+    private final int part;
+    private final int lineNumber;
+    private final List<?> values;
+    private final Throwable failure;
+    private final boolean processed;
+
+    private ReadRow(final int part, final int lineNumber, final List<?> values, final Throwable failure, final boolean processed) {
+      this.part = part;
+      this.lineNumber = lineNumber;
+      this.values = values;
+      this.failure = failure;
+      this.processed = processed;
+    }
+  }
+}
@@ -23,20 +23,29 @@ import org.supercsv.io.ICsvListReader;
 import org.supercsv.prefs.CsvPreference;
 
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
-import java.io.Reader;
 import java.util.List;
 
+/**
+ * Reads a CSV data file through a {@link ChannelReader} opened by the
+ * {@link DataFileInput} so a gzipped file is decompressed as it is read.
+ */
 public class CSVDataReader implements DataReader {
   private static final Logger LOGGER = LoggerFactory.getLogger(CSVDataReader.class);
   private String pathToDataFile;
   private CsvPreference csvPreference;
+  private DataFileInput input;
   private ICsvListReader csvListReader;
+  private ChannelReader channelReader;
 
   public CSVDataReader(String pathToDataFile, CsvPreference csvPreference) {
+    this(pathToDataFile, csvPreference, DataFileInput.defaults());
+  }
+
+  public CSVDataReader(String pathToDataFile, CsvPreference csvPreference, DataFileInput input) {
     this.pathToDataFile = pathToDataFile;
     this.csvPreference = csvPreference;
+    this.input = input;
   }
 
   /**
@@ -96,12 +105,31 @@ public class CSVDataReader implements DataReader {
     try {
       return getCsvListReader().getLineNumber();
     }
-    catch(FileNotFoundException e) {
+    catch(IOException e) {
       LOGGER.warn("could not get line number from reader due to exception - returning 0", e);
     }
     return 0;
   }
 
+  /**
+   * The rows are tokenized, so quoted values spanning lines are handled, but
+   * not processed.
+   */
+  @Override
+  public int skipTo(final int lineNumber) throws IOException {
+    final ICsvListReader reader = getCsvListReader();
+    int skipped = 0;
+    while(reader.getLineNumber() < lineNumber && reader.read() != null) {
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return channelReader == null ? 0 : channelReader.getBytesRead();
+  }
+
   /**
    * From: {@link java.io.Closeable}
    * Closes this stream and releases any system resources associated
@@ -124,15 +152,11 @@ public class CSVDataReader implements DataReader {
     csvListReader = null;
   }
 
-  protected ICsvListReader getCsvListReader() throws FileNotFoundException {
+  protected ICsvListReader getCsvListReader() throws IOException {
     if(csvListReader == null) {
-      Reader reader = getFileReader(pathToDataFile);
-      csvListReader = new CsvListReader(reader, csvPreference);
+      channelReader = input.open(pathToDataFile);
+      csvListReader = new CsvListReader(channelReader, csvPreference);
     }
     return csvListReader;
   }
-
-  private Reader getFileReader(String pathToDataFile) throws FileNotFoundException {
-    return new FileReader(pathToDataFile);
-  }
 }
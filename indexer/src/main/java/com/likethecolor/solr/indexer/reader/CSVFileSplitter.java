@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Divides a CSV data file into byte ranges that each start at the beginning
+ * of a row so they can be parsed apart from one another.
+ *
+ * The file is read through once, without being parsed, keeping track of
+ * whether a quoted value is open so that a line break inside a quoted value
+ * does not end a range.  A doubled quote character, the way a quote is
+ * escaped in a quoted value, opens and closes it again which leaves it as it
+ * was.  The lines before each range are counted on the way so line numbers in
+ * a range can be turned into line numbers in the file.
+ *
+ * The line break and the quote character are looked for as single bytes so
+ * the file must be in an encoding, such as UTF-8 or ISO-8859-1, where they
+ * always are, and the rows must end in {@code \n} or {@code \r\n}.
+ */
+public class CSVFileSplitter {
+  private static final int BUFFER_SIZE = 1024 * 1024;
+  private final char quoteChar;
+
+  /**
+   * @param quoteChar quote character of the CSV data file
+   */
+  public CSVFileSplitter(final char quoteChar) {
+    this.quoteChar = quoteChar;
+  }
+
+  /**
+   * @param file CSV data file
+   * @param count number of ranges wanted - fewer are returned when the file
+   * has too few rows
+   *
+   * @return ranges in file order, none for an empty file
+   *
+   * @throws IOException if the file could not be read
+   */
+  public List<FileChunk> split(final File file, final int count) throws IOException {
+    final long size = file.length();
+    final List<FileChunk> chunks = new ArrayList<>(Math.max(1, count));
+    if(size == 0) {
+      return chunks;
+    }
+    if(count <= 1) {
+      chunks.add(new FileChunk(0, size, 0));
+      return chunks;
+    }
+
+    long start = 0;
+    int startLine = 0;
+    int lines = 0;
+    int next = 1;
+    long target = size / count;
+    boolean inQuotes = false;
+    long position = 0;
+    final byte quote = (byte) quoteChar;
+    final byte[] buffer = new byte[BUFFER_SIZE];
+    final InputStream in = new FileInputStream(file);
+    try {
+      int read;
+      while(next < count && (read = in.read(buffer)) != -1) {
+        for(int i = 0; i < read; i++) {
+          final byte b = buffer[i];
+          if(b == quote) {
+            inQuotes = !inQuotes;
+          }
+          else if(b == '\n') {
+            lines++;
+            // the range ends after the line break, once past the target
+            if(!inQuotes && position + i + 1 >= target && position + i + 1 < size) {
+              chunks.add(new FileChunk(start, position + i + 1, startLine));
+              start = position + i + 1;
+              startLine = lines;
+              while(next < count && target <= start) {
+                next++;
+                target = size * next / count;
+              }
+              if(next >= count) {
+                break;
+              }
+            }
+          }
+        }
+        position += read;
+      }
+    }
+    finally {
+      in.close();
+    }
+    chunks.add(new FileChunk(start, size, startLine));
+    return chunks;
+  }
+}
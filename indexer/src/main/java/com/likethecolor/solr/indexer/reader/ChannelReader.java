@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the characters of a range of a file through a {@link FileChannel}
+ * into a large direct buffer, decoded with an explicit charset.  Positions
+ * are longs so files larger than 2 GB can be read, and a channel read does
+ * not move the position of the channel.
+ *
+ * For charsets in which every ASCII character is the same single byte, see
+ * {@link #isAsciiCompatible(Charset)}, runs of ASCII bytes are turned into
+ * characters directly and only the other bytes go through the decoder.  Bytes
+ * that cannot be decoded are replaced, as they are by
+ * {@link java.io.InputStreamReader}.
+ *
+ * A stream, such as a decompressed data file, is read through a
+ * {@link ReadableByteChannel} in the same way but from start to end.
+ *
+ * The number of bytes read is kept so the read rate can be reported.
+ */
+public class ChannelReader extends Reader {
+  static final int BUFFER_SIZE = 1024 * 1024;
+  private final ReadableByteChannel channel;
+  private final FileChannel fileChannel;
+  private final long end;
+  private final CharsetDecoder decoder;
+  private final boolean asciiCompatible;
+  private final ByteBuffer bytes;
+  private long position;
+  private long bytesRead;
+  private boolean endOfInput;
+  private boolean flushed;
+
+  /**
+   * @param channel channel of the file - closed by {@link #close()}
+   * @param start offset of the first byte to read
+   * @param end offset just past the last byte to read - {@link Long#MAX_VALUE}
+   * to read to the end of the file
+   * @param charset charset of the file
+   */
+  public ChannelReader(final FileChannel channel, final long start, final long end, final Charset charset) {
+    this(channel, start, end, charset, BUFFER_SIZE);
+  }
+
+  /**
+   * @param channel channel to read from start to end - closed by
+   * {@link #close()}
+   * @param charset charset of the bytes
+   */
+  public ChannelReader(final ReadableByteChannel channel, final Charset charset) {
+    this(channel, null, 0, Long.MAX_VALUE, charset, BUFFER_SIZE);
+  }
+
+  ChannelReader(final FileChannel channel, final long start, final long end, final Charset charset, final int bufferSize) {
+    this(channel, channel, start, end, charset, bufferSize);
+  }
+
+  private ChannelReader(final ReadableByteChannel channel, final FileChannel fileChannel, final long start, final long end, final Charset charset, final int bufferSize) {
+    this.channel = channel;
+    this.fileChannel = fileChannel;
+    this.end = end;
+    decoder = charset.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    asciiCompatible = isAsciiCompatible(charset);
+    bytes = ByteBuffer.allocateDirect(bufferSize);
+    // nothing to read yet
+    bytes.flip();
+    position = start;
+    bytesRead = 0;
+    endOfInput = false;
+    flushed = false;
+  }
+
+  /**
+   * @return true if every ASCII character is the same single byte in the
+   * charset and no other character uses a byte below 0x80
+   */
+  public static boolean isAsciiCompatible(final Charset charset) {
+    return StandardCharsets.UTF_8.equals(charset)
+           || StandardCharsets.US_ASCII.equals(charset)
+           || StandardCharsets.ISO_8859_1.equals(charset);
+  }
+
+  @Override
+  public int read(final char[] cbuf, final int off, final int len) throws IOException {
+    if(len == 0) {
+      return 0;
+    }
+    final CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+    while(true) {
+      if(asciiCompatible) {
+        copyAscii(out);
+      }
+      if(!out.hasRemaining()) {
+        break;
+      }
+      if(!flushed && (bytes.hasRemaining() || endOfInput)) {
+        final CoderResult result = decoder.decode(bytes, out, endOfInput);
+        if(result.isOverflow()) {
+          break;
+        }
+      }
+      if(endOfInput) {
+        if(!flushed && decoder.flush(out).isUnderflow()) {
+          flushed = true;
+        }
+        break;
+      }
+      if(out.position() > off && !bytes.hasRemaining()) {
+        // do not wait on the file while there are characters to return
+        break;
+      }
+      fill();
+    }
+    final int read = out.position() - off;
+    return read == 0 && endOfInput ? -1 : read;
+  }
+
+  /**
+   * @return number of bytes read from the file
+   */
+  public long getBytesRead() {
+    return bytesRead;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Copy the leading run of ASCII bytes straight to characters.  Safe with
+   * the decoders of the ASCII compatible charsets as they keep no state
+   * between calls - an unfinished sequence is left in the byte buffer and
+   * starts with a byte of 0x80 or more which stops the run.
+   */
+  private void copyAscii(final CharBuffer out) {
+    final int count = Math.min(bytes.remaining(), out.remaining());
+    final char[] chars = out.array();
+    final int charOffset = out.arrayOffset() + out.position();
+    final int byteOffset = bytes.position();
+    int i = 0;
+    while(i < count) {
+      final byte b = bytes.get(byteOffset + i);
+      if(b < 0) {
+        break;
+      }
+      chars[charOffset + i] = (char) b;
+      i++;
+    }
+    bytes.position(byteOffset + i);
+    out.position(out.position() + i);
+  }
+
+  /**
+   * Keep the bytes not yet decoded and read as many more as fit.
+   */
+  private void fill() throws IOException {
+    bytes.compact();
+    final long wanted = Math.min(bytes.remaining(), end - position);
+    int read = -1;
+    if(wanted > 0) {
+      bytes.limit(bytes.position() + (int) wanted);
+      read = fileChannel == null ? channel.read(bytes) : fileChannel.read(bytes, position);
+    }
+    bytes.flip();
+    if(read < 0) {
+      endOfInput = true;
+    }
+    else {
+      position += read;
+      bytesRead += read;
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.io.CsvListReader;
+import org.supercsv.io.ICsvListReader;
+import org.supercsv.prefs.CsvPreference;
+import org.supercsv.util.CsvContext;
+import org.supercsv.util.Util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV data file split into parts, see {@link CSVFileSplitter}, that
+ * are each parsed on a thread of its own.  The threads only tokenize the
+ * rows, the cell processors are run by the thread calling
+ * {@link #read(CellProcessor[])}.
+ *
+ * Each part is read through a {@link ChannelReader} of its own.  The file is
+ * only split when the charset is ASCII compatible, see
+ * {@link ChannelReader#isAsciiCompatible(Charset)}, as the splitter looks for
+ * single byte line breaks and quotes.
+ */
+public class ChunkedCSVDataReader extends AbstractChunkedDataReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedCSVDataReader.class);
+  private final CsvPreference csvPreference;
+  private final Charset charset;
+
+  /**
+   * @param pathToDataFile path to the CSV data file
+   * @param csvPreference preferences used to parse each part
+   * @param splitCount number of parts to split the file into
+   * @param charset charset of the file
+   */
+  public ChunkedCSVDataReader(final String pathToDataFile, final CsvPreference csvPreference, final int splitCount, final Charset charset) {
+    super(pathToDataFile, splitCount);
+    this.csvPreference = csvPreference;
+    this.charset = charset;
+  }
+
+  @Override
+  protected List<FileChunk> split(final File file, final int splitCount) throws IOException {
+    if(!ChannelReader.isAsciiCompatible(charset)) {
+      LOGGER.warn("{} is not split as {} is not an ASCII compatible charset", file, charset);
+      return new CSVFileSplitter(csvPreference.getQuoteChar()).split(file, 1);
+    }
+    return new CSVFileSplitter(csvPreference.getQuoteChar()).split(file, splitCount);
+  }
+
+  @Override
+  protected PartReader openPart(final FileChunk chunk) throws IOException {
+    final ChannelReader channelReader = new ChannelReader(new FileInputStream(getPathToDataFile()).getChannel(), chunk.getStartByte(), chunk.getEndByte(), charset);
+    final ICsvListReader reader = new CsvListReader(channelReader, csvPreference);
+    return new PartReader() {
+      @Override
+      public List<?> read() throws IOException {
+        try {
+          return reader.read();
+        }
+        catch(SuperCsvException e) {
+          final CsvContext context = e.getCsvContext();
+          if(context != null) {
+            context.setLineNumber(chunk.getStartLineNumber() + context.getLineNumber());
+          }
+          throw e;
+        }
+      }
+
+      @Override
+      public int getLineNumber() {
+        return chunk.getStartLineNumber() + reader.getLineNumber();
+      }
+
+      @Override
+      public long getBytesRead() {
+        return channelReader.getBytesRead();
+      }
+
+      @Override
+      public void close() throws IOException {
+        reader.close();
+      }
+    };
+  }
+
+  /**
+   * @throws org.supercsv.exception.SuperCsvConstraintViolationException if a
+   * CellProcessor constraint failed
+   * @throws org.supercsv.exception.SuperCsvException if the number of values
+   * does not match the number of processors
+   */
+  @Override
+  protected List<Object> process(final List<?> values, final CellProcessor[] cellProcessors, final int lineNumber) {
+    final List<Object> processed = new ArrayList<>(values.size());
+    // the parts are read out of order so the line stands in for the row number
+    Util.executeCellProcessors(processed, values, cellProcessors, lineNumber, lineNumber);
+    return processed;
+  }
+}
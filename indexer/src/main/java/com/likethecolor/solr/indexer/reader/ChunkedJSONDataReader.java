@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.json.JSONFieldExtractor;
+import com.likethecolor.solr.indexer.json.JSONParser;
+import com.likethecolor.solr.indexer.json.MapToListValuesBuilder;
+import org.json.JSONException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads a JSON data file, one object per line, split into parts, see
+ * {@link JSONFileSplitter}, that are each read through memory mapped windows
+ * of the file and parsed on a thread of its own.  The values are extracted,
+ * see {@link JSONFieldExtractor}, and put in field order on those threads.
+ *
+ * Like {@link JSONDataReader} the cell processors are ignored.  The file is
+ * only split when the charset is ASCII compatible, see
+ * {@link ChannelReader#isAsciiCompatible(Charset)}, as the splitter looks for
+ * single byte line breaks.
+ */
+public class ChunkedJSONDataReader extends AbstractChunkedDataReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChunkedJSONDataReader.class);
+  private final JSONFieldExtractor fieldExtractor;
+  private final Charset charset;
+
+  /**
+   * @param pathToDataFile path to the JSON data file
+   * @param fieldDefinitionMap field definitions in the order of the values
+   * @param jsonParser parser shared by the threads
+   * @param splitCount number of parts to split the file into
+   * @param charset charset of the file
+   */
+  public ChunkedJSONDataReader(final String pathToDataFile, final Map<String, FieldDefinition> fieldDefinitionMap, final JSONParser jsonParser, final int splitCount, final Charset charset) {
+    super(pathToDataFile, splitCount);
+    this.charset = charset;
+    fieldExtractor = jsonParser.newFieldExtractor(new MapToListValuesBuilder(fieldDefinitionMap));
+  }
+
+  @Override
+  protected List<FileChunk> split(final File file, final int splitCount) throws IOException {
+    if(!ChannelReader.isAsciiCompatible(charset)) {
+      LOGGER.warn("{} is not split as {} is not an ASCII compatible charset", file, charset);
+      return new JSONFileSplitter(charset).split(file, 1);
+    }
+    return new JSONFileSplitter(charset).split(file, splitCount);
+  }
+
+  @Override
+  protected PartReader openPart(final FileChunk chunk) throws IOException {
+    final FileChannel channel = FileChannel.open(Paths.get(getPathToDataFile()), StandardOpenOption.READ);
+    final MappedLineReader reader = new MappedLineReader(channel, chunk.getStartByte(), chunk.getEndByte(), charset);
+    return new PartReader() {
+      @Override
+      public List<?> read() throws IOException {
+        final String line = reader.readLine();
+        if(line == null) {
+          return null;
+        }
+        try {
+          return fieldExtractor.extract(line);
+        }
+        catch(JSONException e) {
+          LOGGER.error("could not parse row of data on line {}", getLineNumber(), e);
+          throw new IOException("could not parse line " + getLineNumber() + " of " + getPathToDataFile(), e);
+        }
+      }
+
+      @Override
+      public int getLineNumber() {
+        return chunk.getStartLineNumber() + reader.getLineCount();
+      }
+
+      @Override
+      public long getBytesRead() {
+        return reader.getBytesRead();
+      }
+
+      @Override
+      public void close() throws IOException {
+        channel.close();
+      }
+    };
+  }
+
+  /**
+   * The values were already put in field order when the line was parsed.
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  protected List<Object> process(final List<?> values, final CellProcessor[] cellProcessors, final int lineNumber) {
+    return (List<Object>) values;
+  }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens data files for the readers: in the data file encoding and, when the
+ * file is gzipped, decompressed as it is read.  A gzipped file is found by
+ * its first two bytes rather than by its name.
+ *
+ * A gzipped file made of blocks that each record their compressed size, as
+ * written by {@code bgzip}, is decompressed by
+ * {@link ParallelGzipInputStream} on up to the decompress thread count
+ * threads.  Any other gzipped file, including one of several members, is
+ * decompressed on the reading thread.
+ */
+public final class DataFileInput {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataFileInput.class);
+  private static final int GZIP_BUFFER_SIZE = 1024 * 1024;
+  private final Charset charset;
+  private final int decompressThreadCount;
+
+  /**
+   * @param charset charset of the data files
+   * @param decompressThreadCount number of threads decompressing a block
+   * gzipped file
+   */
+  public DataFileInput(final Charset charset, final int decompressThreadCount) {
+    this.charset = charset;
+    this.decompressThreadCount = Math.max(1, decompressThreadCount);
+  }
+
+  public static DataFileInput fromConfiguration(final Configuration configuration) {
+    return new DataFileInput(configuration.getDataFileCharset(), configuration.getDecompressThreadCount());
+  }
+
+  /**
+   * @return UTF-8 and a single decompress thread
+   */
+  public static DataFileInput defaults() {
+    return new DataFileInput(Charset.forName(Constants.DEFAULT_DATA_FILE_ENCODING), Constants.DEFAULT_DECOMPRESS_THREAD_COUNT);
+  }
+
+  public Charset getCharset() {
+    return charset;
+  }
+
+  public int getDecompressThreadCount() {
+    return decompressThreadCount;
+  }
+
+  /**
+   * @param pathToDataFile path to the data file
+   *
+   * @return reader of the characters of the whole file
+   *
+   * @throws java.io.FileNotFoundException if the file could not be opened
+   * @throws IOException if the gzip header could not be read
+   */
+  public ChannelReader open(final String pathToDataFile) throws IOException {
+    final ReadableByteChannel channel = openChannel(pathToDataFile);
+    if(channel instanceof FileChannel) {
+      return new ChannelReader((FileChannel) channel, 0, Long.MAX_VALUE, charset);
+    }
+    return new ChannelReader(channel, charset);
+  }
+
+  /**
+   * Open the bytes of the file, decompressed if it is gzipped, for a reader
+   * that decodes the characters itself.
+   *
+   * @param pathToDataFile path to the data file
+   *
+   * @return channel of the bytes of the whole file - the file's own channel
+   * if it is not gzipped
+   *
+   * @throws java.io.FileNotFoundException if the file could not be opened
+   * @throws IOException if the gzip header could not be read
+   */
+  public ReadableByteChannel openChannel(final String pathToDataFile) throws IOException {
+    final FileInputStream in = new FileInputStream(pathToDataFile);
+    final FileChannel channel = in.getChannel();
+    try {
+      if(!isGzipped(channel)) {
+        return channel;
+      }
+      final InputStream decompressed;
+      if(ParallelGzipInputStream.isBlockGzipped(channel)) {
+        LOGGER.debug("decompressing {} on {} threads", pathToDataFile, decompressThreadCount);
+        decompressed = new ParallelGzipInputStream(channel, decompressThreadCount);
+      }
+      else {
+        LOGGER.debug("decompressing {}", pathToDataFile);
+        decompressed = new GZIPInputStream(in, GZIP_BUFFER_SIZE);
+      }
+      return Channels.newChannel(decompressed);
+    }
+    catch(IOException e) {
+      in.close();
+      throw e;
+    }
+  }
+
+  /**
+   * @param pathToDataFile path to the data file
+   *
+   * @return true if the file starts with the gzip magic bytes - false if it
+   * does not or could not be read
+   */
+  public static boolean isGzipped(final String pathToDataFile) {
+    try(FileInputStream in = new FileInputStream(pathToDataFile)) {
+      return isGzipped(in.getChannel());
+    }
+    catch(IOException e) {
+      return false;
+    }
+  }
+
+  private static boolean isGzipped(final FileChannel channel) throws IOException {
+    final byte[] magic = ParallelGzipInputStream.readFully(channel, 0, 2);
+    return magic.length == 2 && (magic[0] & 0xff) == 0x1f && (magic[1] & 0xff) == 0x8b;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Turns the path to the data file into the data files to be read.  The path
+ * may be:
+ * <ul>
+ *   <li>a file - read as it is, whether or not it exists</li>
+ *   <li>a directory - every file in it, not in its sub-directories, other
+ *   than hidden files</li>
+ *   <li>a glob - every file matching it, e.g. /data/2018-10-*&#47;part-*.csv,
+ *   see {@link java.nio.file.FileSystem#getPathMatcher(String)}</li>
+ *   <li>a manifest - {@value #MANIFEST_PREFIX} followed by the path to a file
+ *   listing a data file on each line.  Blank lines and lines starting with
+ *   {@value #MANIFEST_COMMENT_PREFIX} are ignored and relative paths are
+ *   relative to the directory of the manifest</li>
+ * </ul>
+ * The files of a directory or a glob are sorted by path.
+ */
+public class DataFileResolver {
+  public static final String MANIFEST_PREFIX = "@";
+  public static final String MANIFEST_COMMENT_PREFIX = "#";
+  private static final String GLOB_CHARACTERS = "*?[{";
+
+  /**
+   * @param pathToDataFile path to a file, a directory, a glob or a manifest -
+   * null is returned as it is
+   *
+   * @return paths of the data files
+   *
+   * @throws FileNotFoundException if the manifest does not exist or nothing
+   * matches the directory or glob
+   * @throws IOException if a manifest or directory could not be read
+   */
+  public List<String> resolve(final String pathToDataFile) throws IOException {
+    final List<String> dataFiles;
+    if(pathToDataFile == null) {
+      return Collections.singletonList(null);
+    }
+    if(pathToDataFile.startsWith(MANIFEST_PREFIX)) {
+      dataFiles = readManifest(new File(pathToDataFile.substring(MANIFEST_PREFIX.length())));
+    }
+    else if(isGlob(pathToDataFile)) {
+      dataFiles = matchGlob(pathToDataFile);
+    }
+    else if(new File(pathToDataFile).isDirectory()) {
+      dataFiles = listDirectory(new File(pathToDataFile).toPath());
+    }
+    else {
+      return Collections.singletonList(pathToDataFile);
+    }
+    if(dataFiles.isEmpty()) {
+      throw new FileNotFoundException(String.format("no data files found for %s", pathToDataFile));
+    }
+    return dataFiles;
+  }
+
+  static boolean isGlob(final String path) {
+    for(int i = 0; i < GLOB_CHARACTERS.length(); i++) {
+      if(path.indexOf(GLOB_CHARACTERS.charAt(i)) >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<String> readManifest(final File manifest) throws IOException {
+    if(!manifest.isFile()) {
+      throw new FileNotFoundException(String.format("manifest %s not found", manifest));
+    }
+    final File manifestDirectory = manifest.getAbsoluteFile().getParentFile();
+    final List<String> dataFiles = new ArrayList<>();
+    for(String line : Files.readAllLines(manifest.toPath(), StandardCharsets.UTF_8)) {
+      line = line.trim();
+      if(line.length() == 0 || line.startsWith(MANIFEST_COMMENT_PREFIX)) {
+        continue;
+      }
+      final File dataFile = new File(line);
+      dataFiles.add(dataFile.isAbsolute() ? dataFile.getPath() : new File(manifestDirectory, line).getPath());
+    }
+    return dataFiles;
+  }
+
+  private List<String> listDirectory(final Path directory) throws IOException {
+    final List<String> dataFiles = new ArrayList<>();
+    try(DirectoryStream<Path> paths = Files.newDirectoryStream(directory)) {
+      for(Path path : paths) {
+        if(Files.isRegularFile(path) && !path.getFileName().toString().startsWith(".")) {
+          dataFiles.add(path.toString());
+        }
+      }
+    }
+    Collections.sort(dataFiles);
+    return dataFiles;
+  }
+
+  /**
+   * Walk the directory before the first part of the glob with a glob
+   * character, no deeper than the glob can match unless it has a **.
+   */
+  private List<String> matchGlob(final String glob) throws IOException {
+    final Path pattern = Paths.get(new File(glob).getAbsolutePath());
+    Path base = pattern.getRoot();
+    int depth = 0;
+    boolean inGlob = false;
+    for(Path name : pattern) {
+      if(!inGlob && isGlob(name.toString())) {
+        inGlob = true;
+      }
+      if(inGlob) {
+        depth = name.toString().contains("**") ? Integer.MAX_VALUE : depth == Integer.MAX_VALUE ? depth : depth + 1;
+      }
+      else {
+        base = base.resolve(name);
+      }
+    }
+    final List<String> dataFiles = new ArrayList<>();
+    if(!Files.isDirectory(base)) {
+      return dataFiles;
+    }
+    final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    try(Stream<Path> paths = Files.walk(base, depth)) {
+      final Iterator<Path> iterator = paths.iterator();
+      while(iterator.hasNext()) {
+        final Path path = iterator.next();
+        if(Files.isRegularFile(path) && matcher.matches(path)) {
+          dataFiles.add(path.toString());
+        }
+      }
+    }
+    Collections.sort(dataFiles);
+    return dataFiles;
+  }
+}
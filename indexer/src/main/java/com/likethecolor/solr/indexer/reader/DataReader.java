@@ -31,5 +31,22 @@ public interface DataReader {
 
   int getLineNumber();
 
+  /**
+   * Read past rows, without processing them, until the row ending on the
+   * given line has been read.  Used to carry on from a checkpoint.
+   *
+   * @param lineNumber line number of the last row to skip
+   *
+   * @return number of rows skipped
+   *
+   * @throws IOException if an I/O error occurred
+   */
+  int skipTo(int lineNumber) throws IOException;
+
+  /**
+   * @return number of bytes read from the data file so far - 0 if not known
+   */
+  long getBytesRead();
+
   void close() throws IOException;
 }
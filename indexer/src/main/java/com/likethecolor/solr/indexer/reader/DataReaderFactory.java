@@ -21,11 +21,14 @@ import com.likethecolor.solr.indexer.configuration.Configuration;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
 import com.likethecolor.solr.indexer.field.FieldsParser;
 import com.likethecolor.solr.indexer.json.JSONParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.supercsv.prefs.CsvPreference;
 
 import java.util.Map;
 
 public class DataReaderFactory {
+  private static final Logger LOGGER = LoggerFactory.getLogger(DataReaderFactory.class);
   private static final DataReaderFactory INSTANCE = new DataReaderFactory();
 
   private DataReaderFactory() {
@@ -35,15 +38,60 @@ public class DataReaderFactory {
     return INSTANCE;
   }
 
+  /**
+   * @return reader of the path to the data file, see
+   * {@link #getDataReader(Configuration, CsvPreference, String)}
+   */
   public DataReader getDataReader(final Configuration configuration, final CsvPreference csvPreference) {
+    return getDataReader(configuration, csvPreference, configuration.getPathToDataFile());
+  }
+
+  /**
+   * This is the one place the reader for a data file is picked.  A gzipped
+   * data file cannot be split so it is never read by the chunked readers.  A
+   * fast CSV data file whose charset or CSV preference the
+   * {@link FastCSVDataReader} cannot follow is read by a {@link CSVDataReader}.
+   *
+   * Each call returns a reader of its own, with its own JSON parser, so the
+   * readers of several data files can be used by a thread each.
+   *
+   * @param configuration configuration
+   * @param csvPreference preference of the CSV data types
+   * @param dataFile path of the data file to read
+   *
+   * @return reader for the data type
+   */
+  public DataReader getDataReader(final Configuration configuration, final CsvPreference csvPreference, final String dataFile) {
+    final DataFileInput input = DataFileInput.fromConfiguration(configuration);
     if(configuration.getDataType().getName().equalsIgnoreCase(Constants.DATA_TYPE_CSV)) {
-      return new CSVDataReader(configuration.getPathToDataFile(), csvPreference);
+      if(configuration.getCsvSplitCount() > 1 && !DataFileInput.isGzipped(dataFile)) {
+        return new ChunkedCSVDataReader(dataFile, csvPreference, configuration.getCsvSplitCount(), configuration.getDataFileCharset());
+      }
+      return new CSVDataReader(dataFile, csvPreference, input);
+    }
+
+    if(configuration.getDataType().getName().equalsIgnoreCase(Constants.DATA_TYPE_FAST_CSV)) {
+      // the fast tokenizer reads bytes so it needs single byte delimiters
+      if(!FastCSVDataReader.isSupported(csvPreference, configuration.getDataFileCharset())) {
+        LOGGER.warn("the {} data type cannot read {} with the CSV preference - reading it as {}", Constants.DATA_TYPE_FAST_CSV, configuration.getDataFileCharset(), Constants.DATA_TYPE_CSV);
+        return new CSVDataReader(dataFile, csvPreference, input);
+      }
+      return new FastCSVDataReader(dataFile, csvPreference, input);
     }
 
     if(configuration.getDataType().getName().equalsIgnoreCase(Constants.DATA_TYPE_JSON)) {
       Map<String, FieldDefinition> fieldDefinitionMap = new FieldsParser(configuration).parse(configuration.getFields());
       JSONParser parser = new JSONParser(configuration);
-      return new JSONDataReader(configuration.getPathToDataFile(), fieldDefinitionMap, parser);
+      if(configuration.getJsonSplitCount() > 1 && !DataFileInput.isGzipped(dataFile)) {
+        return new ChunkedJSONDataReader(dataFile, fieldDefinitionMap, parser, configuration.getJsonSplitCount(), configuration.getDataFileCharset());
+      }
+      return new JSONDataReader(dataFile, fieldDefinitionMap, parser, input);
+    }
+
+    if(configuration.getDataType().getName().equalsIgnoreCase(Constants.DATA_TYPE_JSON_ARRAY)) {
+      // an array is read from start to end - it cannot be split
+      Map<String, FieldDefinition> fieldDefinitionMap = new FieldsParser(configuration).parse(configuration.getFields());
+      return new JSONArrayDataReader(dataFile, fieldDefinitionMap, new JSONParser(configuration), configuration.getJsonArrayPath(), input);
     }
     return new DoNothingDataReader();
   }
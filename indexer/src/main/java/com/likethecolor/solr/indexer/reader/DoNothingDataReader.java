@@ -49,6 +49,17 @@ public class DoNothingDataReader implements DataReader {
     return 0;
   }
 
+  @Override
+  public int skipTo(int lineNumber) throws IOException {
+    logDoNothingInformation();
+    return 0;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return 0;
+  }
+
   @Override
   public int hashCode() {
     return super.hashCode();
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+import org.supercsv.util.CsvContext;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads a CSV data file with a {@link FastCSVTokenizer} rather than
+ * SuperCSV's {@link org.supercsv.io.CsvListReader}.  The rows and values are
+ * the same as those of a {@link CSVDataReader} but the file is read as bytes
+ * through the {@link DataFileInput} and each value is decoded straight from
+ * the bytes read, without a line or column being copied into a buffer of its
+ * own first.  Skipping rows decodes nothing.
+ *
+ * The quote character and delimiter of the {@link CsvPreference} are used.
+ * The preference must be one this reader can follow, see
+ * {@link #isSupported(CsvPreference, Charset)}.
+ */
+public class FastCSVDataReader implements DataReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(FastCSVDataReader.class);
+  private final String pathToDataFile;
+  private final CsvPreference csvPreference;
+  private final DataFileInput input;
+  private FastCSVTokenizer tokenizer;
+  private int rowNumber;
+
+  public FastCSVDataReader(final String pathToDataFile, final CsvPreference csvPreference) {
+    this(pathToDataFile, csvPreference, DataFileInput.defaults());
+  }
+
+  public FastCSVDataReader(final String pathToDataFile, final CsvPreference csvPreference, final DataFileInput input) {
+    this.pathToDataFile = pathToDataFile;
+    this.csvPreference = csvPreference;
+    this.input = input;
+    rowNumber = 0;
+  }
+
+  /**
+   * @param csvPreference CSV preference
+   * @param charset charset of the data file
+   *
+   * @return true if the delimiter, quote and line endings are single bytes of
+   * the charset and the preference needs nothing but them: surrounding spaces
+   * are kept, there are no comments and a row may span any number of lines
+   */
+  public static boolean isSupported(final CsvPreference csvPreference, final Charset charset) {
+    return FastCSVTokenizer.isSupported(charset, csvPreference.getQuoteChar(), csvPreference.getDelimiterChar())
+           && !csvPreference.isSurroundingSpacesNeedQuotes()
+           && csvPreference.getCommentMatcher() == null
+           && csvPreference.getMaxLinesPerRow() == 0;
+  }
+
+  /**
+   * As {@link org.supercsv.io.ICsvListReader#read(CellProcessor...)} a null
+   * processor leaves the column's value a string.
+   *
+   * @param cellProcessors a processor for each column - null to leave every
+   * value a string
+   *
+   * @return values of the row or null at the end of the file
+   *
+   * @throws SuperCsvException if the number of columns is not the number of
+   * processors or a processor failed
+   */
+  @Override
+  public List<Object> read(final CellProcessor[] cellProcessors) throws IOException {
+    final FastCSVTokenizer tokenizer = getTokenizer();
+    if(!tokenizer.readRow()) {
+      return null;
+    }
+    rowNumber++;
+    final int columnCount = tokenizer.getColumnCount();
+    if(cellProcessors != null && cellProcessors.length != columnCount) {
+      throw new SuperCsvException(String.format("The number of columns to be processed (%d) must match the number of CellProcessors (%d): check that the number of CellProcessors you have defined matches the expected number of columns being read/written", columnCount, cellProcessors.length), new CsvContext(tokenizer.getLineNumber(), rowNumber, 1));
+    }
+    final List<Object> values = new ArrayList<>(columnCount);
+    CsvContext context = null;
+    for(int column = 0; column < columnCount; column++) {
+      final String value = tokenizer.getColumn(column);
+      if(cellProcessors == null || cellProcessors[column] == null) {
+        values.add(value);
+        continue;
+      }
+      if(context == null) {
+        context = new CsvContext(tokenizer.getLineNumber(), rowNumber, column + 1);
+      }
+      context.setColumnNumber(column + 1);
+      values.add(cellProcessors[column].execute(value, context));
+    }
+    return values;
+  }
+
+  /**
+   * As {@link org.supercsv.io.ICsvListReader#getHeader(boolean)}.
+   *
+   * @throws SuperCsvException if firstLineCheck is true and a row has
+   * already been read
+   */
+  @Override
+  public Object[] getHeader(final boolean firstLineCheck) throws IOException {
+    final FastCSVTokenizer tokenizer = getTokenizer();
+    if(firstLineCheck && tokenizer.getLineNumber() != 0) {
+      throw new SuperCsvException(String.format("CSV header must be fetched as the first read operation, but %d other read operations have already been executed", rowNumber));
+    }
+    if(!tokenizer.readRow()) {
+      return null;
+    }
+    rowNumber++;
+    final String[] header = new String[tokenizer.getColumnCount()];
+    for(int column = 0; column < header.length; column++) {
+      header[column] = tokenizer.getColumn(column);
+    }
+    return header;
+  }
+
+  @Override
+  public int getLineNumber() {
+    return tokenizer == null ? 0 : tokenizer.getLineNumber();
+  }
+
+  /**
+   * The rows are tokenized, so quoted values spanning lines are handled, but
+   * nothing is decoded.
+   */
+  @Override
+  public int skipTo(final int lineNumber) throws IOException {
+    final FastCSVTokenizer tokenizer = getTokenizer();
+    int skipped = 0;
+    while(tokenizer.getLineNumber() < lineNumber && tokenizer.readRow()) {
+      rowNumber++;
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return tokenizer == null ? 0 : tokenizer.getBytesRead();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(tokenizer != null) {
+      tokenizer.close();
+    }
+    tokenizer = null;
+  }
+
+  private FastCSVTokenizer getTokenizer() throws IOException {
+    if(tokenizer == null) {
+      LOGGER.debug("reading {} with the fast CSV tokenizer", pathToDataFile);
+      tokenizer = new FastCSVTokenizer(input.openChannel(pathToDataFile), input.getCharset(), csvPreference.getQuoteChar(), csvPreference.getDelimiterChar(), csvPreference.isIgnoreEmptyLines());
+    }
+    return tokenizer;
+  }
+}
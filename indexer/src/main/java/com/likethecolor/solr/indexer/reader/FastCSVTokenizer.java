@@ -0,0 +1,413 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Splits the rows of a CSV file into columns the way SuperCSV's tokenizer
+ * does, with the surrounding spaces of a column kept, but straight from the
+ * bytes of the file.  The bytes are read into a large buffer and the
+ * delimiter, quote and line ending bytes are found eight at a time: each
+ * eight bytes are read as a long and compared with all of them at once
+ * (SWAR - SIMD within a register).
+ *
+ * A row is held as the start and end of each column in the buffer.  Nothing
+ * is copied or decoded until a column's value is asked for, so a row that
+ * is skipped costs no more than finding its end.  A column that is quoted
+ * only around the whole value is decoded straight from the buffer.  One
+ * with doubled quotes, a line ending or text outside the quotes is copied
+ * once to remove them.
+ *
+ * This only works when the delimiter, the quote and the line ending bytes
+ * cannot be part of another character, see {@link #isSupported(Charset, int, int)}.
+ */
+final class FastCSVTokenizer implements Closeable {
+  private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGH_BITS = 0x8080808080808080L;
+  private static final long LF_BYTES = '\n' * ONES;
+  private static final long CR_BYTES = '\r' * ONES;
+  private static final byte LF = '\n';
+  private static final byte CR = '\r';
+  private final ReadableByteChannel channel;
+  private final Charset charset;
+  private final byte quote;
+  private final byte delimiter;
+  private final long quoteBytes;
+  private final long delimiterBytes;
+  private final boolean ignoreEmptyLines;
+  private byte[] buffer;
+  private ByteBuffer words;
+  private int position;
+  private int limit;
+  private boolean endOfFile;
+  private long bytesRead;
+  private int lineNumber;
+  private int columnCount;
+  private int[] starts;
+  private int[] ends;
+  // how a column's value is found in its slice of the buffer
+  private byte[] kinds;
+  private byte[] scratch;
+
+  private static final byte PLAIN = 0;
+  private static final byte QUOTED = 1;
+  private static final byte ESCAPED = 2;
+
+  FastCSVTokenizer(final ReadableByteChannel channel, final Charset charset, final int quote, final int delimiter, final boolean ignoreEmptyLines) {
+    this(channel, charset, quote, delimiter, ignoreEmptyLines, DEFAULT_BUFFER_SIZE);
+  }
+
+  FastCSVTokenizer(final ReadableByteChannel channel, final Charset charset, final int quote, final int delimiter, final boolean ignoreEmptyLines, final int bufferSize) {
+    this.channel = channel;
+    this.charset = charset;
+    this.quote = (byte) quote;
+    this.delimiter = (byte) delimiter;
+    this.ignoreEmptyLines = ignoreEmptyLines;
+    quoteBytes = quote * ONES;
+    delimiterBytes = delimiter * ONES;
+    setBuffer(new byte[Math.max(16, bufferSize)]);
+    starts = new int[16];
+    ends = new int[16];
+    kinds = new byte[16];
+    scratch = new byte[256];
+  }
+
+  /**
+   * @param charset charset of the file
+   * @param quote quote character
+   * @param delimiter delimiter character
+   *
+   * @return true if every ASCII character is a single byte in the charset that
+   * is not part of any other character and the quote and delimiter are ASCII
+   */
+  static boolean isSupported(final Charset charset, final int quote, final int delimiter) {
+    return ChannelReader.isAsciiCompatible(charset)
+           && quote < 0x80 && delimiter < 0x80
+           && quote != delimiter
+           && quote != '\n' && quote != '\r' && delimiter != '\n' && delimiter != '\r';
+  }
+
+  /**
+   * Find the columns of the next row.
+   *
+   * @return false at the end of the file
+   *
+   * @throws IOException if the file could not be read
+   * @throws SuperCsvException if the file ends inside a quoted column
+   */
+  boolean readRow() throws IOException {
+    while(true) {
+      final int row = scanRow();
+      if(row > 0) {
+        return true;
+      }
+      if(row < 0) {
+        return false;
+      }
+      // the row is not all in the buffer - read more and scan it again
+      fill();
+    }
+  }
+
+  /**
+   * @return number of columns of the row
+   */
+  int getColumnCount() {
+    return columnCount;
+  }
+
+  /**
+   * @param column index of the column, from 0
+   *
+   * @return value of the column - null if it is empty, quoted or not
+   */
+  String getColumn(final int column) {
+    final int start = starts[column];
+    final int end = ends[column];
+    if(start == end) {
+      return null;
+    }
+    if(kinds[column] == ESCAPED) {
+      return unescape(start, end);
+    }
+    return new String(buffer, start, end - start, charset);
+  }
+
+  /**
+   * @return line number, from 1, of the last line of the row
+   */
+  int getLineNumber() {
+    return lineNumber;
+  }
+
+  long getBytesRead() {
+    return bytesRead;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  /**
+   * Find the columns of the row starting at the position.
+   *
+   * @return 1 if a row was found, -1 at the end of the file and 0 if more of
+   * the file must be read first
+   */
+  private int scanRow() {
+    int p = position;
+    int lines = 0;
+    columnCount = 0;
+    while(true) {
+      final int columnStart = p;
+      byte kind = PLAIN;
+      boolean inQuotes = false;
+      int quoteStart = -1;
+      int quoteEnd = -1;
+      while(true) {
+        p = inQuotes ? nextQuoteOrLine(p) : nextSpecial(p);
+        if(p == limit) {
+          if(!endOfFile) {
+            return 0;
+          }
+          if(inQuotes) {
+            throw new SuperCsvException(String.format("unexpected end of file while reading quoted column beginning on line %d and ending on line %d", lineNumber + 1, lineNumber + lines + 1));
+          }
+          if(columnCount == 0 && p == position) {
+            return -1;
+          }
+          break;
+        }
+        final byte b = buffer[p];
+        if(b == quote) {
+          if(!inQuotes) {
+            inQuotes = true;
+            if(quoteStart >= 0 || p != columnStart) {
+              kind = ESCAPED;
+            }
+            quoteStart = p;
+            p++;
+            continue;
+          }
+          if(p + 1 == limit && !endOfFile) {
+            return 0;
+          }
+          if(p + 1 < limit && buffer[p + 1] == quote) {
+            kind = ESCAPED;
+            p += 2;
+            continue;
+          }
+          inQuotes = false;
+          quoteEnd = p;
+          p++;
+          continue;
+        }
+        if(b == CR && p + 1 == limit && !endOfFile) {
+          return 0;
+        }
+        if(inQuotes) {
+          // a line ending in a quoted column is a new line
+          kind = ESCAPED;
+          lines++;
+          p += b == CR && p + 1 < limit && buffer[p + 1] == LF ? 2 : 1;
+          continue;
+        }
+        break;
+      }
+      if(kind == PLAIN && quoteStart >= 0) {
+        kind = quoteEnd == p - 1 ? QUOTED : ESCAPED;
+      }
+      if(kind == QUOTED) {
+        addColumn(columnStart + 1, p - 1, kind);
+      }
+      else {
+        addColumn(columnStart, p, kind);
+      }
+      if(p == limit) {
+        // the last line of the file has no line ending
+        lines++;
+        return endRow(p, lines);
+      }
+      if(buffer[p] == delimiter) {
+        p++;
+        continue;
+      }
+      lines++;
+      p += buffer[p] == CR && p + 1 < limit && buffer[p + 1] == LF ? 2 : 1;
+      if(ignoreEmptyLines && columnCount == 1 && ends[0] == starts[0] && kinds[0] == PLAIN) {
+        // an empty line
+        lineNumber += lines;
+        lines = 0;
+        position = p;
+        columnCount = 0;
+        continue;
+      }
+      return endRow(p, lines);
+    }
+  }
+
+  private int endRow(final int p, final int lines) {
+    position = p;
+    lineNumber += lines;
+    return 1;
+  }
+
+  private void addColumn(final int start, final int end, final byte kind) {
+    if(columnCount == starts.length) {
+      starts = Arrays.copyOf(starts, columnCount * 2);
+      ends = Arrays.copyOf(ends, columnCount * 2);
+      kinds = Arrays.copyOf(kinds, columnCount * 2);
+    }
+    starts[columnCount] = start;
+    ends[columnCount] = end;
+    kinds[columnCount] = kind;
+    columnCount++;
+  }
+
+  /**
+   * @return index of the first delimiter, quote, carriage return or line
+   * feed from the index - the limit if there is none
+   */
+  private int nextSpecial(int p) {
+    final int wordLimit = limit - 8;
+    while(p <= wordLimit) {
+      final long word = words.getLong(p);
+      final long found = zeroBytes(word ^ delimiterBytes) | zeroBytes(word ^ quoteBytes) | zeroBytes(word ^ LF_BYTES) | zeroBytes(word ^ CR_BYTES);
+      if(found != 0) {
+        return p + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+      p += 8;
+    }
+    while(p < limit) {
+      final byte b = buffer[p];
+      if(b == delimiter || b == quote || b == LF || b == CR) {
+        return p;
+      }
+      p++;
+    }
+    return limit;
+  }
+
+  /**
+   * @return index of the first quote, carriage return or line feed from the
+   * index - the limit if there is none
+   */
+  private int nextQuoteOrLine(int p) {
+    final int wordLimit = limit - 8;
+    while(p <= wordLimit) {
+      final long word = words.getLong(p);
+      final long found = zeroBytes(word ^ quoteBytes) | zeroBytes(word ^ LF_BYTES) | zeroBytes(word ^ CR_BYTES);
+      if(found != 0) {
+        return p + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+      p += 8;
+    }
+    while(p < limit) {
+      final byte b = buffer[p];
+      if(b == quote || b == LF || b == CR) {
+        return p;
+      }
+      p++;
+    }
+    return limit;
+  }
+
+  /**
+   * The high bit of each byte of the word that is 0, and perhaps of bytes
+   * after it, is set.  The lowest set bit is always that of the first 0 byte.
+   */
+  private static long zeroBytes(final long word) {
+    return (word - ONES) & ~word & HIGH_BITS;
+  }
+
+  /**
+   * Remove the quotes, turn doubled quotes into one and line endings in
+   * quotes into a line feed.
+   */
+  private String unescape(final int start, final int end) {
+    if(scratch.length < end - start) {
+      scratch = new byte[Math.max(end - start, scratch.length * 2)];
+    }
+    int length = 0;
+    boolean inQuotes = false;
+    for(int p = start; p < end; p++) {
+      final byte b = buffer[p];
+      if(b == quote) {
+        if(inQuotes && p + 1 < end && buffer[p + 1] == quote) {
+          scratch[length++] = quote;
+          p++;
+        }
+        else {
+          inQuotes = !inQuotes;
+        }
+      }
+      else if(b == CR) {
+        scratch[length++] = LF;
+        if(p + 1 < end && buffer[p + 1] == LF) {
+          p++;
+        }
+      }
+      else {
+        scratch[length++] = b;
+      }
+    }
+    return length == 0 ? null : new String(scratch, 0, length, charset);
+  }
+
+  /**
+   * Move the row being read to the start of the buffer, growing the buffer if
+   * the row fills it, and read more of the file after it.
+   */
+  private void fill() throws IOException {
+    final int remaining = limit - position;
+    if(position > 0) {
+      System.arraycopy(buffer, position, buffer, 0, remaining);
+    }
+    else if(remaining == buffer.length) {
+      setBuffer(Arrays.copyOf(buffer, buffer.length * 2));
+    }
+    position = 0;
+    limit = remaining;
+    final ByteBuffer target = ByteBuffer.wrap(buffer, limit, buffer.length - limit);
+    while(target.hasRemaining()) {
+      final int read = channel.read(target);
+      if(read < 0) {
+        endOfFile = true;
+        break;
+      }
+      bytesRead += read;
+    }
+    limit = target.position();
+  }
+
+  private void setBuffer(final byte[] buffer) {
+    this.buffer = buffer;
+    words = ByteBuffer.wrap(buffer).order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
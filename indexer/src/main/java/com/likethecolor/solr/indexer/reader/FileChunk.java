@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+/**
+ * A range of bytes of a data file holding whole rows, see
+ * {@link CSVFileSplitter} and {@link JSONFileSplitter}.
+ */
+public final class FileChunk {
+  private final long startByte;
+  private final long endByte;
+  private final int startLineNumber;
+
+  public FileChunk(final long startByte, final long endByte, final int startLineNumber) {
+    this.startByte = startByte;
+    this.endByte = endByte;
+    this.startLineNumber = startLineNumber;
+  }
+
+  /**
+   * @return offset of the first byte of the range
+   */
+  public long getStartByte() {
+    return startByte;
+  }
+
+  /**
+   * @return offset just past the last byte of the range
+   */
+  public long getEndByte() {
+    return endByte;
+  }
+
+  /**
+   * @return number of lines in the file before the range - add it to a line
+   * number within the range to get the line number in the file
+   */
+  public int getStartLineNumber() {
+    return startLineNumber;
+  }
+
+  public long getLength() {
+    return endByte - startByte;
+  }
+
+  @Override
+  public String toString() {
+    return "FileChunk{startByte=" + startByte + ", endByte=" + endByte + ", startLineNumber=" + startLineNumber + "}";
+  }
+}
@@ -0,0 +1,351 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.json.JSONFieldExtractor;
+import com.likethecolor.solr.indexer.json.JSONParser;
+import com.likethecolor.solr.indexer.json.JSONPath;
+import com.likethecolor.solr.indexer.json.MapToListValuesBuilder;
+import org.json.JSONException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the objects of a JSON array one at a time: either a data file that is
+ * itself an array of objects or the array at a path of keys from the top level
+ * object, e.g. {@code response.docs}.  The file is read as a stream through a
+ * {@link ChannelReader} opened by the {@link DataFileInput} and only the
+ * element being read is held, so the size of the file does not matter.  The
+ * values before the array are stepped over and anything after it is not
+ * read.
+ *
+ * Each element is extracted by a {@link JSONFieldExtractor}, as a line of a
+ * {@link JSONDataReader} is.  The line number of a row is the number of its
+ * element, counting from 1, so a checkpoint counts elements.
+ *
+ * Like {@link JSONDataReader} the cell processors are ignored.
+ */
+public class JSONArrayDataReader implements DataReader {
+  private static final Logger LOGGER = LoggerFactory.getLogger(JSONArrayDataReader.class);
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int END = -1;
+  private final String pathToDataFile;
+  private final String arrayPath;
+  private final List<String> arrayKeys;
+  private final JSONFieldExtractor fieldExtractor;
+  private final DataFileInput input;
+  private final StringBuilder element;
+  private final char[] buffer;
+  private ChannelReader channelReader;
+  private int position;
+  private int limit;
+  private boolean started;
+  private boolean ended;
+  private int elementNumber;
+  private Object[] firstRow;
+
+  /**
+   * @param pathToDataFile path to the JSON data file
+   * @param fieldDefinitionMap field definitions in the order of the values
+   * @param jsonParser parser of the elements the extractor cannot scan
+   * @param arrayPath keys, separated by '.', of the array - null if the file
+   * is the array
+   * @param input opens the data file
+   */
+  public JSONArrayDataReader(final String pathToDataFile, final Map<String, FieldDefinition> fieldDefinitionMap, final JSONParser jsonParser, final String arrayPath, final DataFileInput input) {
+    this.pathToDataFile = pathToDataFile;
+    this.arrayPath = arrayPath;
+    this.arrayKeys = arrayPath == null ? Collections.<String>emptyList() : JSONPath.compile(arrayPath).getKeys();
+    this.input = input;
+    fieldExtractor = jsonParser.newFieldExtractor(new MapToListValuesBuilder(fieldDefinitionMap));
+    element = new StringBuilder();
+    buffer = new char[BUFFER_SIZE];
+    position = 0;
+    limit = 0;
+    started = false;
+    ended = false;
+    elementNumber = 0;
+  }
+
+  @Override
+  public List<Object> read(final CellProcessor[] cellProcessors) throws IOException {
+    // cellProcessors ignored on purpose - as for JSONDataReader
+    if(!nextElement(element)) {
+      return null;
+    }
+    final List<Object> values = extract();
+    if(firstRow == null && elementNumber == 1) {
+      firstRow = values.toArray(new Object[values.size()]);
+    }
+    return values;
+  }
+
+  @Override
+  public Object[] getHeader(final boolean firstLineCheck) throws IOException {
+    if(elementNumber == 0) {
+      read(null);
+    }
+    return firstRow;
+  }
+
+  /**
+   * @return number of the element last read, counting from 1
+   */
+  @Override
+  public int getLineNumber() {
+    return elementNumber;
+  }
+
+  /**
+   * The elements are stepped over but not extracted.
+   */
+  @Override
+  public int skipTo(final int lineNumber) throws IOException {
+    int skipped = 0;
+    while(elementNumber < lineNumber && nextElement(null)) {
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return channelReader == null ? 0 : channelReader.getBytesRead();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if(channelReader != null) {
+      channelReader.close();
+    }
+    channelReader = null;
+  }
+
+  private List<Object> extract() throws IOException {
+    try {
+      return fieldExtractor.extract(element.toString());
+    }
+    catch(JSONException e) {
+      LOGGER.error("could not parse element {} of {}", elementNumber, pathToDataFile, e);
+      throw new IOException("could not parse element " + elementNumber + " of " + pathToDataFile, e);
+    }
+  }
+
+  /**
+   * @param value holds the text of the element - null to step over it
+   *
+   * @return false at the end of the array
+   */
+  private boolean nextElement(final StringBuilder value) throws IOException {
+    if(!started) {
+      start();
+    }
+    if(ended) {
+      return false;
+    }
+    int c = nextNonWhitespace();
+    if(c == ']') {
+      ended = true;
+      return false;
+    }
+    if(elementNumber > 0) {
+      if(c != ',') {
+        throw syntaxError("expected ',' or ']' after element " + elementNumber);
+      }
+      c = nextNonWhitespace();
+    }
+    if(value != null) {
+      value.setLength(0);
+    }
+    readValue(c, value);
+    elementNumber++;
+    return true;
+  }
+
+  /**
+   * Step over the values before the array.
+   */
+  private void start() throws IOException {
+    started = true;
+    int c = nextNonWhitespace();
+    for(String key : arrayKeys) {
+      if(c != '{' || !findKey(key)) {
+        LOGGER.warn("{} has no array at {} - no rows read", pathToDataFile, arrayPath);
+        ended = true;
+        return;
+      }
+      c = nextNonWhitespace();
+    }
+    if(c != '[') {
+      throw syntaxError(arrayPath == null ? "expected the file to be an array" : "expected an array at " + arrayPath);
+    }
+  }
+
+  /**
+   * Step over the keys of the object until the key.
+   *
+   * @return true if the key was found, in which case its value is next
+   */
+  private boolean findKey(final String key) throws IOException {
+    final StringBuilder name = new StringBuilder();
+    int c = nextNonWhitespace();
+    while(c == '"') {
+      name.setLength(0);
+      readString(name);
+      if(nextNonWhitespace() != ':') {
+        throw syntaxError("expected ':' after a key");
+      }
+      // the quotes were kept by readString
+      if(name.length() == key.length() + 2 && name.indexOf(key) == 1) {
+        return true;
+      }
+      readValue(nextNonWhitespace(), null);
+      c = nextNonWhitespace();
+      if(c == ',') {
+        c = nextNonWhitespace();
+      }
+      else if(c != '}') {
+        throw syntaxError("expected ',' or '}' after a value");
+      }
+    }
+    if(c == '}') {
+      return false;
+    }
+    throw syntaxError("expected a key");
+  }
+
+  /**
+   * Read a value, nested objects and arrays included.  The text is not
+   * checked here - the extractor does that for the elements.
+   *
+   * @param first first character of the value
+   * @param value holds the text of the value - null to step over it
+   */
+  private void readValue(final int first, final StringBuilder value) throws IOException {
+    if(first == END) {
+      throw syntaxError("unexpected end of file");
+    }
+    if(first == '"') {
+      append(value, first);
+      readStringRest(value);
+      return;
+    }
+    if(first == '{' || first == '[') {
+      append(value, first);
+      int depth = 1;
+      while(depth > 0) {
+        final int c = next();
+        if(c == END) {
+          throw syntaxError("unexpected end of file");
+        }
+        append(value, c);
+        if(c == '"') {
+          readStringRest(value);
+        }
+        else if(c == '{' || c == '[') {
+          depth++;
+        }
+        else if(c == '}' || c == ']') {
+          depth--;
+        }
+      }
+      return;
+    }
+    append(value, first);
+    int c = peek();
+    while(c != END && c != ',' && c != '}' && c != ']' && c > ' ') {
+      append(value, next());
+      c = peek();
+    }
+  }
+
+  private void readString(final StringBuilder value) throws IOException {
+    append(value, '"');
+    readStringRest(value);
+  }
+
+  /**
+   * Read the rest of a string after its opening quote.
+   */
+  private void readStringRest(final StringBuilder value) throws IOException {
+    int c;
+    while((c = next()) != '"') {
+      if(c == END) {
+        throw syntaxError("unterminated string");
+      }
+      append(value, c);
+      if(c == '\\') {
+        c = next();
+        if(c == END) {
+          throw syntaxError("unterminated string");
+        }
+        append(value, c);
+      }
+    }
+    append(value, c);
+  }
+
+  private static void append(final StringBuilder value, final int c) {
+    if(value != null) {
+      value.append((char) c);
+    }
+  }
+
+  private int nextNonWhitespace() throws IOException {
+    int c = next();
+    while(c != END && c <= ' ') {
+      c = next();
+    }
+    return c;
+  }
+
+  private int next() throws IOException {
+    if(position == limit && !fill()) {
+      return END;
+    }
+    return buffer[position++];
+  }
+
+  private int peek() throws IOException {
+    if(position == limit && !fill()) {
+      return END;
+    }
+    return buffer[position];
+  }
+
+  private boolean fill() throws IOException {
+    if(channelReader == null) {
+      channelReader = input.open(pathToDataFile);
+    }
+    final int read = channelReader.read(buffer, 0, buffer.length);
+    position = 0;
+    limit = Math.max(0, read);
+    return read > 0;
+  }
+
+  private IOException syntaxError(final String message) {
+    return new IOException(String.format("%s in %s after element %d", message, pathToDataFile, elementNumber));
+  }
+}
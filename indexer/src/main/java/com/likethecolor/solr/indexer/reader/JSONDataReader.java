@@ -16,6 +16,7 @@
 package com.likethecolor.solr.indexer.reader;
 
 import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.json.JSONFieldExtractor;
 import com.likethecolor.solr.indexer.json.JSONParser;
 import com.likethecolor.solr.indexer.json.MapToListValuesBuilder;
 import org.json.JSONException;
@@ -24,15 +25,22 @@ import org.slf4j.LoggerFactory;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads a JSON data file, one object per line, through a
+ * {@link ChannelReader} opened by the {@link DataFileInput} so a gzipped file
+ * is decompressed as it is read.
+ */
 public class JSONDataReader implements DataReader {
   private static final Logger LOGGER = LoggerFactory.getLogger(JSONDataReader.class);
+  private static final int LINE_BUFFER_SIZE = 64 * 1024;
   private BufferedReader bufferedReader;
+  private ChannelReader channelReader;
+  private DataFileInput input;
+  private JSONFieldExtractor fieldExtractor;
   private Object[] firstRow;
   private String currentLine;
   private JSONParser jsonParser;
@@ -41,7 +49,12 @@ public class JSONDataReader implements DataReader {
   private String pathToDataFile;
 
   public JSONDataReader(String pathToDataFile, Map<String, FieldDefinition> fieldDefinitionMap, JSONParser jsonParser) {
+    this(pathToDataFile, fieldDefinitionMap, jsonParser, DataFileInput.defaults());
+  }
+
+  public JSONDataReader(String pathToDataFile, Map<String, FieldDefinition> fieldDefinitionMap, JSONParser jsonParser, DataFileInput input) {
     this.pathToDataFile = pathToDataFile;
+    this.input = input;
     this.jsonParser = jsonParser;
     lineNumber = 0;
     mapToListValuesBuilder = new MapToListValuesBuilder(fieldDefinitionMap);
@@ -75,6 +88,24 @@ public class JSONDataReader implements DataReader {
     return lineNumber;
   }
 
+  /**
+   * The lines are read but not parsed.
+   */
+  @Override
+  public int skipTo(final int lineNumber) throws IOException {
+    int skipped = 0;
+    while(this.lineNumber < lineNumber && getBufferedReader().readLine() != null) {
+      this.lineNumber++;
+      skipped++;
+    }
+    return skipped;
+  }
+
+  @Override
+  public long getBytesRead() {
+    return channelReader == null ? 0 : channelReader.getBytesRead();
+  }
+
   @Override
   public void close() throws IOException {
     if(bufferedReader != null) {
@@ -96,15 +127,22 @@ public class JSONDataReader implements DataReader {
     return currentLine;
   }
 
-  BufferedReader getBufferedReader() throws FileNotFoundException {
+  BufferedReader getBufferedReader() throws IOException {
     if(bufferedReader == null) {
-      bufferedReader = new BufferedReader(new FileReader(pathToDataFile));
+      channelReader = input.open(pathToDataFile);
+      bufferedReader = new BufferedReader(channelReader, LINE_BUFFER_SIZE);
     }
     return bufferedReader;
   }
 
   private List<Object> getDataAsList(String rowOfData) throws IOException {
-    return getMapToListValuesBuilder().build(getDataMap(rowOfData));
+    try {
+      return getFieldExtractor().extract(rowOfData);
+    }
+    catch(JSONException e) {
+      LOGGER.error("could not parse row of data", e);
+      throw new IOException(e);
+    }
   }
 
   private Object[] getDataAsArray(String rowOfData) throws IOException {
@@ -112,16 +150,11 @@ public class JSONDataReader implements DataReader {
     return list.toArray(new Object[list.size()]);
   }
 
-  private Map<String, String> getDataMap(String rowOfData) throws IOException {
-    Map<String, String> map;
-    try {
-      map = getJsonParser().parse(rowOfData);
-    }
-    catch(JSONException e) {
-      LOGGER.error("could not parse row of data - returning empty map", e);
-      throw new IOException(e);
+  JSONFieldExtractor getFieldExtractor() {
+    if(fieldExtractor == null) {
+      fieldExtractor = getJsonParser().newFieldExtractor(getMapToListValuesBuilder());
     }
-    return map;
+    return fieldExtractor;
   }
 
   MapToListValuesBuilder getMapToListValuesBuilder() {
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Divides a JSON data file, one object per line, into byte ranges that each
+ * start at the beginning of a line so they can be parsed apart from one
+ * another.
+ *
+ * A line break cannot be inside a JSON value so the ranges are found by
+ * looking for the first line break after each of the evenly spaced targets,
+ * without reading the rest of the file.  The lines before each range are
+ * then counted, all ranges at the same time, through memory mapped windows
+ * of the file so line numbers in a range can be turned into line numbers in
+ * the file.
+ */
+public class JSONFileSplitter {
+  private final Charset charset;
+
+  /**
+   * @param charset charset of the JSON data file
+   */
+  public JSONFileSplitter(final Charset charset) {
+    this.charset = charset;
+  }
+
+  /**
+   * @param file JSON data file
+   * @param count number of ranges wanted - fewer are returned when the file
+   * has too few lines
+   *
+   * @return ranges in file order, none for an empty file
+   *
+   * @throws IOException if the file could not be read
+   */
+  public List<FileChunk> split(final File file, final int count) throws IOException {
+    final long size = file.length();
+    final List<FileChunk> chunks = new ArrayList<>(Math.max(1, count));
+    if(size == 0) {
+      return chunks;
+    }
+    try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final List<Long> starts = new ArrayList<>(Math.max(1, count));
+      starts.add(0L);
+      final MappedLineReader reader = new MappedLineReader(channel, 0, size, charset);
+      for(int i = 1; i < count; i++) {
+        final long target = size * i / count;
+        if(target <= starts.get(starts.size() - 1)) {
+          continue;
+        }
+        final long start = reader.nextLineBreak(target - 1) + 1;
+        if(start >= size) {
+          break;
+        }
+        if(start > starts.get(starts.size() - 1)) {
+          starts.add(start);
+        }
+      }
+
+      final List<Integer> lineBreaks = countLineBreaks(channel, starts);
+      int startLineNumber = 0;
+      for(int i = 0; i < starts.size(); i++) {
+        final long end = i + 1 < starts.size() ? starts.get(i + 1) : size;
+        chunks.add(new FileChunk(starts.get(i), end, startLineNumber));
+        if(i < lineBreaks.size()) {
+          startLineNumber += lineBreaks.get(i);
+        }
+      }
+    }
+    return chunks;
+  }
+
+  /**
+   * @return number of line breaks in each range but the last, which is not
+   * needed
+   */
+  private List<Integer> countLineBreaks(final FileChannel channel, final List<Long> starts) throws IOException {
+    final List<Integer> counts = new ArrayList<>(starts.size());
+    if(starts.size() < 2) {
+      return counts;
+    }
+    final ExecutorService counters = Executors.newFixedThreadPool(starts.size() - 1);
+    try {
+      final List<Future<Integer>> futures = new ArrayList<>(starts.size() - 1);
+      for(int i = 0; i + 1 < starts.size(); i++) {
+        final long start = starts.get(i);
+        final long end = starts.get(i + 1);
+        futures.add(counters.submit(new Callable<Integer>() {
+          @Override
+          public Integer call() throws Exception {
+            return new MappedLineReader(channel, start, end, charset).countLineBreaks();
+          }
+        }));
+      }
+      for(Future<Integer> future : futures) {
+        counts.add(future.get());
+      }
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while counting lines");
+    }
+    catch(ExecutionException e) {
+      if(e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+    finally {
+      counters.shutdownNow();
+    }
+    return counts;
+  }
+}
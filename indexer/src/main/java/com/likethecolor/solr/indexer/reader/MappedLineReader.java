@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Reads the lines of a range of a file through memory mapped windows of
+ * {@link #WINDOW_SIZE} bytes, so a file larger than a single mapping can be
+ * read and the bytes are not copied through a stream buffer.  A window is
+ * mapped again at the start of a line that runs past its end.
+ *
+ * A line ends at {@code \n}, a {@code \r} before it is dropped.  Safe to use
+ * a channel shared with other readers as mapping does not move the position
+ * of the channel.
+ */
+final class MappedLineReader {
+  static final int WINDOW_SIZE = 64 * 1024 * 1024;
+  private final FileChannel channel;
+  private final long start;
+  private final long end;
+  private final Charset charset;
+  private final int windowSize;
+  private long position;
+  private long windowStart;
+  private MappedByteBuffer window;
+  private byte[] line;
+  private int lineCount;
+
+  MappedLineReader(final FileChannel channel, final long start, final long end, final Charset charset) {
+    this(channel, start, end, charset, WINDOW_SIZE);
+  }
+
+  MappedLineReader(final FileChannel channel, final long start, final long end, final Charset charset, final int windowSize) {
+    this.channel = channel;
+    this.start = start;
+    this.end = end;
+    this.charset = charset;
+    this.windowSize = windowSize;
+    position = start;
+    line = new byte[1024];
+    lineCount = 0;
+  }
+
+  /**
+   * @return the next line, without the line break, or null at the end of the
+   * range
+   *
+   * @throws IOException if the file could not be mapped
+   */
+  String readLine() throws IOException {
+    if(position >= end) {
+      return null;
+    }
+    final long lineBreak = nextLineBreak(position);
+    long lineEnd = lineBreak;
+    map(position, lineEnd);
+    if(lineEnd > position && window.get((int) (lineEnd - 1 - windowStart)) == '\r') {
+      lineEnd--;
+    }
+    final int length = (int) (lineEnd - position);
+    if(line.length < length) {
+      line = new byte[Math.max(length, line.length * 2)];
+    }
+    final ByteBuffer bytes = window.duplicate();
+    bytes.position((int) (position - windowStart));
+    bytes.get(line, 0, length);
+    position = lineBreak + 1;
+    lineCount++;
+    return new String(line, 0, length, charset);
+  }
+
+  /**
+   * @return number of lines read
+   */
+  int getLineCount() {
+    return lineCount;
+  }
+
+  /**
+   * @return number of bytes of the lines read
+   */
+  long getBytesRead() {
+    return Math.min(position, end) - start;
+  }
+
+  /**
+   * @return number of line breaks in the range
+   *
+   * @throws IOException if the file could not be mapped
+   */
+  int countLineBreaks() throws IOException {
+    int count = 0;
+    long from = position;
+    while(from < end) {
+      map(from, from + 1);
+      final int limit = window.limit();
+      for(int i = (int) (from - windowStart); i < limit; i++) {
+        if(window.get(i) == '\n') {
+          count++;
+        }
+      }
+      from = windowStart + limit;
+    }
+    return count;
+  }
+
+  /**
+   * @param from offset to start looking from
+   *
+   * @return offset of the first line break at or after the offset or the end
+   * of the range if there is none
+   *
+   * @throws IOException if the file could not be mapped
+   */
+  long nextLineBreak(final long from) throws IOException {
+    long at = from;
+    while(at < end) {
+      map(at, at + 1);
+      final int limit = window.limit();
+      for(int i = (int) (at - windowStart); i < limit; i++) {
+        if(window.get(i) == '\n') {
+          return windowStart + i;
+        }
+      }
+      at = windowStart + limit;
+    }
+    return end;
+  }
+
+  /**
+   * Map a window, if the current one does not already hold the bytes from
+   * {@code from} up to {@code to}.
+   */
+  private void map(final long from, final long to) throws IOException {
+    if(window != null && from >= windowStart && to <= windowStart + window.limit()) {
+      return;
+    }
+    final long size = Math.min(Math.max(windowSize, to - from), end - from);
+    if(size > Integer.MAX_VALUE) {
+      throw new IOException("line at byte " + from + " is longer than " + Integer.MAX_VALUE + " bytes");
+    }
+    windowStart = from;
+    window = channel.map(FileChannel.MapMode.READ_ONLY, from, size);
+  }
+}
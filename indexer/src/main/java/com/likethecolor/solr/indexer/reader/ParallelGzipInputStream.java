@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a block gzipped file - a file of gzip members that each
+ * record their compressed size in a {@code BC} extra subfield, as written by
+ * {@code bgzip} - on several threads.
+ *
+ * The reading thread reads {@link #BATCH_BYTES} of the file at a time and,
+ * from the recorded sizes, finds the whole members in it without
+ * decompressing them.  Each batch is decompressed on one of the threads, and
+ * its CRC checked, while up to two batches a thread are decompressed ahead of
+ * the reading.  The bytes are returned in file order.
+ */
+public class ParallelGzipInputStream extends InputStream {
+  static final int BATCH_BYTES = 4 * 1024 * 1024;
+  private static final int FEXTRA = 4;
+  private static final int FNAME = 8;
+  private static final int FCOMMENT = 16;
+  private static final int FHCRC = 2;
+  private static final int FIXED_HEADER_SIZE = 10;
+  private static final int TRAILER_SIZE = 8;
+  private final FileChannel channel;
+  private final long size;
+  private final ExecutorService inflaters;
+  private final Deque<Future<byte[]>> pending;
+  private final int lookahead;
+  private long nextOffset;
+  private byte[] current;
+  private int currentPosition;
+
+  /**
+   * @param channel channel of the file - closed by {@link #close()}
+   * @param threadCount number of threads decompressing
+   *
+   * @throws IOException if the size of the file could not be read
+   */
+  public ParallelGzipInputStream(final FileChannel channel, final int threadCount) throws IOException {
+    this.channel = channel;
+    size = channel.size();
+    inflaters = Executors.newFixedThreadPool(Math.max(1, threadCount));
+    pending = new ArrayDeque<>();
+    lookahead = 2 * Math.max(1, threadCount);
+    nextOffset = 0;
+    current = new byte[0];
+    currentPosition = 0;
+  }
+
+  /**
+   * @param channel channel of the file
+   *
+   * @return true if the first member of the file records its size
+   *
+   * @throws IOException if the file could not be read
+   */
+  public static boolean isBlockGzipped(final FileChannel channel) throws IOException {
+    final byte[] header = readFully(channel, 0, 1024);
+    return memberSize(header, 0, header.length) > 0;
+  }
+
+  @Override
+  public int read() throws IOException {
+    final byte[] one = new byte[1];
+    return read(one, 0, 1) == -1 ? -1 : one[0] & 0xff;
+  }
+
+  @Override
+  public int read(final byte[] b, final int off, final int len) throws IOException {
+    if(len == 0) {
+      return 0;
+    }
+    while(currentPosition >= current.length) {
+      decompressAhead();
+      if(pending.isEmpty()) {
+        return -1;
+      }
+      current = take(pending.poll());
+      currentPosition = 0;
+    }
+    final int count = Math.min(len, current.length - currentPosition);
+    System.arraycopy(current, currentPosition, b, off, count);
+    currentPosition += count;
+    return count;
+  }
+
+  @Override
+  public void close() throws IOException {
+    inflaters.shutdownNow();
+    channel.close();
+  }
+
+  /**
+   * Read batches and hand them to the threads until enough are pending.
+   */
+  private void decompressAhead() throws IOException {
+    while(pending.size() < lookahead && nextOffset < size) {
+      final byte[] buffer = readFully(channel, nextOffset, (int) Math.min(BATCH_BYTES, size - nextOffset));
+      final List<int[]> members = new ArrayList<>();
+      int position = 0;
+      while(position < buffer.length) {
+        final int memberSize = memberSize(buffer, position, buffer.length);
+        if(memberSize < 0) {
+          throw new ZipException("gzip member at byte " + (nextOffset + position) + " does not record its size");
+        }
+        if(memberSize == 0 || position + memberSize > buffer.length) {
+          break;
+        }
+        members.add(new int[] {position, memberSize});
+        position += memberSize;
+      }
+      if(members.isEmpty()) {
+        throw new ZipException("gzip member at byte " + nextOffset + " is truncated or larger than " + BATCH_BYTES + " bytes");
+      }
+      nextOffset += position;
+      pending.add(inflaters.submit(new Callable<byte[]>() {
+        @Override
+        public byte[] call() throws Exception {
+          return inflate(buffer, members);
+        }
+      }));
+    }
+  }
+
+  private static byte[] take(final Future<byte[]> future) throws IOException {
+    try {
+      return future.get();
+    }
+    catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while decompressing");
+    }
+    catch(ExecutionException e) {
+      if(e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  /**
+   * @return the members decompressed one after another
+   */
+  static byte[] inflate(final byte[] buffer, final List<int[]> members) throws IOException {
+    int total = 0;
+    for(int[] member : members) {
+      total += readInt(buffer, member[0] + member[1] - 4);
+    }
+    final byte[] out = new byte[total];
+    final Inflater inflater = new Inflater(true);
+    final CRC32 crc = new CRC32();
+    try {
+      int outPosition = 0;
+      for(int[] member : members) {
+        final int start = member[0];
+        final int end = start + member[1];
+        final int headerSize = headerSize(buffer, start);
+        final int uncompressedSize = readInt(buffer, end - 4);
+        inflater.reset();
+        inflater.setInput(buffer, start + headerSize, member[1] - headerSize - TRAILER_SIZE);
+        int inflated = 0;
+        while(inflated < uncompressedSize) {
+          final int count = inflater.inflate(out, outPosition + inflated, uncompressedSize - inflated);
+          if(count == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+            break;
+          }
+          inflated += count;
+        }
+        crc.reset();
+        crc.update(out, outPosition, inflated);
+        if(inflated != uncompressedSize || (int) crc.getValue() != readInt(buffer, end - TRAILER_SIZE)) {
+          throw new ZipException("corrupt gzip member");
+        }
+        outPosition += inflated;
+      }
+    }
+    catch(DataFormatException e) {
+      throw new ZipException("corrupt gzip member: " + e.getMessage());
+    }
+    finally {
+      inflater.end();
+    }
+    return out;
+  }
+
+  /**
+   * @return size of the member starting at the offset, from its {@code BC}
+   * extra subfield, 0 if more bytes are needed to tell or -1 if the member
+   * does not record its size
+   */
+  static int memberSize(final byte[] buffer, final int offset, final int length) {
+    if(offset + FIXED_HEADER_SIZE + 2 > length) {
+      return 0;
+    }
+    if((buffer[offset] & 0xff) != 0x1f || (buffer[offset + 1] & 0xff) != 0x8b || buffer[offset + 2] != 8
+       || (buffer[offset + 3] & FEXTRA) == 0) {
+      return -1;
+    }
+    final int extraEnd = offset + FIXED_HEADER_SIZE + 2 + readShort(buffer, offset + FIXED_HEADER_SIZE);
+    if(extraEnd > length) {
+      return 0;
+    }
+    int position = offset + FIXED_HEADER_SIZE + 2;
+    while(position + 4 <= extraEnd) {
+      final int subfieldSize = readShort(buffer, position + 2);
+      if(buffer[position] == 'B' && buffer[position + 1] == 'C' && subfieldSize == 2 && position + 6 <= extraEnd) {
+        return readShort(buffer, position + 4) + 1;
+      }
+      position += 4 + subfieldSize;
+    }
+    return -1;
+  }
+
+  private static int headerSize(final byte[] buffer, final int offset) throws ZipException {
+    final int flags = buffer[offset + 3];
+    int position = offset + FIXED_HEADER_SIZE + 2 + readShort(buffer, offset + FIXED_HEADER_SIZE);
+    if((flags & FNAME) != 0) {
+      position = skipZeroTerminated(buffer, position);
+    }
+    if((flags & FCOMMENT) != 0) {
+      position = skipZeroTerminated(buffer, position);
+    }
+    if((flags & FHCRC) != 0) {
+      position += 2;
+    }
+    return position - offset;
+  }
+
+  private static int skipZeroTerminated(final byte[] buffer, final int offset) throws ZipException {
+    for(int i = offset; i < buffer.length; i++) {
+      if(buffer[i] == 0) {
+        return i + 1;
+      }
+    }
+    throw new ZipException("corrupt gzip header");
+  }
+
+  private static int readShort(final byte[] buffer, final int offset) {
+    return (buffer[offset] & 0xff) | (buffer[offset + 1] & 0xff) << 8;
+  }
+
+  private static int readInt(final byte[] buffer, final int offset) {
+    return readShort(buffer, offset) | readShort(buffer, offset + 2) << 16;
+  }
+
+  /**
+   * @return the bytes at the position - fewer than asked for at the end of
+   * the file
+   */
+  static byte[] readFully(final FileChannel channel, final long position, final int length) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.allocate(length);
+    while(buffer.hasRemaining()) {
+      if(channel.read(buffer, position + buffer.position()) < 0) {
+        break;
+      }
+    }
+    return buffer.position() == length ? buffer.array() : Arrays.copyOf(buffer.array(), buffer.position());
+  }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * A {@link DataReader} that does not return the rows in line order, such as
+ * one that reads parts of the data file at the same time.
+ * {@link #getLineNumber()} is the line of the last row returned.
+ */
+public interface UnorderedDataReader extends DataReader {
+  /**
+   * @return line every row up to which has been returned by
+   * {@link #read(org.supercsv.cellprocessor.ift.CellProcessor[])} or skipped -
+   * {@link Integer#MAX_VALUE} once every row has been
+   */
+  int getReadThroughLineNumber();
+
+  /**
+   * @return line each part of the file, whose rows are returned in line order,
+   * starts after
+   *
+   * @throws IOException if the file could not be split
+   */
+  List<Integer> getPartStartLineNumbers() throws IOException;
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer;
+
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.util.NamedList;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BulkLoadSettingsTest {
+  @Test
+  public void testGetIngestCommand() {
+    final BulkLoadSettings settings = new BulkLoadSettings("collection", null);
+
+    final JSONObject properties = new JSONObject(settings.getIngestCommand()).getJSONObject("set-property");
+
+    assertEquals(BulkLoadSettings.INGEST_PROPERTIES.size(), properties.length());
+    assertEquals(60000, properties.getInt("updateHandler.autoCommit.maxTime"));
+    assertFalse(properties.getBoolean("updateHandler.autoCommit.openSearcher"));
+    assertEquals(-1, properties.getInt("updateHandler.autoSoftCommit.maxTime"));
+  }
+
+  @Test
+  public void testGetRestoreCommand_NoOverlay() {
+    final BulkLoadSettings settings = new BulkLoadSettings("collection", null);
+
+    final JSONObject command = new JSONObject(settings.getRestoreCommand());
+
+    assertTrue(settings.getOverlayProperties().isEmpty());
+    assertFalse(command.has("set-property"));
+    assertEquals(BulkLoadSettings.INGEST_PROPERTIES.size(), command.getJSONArray("unset-property").length());
+  }
+
+  @Test
+  public void testGetRestoreCommand_Overlay() {
+    final Map<String, Object> autoSoftCommit = new HashMap<>();
+    autoSoftCommit.put("maxTime", 5000);
+    final NamedList<Object> autoCommit = new NamedList<>();
+    autoCommit.add("maxTime", 15000);
+    final Map<String, Object> updateHandler = new HashMap<>();
+    updateHandler.put("autoCommit", autoCommit);
+    updateHandler.put("autoSoftCommit", autoSoftCommit);
+    final Map<String, Object> props = new HashMap<>();
+    props.put("updateHandler", updateHandler);
+    final Map<String, Object> overlay = new HashMap<>();
+    overlay.put("znodeVersion", 3);
+    overlay.put("props", props);
+
+    final BulkLoadSettings settings = new BulkLoadSettings("collection", overlay);
+    final JSONObject command = new JSONObject(settings.getRestoreCommand());
+
+    assertEquals(2, settings.getOverlayProperties().size());
+    assertEquals(15000, command.getJSONObject("set-property").getInt("updateHandler.autoCommit.maxTime"));
+    assertEquals(5000, command.getJSONObject("set-property").getInt("updateHandler.autoSoftCommit.maxTime"));
+    assertEquals(BulkLoadSettings.INGEST_PROPERTIES.size() - 2, command.getJSONArray("unset-property").length());
+    assertFalse(command.getJSONArray("unset-property").toList().contains("updateHandler.autoCommit.maxTime"));
+  }
+
+  @Test
+  public void testReplicaRemoved() {
+    final BulkLoadSettings settings = new BulkLoadSettings("collection", null);
+
+    settings.replicaRemoved("shard1", Replica.Type.NRT);
+    settings.replicaRemoved("shard2", Replica.Type.TLOG);
+    settings.replicaRemoved("shard1", Replica.Type.PULL);
+
+    final Map<String, List<Replica.Type>> removed = settings.getRemovedReplicas();
+    assertEquals(2, removed.size());
+    assertEquals(Arrays.asList(Replica.Type.NRT, Replica.Type.PULL), removed.get("shard1"));
+    assertEquals(Arrays.asList(Replica.Type.TLOG), removed.get("shard2"));
+    assertEquals("collection", settings.getCollectionName());
+  }
+}
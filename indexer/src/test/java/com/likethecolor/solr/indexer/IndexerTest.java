@@ -0,0 +1,208 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.QueryRequest;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.SolrParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IndexerTest {
+  private static final String ALIAS = "products";
+  private static final String OLD_COLLECTION = "products_20181021013000";
+  private static final String NEW_COLLECTION = "products_20181022013000";
+
+  private CloudSolrClient solr;
+  private Configuration configuration;
+  private List<String> actions;
+  private long docCount;
+
+  @Before
+  public void setUp() throws Exception {
+    configuration = new Configuration();
+    configuration.setCollectionName(ALIAS);
+    configuration.setRebuild(true);
+    actions = new ArrayList<>();
+    docCount = 10;
+    solr = mock(CloudSolrClient.class);
+    when(solr.request(any(SolrRequest.class), nullable(String.class))).thenAnswer(new Answer<NamedList<Object>>() {
+      @Override
+      public NamedList<Object> answer(final InvocationOnMock invocation) {
+        final SolrRequest request = invocation.getArgument(0);
+        final NamedList<Object> response = new NamedList<>();
+        if(request instanceof QueryRequest) {
+          final SolrDocumentList results = new SolrDocumentList();
+          results.setNumFound(docCount);
+          response.add("response", results);
+        }
+        else if(request instanceof CollectionAdminRequest.ListAliases) {
+          response.add("aliases", Collections.singletonMap(ALIAS, OLD_COLLECTION));
+        }
+        else {
+          final String action = request.getParams().get("action").toLowerCase();
+          final String name = request.getParams().get("name");
+          actions.add(action + " " + (name == null ? request.getParams().get("collections") : name));
+        }
+        return response;
+      }
+    });
+    when(solr.query(anyString(), any(SolrParams.class))).thenCallRealMethod();
+  }
+
+  @Test
+  public void testFinishRebuild() {
+    assertTrue(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, true));
+
+    assertEquals(Collections.singletonList("createalias " + ALIAS), actions);
+  }
+
+  @Test
+  public void testFinishRebuild_DeleteOld() {
+    configuration.setRebuildDeleteOld(true);
+
+    assertTrue(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, true));
+
+    assertEquals(2, actions.size());
+    assertEquals("createalias " + ALIAS, actions.get(0));
+    assertEquals("delete " + OLD_COLLECTION, actions.get(1));
+  }
+
+  @Test
+  public void testFinishRebuild_CountMismatch() {
+    docCount = 9;
+
+    assertFalse(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, true));
+
+    assertEquals(Collections.singletonList("delete " + NEW_COLLECTION), actions);
+  }
+
+  @Test
+  public void testFinishRebuild_MissingWithinMax() {
+    configuration.setRebuildMaxMissingDocs(1L);
+    docCount = 9;
+
+    assertTrue(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, true));
+
+    assertEquals(Collections.singletonList("createalias " + ALIAS), actions);
+  }
+
+  @Test
+  public void testFinishRebuild_MoreThanIndexed() {
+    configuration.setRebuildMaxMissingDocs(5L);
+    docCount = 11;
+
+    assertFalse(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, true));
+
+    assertEquals(Collections.singletonList("delete " + NEW_COLLECTION), actions);
+  }
+
+  @Test
+  public void testFinishRebuild_IndexingFailed() {
+    configuration.setRebuildDeleteOld(true);
+
+    assertFalse(new Indexer().finishRebuild(configuration, solr, NEW_COLLECTION, 10, false));
+
+    assertEquals(Collections.singletonList("delete " + NEW_COLLECTION), actions);
+  }
+
+  @Test
+  public void testCheckInPlaceFields() {
+    configuration.setRebuild(false);
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields("price");
+    configuration.setInplaceIncrementFields("stock");
+
+    Indexer.checkInPlaceFields(configuration, new HashSet<>(Arrays.asList("price", "stock", "rating")));
+  }
+
+  @Test
+  public void testCheckInPlaceFields_NotUpdatable() {
+    configuration.setRebuild(false);
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields("price;title");
+    configuration.setInplaceIncrementFields("stock");
+
+    try {
+      Indexer.checkInPlaceFields(configuration, new HashSet<>(Arrays.asList("price", "rating")));
+      fail("expected IllegalArgumentException");
+    }
+    catch(IllegalArgumentException e) {
+      assertTrue(e.getMessage().endsWith("[stock, title]"));
+    }
+  }
+
+  @Test
+  public void testShutdownHook() throws Exception {
+    final CountDownLatch indexed = new CountDownLatch(1);
+    final Thread shutdownHook = new Indexer().getShutdownHook(indexed);
+
+    shutdownHook.start();
+    shutdownHook.join(200);
+    // waits for the whole run, not just the indexing
+    assertTrue(shutdownHook.isAlive());
+    indexed.countDown();
+    shutdownHook.join(5000);
+    assertFalse(shutdownHook.isAlive());
+  }
+
+  @Test
+  public void testUseShutdownHook() {
+    configuration.setRebuild(false);
+    assertFalse(Indexer.useShutdownHook(configuration));
+    configuration.setCheckpointFile("/tmp/checkpoint");
+    assertTrue(Indexer.useShutdownHook(configuration));
+    configuration.setCheckpointFile(null);
+    configuration.setBulkLoad(true);
+    assertTrue(Indexer.useShutdownHook(configuration));
+    configuration.setBulkLoad(false);
+    configuration.setRebuild(true);
+    assertTrue(Indexer.useShutdownHook(configuration));
+  }
+
+  @Test
+  public void testGetRebuildCollectionName() {
+    final String name = SolrJCloudClientFacet.getRebuildCollectionName(ALIAS, System.currentTimeMillis());
+
+    assertTrue(name.matches(ALIAS + "_\\d{14}"));
+  }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer;
+
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.ClusterStateProvider;
+import org.apache.solr.client.solrj.request.CollectionAdminRequest;
+import org.apache.solr.client.solrj.request.GenericSolrRequest;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.DocRouter;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.apache.solr.common.params.CollectionParams;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SolrJCloudClientFacetTest {
+  private CloudSolrClient solr;
+  private List<SolrRequest> requests;
+  private List<String> configCommands;
+  private String failOn;
+
+  @Before
+  public void setUp() throws Exception {
+    requests = new ArrayList<>();
+    configCommands = new ArrayList<>();
+    failOn = null;
+    solr = mock(CloudSolrClient.class);
+    when(solr.request(any(SolrRequest.class), nullable(String.class))).thenAnswer(new Answer<NamedList<Object>>() {
+      @Override
+      public NamedList<Object> answer(final InvocationOnMock invocation) throws Throwable {
+        final SolrRequest request = invocation.getArgument(0);
+        requests.add(request);
+        if(request.getPath().equals(failOn)) {
+          throw new IOException("failed " + failOn);
+        }
+        if(request instanceof GenericSolrRequest && request.getMethod() == SolrRequest.METHOD.POST) {
+          final ByteArrayOutputStream out = new ByteArrayOutputStream();
+          ((GenericSolrRequest) request).getContentWriter(null).write(out);
+          configCommands.add(out.toString("UTF-8"));
+        }
+        return new NamedList<>();
+      }
+    });
+    final ClusterStateProvider clusterStateProvider = mock(ClusterStateProvider.class);
+    when(clusterStateProvider.getCollection("collection1")).thenReturn(getDocCollection());
+    when(solr.getClusterStateProvider()).thenReturn(clusterStateProvider);
+  }
+
+  @Test
+  public void testBulkLoad() throws Exception {
+    final BulkLoadSettings settings = SolrJCloudClientFacet.getBulkLoadSettings(solr, "collection1");
+
+    SolrJCloudClientFacet.startBulkLoad(solr, settings);
+
+    assertEquals(settings.getIngestCommand(), configCommands.get(0));
+    // the leader of each shard is kept
+    final Map<String, List<Replica.Type>> removed = settings.getRemovedReplicas();
+    assertEquals(2, removed.size());
+    assertEquals(2, removed.get("shard1").size());
+    assertEquals(Replica.Type.TLOG, removed.get("shard1").get(0));
+    assertEquals(Replica.Type.PULL, removed.get("shard1").get(1));
+    assertEquals(1, removed.get("shard2").size());
+    assertEquals(3, countAction(CollectionParams.CollectionAction.DELETEREPLICA));
+
+    assertTrue(SolrJCloudClientFacet.endBulkLoad(solr, settings));
+
+    assertEquals(3, countAction(CollectionParams.CollectionAction.ADDREPLICA));
+    assertEquals(settings.getRestoreCommand(), configCommands.get(1));
+  }
+
+  @Test
+  public void testEndBulkLoad_Failure() throws Exception {
+    final BulkLoadSettings settings = SolrJCloudClientFacet.getBulkLoadSettings(solr, "collection1");
+    SolrJCloudClientFacet.startBulkLoad(solr, settings);
+    failOn = "/admin/collections";
+
+    assertFalse(SolrJCloudClientFacet.endBulkLoad(solr, settings));
+
+    // every replica is tried and the config is still put back
+    assertEquals(3, countAction(CollectionParams.CollectionAction.ADDREPLICA));
+    assertEquals(settings.getRestoreCommand(), configCommands.get(1));
+  }
+
+  @Test
+  public void testStartBulkLoad_Failure() throws Exception {
+    final BulkLoadSettings settings = SolrJCloudClientFacet.getBulkLoadSettings(solr, "collection1");
+    failOn = "/admin/collections";
+
+    try {
+      SolrJCloudClientFacet.startBulkLoad(solr, settings);
+    }
+    catch(IOException expected) {
+    }
+
+    // nothing was removed so there is nothing to add back
+    assertTrue(settings.getRemovedReplicas().isEmpty());
+    failOn = null;
+    assertTrue(SolrJCloudClientFacet.endBulkLoad(solr, settings));
+    assertEquals(0, countAction(CollectionParams.CollectionAction.ADDREPLICA));
+  }
+
+  @Test(expected = SolrServerException.class)
+  public void testCreateCollection_Failure() throws Exception {
+    final NamedList<Object> failure = new NamedList<>();
+    failure.add("host2:8983_solr", "could not create core");
+    final NamedList<Object> response = new NamedList<>();
+    response.add("failure", failure);
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    when(solr.request(any(SolrRequest.class), nullable(String.class))).thenReturn(response);
+
+    SolrJCloudClientFacet.createCollection(solr, "collection2", "conf", 2, 2);
+  }
+
+  @Test
+  public void testGetInPlaceUpdatableFields() {
+    final Map<String, String> typeClasses = new HashMap<>();
+    typeClasses.put("pint", "solr.IntPointField");
+    typeClasses.put("plong", "org.apache.solr.schema.LongPointField");
+    typeClasses.put("string", "solr.StrField");
+    final List<Map<String, Object>> fields = new ArrayList<>();
+    fields.add(getField("stock", "pint", false, false, true, false));
+    fields.add(getField("views", "plong", false, false, true, false));
+    fields.add(getField("price", "pint", true, false, true, false));
+    fields.add(getField("rating", "pint", false, true, true, false));
+    fields.add(getField("sizes", "pint", false, false, true, true));
+    fields.add(getField("count", "pint", false, false, false, false));
+    fields.add(getField("sku", "string", false, false, true, false));
+
+    final Set<String> updatableFields = SolrJCloudClientFacet.getInPlaceUpdatableFields(fields, typeClasses);
+
+    assertEquals(new HashSet<>(Arrays.asList("stock", "views")), updatableFields);
+  }
+
+  private static Map<String, Object> getField(final String name, final String type, final boolean indexed, final boolean stored, final boolean docValues, final boolean multiValued) {
+    final Map<String, Object> field = new HashMap<>();
+    field.put("name", name);
+    field.put("type", type);
+    field.put("indexed", indexed);
+    field.put("stored", stored);
+    field.put("docValues", docValues);
+    field.put("multiValued", multiValued);
+    return field;
+  }
+
+  private int countAction(final CollectionParams.CollectionAction action) {
+    int count = 0;
+    for(SolrRequest request : requests) {
+      if(request instanceof CollectionAdminRequest && action.toLower().equals(request.getParams().get("action").toLowerCase())) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static DocCollection getDocCollection() {
+    final Map<String, Slice> slices = new LinkedHashMap<>();
+    slices.put("shard1", getSlice("shard1", Replica.Type.NRT, Replica.Type.TLOG, Replica.Type.PULL));
+    slices.put("shard2", getSlice("shard2", Replica.Type.NRT, Replica.Type.NRT));
+    return new DocCollection("collection1", slices, new HashMap<String, Object>(), DocRouter.DEFAULT);
+  }
+
+  private static Slice getSlice(final String name, final Replica.Type... types) {
+    final Map<String, Replica> replicas = new LinkedHashMap<>();
+    for(int i = 0; i < types.length; i++) {
+      final Map<String, Object> replicaProps = new HashMap<>();
+      replicaProps.put("base_url", "http://host" + (i + 1) + ":8983/solr");
+      replicaProps.put("core", "collection1_" + name + "_replica_n" + (i + 1));
+      replicaProps.put("node_name", "host" + (i + 1) + ":8983_solr");
+      replicaProps.put("type", types[i].name());
+      if(i == 0) {
+        replicaProps.put("leader", "true");
+      }
+      final Replica replica = new Replica(name + "_core_node" + (i + 1), replicaProps);
+      replicas.put(replica.getName(), replica);
+    }
+    return new Slice(name, replicas, new HashMap<String, Object>());
+  }
+}
@@ -19,6 +19,8 @@ package com.likethecolor.solr.indexer.configuration;
 import com.likethecolor.solr.indexer.Constants;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -29,24 +31,64 @@ public class ConfigurationTest {
   public void testInitialState() {
     final Configuration configuration = new Configuration();
 
+    assertFalse(configuration.adaptiveConcurrency());
+    assertEquals(Constants.DEFAULT_BATCH_LINGER_MILLIS, configuration.getBatchLingerMillis().longValue());
+    assertEquals(Constants.DEFAULT_BATCH_MAX_BYTES, configuration.getBatchMaxBytes().longValue());
+    assertEquals(Constants.DEFAULT_BATCH_QUEUE_CAPACITY, configuration.getBatchQueueCapacity().intValue());
     assertEquals(Constants.DEFAULT_BATCH_SIZE, configuration.getBatchSize().intValue());
+    assertEquals(Constants.DEFAULT_BATCH_TARGET_LATENCY_MILLIS, configuration.getBatchTargetLatencyMillis().longValue());
+    assertEquals(Constants.DEFAULT_BUILDER_THREAD_COUNT, configuration.getBuilderThreadCount().intValue());
+    assertFalse(configuration.bulkLoad());
+    assertNull(configuration.getCheckpointFile());
     assertNull(configuration.getCollectionName());
+    assertEquals(Constants.DEFAULT_COMMIT_WITHIN_MILLIS, configuration.getCommitWithinMillis().intValue());
     assertEquals(Constants.DEFAULT_CSV_DELIMITER, configuration.getCsvDelimiter());
     assertEquals(Constants.DEFAULT_CSV_QUOTE_CHARACTER, configuration.getCsvQuoteCharacter());
+    assertEquals(Constants.DEFAULT_CSV_SPLIT_COUNT, configuration.getCsvSplitCount().intValue());
+    assertEquals(Constants.DEFAULT_DATA_FILE_ENCODING, configuration.getDataFileEncoding());
+    assertNull(configuration.getDeadLetterFile());
+    assertEquals(Constants.DEFAULT_DECOMPRESS_THREAD_COUNT, configuration.getDecompressThreadCount().intValue());
+    assertEquals(DocumentModeEnum.ATOMIC, configuration.getDocumentMode());
     assertNull(configuration.getDynamicFields());
     assertNull(configuration.getFields());
     assertFalse(configuration.firstRowIsHeader());
     assertFalse(configuration.help());
     assertNull(configuration.getFieldsToJSON());
+    assertNull(configuration.getInplaceFields());
+    assertNull(configuration.getInplaceIncrementFields());
+    assertNull(configuration.getJsonArrayPath());
+    assertEquals(Constants.DEFAULT_JSON_SPLIT_COUNT, configuration.getJsonSplitCount().intValue());
     assertNull(configuration.getLiterals());
+    assertEquals(Constants.DEFAULT_MAX_SLEEP_MILLIS_BETWEEN_RETRIES, configuration.getMaxSleepMillisBetweenRetries().longValue());
+    assertEquals(Constants.DEFAULT_MAX_THREAD_COUNT, configuration.getMaxThreadCount().intValue());
+    assertEquals(Constants.DEFAULT_MIN_THREAD_COUNT, configuration.getMinThreadCount().intValue());
     assertEquals(Constants.DEFAULT_MULTIVALUE_FIELD_DELIMITER, configuration.getMultivalueFieldDelimiter());
+    assertFalse(configuration.noOverwrite());
     assertFalse(configuration.optimizeIndex());
+    assertEquals(Constants.DEFAULT_OPTIMIZE_MAX_SEGMENTS, configuration.getOptimizeMaxSegments().intValue());
     assertNull(configuration.getPathToDataFile());
     assertNull(configuration.getPathToPropertiesFile());
+    assertFalse(configuration.preSerializeBatches());
+    assertEquals(Constants.DEFAULT_READER_THREAD_COUNT, configuration.getReaderThreadCount().intValue());
+    assertFalse(configuration.rebuild());
+    assertNull(configuration.getRebuildConfigset());
+    assertFalse(configuration.rebuildDeleteOld());
+    assertEquals(0L, configuration.getRebuildMaxMissingDocs().longValue());
+    assertEquals(Constants.DEFAULT_REBUILD_REPLICATION_FACTOR, configuration.getRebuildReplicationFactor().intValue());
+    assertEquals(Constants.DEFAULT_REBUILD_SHARD_COUNT, configuration.getRebuildShardCount().intValue());
+    assertFalse(configuration.resume());
+    assertEquals(Constants.DEFAULT_RETRY_BUFFER_BYTES, configuration.getRetryBufferBytes().longValue());
     assertEquals(Constants.DEFAULT_RETRY_COUNT, configuration.getRetryCount().intValue());
+    assertEquals(Constants.DEFAULT_ROW_QUEUE_CAPACITY, configuration.getRowQueueCapacity().intValue());
+    assertFalse(configuration.shardRouting());
     assertNull(configuration.getSkipFields());
+    assertFalse(configuration.skipUpdateResponseParsing());
     assertEquals(Constants.DEFAULT_SLEEP_MILLIS_BETWEEN_RETRIES, configuration.getSleepMillisBetweenRetries().longValue());
     assertEquals(Configuration.DEFAULT_SOFT_COMMIT_FREQUENCY, configuration.getSoftCommitFrequency().longValue());
+    assertEquals(Constants.DEFAULT_SOFT_COMMIT_INTERVAL_MILLIS, configuration.getSoftCommitIntervalMillis().longValue());
+    assertFalse(configuration.streamingUpdates());
+    assertEquals(Constants.DEFAULT_STREAM_MAX_DOCS, configuration.getStreamMaxDocs().intValue());
+    assertEquals(Constants.DEFAULT_STREAM_MAX_MILLIS, configuration.getStreamMaxMillis().longValue());
     assertEquals(Constants.DEFAULT_THREAD_COUNT, configuration.getThreadCount().intValue());
     assertEquals(Constants.DEFAULT_UNIQUE_KEY_FIELD_NAME, configuration.getUniqueKeyFieldName());
     assertNull(configuration.getUniqueKeyFieldValue());
@@ -57,6 +99,24 @@ public class ConfigurationTest {
     assertFalse(configuration.hasUniqueKeyFieldValue());
   }
 
+  @Test
+  public void testAdaptiveConcurrency() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setAdaptiveConcurrency(true);
+
+    assertTrue(configuration.adaptiveConcurrency());
+
+    configuration.setAdaptiveConcurrency(false);
+
+    assertFalse(configuration.adaptiveConcurrency());
+
+    configuration.setAdaptiveConcurrency(true);
+    configuration.setAdaptiveConcurrency(null);
+
+    assertFalse(configuration.adaptiveConcurrency());
+  }
+
   @Test
   public void testBatchSize() {
     Integer batchSize = 200;
@@ -78,6 +138,44 @@ public class ConfigurationTest {
     assertEquals(-100, configuration.getBatchSize().intValue());
   }
 
+  @Test
+  public void testBulkLoad() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setBulkLoad(true);
+
+    assertTrue(configuration.bulkLoad());
+
+    configuration.setBulkLoad(false);
+
+    assertFalse(configuration.bulkLoad());
+
+    configuration.setBulkLoad(true);
+    configuration.setBulkLoad(null);
+
+    assertFalse(configuration.bulkLoad());
+  }
+
+  @Test
+  public void testCheckpointFile() {
+    final String checkpointFile = "/tmp/indexer.checkpoint";
+    final Configuration configuration = new Configuration();
+
+    configuration.setCheckpointFile(checkpointFile);
+
+    assertEquals(checkpointFile, configuration.getCheckpointFile());
+
+    // should trim
+    configuration.setCheckpointFile("\t  " + checkpointFile + " \r\n");
+
+    assertEquals(checkpointFile, configuration.getCheckpointFile());
+
+    // empty should set the value to null
+    configuration.setCheckpointFile("\t   \r\n  \n");
+
+    assertNull(configuration.getCheckpointFile());
+  }
+
   @Test
   public void testCollectionName() {
     final String collectionName = "wa-en-collection-100";
@@ -112,6 +210,27 @@ public class ConfigurationTest {
     assertEquals("", configuration.getCollectionName());
   }
 
+  @Test
+  public void testCommitWithinMillis() {
+    Integer commitWithinMillis = 15000;
+    final Configuration configuration = new Configuration();
+
+    configuration.setCommitWithinMillis(commitWithinMillis);
+
+    assertEquals(commitWithinMillis, configuration.getCommitWithinMillis());
+
+    // null || < 0 will set the value to 0
+    configuration.setCommitWithinMillis(commitWithinMillis);
+    configuration.setCommitWithinMillis(-1);
+
+    assertEquals(0, configuration.getCommitWithinMillis().intValue());
+
+    configuration.setCommitWithinMillis(commitWithinMillis);
+    configuration.setCommitWithinMillis(null);
+
+    assertEquals(0, configuration.getCommitWithinMillis().intValue());
+  }
+
   @Test
   public void testCsvDelimiter() {
     final char csvDelimiter = ',';
@@ -144,6 +263,124 @@ public class ConfigurationTest {
     assertEquals('\0', configuration.getCsvQuoteCharacter());
   }
 
+  @Test
+  public void testCsvSplitCount() {
+    Integer csvSplitCount = 8;
+    final Configuration configuration = new Configuration();
+
+    configuration.setCsvSplitCount(csvSplitCount);
+
+    assertEquals(csvSplitCount, configuration.getCsvSplitCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setCsvSplitCount(csvSplitCount);
+    configuration.setCsvSplitCount(0);
+
+    assertEquals(1, configuration.getCsvSplitCount().intValue());
+
+    configuration.setCsvSplitCount(csvSplitCount);
+    configuration.setCsvSplitCount(null);
+
+    assertEquals(1, configuration.getCsvSplitCount().intValue());
+  }
+
+  @Test
+  public void testDataFileEncoding() {
+    final String dataFileEncoding = "ISO-8859-1";
+    final Configuration configuration = new Configuration();
+
+    configuration.setDataFileEncoding(dataFileEncoding);
+
+    assertEquals(dataFileEncoding, configuration.getDataFileEncoding());
+    assertEquals(StandardCharsets.ISO_8859_1, configuration.getDataFileCharset());
+
+    // value should be trimmed
+    configuration.setDataFileEncoding(" " + dataFileEncoding + " ");
+
+    assertEquals(dataFileEncoding, configuration.getDataFileEncoding());
+
+    // empty string or null will set the value to the default
+    configuration.setDataFileEncoding(dataFileEncoding);
+    configuration.setDataFileEncoding(" ");
+
+    assertEquals(Constants.DEFAULT_DATA_FILE_ENCODING, configuration.getDataFileEncoding());
+
+    configuration.setDataFileEncoding(dataFileEncoding);
+    configuration.setDataFileEncoding(null);
+
+    assertEquals(Constants.DEFAULT_DATA_FILE_ENCODING, configuration.getDataFileEncoding());
+    assertEquals(StandardCharsets.UTF_8, configuration.getDataFileCharset());
+  }
+
+  @Test
+  public void testDeadLetterFile() {
+    final String deadLetterFile = "/tmp/dead-letter.ndjson";
+    final Configuration configuration = new Configuration();
+
+    configuration.setDeadLetterFile(deadLetterFile);
+
+    assertEquals(deadLetterFile, configuration.getDeadLetterFile());
+
+    // should trim
+    configuration.setDeadLetterFile("\t  " + deadLetterFile + " \r\n");
+
+    assertEquals(deadLetterFile, configuration.getDeadLetterFile());
+
+    // empty should set the value to null
+    configuration.setDeadLetterFile("\t   \r\n  \n");
+
+    assertNull(configuration.getDeadLetterFile());
+  }
+
+  @Test
+  public void testDecompressThreadCount() {
+    Integer decompressThreadCount = 4;
+    final Configuration configuration = new Configuration();
+
+    configuration.setDecompressThreadCount(decompressThreadCount);
+
+    assertEquals(decompressThreadCount, configuration.getDecompressThreadCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setDecompressThreadCount(decompressThreadCount);
+    configuration.setDecompressThreadCount(0);
+
+    assertEquals(1, configuration.getDecompressThreadCount().intValue());
+
+    configuration.setDecompressThreadCount(decompressThreadCount);
+    configuration.setDecompressThreadCount(null);
+
+    assertEquals(1, configuration.getDecompressThreadCount().intValue());
+  }
+
+  @Test
+  public void testDocumentMode() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setDocumentMode("full");
+
+    assertEquals(DocumentModeEnum.FULL, configuration.getDocumentMode());
+
+    configuration.setDocumentMode("INPLACE");
+
+    assertEquals(DocumentModeEnum.INPLACE, configuration.getDocumentMode());
+
+    configuration.setDocumentMode("atomic");
+
+    assertEquals(DocumentModeEnum.ATOMIC, configuration.getDocumentMode());
+
+    // null || unknown will set the value to atomic
+    configuration.setDocumentMode("full");
+    configuration.setDocumentMode("unknown");
+
+    assertEquals(DocumentModeEnum.ATOMIC, configuration.getDocumentMode());
+
+    configuration.setDocumentMode("full");
+    configuration.setDocumentMode(null);
+
+    assertEquals(DocumentModeEnum.ATOMIC, configuration.getDocumentMode());
+  }
+
   @Test
   public void testDynamicFields() {
     final String dynamicFields = "field0=com.likethecolor.solr.dynamic.MyClass(arg0,arg1)";
@@ -288,6 +525,97 @@ public class ConfigurationTest {
     assertEquals("", configuration.getFieldsToJSON());
   }
 
+  @Test
+  public void testInplaceFields() {
+    final String value = "price;stock";
+    final String value2 = "price";
+    final Configuration configuration = new Configuration();
+
+    configuration.setInplaceFields(value);
+
+    assertEquals(value, configuration.getInplaceFields());
+
+    configuration.setInplaceFields(value2);
+
+    assertEquals(value2, configuration.getInplaceFields());
+
+    // should trim
+    configuration.setInplaceFields("\t  " + value + " \r\n");
+
+    assertEquals(value, configuration.getInplaceFields());
+
+    // empty should set the value to null
+    configuration.setInplaceFields("\t   \r\n  \n");
+
+    assertNull(configuration.getInplaceFields());
+  }
+
+  @Test
+  public void testInplaceIncrementFields() {
+    final String value = "stock";
+    final String value2 = "stock;views";
+    final Configuration configuration = new Configuration();
+
+    configuration.setInplaceIncrementFields(value);
+
+    assertEquals(value, configuration.getInplaceIncrementFields());
+
+    configuration.setInplaceIncrementFields(value2);
+
+    assertEquals(value2, configuration.getInplaceIncrementFields());
+
+    // should trim
+    configuration.setInplaceIncrementFields("\t  " + value + " \r\n");
+
+    assertEquals(value, configuration.getInplaceIncrementFields());
+
+    // empty should set the value to null
+    configuration.setInplaceIncrementFields("\t   \r\n  \n");
+
+    assertNull(configuration.getInplaceIncrementFields());
+  }
+
+  @Test
+  public void testJsonArrayPath() {
+    final String jsonArrayPath = "response.docs";
+    final Configuration configuration = new Configuration();
+
+    configuration.setJsonArrayPath(jsonArrayPath);
+
+    assertEquals(jsonArrayPath, configuration.getJsonArrayPath());
+
+    // should trim
+    configuration.setJsonArrayPath("\t  " + jsonArrayPath + " \r\n");
+
+    assertEquals(jsonArrayPath, configuration.getJsonArrayPath());
+
+    // empty should set the value to null
+    configuration.setJsonArrayPath("\t   \r\n  \n");
+
+    assertNull(configuration.getJsonArrayPath());
+  }
+
+  @Test
+  public void testJsonSplitCount() {
+    Integer jsonSplitCount = 8;
+    final Configuration configuration = new Configuration();
+
+    configuration.setJsonSplitCount(jsonSplitCount);
+
+    assertEquals(jsonSplitCount, configuration.getJsonSplitCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setJsonSplitCount(jsonSplitCount);
+    configuration.setJsonSplitCount(0);
+
+    assertEquals(1, configuration.getJsonSplitCount().intValue());
+
+    configuration.setJsonSplitCount(jsonSplitCount);
+    configuration.setJsonSplitCount(null);
+
+    assertEquals(1, configuration.getJsonSplitCount().intValue());
+  }
+
   @Test
   public void testLiterals() {
     final String literals = "type:string:site;type_sort:int:4";
@@ -322,6 +650,69 @@ public class ConfigurationTest {
     assertEquals("", configuration.getLiterals());
   }
 
+  @Test
+  public void testMaxSleepMillisBetweenRetries() {
+    Long maxSleepMillisBetweenRetries = 30000L;
+    final Configuration configuration = new Configuration();
+
+    configuration.setMaxSleepMillisBetweenRetries(maxSleepMillisBetweenRetries);
+
+    assertEquals(maxSleepMillisBetweenRetries, configuration.getMaxSleepMillisBetweenRetries());
+
+    // null || < 0 will set the value to 0
+    configuration.setMaxSleepMillisBetweenRetries(maxSleepMillisBetweenRetries);
+    configuration.setMaxSleepMillisBetweenRetries(-1L);
+
+    assertEquals(0L, configuration.getMaxSleepMillisBetweenRetries().longValue());
+
+    configuration.setMaxSleepMillisBetweenRetries(maxSleepMillisBetweenRetries);
+    configuration.setMaxSleepMillisBetweenRetries(null);
+
+    assertEquals(0L, configuration.getMaxSleepMillisBetweenRetries().longValue());
+  }
+
+  @Test
+  public void testMaxThreadCount() {
+    Integer maxThreadCount = 10;
+    final Configuration configuration = new Configuration();
+
+    configuration.setMaxThreadCount(maxThreadCount);
+
+    assertEquals(maxThreadCount, configuration.getMaxThreadCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setMaxThreadCount(maxThreadCount);
+    configuration.setMaxThreadCount(0);
+
+    assertEquals(1, configuration.getMaxThreadCount().intValue());
+
+    configuration.setMaxThreadCount(maxThreadCount);
+    configuration.setMaxThreadCount(null);
+
+    assertEquals(1, configuration.getMaxThreadCount().intValue());
+  }
+
+  @Test
+  public void testMinThreadCount() {
+    Integer minThreadCount = 10;
+    final Configuration configuration = new Configuration();
+
+    configuration.setMinThreadCount(minThreadCount);
+
+    assertEquals(minThreadCount, configuration.getMinThreadCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setMinThreadCount(minThreadCount);
+    configuration.setMinThreadCount(0);
+
+    assertEquals(1, configuration.getMinThreadCount().intValue());
+
+    configuration.setMinThreadCount(minThreadCount);
+    configuration.setMinThreadCount(null);
+
+    assertEquals(1, configuration.getMinThreadCount().intValue());
+  }
+
   @Test
   public void testMultivalueFieldMultivalueFieldDelimiter() {
     final String multivalueFieldDelimiter = ",";
@@ -358,6 +749,24 @@ public class ConfigurationTest {
     assertEquals(multivalueFieldDelimiterWithWhiteSpace, configuration.getMultivalueFieldDelimiter());
   }
 
+  @Test
+  public void testNoOverwrite() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setNoOverwrite(true);
+
+    assertTrue(configuration.noOverwrite());
+
+    configuration.setNoOverwrite(false);
+
+    assertFalse(configuration.noOverwrite());
+
+    configuration.setNoOverwrite(true);
+    configuration.setNoOverwrite(null);
+
+    assertFalse(configuration.noOverwrite());
+  }
+
   @Test
   public void testOptimizeIndex() {
     final Configuration configuration = new Configuration();
@@ -376,6 +785,27 @@ public class ConfigurationTest {
     assertFalse(configuration.optimizeIndex());
   }
 
+  @Test
+  public void testOptimizeMaxSegments() {
+    Integer optimizeMaxSegments = 4;
+    final Configuration configuration = new Configuration();
+
+    configuration.setOptimizeMaxSegments(optimizeMaxSegments);
+
+    assertEquals(optimizeMaxSegments, configuration.getOptimizeMaxSegments());
+
+    // null || <= 0 will set the value to 1
+    configuration.setOptimizeMaxSegments(optimizeMaxSegments);
+    configuration.setOptimizeMaxSegments(0);
+
+    assertEquals(1, configuration.getOptimizeMaxSegments().intValue());
+
+    configuration.setOptimizeMaxSegments(optimizeMaxSegments);
+    configuration.setOptimizeMaxSegments(null);
+
+    assertEquals(1, configuration.getOptimizeMaxSegments().intValue());
+  }
+
   @Test
   public void testPathToDataFile() {
     final String pathToDataFile = "/path/to/data/file.csv";
@@ -410,6 +840,24 @@ public class ConfigurationTest {
     assertEquals("", configuration.getPathToDataFile());
   }
 
+  @Test
+  public void testPreSerializeBatches() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setPreSerializeBatches(true);
+
+    assertTrue(configuration.preSerializeBatches());
+
+    configuration.setPreSerializeBatches(false);
+
+    assertFalse(configuration.preSerializeBatches());
+
+    configuration.setPreSerializeBatches(true);
+    configuration.setPreSerializeBatches(null);
+
+    assertFalse(configuration.preSerializeBatches());
+  }
+
   @Test
   public void testPropertiesFile() {
     final String propertyFile = "file.properties";
@@ -444,6 +892,187 @@ public class ConfigurationTest {
     assertEquals("", configuration.getPathToPropertiesFile());
   }
 
+  @Test
+  public void testReaderThreadCount() {
+    Integer readerThreadCount = 4;
+    final Configuration configuration = new Configuration();
+
+    configuration.setReaderThreadCount(readerThreadCount);
+
+    assertEquals(readerThreadCount, configuration.getReaderThreadCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setReaderThreadCount(readerThreadCount);
+    configuration.setReaderThreadCount(0);
+
+    assertEquals(1, configuration.getReaderThreadCount().intValue());
+
+    configuration.setReaderThreadCount(readerThreadCount);
+    configuration.setReaderThreadCount(null);
+
+    assertEquals(1, configuration.getReaderThreadCount().intValue());
+  }
+
+  @Test
+  public void testRebuild() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuild(true);
+
+    assertTrue(configuration.rebuild());
+
+    configuration.setRebuild(false);
+
+    assertFalse(configuration.rebuild());
+
+    configuration.setRebuild(true);
+    configuration.setRebuild(null);
+
+    assertFalse(configuration.rebuild());
+  }
+
+  @Test
+  public void testRebuildConfigset() {
+    final String rebuildConfigset = "products";
+    final String rebuildConfigset2 = "products_v2";
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuildConfigset(rebuildConfigset);
+
+    assertEquals(rebuildConfigset, configuration.getRebuildConfigset());
+
+    // should trim
+    configuration.setRebuildConfigset("\t  " + rebuildConfigset2 + " \r\n");
+
+    assertEquals(rebuildConfigset2, configuration.getRebuildConfigset());
+
+    // empty string should set the value to null
+    configuration.setRebuildConfigset(rebuildConfigset);
+    configuration.setRebuildConfigset("\t   \r\n  \n");
+
+    assertNull(configuration.getRebuildConfigset());
+  }
+
+  @Test
+  public void testRebuildDeleteOld() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuildDeleteOld(true);
+
+    assertTrue(configuration.rebuildDeleteOld());
+
+    configuration.setRebuildDeleteOld(false);
+
+    assertFalse(configuration.rebuildDeleteOld());
+
+    configuration.setRebuildDeleteOld(true);
+    configuration.setRebuildDeleteOld(null);
+
+    assertFalse(configuration.rebuildDeleteOld());
+  }
+
+  @Test
+  public void testRebuildReplicationFactor() {
+    Integer rebuildReplicationFactor = 2;
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuildReplicationFactor(rebuildReplicationFactor);
+
+    assertEquals(rebuildReplicationFactor, configuration.getRebuildReplicationFactor());
+
+    // null || <= 0 will set the value to 1
+    configuration.setRebuildReplicationFactor(rebuildReplicationFactor);
+    configuration.setRebuildReplicationFactor(0);
+
+    assertEquals(1, configuration.getRebuildReplicationFactor().intValue());
+
+    configuration.setRebuildReplicationFactor(rebuildReplicationFactor);
+    configuration.setRebuildReplicationFactor(null);
+
+    assertEquals(1, configuration.getRebuildReplicationFactor().intValue());
+  }
+
+  @Test
+  public void testRebuildShardCount() {
+    Integer rebuildShardCount = 4;
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuildShardCount(rebuildShardCount);
+
+    assertEquals(rebuildShardCount, configuration.getRebuildShardCount());
+
+    // null || <= 0 will set the value to 1
+    configuration.setRebuildShardCount(rebuildShardCount);
+    configuration.setRebuildShardCount(0);
+
+    assertEquals(1, configuration.getRebuildShardCount().intValue());
+
+    configuration.setRebuildShardCount(rebuildShardCount);
+    configuration.setRebuildShardCount(null);
+
+    assertEquals(1, configuration.getRebuildShardCount().intValue());
+  }
+
+  @Test
+  public void testRebuildMaxMissingDocs() {
+    Long rebuildMaxMissingDocs = 10L;
+    final Configuration configuration = new Configuration();
+
+    configuration.setRebuildMaxMissingDocs(rebuildMaxMissingDocs);
+
+    assertEquals(rebuildMaxMissingDocs, configuration.getRebuildMaxMissingDocs());
+
+    // null || < 0 will set the value to 0
+    configuration.setRebuildMaxMissingDocs(rebuildMaxMissingDocs);
+    configuration.setRebuildMaxMissingDocs(-1L);
+
+    assertEquals(0L, configuration.getRebuildMaxMissingDocs().longValue());
+
+    configuration.setRebuildMaxMissingDocs(rebuildMaxMissingDocs);
+    configuration.setRebuildMaxMissingDocs(null);
+
+    assertEquals(0L, configuration.getRebuildMaxMissingDocs().longValue());
+  }
+
+  @Test
+  public void testResume() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setResume(true);
+
+    assertTrue(configuration.resume());
+
+    configuration.setResume(false);
+
+    assertFalse(configuration.resume());
+
+    configuration.setResume(true);
+    configuration.setResume(null);
+
+    assertFalse(configuration.resume());
+  }
+
+  @Test
+  public void testRetryBufferBytes() {
+    Long retryBufferBytes = 1024L;
+    final Configuration configuration = new Configuration();
+
+    configuration.setRetryBufferBytes(retryBufferBytes);
+
+    assertEquals(retryBufferBytes, configuration.getRetryBufferBytes());
+
+    // null || < 0 will set the value to 0
+    configuration.setRetryBufferBytes(retryBufferBytes);
+    configuration.setRetryBufferBytes(-1L);
+
+    assertEquals(0L, configuration.getRetryBufferBytes().longValue());
+
+    configuration.setRetryBufferBytes(retryBufferBytes);
+    configuration.setRetryBufferBytes(null);
+
+    assertEquals(0L, configuration.getRetryBufferBytes().longValue());
+  }
+
   @Test
   public void testRetryCount() {
     Integer retryCount = 10;
@@ -470,6 +1099,24 @@ public class ConfigurationTest {
     assertEquals(Constants.DEFAULT_RETRY_COUNT, configuration.getRetryCount().intValue());
   }
 
+  @Test
+  public void testShardRouting() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setShardRouting(true);
+
+    assertTrue(configuration.shardRouting());
+
+    configuration.setShardRouting(false);
+
+    assertFalse(configuration.shardRouting());
+
+    configuration.setShardRouting(true);
+    configuration.setShardRouting(null);
+
+    assertFalse(configuration.shardRouting());
+  }
+
   @Test
   public void testSkipFields() {
     final String skipFields = "create_datetime;update_datetime;country;currency;language;mobile";
@@ -504,6 +1151,24 @@ public class ConfigurationTest {
     assertEquals("", configuration.getSkipFields());
   }
 
+  @Test
+  public void testSkipUpdateResponseParsing() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setSkipUpdateResponseParsing(true);
+
+    assertTrue(configuration.skipUpdateResponseParsing());
+
+    configuration.setSkipUpdateResponseParsing(false);
+
+    assertFalse(configuration.skipUpdateResponseParsing());
+
+    configuration.setSkipUpdateResponseParsing(true);
+    configuration.setSkipUpdateResponseParsing(null);
+
+    assertFalse(configuration.skipUpdateResponseParsing());
+  }
+
   @Test
   public void testSleepMillisBetweenRetries() {
     Long sleepMillisBetweenRetries = 5000L;
@@ -543,6 +1208,81 @@ public class ConfigurationTest {
     assertEquals(softCommitFrequency, configuration.getSoftCommitFrequency().longValue());
   }
 
+  @Test
+  public void testSoftCommitIntervalMillis() {
+    Long softCommitIntervalMillis = 60000L;
+    final Configuration configuration = new Configuration();
+
+    configuration.setSoftCommitIntervalMillis(softCommitIntervalMillis);
+
+    assertEquals(softCommitIntervalMillis, configuration.getSoftCommitIntervalMillis());
+
+    // null || < 0 will set the value to 0
+    configuration.setSoftCommitIntervalMillis(softCommitIntervalMillis);
+    configuration.setSoftCommitIntervalMillis(-1L);
+
+    assertEquals(0L, configuration.getSoftCommitIntervalMillis().longValue());
+
+    configuration.setSoftCommitIntervalMillis(softCommitIntervalMillis);
+    configuration.setSoftCommitIntervalMillis(null);
+
+    assertEquals(0L, configuration.getSoftCommitIntervalMillis().longValue());
+  }
+
+  @Test
+  public void testStreamingUpdates() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setStreamingUpdates(true);
+
+    assertTrue(configuration.streamingUpdates());
+
+    configuration.setStreamingUpdates(false);
+
+    assertFalse(configuration.streamingUpdates());
+
+    configuration.setStreamingUpdates(true);
+    configuration.setStreamingUpdates(null);
+
+    assertFalse(configuration.streamingUpdates());
+  }
+
+  @Test
+  public void testStreamMaxDocs() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setStreamMaxDocs(10);
+
+    assertEquals(10, configuration.getStreamMaxDocs().intValue());
+
+    // null || <= 0 will set the value to 1
+    configuration.setStreamMaxDocs(0);
+
+    assertEquals(1, configuration.getStreamMaxDocs().intValue());
+
+    configuration.setStreamMaxDocs(null);
+
+    assertEquals(1, configuration.getStreamMaxDocs().intValue());
+  }
+
+  @Test
+  public void testStreamMaxMillis() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setStreamMaxMillis(10L);
+
+    assertEquals(10L, configuration.getStreamMaxMillis().longValue());
+
+    // null || <= 0 will set the value to 1
+    configuration.setStreamMaxMillis(-5L);
+
+    assertEquals(1L, configuration.getStreamMaxMillis().longValue());
+
+    configuration.setStreamMaxMillis(null);
+
+    assertEquals(1L, configuration.getStreamMaxMillis().longValue());
+  }
+
   @Test
   public void testThreadCount() {
     Integer threadCount = 10;
@@ -801,27 +1541,107 @@ public class ConfigurationTest {
     final String uniqueKeyFieldValueDelimiter = "-";
     final Integer zookeeperClientConnectTimeout = 250;
     final Integer zookeeperEnsembleConnectTimeout = 200;
+    final Integer builderThreadCount = 6;
+    final Integer rowQueueCapacity = 5000;
+    final Integer batchQueueCapacity = 8;
+    final Long batchMaxBytes = 1048576L;
+    final Long batchLingerMillis = 250L;
+    final Long batchTargetLatencyMillis = 500L;
+    final Boolean adaptiveConcurrency = true;
+    final Integer maxThreadCount = 32;
+    final Integer minThreadCount = 2;
+    final Boolean shardRouting = true;
+    final Boolean streamingUpdates = true;
+    final Integer streamMaxDocs = 5000;
+    final Long streamMaxMillis = 10000L;
+    final Boolean preSerializeBatches = true;
+    final Boolean skipUpdateResponseParsing = true;
+    final String deadLetterFile = "/tmp/dead-letter.ndjson";
+    final Long maxSleepMillisBetweenRetries = 30000L;
+    final Long retryBufferBytes = 1024L;
+    final String checkpointFile = "/tmp/indexer.checkpoint";
+    final Boolean resume = true;
+    final Long softCommitIntervalMillis = 60000L;
+    final Integer commitWithinMillis = 15000;
+    final Integer optimizeMaxSegments = 4;
+    final Boolean bulkLoad = true;
+    final Boolean rebuild = true;
+    final String rebuildConfigset = "products";
+    final Boolean rebuildDeleteOld = true;
+    final Long rebuildMaxMissingDocs = 5L;
+    final Integer rebuildReplicationFactor = 2;
+    final Integer rebuildShardCount = 4;
+    final String documentMode = "full";
+    final String inplaceFields = "price;stock";
+    final String inplaceIncrementFields = "views";
+    final Boolean noOverwrite = true;
+    final Integer readerThreadCount = 4;
+    final Integer csvSplitCount = 8;
+    final Integer jsonSplitCount = 8;
+    final String dataFileEncoding = "ISO-8859-1";
+    final Integer decompressThreadCount = 4;
+    final String jsonArrayPath = "response.docs";
 
     final String expectedString = new StringBuilder()
-        .append("batch size: ").append(batchSize)
+        .append("adaptive concurrency: ").append(adaptiveConcurrency)
+        .append("; batch linger millis: ").append(batchLingerMillis)
+        .append("; batch max bytes: ").append(batchMaxBytes)
+        .append("; batch queue capacity: ").append(batchQueueCapacity)
+        .append("; batch size: ").append(batchSize)
+        .append("; batch target latency millis: ").append(batchTargetLatencyMillis)
+        .append("; builder thread count: ").append(builderThreadCount)
+        .append("; bulk load: ").append(bulkLoad)
+        .append("; checkpoint file: ").append(checkpointFile)
         .append("; collection name: ").append(collectionName)
+        .append("; commit within millis: ").append(commitWithinMillis)
         .append("; csv delimiter: ").append(csvDelimiter)
         .append("; csv quote character: ").append(csvQuoteCharacter)
+        .append("; csv split count: ").append(csvSplitCount)
+        .append("; data file encoding: ").append(dataFileEncoding)
         .append("; data type: ").append(dataType)
+        .append("; dead letter file: ").append(deadLetterFile)
+        .append("; decompress thread count: ").append(decompressThreadCount)
+        .append("; document mode: ").append(documentMode)
         .append("; dynamic fields: ").append(dynamicFields)
         .append("; fields: ").append(fields)
         .append("; fields to json: ").append(fieldsToJson)
         .append("; first row is header: true")
         .append("; help: false")
+        .append("; inplace fields: ").append(inplaceFields)
+        .append("; inplace increment fields: ").append(inplaceIncrementFields)
+        .append("; json array path: ").append(jsonArrayPath)
+        .append("; json split count: ").append(jsonSplitCount)
         .append("; literals: ").append(literals)
+        .append("; max sleep millis between retries: ").append(maxSleepMillisBetweenRetries)
+        .append("; max thread count: ").append(maxThreadCount)
+        .append("; min thread count: ").append(minThreadCount)
         .append("; multi-value field delimiter: ").append(multivalueFieldDelimiter)
+        .append("; no overwrite: ").append(noOverwrite)
         .append("; optimize index: true")
+        .append("; optimize max segments: ").append(optimizeMaxSegments)
         .append("; path to data file: ").append(pathToDataFile)
+        .append("; pre-serialize batches: ").append(preSerializeBatches)
         .append("; property file: ").append(propertyFile)
+        .append("; reader thread count: ").append(readerThreadCount)
+        .append("; rebuild: ").append(rebuild)
+        .append("; rebuild configset: ").append(rebuildConfigset)
+        .append("; rebuild delete old: ").append(rebuildDeleteOld)
+        .append("; rebuild max missing docs: ").append(rebuildMaxMissingDocs)
+        .append("; rebuild replication factor: ").append(rebuildReplicationFactor)
+        .append("; rebuild shard count: ").append(rebuildShardCount)
+        .append("; resume: ").append(resume)
+        .append("; retry buffer bytes: ").append(retryBufferBytes)
         .append("; retry count: ").append(retryCount)
+        .append("; row queue capacity: ").append(rowQueueCapacity)
+        .append("; shard routing: ").append(shardRouting)
         .append("; skip fields: ").append(skipFields)
+        .append("; skip update response parsing: ").append(skipUpdateResponseParsing)
         .append("; sleep millis between retries: ").append(sleepMillisBetweenRetries)
         .append("; soft commit frequency: ").append(softCommitFrequency)
+        .append("; soft commit interval millis: ").append(softCommitIntervalMillis)
+        .append("; stream max docs: ").append(streamMaxDocs)
+        .append("; stream max millis: ").append(streamMaxMillis)
+        .append("; streaming updates: ").append(streamingUpdates)
         .append("; thread count: ").append(threadCount)
         .append("; unique key field name: ").append(uniqueKeyFieldName)
         .append("; unique key field value: ").append(uniqueKeyFieldValue)
@@ -856,6 +1676,46 @@ public class ConfigurationTest {
     configuration.setZookeeperHost(zookeeper);
     configuration.setZookeeperClientConnectTimeout(zookeeperClientConnectTimeout);
     configuration.setZookeeperEnsembleConnectTimeout(zookeeperEnsembleConnectTimeout);
+    configuration.setBuilderThreadCount(builderThreadCount);
+    configuration.setRowQueueCapacity(rowQueueCapacity);
+    configuration.setBatchQueueCapacity(batchQueueCapacity);
+    configuration.setBatchMaxBytes(batchMaxBytes);
+    configuration.setBatchLingerMillis(batchLingerMillis);
+    configuration.setBatchTargetLatencyMillis(batchTargetLatencyMillis);
+    configuration.setAdaptiveConcurrency(adaptiveConcurrency);
+    configuration.setMaxThreadCount(maxThreadCount);
+    configuration.setMinThreadCount(minThreadCount);
+    configuration.setShardRouting(shardRouting);
+    configuration.setStreamingUpdates(streamingUpdates);
+    configuration.setStreamMaxDocs(streamMaxDocs);
+    configuration.setStreamMaxMillis(streamMaxMillis);
+    configuration.setPreSerializeBatches(preSerializeBatches);
+    configuration.setSkipUpdateResponseParsing(skipUpdateResponseParsing);
+    configuration.setDeadLetterFile(deadLetterFile);
+    configuration.setMaxSleepMillisBetweenRetries(maxSleepMillisBetweenRetries);
+    configuration.setRetryBufferBytes(retryBufferBytes);
+    configuration.setCheckpointFile(checkpointFile);
+    configuration.setResume(resume);
+    configuration.setSoftCommitIntervalMillis(softCommitIntervalMillis);
+    configuration.setCommitWithinMillis(commitWithinMillis);
+    configuration.setOptimizeMaxSegments(optimizeMaxSegments);
+    configuration.setBulkLoad(bulkLoad);
+    configuration.setRebuild(rebuild);
+    configuration.setRebuildConfigset(rebuildConfigset);
+    configuration.setRebuildDeleteOld(rebuildDeleteOld);
+    configuration.setRebuildMaxMissingDocs(rebuildMaxMissingDocs);
+    configuration.setRebuildReplicationFactor(rebuildReplicationFactor);
+    configuration.setRebuildShardCount(rebuildShardCount);
+    configuration.setDocumentMode(documentMode);
+    configuration.setInplaceFields(inplaceFields);
+    configuration.setInplaceIncrementFields(inplaceIncrementFields);
+    configuration.setNoOverwrite(noOverwrite);
+    configuration.setReaderThreadCount(readerThreadCount);
+    configuration.setCsvSplitCount(csvSplitCount);
+    configuration.setJsonSplitCount(jsonSplitCount);
+    configuration.setDataFileEncoding(dataFileEncoding);
+    configuration.setDecompressThreadCount(decompressThreadCount);
+    configuration.setJsonArrayPath(jsonArrayPath);
 
     assertEquals(expectedString, configuration.toString());
   }
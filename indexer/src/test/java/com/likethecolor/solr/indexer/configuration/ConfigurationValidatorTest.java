@@ -154,6 +154,17 @@ public class ConfigurationValidatorTest {
     assertTrue(true);
   }
 
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_FAST_CSV_FIELDS_MISSING() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_FAST_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testValidate_JSON_FIELDS_TO_JSON_MISSING() {
     Configuration configuration = new Configuration();
@@ -164,4 +175,183 @@ public class ConfigurationValidatorTest {
     new ConfigurationValidator().validate(configuration);
     assertTrue(true);
   }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_ResumeWithoutCheckpointFile() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setResume(true);
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test
+  public void testValidate_ResumeWithCheckpointFile() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setResume(true);
+    configuration.setCheckpointFile("/var/foo/file.checkpoint");
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_RebuildWithoutConfigset() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setRebuild(true);
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_UnsupportedDataFileEncoding() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setDataFileEncoding("no such encoding");
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_InvalidJSONPath() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFieldsToJSON("sku:items[0].sku");
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test
+  public void testValidate_JSONArray() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON_ARRAY);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFieldsToJSON(FIELDS_TO_JSON);
+    configuration.setJsonArrayPath("response.docs");
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_JSONArrayPathWithoutJSONArray() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFieldsToJSON(FIELDS_TO_JSON);
+    configuration.setJsonArrayPath("response.docs");
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_InvalidJSONArrayPath() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON_ARRAY);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFieldsToJSON(FIELDS_TO_JSON);
+    configuration.setJsonArrayPath("response.docs[*]");
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_RebuildWithResume() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setRebuild(true);
+    configuration.setRebuildConfigset("products");
+    configuration.setResume(true);
+    configuration.setCheckpointFile("/var/foo/file.checkpoint");
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test
+  public void testValidate_RebuildWithConfigset() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setRebuild(true);
+    configuration.setRebuildConfigset("products");
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_NoOverwriteWithAtomic() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setNoOverwrite(true);
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test
+  public void testValidate_NoOverwriteWithFull() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_FULL);
+    configuration.setNoOverwrite(true);
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testValidate_InplaceWithoutFields() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+
+    new ConfigurationValidator().validate(configuration);
+  }
+
+  @Test
+  public void testValidate_InplaceWithIncrementFields() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToPropertiesFile(PATH_TO_PROPERTIES_FILE);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setFields(FIELDS);
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceIncrementFields("stock");
+
+    new ConfigurationValidator().validate(configuration);
+    assertTrue(true);
+  }
 }
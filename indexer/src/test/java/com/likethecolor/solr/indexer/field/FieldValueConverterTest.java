@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.field;
+
+import org.junit.Test;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.util.CsvContext;
+
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class FieldValueConverterTest {
+  private static final CsvContext CONTEXT = new CsvContext(1, 1, 1);
+
+  @Test
+  public void testConvert() throws Exception {
+    assertEquals(12, FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.INTEGER), null).convert("12"));
+    assertEquals(12L, FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.LONG), null).convert("12"));
+    assertEquals(1.5d, FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.DOUBLE), null).convert("1.5"));
+    assertEquals(" a ", FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.STRING), null).convert(" a "));
+    assertNull(FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.CALCULATED), null).convert("a"));
+    assertNull(FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.INTEGER), null).convert(null));
+
+    final FieldDefinition date = getFieldDefinition(FieldTypeEnum.DATETIME);
+    date.setDateFormat("yyyy-MM-dd HH:mm:ss");
+    final FieldValueConverter converter = FieldValueConverter.forField(date, null);
+    final Date expected = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").parse("2014-03-30 22:33:44");
+    // the format is used again and again
+    assertEquals(expected, converter.convert(" 2014-03-30 22:33:44 "));
+    assertEquals(expected, converter.convert("2014-03-30 22:33:44"));
+    assertNull(converter.convert("xx-aaaa-12312"));
+  }
+
+  @Test
+  public void testConvert_Multivalued() {
+    // the delimiter is taken as it is - not as a regular expression - and
+    // the values must be those String#split gives for the quoted delimiter
+    final String[] delimiters = {"\u0002", "|", ", ", "\\s*;\\s*", ".", ""};
+    final String[] values = {"one", "", "a\u0002b\u0002c", "\u0002a\u0002\u0002b\u0002\u0002", "\u0002\u0002", "a|b||", "|", "a, b,c, ", "a ; b;c ;", "abc"};
+    for(String delimiter : delimiters) {
+      final FieldValueConverter converter = FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.ARRAY), delimiter);
+      for(String value : values) {
+        assertEquals("'" + delimiter + "' '" + value + "'", Arrays.asList(value.split(Pattern.quote(delimiter))), converter.convert(value));
+      }
+    }
+    assertEquals(Arrays.asList("a", "b", "", "c"), FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.ARRAY), "|").convert("a|b||c"));
+
+    assertNull(FieldValueConverter.forField(getFieldDefinition(FieldTypeEnum.ARRAY), null).convert("a"));
+  }
+
+  @Test
+  public void testExecute() {
+    final FieldDefinition fieldDefinition = getFieldDefinition(FieldTypeEnum.LONG);
+    final CellProcessor processor = FieldValueConverter.forField(fieldDefinition, null);
+
+    assertEquals(12L, (Object) processor.execute("12", CONTEXT));
+    assertNull(processor.execute(null, CONTEXT));
+    assertNull(processor.execute(" ", CONTEXT));
+    // already converted
+    final List<String> list = Collections.singletonList("a");
+    assertSame(list, processor.execute(list, CONTEXT));
+
+    // a value that cannot be converted is the field definition's value
+    assertNull(processor.execute("x", CONTEXT));
+    fieldDefinition.setValue(-1L);
+    assertEquals(-1L, (Object) processor.execute("x", CONTEXT));
+  }
+
+  private static FieldDefinition getFieldDefinition(final FieldTypeEnum type) {
+    final FieldDefinition fieldDefinition = new FieldDefinition();
+    fieldDefinition.setName("field");
+    fieldDefinition.setType(type);
+    return fieldDefinition;
+  }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BatchDispatcherTest {
+  private ExecutorService executor;
+  private List<SolrjUpdateResponse> completed;
+  private BatchDispatcher.Listener listener;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    completed = new CopyOnWriteArrayList<>();
+    listener = new BatchDispatcher.Listener() {
+      @Override
+      public void batchCompleted(final SolrjUpdateResponse response) {
+        completed.add(response);
+      }
+    };
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void testDispatch() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(2);
+    final BatchDispatcher dispatcher = new BatchDispatcher(executor, limiter, listener);
+
+    for(int i = 0; i < 10; i++) {
+      dispatcher.dispatch(getService(i, 10));
+    }
+    dispatcher.awaitCompletion();
+
+    assertEquals(10, completed.size());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  public void testDispatch_NeverMoreThanLimitInFlight() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(2);
+    final int[] maxInFlight = new int[1];
+    final BatchDispatcher dispatcher = new BatchDispatcher(executor, limiter, listener);
+
+    for(int i = 0; i < 10; i++) {
+      dispatcher.dispatch(new Callable<SolrjUpdateResponse>() {
+        @Override
+        public SolrjUpdateResponse call() throws Exception {
+          synchronized(maxInFlight) {
+            maxInFlight[0] = Math.max(maxInFlight[0], limiter.getInFlight());
+          }
+          Thread.sleep(5);
+          return new SolrjUpdateResponse();
+        }
+      });
+    }
+    dispatcher.awaitCompletion();
+
+    assertTrue(maxInFlight[0] <= 2);
+  }
+
+  @Test
+  public void testDispatch_FailureRethrown() throws Exception {
+    final BatchDispatcher dispatcher = new BatchDispatcher(executor, new InFlightLimiter(1), listener);
+
+    dispatcher.dispatch(new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() throws Exception {
+        throw new InterruptedException("too many attempts with too many failures");
+      }
+    });
+    try {
+      dispatcher.awaitCompletion();
+      fail("expected ExecutionException");
+    }
+    catch(ExecutionException e) {
+      assertTrue(e.getCause() instanceof InterruptedException);
+    }
+    try {
+      dispatcher.dispatch(getService(1, 0));
+      fail("expected ExecutionException");
+    }
+    catch(ExecutionException expected) {
+    }
+    assertEquals(0, completed.size());
+  }
+
+  private Callable<SolrjUpdateResponse> getService(final int docSize, final long sleepMillis) {
+    return new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() throws Exception {
+        Thread.sleep(sleepMillis);
+        final SolrjUpdateResponse response = new SolrjUpdateResponse();
+        response.setDocSize(docSize);
+        response.setUpdateSucceeded(true);
+        return response;
+      }
+    };
+  }
+}
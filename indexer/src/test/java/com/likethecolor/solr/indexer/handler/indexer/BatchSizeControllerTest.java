@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BatchSizeControllerTest {
+  @Test
+  public void testFixed() {
+    final BatchSizeController controller = new BatchSizeController(1024 * 1024, 0);
+
+    assertFalse(controller.isAdaptive());
+    controller.record(1024 * 1024, 10000);
+    assertEquals(1024 * 1024, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testNoByteTarget() {
+    final BatchSizeController controller = new BatchSizeController(0, 0);
+
+    assertEquals(0, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testFromConfiguration() {
+    final Configuration configuration = new Configuration();
+    configuration.setBatchMaxBytes(4L * 1024 * 1024);
+    configuration.setBatchTargetLatencyMillis(500L);
+
+    final BatchSizeController controller = BatchSizeController.fromConfiguration(configuration);
+
+    assertTrue(controller.isAdaptive());
+    assertEquals(4L * 1024 * 1024, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testSlowRequestsShrinkTarget() {
+    final long maxBytes = 4L * 1024 * 1024;
+    final BatchSizeController controller = new BatchSizeController(maxBytes, 500);
+
+    // twice as slow as wanted
+    controller.record(maxBytes, 1000);
+    final long afterOne = controller.getTargetBytes();
+    assertTrue(afterOne < maxBytes);
+    // damped - only part of the way to half
+    assertTrue(afterOne > maxBytes / 2);
+
+    for(int i = 0; i < 100; i++) {
+      controller.record(controller.getTargetBytes(), 1000);
+    }
+    assertEquals(BatchSizeController.MIN_BYTES, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testFastRequestsGrowTargetUpToMax() {
+    final long maxBytes = 4L * 1024 * 1024;
+    final BatchSizeController controller = new BatchSizeController(maxBytes, 500);
+    for(int i = 0; i < 10; i++) {
+      controller.record(controller.getTargetBytes(), 2000);
+    }
+    final long shrunk = controller.getTargetBytes();
+
+    controller.record(shrunk, 100);
+    assertTrue(controller.getTargetBytes() > shrunk);
+
+    for(int i = 0; i < 100; i++) {
+      controller.record(controller.getTargetBytes(), 100);
+    }
+    assertEquals(maxBytes, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testSettlesOnTargetLatency() {
+    // solr handles 1MB in 100ms
+    final double millisPerByte = 100.0 / (1024 * 1024);
+    final BatchSizeController controller = new BatchSizeController(8L * 1024 * 1024, 200);
+    for(int i = 0; i < 200; i++) {
+      final long bytes = controller.getTargetBytes();
+      controller.record(bytes, Math.round(bytes * millisPerByte));
+    }
+
+    final long expected = 2L * 1024 * 1024;
+    assertTrue(Math.abs(controller.getTargetBytes() - expected) < expected / 20);
+  }
+
+  @Test
+  public void testDefaultMaxBytes() {
+    final BatchSizeController controller = new BatchSizeController(0, 500);
+
+    assertEquals(BatchSizeController.DEFAULT_ADAPTIVE_MAX_BYTES, controller.getTargetBytes());
+  }
+
+  @Test
+  public void testIgnoresEmptySamples() {
+    final BatchSizeController controller = new BatchSizeController(1024 * 1024, 500);
+
+    controller.record(0, 1000);
+    controller.record(1024, 0);
+
+    assertEquals(1024 * 1024, controller.getTargetBytes());
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointTest {
+  @Test
+  public void testWriteRead() throws Exception {
+    final File file = getFile("checkpoint");
+
+    new Checkpoint("/data/file.csv", "100-abc", 42, false).write(file);
+    final Checkpoint checkpoint = Checkpoint.read(file);
+
+    assertEquals("/data/file.csv", checkpoint.getDataFile());
+    assertEquals("100-abc", checkpoint.getFingerprint());
+    assertEquals(42, checkpoint.getLineNumber());
+    assertFalse(checkpoint.isComplete());
+    assertTrue(checkpoint.matches("/data/file.csv", "100-abc"));
+    assertFalse(checkpoint.matches("/data/file.csv", "100-abd"));
+    assertFalse(checkpoint.matches("/data/other.csv", "100-abc"));
+    assertFalse(new File(file.getPath() + ".tmp").exists());
+
+    // replaced, not appended to
+    new Checkpoint("/data/file.csv", "100-abc", 50, true).write(file);
+    assertEquals(50, Checkpoint.read(file).getLineNumber());
+    assertTrue(Checkpoint.read(file).isComplete());
+  }
+
+  @Test
+  public void testRead_NoFile() throws Exception {
+    final File file = getFile("checkpoint");
+    assertTrue(file.delete());
+
+    assertNull(Checkpoint.read(file));
+  }
+
+  @Test(expected = IOException.class)
+  public void testRead_NotACheckpoint() throws Exception {
+    final File file = getFile("checkpoint");
+    FileUtils.writeStringToFile(file, "line-number=abc\n", StandardCharsets.UTF_8);
+
+    Checkpoint.read(file);
+  }
+
+  @Test
+  public void testFingerprint() throws Exception {
+    final File file = getFile("data");
+    FileUtils.writeStringToFile(file, "id,name\n1,a\n", StandardCharsets.UTF_8);
+    final String fingerprint = Checkpoint.fingerprint(file);
+
+    assertEquals(fingerprint, Checkpoint.fingerprint(file));
+    assertTrue(fingerprint.startsWith(file.length() + "-"));
+
+    // same size, different content
+    FileUtils.writeStringToFile(file, "id,name\n2,a\n", StandardCharsets.UTF_8);
+    assertNotEquals(fingerprint, Checkpoint.fingerprint(file));
+  }
+
+  private File getFile(final String prefix) throws IOException {
+    final File file = File.createTempFile(prefix, ".tmp");
+    file.deleteOnExit();
+    return file;
+  }
+}
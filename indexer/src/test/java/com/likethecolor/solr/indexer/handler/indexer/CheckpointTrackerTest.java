@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.reader.ChunkedCSVDataReader;
+import org.junit.Test;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CheckpointTrackerTest {
+  @Test
+  public void testBatchesFinishOutOfOrder() {
+    final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), "/data/file.csv", "1-a", 1);
+    for(int line = 2; line <= 7; line++) {
+      tracker.rowRead(line);
+      tracker.rowBuilt(line, 1);
+    }
+    assertEquals(1, tracker.getLineNumber());
+
+    // the second batch finishes first
+    tracker.documentsDone(Arrays.asList(5, 6));
+    assertEquals(1, tracker.getLineNumber());
+
+    tracker.documentsDone(Arrays.asList(2, 3, 4));
+    assertEquals(6, tracker.getLineNumber());
+
+    tracker.documentsDone(Collections.singletonList(7));
+    assertEquals(7, tracker.getLineNumber());
+  }
+
+  @Test
+  public void testRowsWithoutDocuments() {
+    final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), "/data/file.csv", "1-a", 0);
+    tracker.rowRead(1);
+    tracker.rowRead(2);
+    tracker.rowRead(3);
+
+    // a row that is read but not yet built holds the checkpoint back
+    tracker.rowBuilt(2, 0);
+    assertEquals(0, tracker.getLineNumber());
+
+    tracker.rowBuilt(1, 0);
+    assertEquals(2, tracker.getLineNumber());
+
+    tracker.rowBuilt(3, 2);
+    tracker.documentsDone(Arrays.asList(3, -1));
+    assertEquals(2, tracker.getLineNumber());
+    tracker.documentsDone(Collections.singletonList(3));
+    assertEquals(3, tracker.getLineNumber());
+  }
+
+  @Test
+  public void testRowsReadOutOfOrder() {
+    final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), "/data/file.csv", "1-a", 0);
+    // two parts of the file read at the same time - lines 1-3 and 4-6
+    tracker.setPartStartLineNumbers(Arrays.asList(0, 3));
+    tracker.rowRead(4, 0);
+    tracker.rowRead(1, 1);
+    tracker.rowRead(5, 1);
+    tracker.rowBuilt(4, 0);
+    tracker.rowBuilt(5, 0);
+    tracker.rowBuilt(1, 0);
+    assertEquals(1, tracker.getLineNumber());
+
+    // line 4 is done but lines 2 and 3 have not been read yet
+    tracker.rowRead(2, 2);
+    tracker.rowBuilt(2, 0);
+    assertEquals(2, tracker.getLineNumber());
+
+    tracker.rowRead(3, 5);
+    tracker.rowBuilt(3, 0);
+    assertEquals(5, tracker.getLineNumber());
+
+    tracker.rowRead(6, 6);
+    tracker.readThrough(Integer.MAX_VALUE);
+    tracker.rowBuilt(6, 0);
+    assertEquals(6, tracker.getLineNumber());
+  }
+
+  @Test
+  public void testRowsReadOutOfOrder_FinishedRowsLetGo() throws Exception {
+    final File dataFile = File.createTempFile("checkpoint", ".csv");
+    try {
+      final StringBuilder content = new StringBuilder("id,value\n");
+      for(int i = 1; i <= 20000; i++) {
+        content.append(i).append(",v").append(i).append('\n');
+      }
+      Files.write(dataFile.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+
+      final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), dataFile.getPath(), "1-a", 0);
+      final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(dataFile.getPath(), CsvPreference.STANDARD_PREFERENCE, 4, StandardCharsets.UTF_8);
+      try {
+        tracker.setPartStartLineNumbers(dataReader.getPartStartLineNumbers());
+        dataReader.getHeader(true);
+        final BitSet readLines = new BitSet();
+        int maxPendingRowCount = 0;
+        while(dataReader.read(new CellProcessor[2]) != null) {
+          final int line = dataReader.getLineNumber();
+          tracker.rowRead(line, dataReader.getReadThroughLineNumber());
+          maxPendingRowCount = Math.max(maxPendingRowCount, tracker.getPendingRowCount());
+          // a row finished in a later part is let go while the first part is
+          // still being read
+          tracker.rowBuilt(line, 0);
+          assertEquals(0, tracker.getPendingRowCount());
+          // every row up to the checkpoint has been read
+          readLines.set(line);
+          assertTrue(readLines.nextClearBit(2) > tracker.getLineNumber());
+        }
+        tracker.readThrough(dataReader.getReadThroughLineNumber());
+
+        assertEquals(1, maxPendingRowCount);
+        assertEquals(20001, tracker.getLineNumber());
+      }
+      finally {
+        dataReader.close();
+      }
+    }
+    finally {
+      assertTrue(dataFile.delete());
+    }
+  }
+
+  @Test
+  public void testWrite() throws Exception {
+    final File file = File.createTempFile("checkpoint", ".tmp");
+    file.deleteOnExit();
+    assertTrue(file.delete());
+    final CheckpointTracker tracker = new CheckpointTracker(file, "/data/file.csv", "1-a", 10);
+    tracker.rowRead(11);
+    tracker.rowBuilt(11, 0);
+
+    // written no more than once a second
+    tracker.writeIfDue();
+    assertFalse(file.exists());
+
+    tracker.write(true);
+    final Checkpoint checkpoint = Checkpoint.read(file);
+    assertEquals(11, checkpoint.getLineNumber());
+    assertEquals("/data/file.csv", checkpoint.getDataFile());
+    assertTrue(checkpoint.isComplete());
+  }
+}
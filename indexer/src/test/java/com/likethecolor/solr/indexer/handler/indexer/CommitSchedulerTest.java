@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CommitSchedulerTest {
+  private CommitScheduler scheduler;
+
+  @After
+  public void tearDown() {
+    if(scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testIsDue_Never() {
+    for(int i = 0; i < 10; i++) {
+      assertFalse(CommitScheduler.isDue(0, i));
+      assertFalse(CommitScheduler.isDue(-1001, i));
+    }
+  }
+
+  @Test
+  public void testIsDue_5() {
+    int due = 0;
+    for(int i = 0; i < 20; i++) {
+      if(CommitScheduler.isDue(5, i)) {
+        due++;
+      }
+    }
+
+    assertEquals(3, due);
+  }
+
+  @Test
+  public void testIsDue_23() {
+    int due = 0;
+    for(int i = 0; i < 1000; i++) {
+      if(CommitScheduler.isDue(23, i)) {
+        due++;
+      }
+    }
+
+    assertEquals(43, due);
+  }
+
+  @Test
+  public void testBatchCompleted() throws Exception {
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    scheduler = new CommitScheduler(solr, 2, 0);
+    scheduler.start();
+
+    scheduler.batchCompleted(1);
+    scheduler.close();
+
+    verify(solr, never()).commit(anyBoolean(), anyBoolean(), anyBoolean());
+    assertEquals(0, scheduler.getCommitCount());
+
+    scheduler = new CommitScheduler(solr, 2, 0);
+    scheduler.batchCompleted(2);
+    scheduler.close();
+
+    verify(solr, times(1)).commit(false, false, true);
+    assertEquals(1, scheduler.getCommitCount());
+  }
+
+  @Test
+  public void testBatchCompleted_DoesNotWait() throws Exception {
+    final CountDownLatch commitStarted = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    when(solr.commit(false, false, true)).thenAnswer(new Answer<UpdateResponse>() {
+      @Override
+      public UpdateResponse answer(final InvocationOnMock invocation) throws Throwable {
+        commitStarted.countDown();
+        release.await();
+        return new UpdateResponse();
+      }
+    });
+    scheduler = new CommitScheduler(solr, 1, 0);
+
+    scheduler.batchCompleted(1);
+    assertTrue(commitStarted.await(5, TimeUnit.SECONDS));
+    // the commit is still being made; these return straight away and are
+    // folded into a single commit
+    scheduler.batchCompleted(2);
+    scheduler.batchCompleted(3);
+    scheduler.batchCompleted(4);
+    release.countDown();
+    scheduler.close();
+
+    verify(solr, times(2)).commit(false, false, true);
+    assertEquals(2, scheduler.getCommitCount());
+  }
+
+  @Test
+  public void testInterval() throws Exception {
+    final CountDownLatch commits = new CountDownLatch(2);
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    when(solr.commit(false, false, true)).thenAnswer(new Answer<UpdateResponse>() {
+      @Override
+      public UpdateResponse answer(final InvocationOnMock invocation) {
+        commits.countDown();
+        return new UpdateResponse();
+      }
+    });
+    scheduler = new CommitScheduler(solr, 0, 10);
+    scheduler.start();
+
+    assertTrue(commits.await(5, TimeUnit.SECONDS));
+    scheduler.close();
+
+    verify(solr, atLeast(2)).commit(false, false, true);
+  }
+
+  @Test
+  public void testFromConfiguration() throws Exception {
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    final Configuration configuration = new Configuration();
+    configuration.setSoftCommitFrequency(3L);
+    scheduler = CommitScheduler.fromConfiguration(configuration, solr);
+
+    for(int i = 1; i <= 3; i++) {
+      scheduler.batchCompleted(i);
+    }
+    scheduler.close();
+
+    verify(solr, times(1)).commit(false, false, true);
+  }
+
+  @Test
+  public void testRequestSoftCommit_AfterClose() throws Exception {
+    final CloudSolrClient solr = mock(CloudSolrClient.class);
+    scheduler = new CommitScheduler(solr, 1, 0);
+    scheduler.close();
+
+    scheduler.requestSoftCommit("test");
+
+    verify(solr, never()).commit(anyBoolean(), anyBoolean(), anyBoolean());
+  }
+}
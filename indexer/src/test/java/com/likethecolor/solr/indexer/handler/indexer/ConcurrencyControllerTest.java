@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConcurrencyControllerTest {
+  @Test
+  public void testBounds() {
+    assertEquals(4, new ConcurrencyController(10, 2, 4).getLimiter().getLimit());
+    assertEquals(2, new ConcurrencyController(1, 2, 4).getLimiter().getLimit());
+
+    final ConcurrencyController controller = new ConcurrencyController(3, 0, -1);
+    assertEquals(1, controller.getMinLimit());
+    assertEquals(1, controller.getMaxLimit());
+    assertEquals(1, controller.getLimiter().getLimit());
+  }
+
+  @Test
+  public void testFromConfiguration() {
+    final Configuration configuration = new Configuration();
+    configuration.setThreadCount(3);
+    configuration.setMinThreadCount(2);
+    configuration.setMaxThreadCount(8);
+
+    final ConcurrencyController controller = ConcurrencyController.fromConfiguration(configuration);
+
+    assertEquals(3, controller.getLimiter().getLimit());
+    assertEquals(2, controller.getMinLimit());
+    assertEquals(8, controller.getMaxLimit());
+  }
+
+  @Test
+  public void testAdditiveIncrease() {
+    final ConcurrencyController controller = new ConcurrencyController(2, 1, 4);
+
+    // a full round at the current limit before going up by one
+    controller.attemptCompleted(success(100));
+    assertEquals(2, controller.getLimiter().getLimit());
+    controller.attemptCompleted(success(100));
+    assertEquals(3, controller.getLimiter().getLimit());
+
+    for(int i = 0; i < 3; i++) {
+      controller.attemptCompleted(success(100));
+    }
+    assertEquals(4, controller.getLimiter().getLimit());
+
+    // never past the max
+    for(int i = 0; i < 20; i++) {
+      controller.attemptCompleted(success(100));
+    }
+    assertEquals(4, controller.getLimiter().getLimit());
+  }
+
+  @Test
+  public void testMultiplicativeDecreaseOnOverload() {
+    final ConcurrencyController controller = new ConcurrencyController(8, 1, 8);
+    for(int i = 0; i < 8; i++) {
+      controller.attemptCompleted(success(100));
+    }
+
+    controller.attemptCompleted(failure(503, false));
+    assertEquals(4, controller.getLimiter().getLimit());
+
+    // requests sent before the cut do not cut again
+    controller.attemptCompleted(failure(429, false));
+    assertEquals(4, controller.getLimiter().getLimit());
+
+    for(int i = 0; i < 3; i++) {
+      controller.attemptCompleted(failure(500, false));
+    }
+    controller.attemptCompleted(failure(0, true));
+    assertEquals(2, controller.getLimiter().getLimit());
+  }
+
+  @Test
+  public void testOtherFailuresIgnored() {
+    final ConcurrencyController controller = new ConcurrencyController(4, 1, 8);
+
+    for(int i = 0; i < 10; i++) {
+      controller.attemptCompleted(failure(400, false));
+    }
+
+    assertEquals(4, controller.getLimiter().getLimit());
+  }
+
+  @Test
+  public void testDecreaseOnRisingLatency() {
+    final ConcurrencyController controller = new ConcurrencyController(4, 2, 4);
+    for(int i = 0; i < 4; i++) {
+      controller.attemptCompleted(success(100));
+    }
+
+    for(int i = 0; i < 20; i++) {
+      controller.attemptCompleted(success(1000));
+    }
+
+    // never below the min
+    assertEquals(2, controller.getLimiter().getLimit());
+  }
+
+  private SolrjUpdateResponse success(final long elapsedMillis) {
+    final UpdateResponse updateResponse = new UpdateResponse();
+    updateResponse.setResponse(new NamedList<Object>());
+    updateResponse.setElapsedTime(elapsedMillis);
+    final SolrjUpdateResponse response = new SolrjUpdateResponse();
+    response.setUpdateSucceeded(true);
+    response.setUpdateResponse(updateResponse);
+    return response;
+  }
+
+  private SolrjUpdateResponse failure(final int errorCode, final boolean timedOut) {
+    final SolrjUpdateResponse response = new SolrjUpdateResponse();
+    response.setUpdateSucceeded(false);
+    response.setErrorCode(errorCode);
+    response.setTimedOut(timedOut);
+    response.setUpdateResponse(new UpdateResponse());
+    return response;
+  }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.solr.common.SolrInputDocument;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeadLetterWriterTest {
+  @Test
+  public void testWrite() throws Exception {
+    final File file = getFile();
+    final DeadLetterWriter writer = new DeadLetterWriter(file.getPath());
+    final SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "1");
+    doc.addField("tags", Arrays.asList("a", "b"));
+    doc.addField("count", 3);
+
+    writer.write(doc, 7, 400, "bad value");
+    writer.write(doc, -1, 400, null);
+    writer.close();
+
+    assertEquals(2, writer.getCount());
+    final List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    final JSONObject json = new JSONObject(lines.get(0));
+    assertEquals(7, json.getInt("line"));
+    assertEquals(400, json.getInt("code"));
+    assertEquals("bad value", json.getString("error"));
+    assertEquals("1", json.getJSONObject("document").getString("id"));
+    assertEquals(2, json.getJSONObject("document").getJSONArray("tags").length());
+    assertEquals(3, json.getJSONObject("document").getInt("count"));
+    assertTrue(new JSONObject(lines.get(1)).isNull("error"));
+  }
+
+  @Test
+  public void testNoFileWhenNothingWritten() throws Exception {
+    final File file = getFile();
+    final DeadLetterWriter writer = new DeadLetterWriter(file.getPath());
+
+    writer.close();
+
+    assertEquals(0, writer.getCount());
+    assertFalse(file.exists());
+  }
+
+  @Test
+  public void testToJSON() {
+    final Date date = new Date(0);
+    final SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "1");
+    doc.addField("date", date);
+    final SolrInputDocument child = new SolrInputDocument();
+    child.addField("id", "1-1");
+    doc.addChildDocument(child);
+
+    final JSONObject json = DeadLetterWriter.toJSON(doc);
+
+    assertEquals(date.toString(), json.getString("date"));
+    assertEquals("1-1", json.getJSONArray("_childDocuments_").getJSONObject(0).getString("id"));
+  }
+
+  private File getFile() throws Exception {
+    final File file = File.createTempFile("dead-letter", ".ndjson");
+    file.deleteOnExit();
+    assertTrue(file.delete());
+    return file;
+  }
+}
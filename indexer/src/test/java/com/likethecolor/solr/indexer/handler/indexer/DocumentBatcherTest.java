@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentBatcherTest {
+  @Test
+  public void testMaxDocs() {
+    final DocumentBatcher batcher = new DocumentBatcher(2, 0, new BatchSizeController(0, 0));
+
+    assertFalse(batcher.add(doc("1")));
+    assertTrue(batcher.add(doc("2")));
+
+    final DocumentBatch batch = batcher.drain();
+    assertEquals(2, batch.size());
+    assertEquals(DocumentSizeEstimator.estimate(doc("1")) * 2, batch.getEstimatedBytes());
+    assertFalse(batcher.isFull());
+    assertEquals(0, batcher.drain().size());
+  }
+
+  @Test
+  public void testNullIgnored() {
+    final DocumentBatcher batcher = new DocumentBatcher(1, 0, new BatchSizeController(0, 0));
+
+    assertFalse(batcher.add(null));
+    assertEquals(0, batcher.drain().size());
+  }
+
+  @Test
+  public void testMaxBytes() {
+    final long docBytes = DocumentSizeEstimator.estimate(doc("1"));
+    final DocumentBatcher batcher = new DocumentBatcher(100, 0, new BatchSizeController(docBytes * 3, 0));
+
+    assertFalse(batcher.add(doc("1")));
+    assertFalse(batcher.add(doc("2")));
+    assertTrue(batcher.add(doc("3")));
+    assertEquals(3, batcher.drain().size());
+  }
+
+  @Test
+  public void testDocumentsAddedToList() {
+    final DocumentBatcher batcher = new DocumentBatcher(2, 0, new BatchSizeController(0, 0));
+
+    batcher.getDocuments().add(doc("1"));
+    batcher.getDocuments().add(doc("2"));
+
+    assertTrue(batcher.isFull());
+    assertEquals(DocumentSizeEstimator.estimate(doc("1")) * 2, batcher.drain().getEstimatedBytes());
+  }
+
+  @Test
+  public void testLineNumbers() {
+    final DocumentBatcher batcher = new DocumentBatcher(10, 0, new BatchSizeController(0, 0));
+
+    batcher.add(doc("1"), 2);
+    batcher.getDocuments().add(doc("2"));
+    batcher.getDocuments().add(doc("3"));
+    batcher.setLineNumber(5);
+    batcher.getDocuments().add(doc("4"));
+
+    final DocumentBatch batch = batcher.drain();
+    assertEquals(2, batch.getLineNumber(0));
+    assertEquals(5, batch.getLineNumber(1));
+    assertEquals(5, batch.getLineNumber(2));
+    assertEquals(-1, batch.getLineNumber(3));
+  }
+
+  @Test
+  public void testLinger() throws Exception {
+    final DocumentBatcher batcher = new DocumentBatcher(100, 20, new BatchSizeController(0, 0));
+    assertFalse(batcher.isLingering());
+
+    assertFalse(batcher.add(doc("1")));
+    assertTrue(batcher.isLingering());
+    assertTrue(batcher.getRemainingLingerNanos() > 0);
+
+    Thread.sleep(40);
+    assertEquals(0, batcher.getRemainingLingerNanos());
+    assertTrue(batcher.isFull());
+    assertEquals(1, batcher.drain().size());
+    assertFalse(batcher.isLingering());
+  }
+
+  private SolrInputDocument doc(final String id) {
+    final SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", id);
+    doc.addField("name", "name-" + id);
+    return doc;
+  }
+}
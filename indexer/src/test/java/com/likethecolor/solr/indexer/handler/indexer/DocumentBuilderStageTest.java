@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DocumentBuilderStageTest {
+  private SolrDocumentHandler handler;
+
+  @Before
+  public void setUp() {
+    final Configuration configuration = new Configuration();
+    configuration.setFields("id:string;name:string");
+    handler = new SolrDocumentHandler(configuration, null);
+  }
+
+  @Test
+  public void testCall() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    for(int i = 0; i < 5; i++) {
+      rowQueue.put(new DataRow(i + 1, Arrays.<Object>asList("id-" + i, "name-" + i)));
+    }
+    rowQueue.put(DataRow.END);
+
+    final long docCount = new DocumentBuilderStage(handler, rowQueue, batchQueue, 2).call();
+
+    assertEquals(5, docCount);
+    final List<DocumentBatch> batches = new ArrayList<>();
+    batchQueue.drainTo(batches);
+    assertEquals(4, batches.size());
+    assertEquals(2, batches.get(0).size());
+    assertEquals(2, batches.get(1).size());
+    // partial batch
+    assertEquals(1, batches.get(2).size());
+    assertEquals("id-4", batches.get(2).getDocuments().get(0).getFieldValue("id"));
+    assertSame(DocumentBuilderStage.END_OF_BATCHES, batches.get(3));
+  }
+
+  @Test
+  public void testCall_NoRows() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    rowQueue.put(DataRow.END);
+
+    assertEquals(0, new DocumentBuilderStage(handler, rowQueue, batchQueue, 2).call().longValue());
+    assertEquals(1, batchQueue.size());
+    assertSame(DocumentBuilderStage.END_OF_BATCHES, batchQueue.take());
+  }
+
+  @Test
+  public void testCall_BuildFailureStillEndsBatches() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    // one value for two fields
+    rowQueue.put(new DataRow(1, Arrays.<Object>asList("id-0")));
+    rowQueue.put(DataRow.END);
+
+    try {
+      new DocumentBuilderStage(handler, rowQueue, batchQueue, 2).call();
+      fail("expected IndexOutOfBoundsException");
+    }
+    catch(IndexOutOfBoundsException expected) {
+    }
+    assertSame(DocumentBuilderStage.END_OF_BATCHES, batchQueue.take());
+  }
+
+  @Test
+  public void testCall_BatchMaxBytes() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    for(int i = 0; i < 4; i++) {
+      rowQueue.put(new DataRow(i + 1, Arrays.<Object>asList("id-" + i, "name-" + i)));
+    }
+    rowQueue.put(DataRow.END);
+    // every document is bigger than one byte so each is its own batch
+    final DocumentBatcher batcher = new DocumentBatcher(100, 0, new BatchSizeController(1, 0));
+
+    assertEquals(4, new DocumentBuilderStage(handler, rowQueue, batchQueue, batcher, false, null).call().longValue());
+
+    assertEquals(5, batchQueue.size());
+    final DocumentBatch batch = batchQueue.take();
+    assertEquals(1, batch.size());
+    assertTrue(batch.getEstimatedBytes() > 0);
+  }
+
+  @Test
+  public void testCall_LingerSendsPartialBatch() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    rowQueue.put(new DataRow(1, Arrays.<Object>asList("id-0", "name-0")));
+    final DocumentBatcher batcher = new DocumentBatcher(100, 10, new BatchSizeController(0, 0));
+    final Thread builder = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          new DocumentBuilderStage(handler, rowQueue, batchQueue, batcher, false, null).call();
+        }
+        catch(Exception ignore) {
+        }
+      }
+    });
+    builder.start();
+    try {
+      // no END yet - the batch is sent because the linger time ran out
+      final DocumentBatch batch = batchQueue.poll(5, TimeUnit.SECONDS);
+      assertNotNull(batch);
+      assertEquals(1, batch.size());
+    }
+    finally {
+      rowQueue.put(DataRow.END);
+      builder.join(5000);
+    }
+    assertSame(DocumentBuilderStage.END_OF_BATCHES, batchQueue.take());
+  }
+
+  @Test
+  public void testCall_PreSerialize() throws Exception {
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final BlockingQueue<DocumentBatch> batchQueue = new ArrayBlockingQueue<>(10);
+    for(int i = 0; i < 3; i++) {
+      rowQueue.put(new DataRow(i + 1, Arrays.<Object>asList("id-" + i, "name-" + i)));
+    }
+    rowQueue.put(DataRow.END);
+    final DocumentBatcher batcher = new DocumentBatcher(2, 0, new BatchSizeController(0, 0));
+
+    assertEquals(3, new DocumentBuilderStage(handler, rowQueue, batchQueue, batcher, true, null).call().longValue());
+
+    final DocumentBatch batch = batchQueue.take();
+    assertNotNull(batch.getPayload());
+    assertEquals(batch.getPayload().length, batch.getEstimatedBytes());
+    assertEquals(2, JavabinBatchEncoderTest.decode(batch.getPayload()).size());
+  }
+}
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DocumentSizeEstimatorTest {
+  @Test
+  public void testNull() {
+    assertEquals(0, DocumentSizeEstimator.estimate(null));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertEquals(DocumentSizeEstimator.DOCUMENT_OVERHEAD, DocumentSizeEstimator.estimate(new SolrInputDocument()));
+  }
+
+  @Test
+  public void testFields() {
+    final SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", "abc");
+    doc.addField("count", 10);
+    doc.addField("date", new Date());
+
+    final long expected = DocumentSizeEstimator.DOCUMENT_OVERHEAD
+        + DocumentSizeEstimator.FIELD_OVERHEAD + "id".length() + "abc".length()
+        + DocumentSizeEstimator.FIELD_OVERHEAD + "count".length() + DocumentSizeEstimator.NUMBER_SIZE
+        + DocumentSizeEstimator.FIELD_OVERHEAD + "date".length() + DocumentSizeEstimator.NUMBER_SIZE;
+    assertEquals(expected, DocumentSizeEstimator.estimate(doc));
+  }
+
+  @Test
+  public void testGrowsWithValues() {
+    final SolrInputDocument small = new SolrInputDocument();
+    small.addField("tags", Arrays.asList("a"));
+    final SolrInputDocument large = new SolrInputDocument();
+    large.addField("tags", Arrays.asList("a", "b", "c"));
+
+    assertTrue(DocumentSizeEstimator.estimate(large) > DocumentSizeEstimator.estimate(small));
+  }
+
+  @Test
+  public void testAtomicUpdate() {
+    final SolrInputDocument plain = new SolrInputDocument();
+    plain.addField("name", "value");
+    final SolrInputDocument atomic = new SolrInputDocument();
+    atomic.addField("name", Collections.singletonMap("set", "value"));
+
+    assertEquals(DocumentSizeEstimator.estimate(plain) + DocumentSizeEstimator.FIELD_OVERHEAD + "set".length(), DocumentSizeEstimator.estimate(atomic));
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InFlightLimiterTest {
+  @Test
+  public void testInitialState() {
+    assertEquals(3, new InFlightLimiter(3).getLimit());
+    assertEquals(0, new InFlightLimiter(3).getInFlight());
+    // <= 0 sets the value to 1
+    assertEquals(1, new InFlightLimiter(0).getLimit());
+    assertEquals(1, new InFlightLimiter(-5).getLimit());
+  }
+
+  @Test
+  public void testAcquireRelease() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(2);
+
+    limiter.acquire();
+    limiter.acquire();
+    assertEquals(2, limiter.getInFlight());
+
+    limiter.release();
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  public void testAcquire_BlocksAtLimit() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(1);
+    limiter.acquire();
+
+    final CountDownLatch acquired = new CountDownLatch(1);
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire();
+          acquired.countDown();
+        }
+        catch(InterruptedException ignore) {
+        }
+      }
+    });
+    thread.start();
+
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.release();
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    assertEquals(1, limiter.getInFlight());
+  }
+
+  @Test
+  public void testSetLimit_RaisingWakesWaiters() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(1);
+    limiter.acquire();
+
+    final CountDownLatch acquired = new CountDownLatch(1);
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.acquire();
+          acquired.countDown();
+        }
+        catch(InterruptedException ignore) {
+        }
+      }
+    });
+    thread.start();
+
+    assertFalse(acquired.await(100, TimeUnit.MILLISECONDS));
+    limiter.setLimit(2);
+    assertTrue(acquired.await(5, TimeUnit.SECONDS));
+    assertEquals(2, limiter.getInFlight());
+  }
+
+  @Test
+  public void testAwaitIdle() throws Exception {
+    final InFlightLimiter limiter = new InFlightLimiter(2);
+    limiter.acquire();
+    limiter.acquire();
+
+    final CountDownLatch idle = new CountDownLatch(1);
+    final Thread thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          limiter.awaitIdle();
+          idle.countDown();
+        }
+        catch(InterruptedException ignore) {
+        }
+      }
+    });
+    thread.start();
+
+    limiter.release();
+    assertFalse(idle.await(100, TimeUnit.MILLISECONDS));
+    limiter.release();
+    assertTrue(idle.await(5, TimeUnit.SECONDS));
+  }
+}
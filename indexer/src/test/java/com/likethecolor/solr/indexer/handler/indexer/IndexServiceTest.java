@@ -15,21 +15,53 @@
  */
 package com.likethecolor.solr.indexer.handler.indexer;
 
+import com.likethecolor.solr.indexer.Constants;
 import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.solr.client.solrj.SolrRequest;
 import org.apache.solr.client.solrj.SolrServerException;
 import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.impl.HttpSolrClient;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.client.solrj.request.UpdateRequest;
 import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.UpdateParams;
+import org.apache.solr.common.util.ContentStream;
+import org.apache.solr.common.util.NamedList;
+import org.json.JSONObject;
 import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class IndexServiceTest {
   @Test
@@ -95,6 +127,308 @@ public class IndexServiceTest {
     assertEquals(cloudSolrServer.docs, docs);
   }
 
+  @Test
+  public void testCall_AttemptListener() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setRetryCount(2);
+    configuration.setSleepMillisBetweenRetries(0L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.add(anyCollection()))
+        .thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"))
+        .thenReturn(new UpdateResponse());
+    final List<SolrjUpdateResponse> attempts = new ArrayList<>();
+
+    final IndexService service = new IndexService(configuration, cloudSolrServer, getListOfDocs(3));
+    service.setAttemptListener(new IndexService.AttemptListener() {
+      @Override
+      public void attemptCompleted(SolrjUpdateResponse response) {
+        attempts.add(response);
+      }
+    });
+    service.call();
+
+    assertEquals(2, attempts.size());
+    assertFalse(attempts.get(0).isUpdateSucceeded());
+    assertEquals(503, attempts.get(0).getErrorCode());
+    assertTrue(attempts.get(1).isUpdateSucceeded());
+    assertEquals(0, attempts.get(1).getErrorCode());
+  }
+
+  @Test
+  public void testCall_Payload() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setSkipUpdateResponseParsing(true);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    final List<SolrRequest> requests = new ArrayList<>();
+    when(cloudSolrServer.request(any(SolrRequest.class), isNull())).thenAnswer(new Answer<NamedList<Object>>() {
+      @Override
+      public NamedList<Object> answer(InvocationOnMock invocation) {
+        requests.add((SolrRequest) invocation.getArgument(0));
+        return StatusOnlyResponseParser.getOkResponse();
+      }
+    });
+    final List<SolrInputDocument> docs = getListOfDocs(3);
+    final byte[] payload = JavabinBatchEncoder.encode(docs, 0);
+
+    final IndexService service = new IndexService(configuration, cloudSolrServer, docs);
+    service.setPayload(payload);
+    final SolrjUpdateResponse response = service.call();
+
+    assertTrue(response.isUpdateSucceeded());
+    assertEquals(3, response.getDocSize());
+    verify(cloudSolrServer, never()).add(anyCollection());
+    assertEquals(1, requests.size());
+    final ContentStreamUpdateRequest request = (ContentStreamUpdateRequest) requests.get(0);
+    assertTrue(request.getResponseParser() instanceof StatusOnlyResponseParser);
+    final ContentStream stream = request.getContentStreams().iterator().next();
+    assertEquals(JavabinBatchEncoder.CONTENT_TYPE, stream.getContentType());
+    assertEquals(docs.size(), JavabinBatchEncoderTest.decode(IOUtils.toByteArray(stream.getStream())).size());
+  }
+
+  @Test
+  public void testSetUpdateParams() {
+    final Configuration configuration = new Configuration();
+    final UpdateRequest request = new UpdateRequest();
+
+    IndexService.setUpdateParams(configuration, request);
+
+    assertEquals(-1, request.getCommitWithin());
+    assertNull(request.getParams());
+
+    configuration.setCommitWithinMillis(5000);
+    configuration.setDocumentMode("full");
+    configuration.setNoOverwrite(true);
+
+    IndexService.setUpdateParams(configuration, request);
+
+    assertEquals(5000, request.getCommitWithin());
+    assertEquals("false", request.getParams().get(UpdateParams.OVERWRITE));
+  }
+
+  @Test
+  public void testCall_IsolatesRejectedDocuments() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setRetryCount(3);
+    configuration.setSleepMillisBetweenRetries(0L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    final List<SolrInputDocument> indexed = new ArrayList<>();
+    when(cloudSolrServer.add(anyCollection())).thenAnswer(new Answer<UpdateResponse>() {
+      @Override
+      public UpdateResponse answer(InvocationOnMock invocation) {
+        final Collection<SolrInputDocument> batch = invocation.getArgument(0);
+        for(SolrInputDocument doc : batch) {
+          if(doc.containsKey("field3") || doc.containsKey("field6")) {
+            throw new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad value");
+          }
+        }
+        indexed.addAll(batch);
+        return new UpdateResponse();
+      }
+    });
+    final File file = File.createTempFile("dead-letter", ".ndjson");
+    file.deleteOnExit();
+    assertTrue(file.delete());
+    final DeadLetterWriter deadLetterWriter = new DeadLetterWriter(file.getPath());
+    final List<SolrInputDocument> docs = getListOfDocs(8);
+
+    final IndexService service = new IndexService(configuration, cloudSolrServer, docs);
+    service.setLineNumbers(Arrays.asList(11, 12, 13, 14, 15, 16, 17, 18));
+    service.setDeadLetterWriter(deadLetterWriter);
+    final SolrjUpdateResponse response = service.call();
+    deadLetterWriter.close();
+
+    assertTrue(response.isUpdateSucceeded());
+    assertEquals(6, response.getDocSize());
+    assertEquals(2, response.getDeadLetterCount());
+    assertEquals(6, indexed.size());
+    final List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+    assertEquals(2, lines.size());
+    assertEquals(14, new JSONObject(lines.get(0)).getInt("line"));
+    assertEquals(400, new JSONObject(lines.get(0)).getInt("code"));
+    assertEquals(6, new JSONObject(lines.get(1)).getJSONObject("document").getInt("field6"));
+  }
+
+  @Test(expected = InterruptedException.class)
+  public void testCall_RejectedThenUnavailable() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setRetryCount(2);
+    configuration.setSleepMillisBetweenRetries(0L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.add(anyCollection()))
+        .thenThrow(new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad value"))
+        .thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"));
+
+    new IndexService(configuration, cloudSolrServer, getListOfDocs(4)).call();
+  }
+
+  @Test
+  public void testCall_IncrementedBatchNotSentAgain() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceIncrementFields("stock");
+    configuration.setRetryCount(3);
+    configuration.setSleepMillisBetweenRetries(0L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.add(anyCollection())).thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"));
+    final File file = File.createTempFile("dead-letter", ".ndjson");
+    file.deleteOnExit();
+    assertTrue(file.delete());
+    final DeadLetterWriter deadLetterWriter = new DeadLetterWriter(file.getPath());
+
+    final IndexService service = new IndexService(configuration, cloudSolrServer, getListOfDocs(3));
+    service.setLineNumbers(Arrays.asList(11, 12, 13));
+    service.setDeadLetterWriter(deadLetterWriter);
+    final SolrjUpdateResponse response = service.call();
+    deadLetterWriter.close();
+
+    // solr may have applied the increments so the batch is not retried
+    verify(cloudSolrServer, times(1)).add(anyCollection());
+    assertTrue(response.isUpdateSucceeded());
+    assertEquals(3, response.getDeadLetterCount());
+    assertEquals(Arrays.asList(11, 12, 13), response.getLineNumbers());
+    final List<String> lines = FileUtils.readLines(file, StandardCharsets.UTF_8);
+    assertEquals(3, lines.size());
+    assertEquals(503, new JSONObject(lines.get(0)).getInt("code"));
+  }
+
+  @Test
+  public void testCall_NoOverwriteBatchNotSplit() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_FULL);
+    configuration.setNoOverwrite(true);
+    configuration.setRetryCount(3);
+    configuration.setSleepMillisBetweenRetries(0L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.request(any(SolrRequest.class), isNull())).thenThrow(new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad value"));
+
+    final SolrjUpdateResponse response = new IndexService(configuration, cloudSolrServer, getListOfDocs(4)).call();
+
+    // the documents before the bad one may have been added so the halves are
+    // not sent
+    verify(cloudSolrServer, times(1)).request(any(SolrRequest.class), isNull());
+    assertTrue(response.isUpdateSucceeded());
+    assertEquals(0, response.getDocSize());
+    assertEquals(4, response.getDeadLetterCount());
+  }
+
+  @Test
+  public void testIsRepeatable() {
+    final Configuration configuration = new Configuration();
+    assertTrue(IndexService.isRepeatable(configuration));
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields("price");
+    assertTrue(IndexService.isRepeatable(configuration));
+    configuration.setInplaceIncrementFields("stock");
+    assertFalse(IndexService.isRepeatable(configuration));
+    configuration.setRebuild(true);
+    assertTrue(IndexService.isRepeatable(configuration));
+    configuration.setNoOverwrite(true);
+    assertFalse(IndexService.isRepeatable(configuration));
+  }
+
+  @Test
+  public void testCall_RetryScheduler() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setRetryCount(3);
+    configuration.setSleepMillisBetweenRetries(1L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.add(anyCollection()))
+        .thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"))
+        .thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"))
+        .thenReturn(new UpdateResponse());
+    final List<SolrjUpdateResponse> completed = new ArrayList<>();
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final BatchDispatcher dispatcher = new BatchDispatcher(executor, new InFlightLimiter(1), new BatchDispatcher.Listener() {
+      @Override
+      public void batchCompleted(SolrjUpdateResponse response) {
+        completed.add(response);
+      }
+    });
+    final RetryScheduler retryScheduler = new RetryScheduler(dispatcher, 1024);
+
+    try {
+      final IndexService service = new IndexService(configuration, cloudSolrServer, getListOfDocs(3));
+      service.setEstimatedBytes(100);
+      service.setRetryScheduler(retryScheduler);
+
+      dispatcher.dispatch(service);
+      dispatcher.awaitCompletion();
+    }
+    finally {
+      retryScheduler.shutdownNow();
+      executor.shutdownNow();
+    }
+
+    // the failed attempts are not completed batches
+    assertEquals(1, completed.size());
+    assertTrue(completed.get(0).isUpdateSucceeded());
+    assertEquals(3, completed.get(0).getNumberOfAttempts());
+    verify(cloudSolrServer, times(3)).add(anyCollection());
+  }
+
+  @Test
+  public void testCall_RetrySchedulerWhileIsolating() throws Exception {
+    final Configuration configuration = new Configuration();
+    configuration.setRetryCount(3);
+    configuration.setSleepMillisBetweenRetries(60000L);
+    final CloudSolrClient cloudSolrServer = mock(CloudSolrClient.class);
+    when(cloudSolrServer.add(anyCollection()))
+        .thenThrow(new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad value"))
+        .thenThrow(new SolrException(SolrException.ErrorCode.SERVICE_UNAVAILABLE, "busy"))
+        .thenReturn(new UpdateResponse());
+    final RetryScheduler retryScheduler = mock(RetryScheduler.class);
+    when(retryScheduler.schedule(any(IndexService.class), anyLong(), anyLong())).thenReturn(true);
+
+    final IndexService service = new IndexService(configuration, cloudSolrServer, getListOfDocs(4));
+    service.setEstimatedBytes(100);
+    service.setRetryScheduler(retryScheduler);
+
+    // the first half failed - it is held by the scheduler instead of sleeping
+    SolrjUpdateResponse response = service.call();
+    assertTrue(response.isRetryScheduled());
+    verify(retryScheduler).schedule(eq(service), eq(50L), anyLong());
+    verify(cloudSolrServer, times(2)).add(anyCollection());
+
+    // the scheduler calls again - the first half is retried then the second
+    // half is sent
+    response = service.call();
+    assertTrue(response.isUpdateSucceeded());
+    assertFalse(response.isRetryScheduled());
+    assertEquals(4, response.getDocSize());
+    assertEquals(0, response.getDeadLetterCount());
+    assertEquals(4, response.getNumberOfAttempts());
+    verify(cloudSolrServer, times(4)).add(anyCollection());
+  }
+
+  @Test
+  public void testGetBackoffMillis() {
+    assertEquals(0, IndexService.getBackoffMillis(0, 1000, 3));
+    for(int i = 0; i < 20; i++) {
+      final long first = IndexService.getBackoffMillis(100, 1000, 1);
+      assertTrue(first >= 50 && first <= 100);
+      final long third = IndexService.getBackoffMillis(100, 1000, 3);
+      assertTrue(third >= 200 && third <= 400);
+      final long capped = IndexService.getBackoffMillis(100, 1000, 40);
+      assertTrue(capped >= 500 && capped <= 1000);
+      // a max below the base does not shorten the sleep
+      final long base = IndexService.getBackoffMillis(100, 10, 5);
+      assertTrue(base >= 50 && base <= 100);
+    }
+  }
+
+  @Test
+  public void testGetErrorCode() {
+    assertEquals(0, IndexService.getErrorCode(new IOException("no code")));
+    assertEquals(429, IndexService.getErrorCode(new SolrServerException(new HttpSolrClient.RemoteSolrException("localhost", 429, "slow down", null))));
+    assertEquals(400, IndexService.getErrorCode(new SolrException(SolrException.ErrorCode.BAD_REQUEST, "bad")));
+  }
+
+  @Test
+  public void testIsTimeout() {
+    assertTrue(IndexService.isTimeout(new SolrServerException(new SocketTimeoutException("Read timed out"))));
+    assertFalse(IndexService.isTimeout(new SolrServerException(new IOException("refused"))));
+  }
+
   private List<SolrInputDocument> getListOfDocs(int numberOfDocs) {
     final List<SolrInputDocument> docs = new ArrayList<>(numberOfDocs);
     for(int i = 0; i < numberOfDocs; i++) {
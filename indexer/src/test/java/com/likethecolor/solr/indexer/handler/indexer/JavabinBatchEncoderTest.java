@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.client.solrj.request.JavaBinUpdateRequestCodec;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JavabinBatchEncoderTest {
+  @Test
+  public void testEncode() throws Exception {
+    final List<SolrInputDocument> docs = new ArrayList<>();
+    for(int i = 0; i < 3; i++) {
+      final SolrInputDocument doc = new SolrInputDocument();
+      doc.addField("id", "id-" + i);
+      doc.addField("count", i);
+      doc.addField("name", Collections.singletonMap("set", "name-" + i));
+      docs.add(doc);
+    }
+
+    final byte[] payload = JavabinBatchEncoder.encode(docs, 0);
+
+    final List<SolrInputDocument> decoded = decode(payload);
+    assertEquals(3, decoded.size());
+    for(int i = 0; i < 3; i++) {
+      assertEquals("id-" + i, decoded.get(i).getFieldValue("id"));
+      assertEquals(i, decoded.get(i).getFieldValue("count"));
+      assertEquals(Collections.singletonMap("set", "name-" + i), decoded.get(i).getFieldValue("name"));
+    }
+  }
+
+  static List<SolrInputDocument> decode(final byte[] payload) throws Exception {
+    final List<SolrInputDocument> docs = new ArrayList<>();
+    new JavaBinUpdateRequestCodec().unmarshal(new ByteArrayInputStream(payload), new JavaBinUpdateRequestCodec.StreamingUpdateHandler() {
+      @Override
+      public void update(SolrInputDocument document, UpdateRequest req, Integer commitWithin, Boolean override) {
+        docs.add(document);
+      }
+    });
+    return docs;
+  }
+}
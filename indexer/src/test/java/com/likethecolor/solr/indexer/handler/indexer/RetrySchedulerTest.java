@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetrySchedulerTest {
+  private ExecutorService executor;
+  private List<SolrjUpdateResponse> completed;
+  private BatchDispatcher dispatcher;
+  private RetryScheduler scheduler;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(2);
+    completed = new CopyOnWriteArrayList<>();
+    dispatcher = new BatchDispatcher(executor, new InFlightLimiter(1), new BatchDispatcher.Listener() {
+      @Override
+      public void batchCompleted(final SolrjUpdateResponse response) {
+        completed.add(response);
+      }
+    });
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    if(scheduler != null) {
+      scheduler.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testSchedule() throws Exception {
+    scheduler = new RetryScheduler(dispatcher, 100);
+    final AtomicInteger calls = new AtomicInteger();
+    final Callable<SolrjUpdateResponse> service = new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() {
+        final SolrjUpdateResponse response = new SolrjUpdateResponse();
+        if(calls.incrementAndGet() < 3) {
+          assertTrue(scheduler.schedule(this, 10, 5));
+          response.setRetryScheduled(true);
+        }
+        return response;
+      }
+    };
+
+    dispatcher.dispatch(service);
+    dispatcher.awaitCompletion();
+
+    assertEquals(3, calls.get());
+    // only the last attempt is a completed batch
+    assertEquals(1, completed.size());
+    assertEquals(0, scheduler.getHeld());
+    assertEquals(0, scheduler.getHeldBytes());
+    assertEquals(0, dispatcher.getLimiter().getInFlight());
+  }
+
+  @Test
+  public void testSchedule_OtherBatchesSentWhileHeld() throws Exception {
+    scheduler = new RetryScheduler(dispatcher, 100);
+    final AtomicInteger calls = new AtomicInteger();
+    dispatcher.dispatch(new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() {
+        final SolrjUpdateResponse response = new SolrjUpdateResponse();
+        if(calls.incrementAndGet() == 1) {
+          scheduler.schedule(this, 10, 200);
+          response.setRetryScheduled(true);
+        }
+        return response;
+      }
+    });
+    // the only slot is free again while the first batch is held
+    for(int i = 0; i < 5; i++) {
+      dispatcher.dispatch(new Callable<SolrjUpdateResponse>() {
+        @Override
+        public SolrjUpdateResponse call() {
+          return new SolrjUpdateResponse();
+        }
+      });
+    }
+    assertEquals(1, calls.get());
+
+    dispatcher.awaitCompletion();
+
+    assertEquals(2, calls.get());
+    assertEquals(6, completed.size());
+  }
+
+  @Test
+  public void testSchedule_TimerNotBlockedByLimiter() throws Exception {
+    scheduler = new RetryScheduler(dispatcher, 100);
+    final CountDownLatch sent = new CountDownLatch(3);
+    final Callable<SolrjUpdateResponse> service = new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() {
+        sent.countDown();
+        return new SolrjUpdateResponse();
+      }
+    };
+    // no room for any retry
+    dispatcher.getLimiter().acquire();
+
+    assertTrue(scheduler.schedule(service, 10, 1));
+    assertTrue(scheduler.schedule(service, 10, 1));
+    assertTrue(scheduler.schedule(service, 10, 1));
+
+    // every batch is handed over by the timer although none can be sent
+    final long deadline = System.currentTimeMillis() + 5000;
+    while(scheduler.getWaiting() < 3 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(3, scheduler.getWaiting());
+    assertEquals(3, scheduler.getHeld());
+    assertEquals(3, sent.getCount());
+
+    dispatcher.getLimiter().release();
+
+    assertTrue(sent.await(5, TimeUnit.SECONDS));
+    assertEquals(0, scheduler.getWaiting());
+    assertEquals(0, scheduler.getHeld());
+  }
+
+  @Test
+  public void testSchedule_OverCap() {
+    scheduler = new RetryScheduler(dispatcher, 100);
+    final Callable<SolrjUpdateResponse> service = new Callable<SolrjUpdateResponse>() {
+      @Override
+      public SolrjUpdateResponse call() {
+        return new SolrjUpdateResponse();
+      }
+    };
+
+    assertTrue(scheduler.schedule(service, 60, 60000));
+    assertFalse(scheduler.schedule(service, 60, 60000));
+    assertTrue(scheduler.schedule(service, 40, 60000));
+
+    assertEquals(2, scheduler.getHeld());
+    assertEquals(100, scheduler.getHeldBytes());
+  }
+
+  @Test
+  public void testFromConfiguration() {
+    final Configuration configuration = new Configuration();
+
+    configuration.setRetryBufferBytes(0L);
+    assertNull(RetryScheduler.fromConfiguration(configuration, dispatcher));
+
+    configuration.setRetryBufferBytes(1024L);
+    scheduler = RetryScheduler.fromConfiguration(configuration, dispatcher);
+    assertNotNull(scheduler);
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
+import com.likethecolor.solr.indexer.field.FieldValueSetter;
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RowPlanTest {
+  private Configuration configuration;
+
+  @Before
+  public void setUp() {
+    configuration = new Configuration();
+    configuration.setUniqueKeyFieldName("id");
+    configuration.setFields("id:string;arg0:string;arg1:int;arg2:string");
+    configuration.setSkipFields("arg2");
+    configuration.setLiterals("source:string:web");
+    configuration.setDynamicFields("combined=com.likethecolor.solr.indexer.dynamic.UseThisToTestDynamicCode(arg0,arg1,source)");
+  }
+
+  @Test
+  public void testCompile() {
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    assertEquals(Arrays.asList("id", "arg0", "arg1", "arg2"), new ArrayList<>(plan.getFieldDefinitions().keySet()));
+    assertEquals(Collections.singleton("arg2"), plan.getSkipFields());
+    assertEquals(1, plan.getLiteralsDefinitions().size());
+    assertEquals("web", plan.getLiteralsDefinitions().get("source").getValue());
+    assertEquals(1, plan.getDynamicFields().size());
+  }
+
+  @Test
+  public void testBuild() {
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc = plan.build(row("doc-1", "a", "42", "skipped"));
+
+    assertEquals("doc-1", doc.getFieldValue("id"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, "a"), doc.getFieldValue("arg0"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, 42), doc.getFieldValue("arg1"));
+    assertFalse(doc.containsKey("arg2"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, "web"), doc.getFieldValue("source"));
+    assertEquals("a42web", doc.getFieldValue("combined"));
+  }
+
+  @Test
+  public void testBuild_Rebuild() {
+    configuration.setRebuild(true);
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc = plan.build(row("doc-1", "a", "42", "skipped"));
+
+    assertEquals(DocumentModeEnum.FULL, plan.getDocumentMode());
+    assertEquals("doc-1", doc.getFieldValue("id"));
+    assertEquals("a", doc.getFieldValue("arg0"));
+    assertEquals(42, doc.getFieldValue("arg1"));
+    assertFalse(doc.containsKey("arg2"));
+    assertEquals("web", doc.getFieldValue("source"));
+    assertEquals("a42web", doc.getFieldValue("combined"));
+  }
+
+  @Test
+  public void testBuild_Rebuild_DynamicClassUpdateMap() {
+    configuration.setRebuild(true);
+    configuration.setDynamicFields("upper=com.likethecolor.solr.indexer.dynamic.UpdateMapTestDynamicClass(arg0)");
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc = plan.build(row("doc-1", "a", "42", "skipped"));
+
+    assertEquals("A", doc.getFieldValue("upper"));
+  }
+
+  @Test
+  public void testBuild_Full() {
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_FULL);
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc = plan.build(row("doc-1", "a", "42", "skipped"));
+
+    assertEquals(DocumentModeEnum.FULL, plan.getDocumentMode());
+    assertEquals("a", doc.getFieldValue("arg0"));
+    assertEquals(42, doc.getFieldValue("arg1"));
+    assertEquals("web", doc.getFieldValue("source"));
+    assertEquals("a42web", doc.getFieldValue("combined"));
+  }
+
+  @Test
+  public void testBuild_Inplace() {
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields("source");
+    configuration.setInplaceIncrementFields("arg1");
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc = plan.build(row("doc-1", "a", "42", "skipped"));
+
+    assertEquals(DocumentModeEnum.INPLACE, plan.getDocumentMode());
+    assertEquals(new HashSet<>(Arrays.asList("id", "arg1", "source")), new HashSet<>(doc.getFieldNames()));
+    assertEquals("doc-1", doc.getFieldValue("id"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_INCREMENT_DOCUMENT_ACTION, 42), doc.getFieldValue("arg1"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, "web"), doc.getFieldValue("source"));
+  }
+
+  @Test
+  public void testBuild_PlanIsNotModifiedByRows() {
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc0 = plan.build(row("doc-1", "a", "1", null));
+    final SolrInputDocument doc1 = plan.build(row("doc-2", null, "2", null));
+
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, "a"), doc0.getFieldValue("arg0"));
+    assertFalse(doc1.containsKey("arg0"));
+    assertNull(plan.getFieldDefinitions().get("arg0").getValue());
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, 2), doc1.getFieldValue("arg1"));
+  }
+
+  @Test
+  public void testBuild_LiteralValuesShared() {
+    final RowPlan plan = RowPlan.compile(configuration, new FieldValueSetter(configuration));
+
+    final SolrInputDocument doc0 = plan.build(row("doc-1", "a", "1", null));
+    final SolrInputDocument doc1 = plan.build(row("doc-2", "b", "2", null));
+
+    assertSame(doc0.getFieldValue("source"), doc1.getFieldValue("source"));
+  }
+
+  @Test
+  public void testHandlerCompilesPlanOnce() {
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, null);
+
+    assertSame(handler.getRowPlan(), handler.getRowPlan());
+    assertTrue(handler.buildSolrInputDocument(row("doc-1", "a", "1", null)).containsKey("combined"));
+  }
+
+  private List<Object> row(final String... values) {
+    return new ArrayList<Object>(Arrays.asList(values));
+  }
+}
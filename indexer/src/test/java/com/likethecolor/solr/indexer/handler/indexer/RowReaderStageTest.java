@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.reader.DataReader;
+import com.likethecolor.solr.indexer.reader.UnorderedDataReader;
+import org.junit.Test;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class RowReaderStageTest {
+  @Test
+  public void testCall_FirstRowIsHeader() throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    final List<Object> row0 = Arrays.<Object>asList("a", "b");
+    final List<Object> row1 = Arrays.<Object>asList("c", "d");
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"col0", "col1"});
+    when(dataReader.read(any(CellProcessor[].class))).thenReturn(row0, row1, null);
+    when(dataReader.getLineNumber()).thenReturn(2, 3);
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final long rowCount = new RowReaderStage(dataReader, new CellProcessor[2], true, rowQueue, 2).call();
+
+    assertEquals(2, rowCount);
+    DataRow row = rowQueue.take();
+    assertEquals(2, row.getLineNumber());
+    assertEquals(row0, row.getValues());
+    row = rowQueue.take();
+    assertEquals(3, row.getLineNumber());
+    assertEquals(row1, row.getValues());
+    // one end marker for each builder
+    assertSame(DataRow.END, rowQueue.take());
+    assertSame(DataRow.END, rowQueue.take());
+    assertEquals(0, rowQueue.size());
+  }
+
+  @Test
+  public void testCall_FirstRowIsData() throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    when(dataReader.getHeader(false)).thenReturn(new Object[]{"a", "b"});
+    when(dataReader.read(any(CellProcessor[].class))).thenReturn(null);
+    when(dataReader.getLineNumber()).thenReturn(1);
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final long rowCount = new RowReaderStage(dataReader, new CellProcessor[2], false, rowQueue, 1).call();
+
+    assertEquals(1, rowCount);
+    final DataRow row = rowQueue.take();
+    assertEquals(1, row.getLineNumber());
+    assertEquals(Arrays.<Object>asList("a", "b"), row.getValues());
+    assertSame(DataRow.END, rowQueue.take());
+  }
+
+  @Test
+  public void testCall_ReadFailureStillEndsBuilders() throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"col0"});
+    when(dataReader.read(any(CellProcessor[].class))).thenThrow(new SuperCsvException("bad row"));
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    try {
+      new RowReaderStage(dataReader, new CellProcessor[1], true, rowQueue, 3).call();
+      fail("expected SuperCsvException");
+    }
+    catch(SuperCsvException expected) {
+    }
+
+    assertEquals(3, rowQueue.size());
+    for(DataRow row : rowQueue) {
+      assertSame(DataRow.END, row);
+    }
+  }
+
+  @Test
+  public void testCall_Resume() throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    final List<Object> row = Arrays.<Object>asList("c", "d");
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"col0", "col1"});
+    when(dataReader.read(any(CellProcessor[].class))).thenReturn(row, (List<Object>) null);
+    when(dataReader.getLineNumber()).thenReturn(1, 6);
+    final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), "/data/file.csv", "1-a", 5);
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final long rowCount = new RowReaderStage(dataReader, new CellProcessor[2], true, rowQueue, 1, tracker).call();
+
+    verify(dataReader).skipTo(5);
+    assertEquals(1, rowCount);
+    assertEquals(6, rowQueue.take().getLineNumber());
+    assertSame(DataRow.END, rowQueue.take());
+    // the row read is counted until it is built
+    assertEquals(5, tracker.getLineNumber());
+    tracker.rowBuilt(6, 0);
+    assertEquals(6, tracker.getLineNumber());
+  }
+
+  @Test
+  public void testCall_Unordered() throws Exception {
+    final UnorderedDataReader dataReader = mock(UnorderedDataReader.class);
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"col0", "col1"});
+    when(dataReader.read(any(CellProcessor[].class))).thenReturn(Arrays.<Object>asList("e", "f"), Arrays.<Object>asList("a", "b"), null);
+    when(dataReader.getLineNumber()).thenReturn(3, 2);
+    when(dataReader.getReadThroughLineNumber()).thenReturn(1, 3, Integer.MAX_VALUE);
+    when(dataReader.getPartStartLineNumbers()).thenReturn(Arrays.asList(0, 2));
+    final CheckpointTracker tracker = new CheckpointTracker(new File("unused"), "/data/file.csv", "1-a", 0);
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final long rowCount = new RowReaderStage(dataReader, new CellProcessor[2], true, rowQueue, 1, tracker).call();
+
+    assertEquals(2, rowCount);
+    assertEquals(3, rowQueue.take().getLineNumber());
+    assertEquals(2, rowQueue.take().getLineNumber());
+    // line 3 was built first but the checkpoint waits for line 2
+    tracker.rowBuilt(3, 0);
+    assertEquals(0, tracker.getLineNumber());
+    tracker.rowBuilt(2, 0);
+    assertEquals(3, tracker.getLineNumber());
+  }
+
+  @Test
+  public void testCall_Stop() throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"col0"});
+    when(dataReader.read(any(CellProcessor[].class))).thenReturn(Arrays.<Object>asList("a"));
+    when(dataReader.getLineNumber()).thenReturn(2);
+
+    final BlockingQueue<DataRow> rowQueue = new ArrayBlockingQueue<>(10);
+    final RowReaderStage stage = new RowReaderStage(dataReader, new CellProcessor[1], true, rowQueue, 1);
+    stage.stop();
+
+    assertEquals(0, stage.call().longValue());
+    assertTrue(stage.isStopped());
+    assertSame(DataRow.END, rowQueue.take());
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ShardBatchCollectorTest {
+  @Test
+  public void testAdd() {
+    final ShardRouterTest.TestShardRouter router = new ShardRouterTest.TestShardRouter(ShardRouterTest.getDocCollection(2, 1));
+    final ShardBatchCollector collector = new ShardBatchCollector(router, 10, 0, new BatchSizeController(0, 0));
+
+    final List<DocumentBatch> ready = collector.add(batch(0, 30));
+    final List<DocumentBatch> rest = collector.drainAll();
+
+    int docCount = 0;
+    for(DocumentBatch batch : ready) {
+      assertEquals(10, batch.size());
+      assertSingleShard(router, batch);
+      docCount += batch.size();
+    }
+    for(DocumentBatch batch : rest) {
+      assertTrue(batch.size() < 10);
+      assertSingleShard(router, batch);
+      docCount += batch.size();
+    }
+    assertEquals(30, docCount);
+    assertEquals(0, collector.drainAll().size());
+  }
+
+  @Test
+  public void testAdd_ClusterStateChanged() {
+    final ShardRouterTest.TestShardRouter router = new ShardRouterTest.TestShardRouter(ShardRouterTest.getDocCollection(2, 1));
+    final ShardBatchCollector collector = new ShardBatchCollector(router, 1000, 0, new BatchSizeController(0, 0));
+    assertEquals(0, collector.add(batch(0, 20)).size());
+
+    // the shards were split
+    router.docCollection = ShardRouterTest.getDocCollection(4, 2);
+    assertEquals(0, collector.add(batch(20, 20)).size());
+
+    final List<DocumentBatch> batches = collector.drainAll();
+    int docCount = 0;
+    for(DocumentBatch batch : batches) {
+      assertSingleShard(router, batch);
+      docCount += batch.size();
+    }
+    assertEquals(4, batches.size());
+    assertEquals(40, docCount);
+  }
+
+  @Test
+  public void testLinger() throws Exception {
+    final ShardRouterTest.TestShardRouter router = new ShardRouterTest.TestShardRouter(ShardRouterTest.getDocCollection(2, 1));
+    final ShardBatchCollector collector = new ShardBatchCollector(router, 1000, 10, new BatchSizeController(0, 0));
+    assertEquals(-1, collector.getRemainingLingerNanos());
+
+    collector.add(batch(0, 1));
+    assertTrue(collector.getRemainingLingerNanos() >= 0);
+    Thread.sleep(20);
+
+    assertEquals(0, collector.getRemainingLingerNanos());
+    assertEquals(1, collector.drainExpired().size());
+    assertEquals(-1, collector.getRemainingLingerNanos());
+  }
+
+  private void assertSingleShard(final ShardRouter router, final DocumentBatch batch) {
+    for(SolrInputDocument doc : batch.getDocuments()) {
+      assertEquals(batch.getShard(), router.getShard(doc));
+    }
+  }
+
+  private DocumentBatch batch(final int start, final int count) {
+    final List<SolrInputDocument> docs = new ArrayList<>();
+    for(int i = start; i < start + count; i++) {
+      docs.add(ShardRouterTest.doc("id-" + i));
+    }
+    return new DocumentBatch(docs, 0);
+  }
+}
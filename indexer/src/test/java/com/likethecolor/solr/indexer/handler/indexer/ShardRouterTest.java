@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.cloud.DocCollection;
+import org.apache.solr.common.cloud.DocRouter;
+import org.apache.solr.common.cloud.Replica;
+import org.apache.solr.common.cloud.Slice;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ShardRouterTest {
+  @Test
+  public void testGetShard() {
+    final DocCollection docCollection = getDocCollection(2, 1);
+    final TestShardRouter router = new TestShardRouter(docCollection);
+    router.refresh();
+
+    final Set<String> shards = new HashSet<>();
+    for(int i = 0; i < 100; i++) {
+      final String id = "id-" + i;
+      final String shard = router.getShard(doc(id));
+      // the same answer solr would give
+      assertEquals(docCollection.getRouter().getTargetSlice(id, null, null, null, docCollection).getName(), shard);
+      shards.add(shard);
+    }
+    assertEquals(2, shards.size());
+    assertEquals(2, router.getShardCount());
+  }
+
+  @Test
+  public void testGetShard_NoUniqueKey() {
+    final TestShardRouter router = new TestShardRouter(getDocCollection(2, 1));
+    router.refresh();
+
+    assertEquals(ShardRouter.UNROUTED, router.getShard(new SolrInputDocument()));
+  }
+
+  @Test
+  public void testRefresh() {
+    final TestShardRouter router = new TestShardRouter(getDocCollection(2, 1));
+
+    assertTrue(router.refresh());
+    assertFalse(router.refresh());
+
+    router.docCollection = getDocCollection(2, 2);
+    assertTrue(router.refresh());
+    assertFalse(router.refresh());
+
+    router.docCollection = getDocCollection(4, 2);
+    assertTrue(router.refresh());
+    assertEquals(4, router.getShardCount());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRefresh_NoCollection() {
+    new TestShardRouter(null).refresh();
+  }
+
+  @Test
+  public void testGetLeaderUrl() {
+    final TestShardRouter router = new TestShardRouter(getDocCollection(2, 1));
+    assertNull(router.getLeaderUrl("shard1"));
+
+    router.refresh();
+
+    assertEquals("http://host1:8983/solr/collection1_shard1_replica_n1/", router.getLeaderUrl("shard1"));
+    assertNull(router.getLeaderUrl("shard9"));
+  }
+
+  static DocCollection getDocCollection(final int shardCount, final int version) {
+    final List<DocRouter.Range> ranges = DocRouter.DEFAULT.partitionRange(shardCount, DocRouter.DEFAULT.fullRange());
+    final Map<String, Slice> slices = new LinkedHashMap<>();
+    for(int i = 0; i < shardCount; i++) {
+      final String name = "shard" + (i + 1);
+      final Map<String, Object> replicaProps = new HashMap<>();
+      replicaProps.put("base_url", "http://host" + (i + 1) + ":8983/solr");
+      replicaProps.put("core", "collection1_" + name + "_replica_n1");
+      replicaProps.put("node_name", "host" + (i + 1) + ":8983_solr");
+      replicaProps.put("leader", "true");
+      final Replica replica = new Replica("core_node" + (i + 1), replicaProps);
+      final Map<String, Object> sliceProps = new HashMap<>();
+      sliceProps.put(Slice.RANGE, ranges.get(i));
+      slices.put(name, new Slice(name, Collections.singletonMap(replica.getName(), replica), sliceProps));
+    }
+    return new DocCollection("collection1", slices, new HashMap<String, Object>(), DocRouter.DEFAULT, version, "/collections/collection1/state.json");
+  }
+
+  static SolrInputDocument doc(final String id) {
+    final SolrInputDocument doc = new SolrInputDocument();
+    doc.addField("id", id);
+    return doc;
+  }
+
+  static class TestShardRouter extends ShardRouter {
+    DocCollection docCollection;
+
+    TestShardRouter(final DocCollection docCollection) {
+      super(null, "collection1", "id");
+      this.docCollection = docCollection;
+    }
+
+    @Override
+    protected DocCollection getDocCollection() {
+      return docCollection;
+    }
+  }
+}
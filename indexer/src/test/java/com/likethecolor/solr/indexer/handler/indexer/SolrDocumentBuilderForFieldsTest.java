@@ -24,14 +24,20 @@ import com.likethecolor.solr.indexer.handler.indexer.SolrDocumentBuilderForField
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.junit.Test;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.util.CsvContext;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 
 public class SolrDocumentBuilderForFieldsTest {
   @Test
@@ -416,4 +422,45 @@ public class SolrDocumentBuilderForFieldsTest {
     assertEquals(fieldName3, field.getName());
     assertEquals(expectedValue2, field.getValue());
   }
+
+  @Test
+  public void testBuild_ConvertedByCellProcessors() {
+    final Configuration configuration = new Configuration();
+    final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator = new UniqueKeyFieldValueGenerator(configuration);
+
+    final Map<String, FieldDefinition> fieldDefinitionMap = new LinkedHashMap<>();
+    for(String fieldName : new String[] {"id", "count", "skipped_key", "skipped"}) {
+      final FieldDefinition fieldDefinition = new FieldDefinition();
+      fieldDefinition.setName(fieldName);
+      fieldDefinition.setType(FieldTypeEnum.LONG);
+      fieldDefinitionMap.put(fieldDefinition.getName(), fieldDefinition);
+    }
+
+    final SolrDocumentBuilderForFields builder = new SolrDocumentBuilderForFields(new FieldValueSetter(configuration), uniqueKeyFieldValueGenerator, "id");
+    builder.setFieldDefinitionMap(fieldDefinitionMap);
+    builder.setSkipFields(Arrays.asList("skipped_key", "skipped"));
+    builder.setUniqueKeyFieldValueFields(Arrays.asList("id", "skipped_key"));
+
+    // a skip field that is not in the unique key field value is never converted
+    final CellProcessor[] processors = builder.getCellProcessors();
+    assertEquals(4, processors.length);
+    assertNotNull(processors[0]);
+    assertNotNull(processors[1]);
+    assertNotNull(processors[2]);
+    assertNull(processors[3]);
+
+    final List<Object> rowValues = new ArrayList<>();
+    for(int i = 0; i < processors.length; i++) {
+      final String value = String.valueOf(i + 1);
+      rowValues.add(processors[i] == null ? value : processors[i].execute(value, new CsvContext(1, 1, i + 1)));
+    }
+    assertEquals(Arrays.<Object>asList(1L, 2L, 3L, "4"), rowValues);
+
+    final SolrInputDocument doc = new SolrInputDocument();
+    builder.build(doc, rowValues);
+
+    assertEquals(2, doc.keySet().size());
+    assertEquals(1L, doc.get("id").getValue());
+    assertEquals(Collections.singletonMap("set", 2L), doc.get("count").getValue());
+  }
 }
@@ -16,13 +16,16 @@
 package com.likethecolor.solr.indexer.handler.indexer;
 
 import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
 import com.likethecolor.solr.indexer.field.FieldDefinition;
 import com.likethecolor.solr.indexer.field.UniqueKeyFieldValueGenerator;
 import com.likethecolor.solr.indexer.handler.indexer.SolrDocumentBuilderForLiterals;
+import com.likethecolor.solr.indexer.handler.indexer.UpdateActions;
 import org.apache.solr.common.SolrInputDocument;
 import org.apache.solr.common.SolrInputField;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -142,6 +145,28 @@ public class SolrDocumentBuilderForLiteralsTest {
     assertEquals("11-10", uniqueKeyFieldValueGenerator.getId());
   }
 
+  @Test
+  public void testBuild_Inplace() {
+    final Configuration configuration = new Configuration();
+    configuration.setUniqueKeyFieldValue(MAP_PREFIX + 0 + ";" + MAP_PREFIX + 1);
+    final UniqueKeyFieldValueGenerator uniqueKeyFieldValueGenerator = new UniqueKeyFieldValueGenerator(configuration);
+    final UpdateActions updateActions = new UpdateActions(DocumentModeEnum.INPLACE, null, Collections.singleton(MAP_PREFIX + 1));
+
+    final Map<String, FieldDefinition> literalsMap = getLiteralsDefinitionMap(2);
+
+    final SolrDocumentBuilderForLiterals builder = new SolrDocumentBuilderForLiterals(uniqueKeyFieldValueGenerator, literalsMap, SolrDocumentBuilderForLiterals.buildUpdateValues(literalsMap, updateActions));
+
+    final SolrInputDocument doc = new SolrInputDocument();
+
+    builder.build(doc);
+
+    assertEquals(Collections.singleton(MAP_PREFIX + 1), doc.keySet());
+    assertEquals(Collections.singletonMap("inc", 1), doc.getFieldValue(MAP_PREFIX + 1));
+
+    // a literal that is not sent is still part of the unique key field value
+    assertEquals("01", uniqueKeyFieldValueGenerator.getId());
+  }
+
   private Map<String, FieldDefinition> getLiteralsDefinitionMap(final int sizeOfMap) {
     final Map<String, FieldDefinition> definitionMap = new HashMap<>(sizeOfMap);
     for(int i = 0; i < sizeOfMap; i++) {
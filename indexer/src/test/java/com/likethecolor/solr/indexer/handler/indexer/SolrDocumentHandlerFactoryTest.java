@@ -22,15 +22,20 @@ import com.likethecolor.solr.indexer.handler.indexer.DoNothingSolrDocumentHandle
 import com.likethecolor.solr.indexer.handler.indexer.DocumentHandler;
 import com.likethecolor.solr.indexer.handler.indexer.SolrDocumentHandler;
 import com.likethecolor.solr.indexer.handler.indexer.SolrDocumentHandlerFactory;
+import org.apache.commons.io.FileUtils;
 import org.junit.Test;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.nio.file.Files;
+
 import static org.junit.Assert.assertTrue;
 
 public class SolrDocumentHandlerFactoryTest {
   private static final String PATH_TO_DATA_FILE = "/var/foo/file.data";
 
   @Test
-  public void testGetHandler_DataTypeIsCSV() {
+  public void testGetHandler_DataTypeIsCSV() throws Exception {
     Configuration configuration = new Configuration();
     configuration.setDataType(Constants.DATA_TYPE_CSV);
     configuration.setPathToDataFile(PATH_TO_DATA_FILE);
@@ -41,7 +46,18 @@ public class SolrDocumentHandlerFactoryTest {
   }
 
   @Test
-  public void testGetHandler_DataTypeIsJSON() {
+  public void testGetHandler_DataTypeIsFastCSV() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_FAST_CSV);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+
+    DocumentHandler handler = SolrDocumentHandlerFactory.getInstance().getHandler(configuration);
+
+    assertTrue(handler.getClass().getSimpleName().equals(SolrDocumentHandler.class.getSimpleName()));
+  }
+
+  @Test
+  public void testGetHandler_DataTypeIsJSON() throws Exception {
     Configuration configuration = new Configuration();
     configuration.setDataType(Constants.DATA_TYPE_JSON);
     configuration.setPathToDataFile(PATH_TO_DATA_FILE);
@@ -51,8 +67,35 @@ public class SolrDocumentHandlerFactoryTest {
     assertTrue(handler.getClass().getSimpleName().equals(SolrDocumentHandler.class.getSimpleName()));
   }
 
+  @Test(expected = FileNotFoundException.class)
+  public void testGetHandler_NoDataFiles() throws Exception {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToDataFile("/var/foo/no-such-directory/*.data");
+
+    SolrDocumentHandlerFactory.getInstance().getHandler(configuration);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testGetHandler_CheckpointWithManyDataFiles() throws Exception {
+    final File directory = Files.createTempDirectory("data").toFile();
+    try {
+      assertTrue(new File(directory, "part-0.csv").createNewFile());
+      assertTrue(new File(directory, "part-1.csv").createNewFile());
+      Configuration configuration = new Configuration();
+      configuration.setDataType(Constants.DATA_TYPE_CSV);
+      configuration.setPathToDataFile(directory.getPath());
+      configuration.setCheckpointFile(new File(directory, "checkpoint").getPath());
+
+      SolrDocumentHandlerFactory.getInstance().getHandler(configuration);
+    }
+    finally {
+      FileUtils.deleteDirectory(directory);
+    }
+  }
+
   @Test
-  public void testGetHandler_NoDataType() {
+  public void testGetHandler_NoDataType() throws Exception {
     Configuration configuration = new Configuration();
     configuration.setPathToDataFile(PATH_TO_DATA_FILE);
 
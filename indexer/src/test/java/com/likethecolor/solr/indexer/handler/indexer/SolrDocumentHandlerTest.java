@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.reader.DataReader;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.request.ContentStreamUpdateRequest;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class SolrDocumentHandlerTest {
+  private Configuration configuration;
+  private CloudSolrClient solr;
+  private Set<Object> indexedIds;
+
+  @Before
+  public void setUp() throws Exception {
+    configuration = new Configuration();
+    configuration.setFields("id:string;name:string");
+    configuration.setFirstRowIsHeader(true);
+    configuration.setBatchSize(3);
+    configuration.setThreadCount(2);
+    configuration.setRowQueueCapacity(4);
+    configuration.setBatchQueueCapacity(1);
+
+    indexedIds = Collections.synchronizedSet(new HashSet<>());
+    solr = mock(CloudSolrClient.class);
+    when(solr.add(anyCollection())).thenAnswer(new Answer<UpdateResponse>() {
+      @Override
+      public UpdateResponse answer(final InvocationOnMock invocation) {
+        for(Object doc : (Collection<?>) invocation.getArgument(0)) {
+          indexedIds.add(((SolrInputDocument) doc).getFieldValue("id"));
+        }
+        return new UpdateResponse();
+      }
+    });
+  }
+
+  @Test
+  public void testHandle() throws Exception {
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20));
+
+    assertEquals(20, handler.handle(solr));
+    assertEquals(20, indexedIds.size());
+  }
+
+  @Test
+  public void testHandle_ManyBuilders() throws Exception {
+    configuration.setBuilderThreadCount(4);
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(101));
+
+    assertEquals(101, handler.handle(solr));
+    assertEquals(101, indexedIds.size());
+  }
+
+  @Test
+  public void testHandle_ShardRouting() throws Exception {
+    configuration.setShardRouting(true);
+    configuration.setBuilderThreadCount(2);
+    final ShardRouter router = new ShardRouterTest.TestShardRouter(ShardRouterTest.getDocCollection(2, 1));
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(50)) {
+      @Override
+      protected ShardRouter getShardRouter(final CloudSolrClient solr) {
+        return router;
+      }
+    };
+
+    assertEquals(50, handler.handle(solr));
+    assertEquals(50, indexedIds.size());
+  }
+
+  @Test
+  public void testHandle_PreSerializeBatches() throws Exception {
+    configuration.setPreSerializeBatches(true);
+    configuration.setBuilderThreadCount(2);
+    when(solr.request(any(SolrRequest.class), isNull())).thenAnswer(new Answer<NamedList<Object>>() {
+      @Override
+      public NamedList<Object> answer(final InvocationOnMock invocation) throws Exception {
+        final ContentStreamUpdateRequest request = invocation.getArgument(0);
+        final byte[] payload = IOUtils.toByteArray(request.getContentStreams().iterator().next().getStream());
+        for(SolrInputDocument doc : JavabinBatchEncoderTest.decode(payload)) {
+          indexedIds.add(doc.getFieldValue("id"));
+        }
+        return StatusOnlyResponseParser.getOkResponse();
+      }
+    });
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(40));
+
+    assertEquals(40, handler.handle(solr));
+    assertEquals(40, indexedIds.size());
+    verify(solr, never()).add(anyCollection());
+  }
+
+  @Test
+  public void testHandle_ReadFailure() throws Exception {
+    configuration.setBuilderThreadCount(2);
+    final DataReader dataReader = mock(DataReader.class);
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"id", "name"});
+    when(dataReader.read(any(CellProcessor[].class))).thenThrow(new SuperCsvException("bad row"));
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, dataReader);
+
+    try {
+      handler.handle(solr);
+      fail("expected SuperCsvException");
+    }
+    catch(SuperCsvException expected) {
+    }
+    verify(solr, never()).add(anyCollection());
+    verify(dataReader).close();
+  }
+
+  @Test
+  public void testHandle_ManyDataFiles() throws Exception {
+    configuration.setReaderThreadCount(2);
+    configuration.setBuilderThreadCount(2);
+    final Map<String, DataReader> dataReaders = new LinkedHashMap<>();
+    dataReaders.put("part-0.csv", getDataReader("a", 20));
+    dataReaders.put("part-1.csv", getDataReader("b", 7));
+    dataReaders.put("part-2.csv", getDataReader("c", 0));
+    dataReaders.put("part-3.csv", getDataReader("d", 31));
+    final SolrDocumentHandler handler = SolrDocumentHandler.forDataFiles(configuration, dataReaders);
+
+    assertEquals(58, handler.handle(solr));
+    assertEquals(58, indexedIds.size());
+    for(DataReader dataReader : dataReaders.values()) {
+      verify(dataReader).close();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHandle_ManyDataFiles_Checkpoint() throws Exception {
+    configuration.setCheckpointFile(getTempFile("checkpoint").getPath());
+    final Map<String, DataReader> dataReaders = new LinkedHashMap<>();
+    dataReaders.put("part-0.csv", getDataReader("a", 20));
+    dataReaders.put("part-1.csv", getDataReader("b", 7));
+
+    SolrDocumentHandler.forDataFiles(configuration, dataReaders).handle(solr);
+  }
+
+  @Test
+  public void testHandle_Stopped() throws Exception {
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20));
+    handler.stop();
+
+    assertEquals(0, handler.handle(solr));
+    assertTrue(indexedIds.isEmpty());
+  }
+
+  @Test
+  public void testHandle_ResponseWithoutUpdateResponse() throws Exception {
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20)) {
+      @Override
+      protected IndexService getIndexService(final CloudSolrClient solr, final List<SolrInputDocument> docs) {
+        return new IndexService(configuration, solr, docs) {
+          @Override
+          public SolrjUpdateResponse call() {
+            // no update response, as the dead letter and retry paths may give
+            final SolrjUpdateResponse response = new SolrjUpdateResponse();
+            response.setDocSize(docs.size());
+            response.setUpdateSucceeded(true);
+            return response;
+          }
+        };
+      }
+    };
+
+    assertEquals(20, handler.handle(solr));
+  }
+
+  @Test
+  public void testHandle_ManyDataFiles_ReadFailure() throws Exception {
+    configuration.setReaderThreadCount(2);
+    final DataReader failingReader = mock(DataReader.class);
+    when(failingReader.getHeader(true)).thenReturn(new Object[]{"id", "name"});
+    when(failingReader.read(any(CellProcessor[].class))).thenThrow(new SuperCsvException("bad row"));
+    final Map<String, DataReader> dataReaders = new LinkedHashMap<>();
+    dataReaders.put("part-0.csv", getDataReader("a", 20));
+    dataReaders.put("part-1.csv", failingReader);
+    dataReaders.put("part-2.csv", getDataReader("c", 10));
+    final SolrDocumentHandler handler = SolrDocumentHandler.forDataFiles(configuration, dataReaders);
+
+    try {
+      handler.handle(solr);
+      fail("expected SuperCsvException");
+    }
+    catch(SuperCsvException expected) {
+    }
+    // the other files are still indexed
+    assertEquals(30, indexedIds.size());
+  }
+
+  @Test
+  public void testHandle_SendFailure() throws Exception {
+    configuration.setRetryCount(1);
+    when(solr.add(anyCollection())).thenThrow(new SolrServerException("solr is down"));
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20));
+
+    try {
+      handler.handle(solr);
+      fail("expected ExecutionException");
+    }
+    catch(ExecutionException expected) {
+    }
+  }
+
+  @Test
+  public void testHandle_Checkpoint() throws Exception {
+    final File dataFile = getTempFile("data");
+    final File checkpointFile = getTempFile("checkpoint");
+    configuration.setPathToDataFile(dataFile.getPath());
+    configuration.setCheckpointFile(checkpointFile.getPath());
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20));
+
+    assertEquals(20, handler.handle(solr));
+
+    final Checkpoint checkpoint = Checkpoint.read(checkpointFile);
+    assertEquals(21, checkpoint.getLineNumber());
+    assertTrue(checkpoint.isComplete());
+    assertTrue(checkpoint.matches(dataFile.getAbsolutePath(), Checkpoint.fingerprint(dataFile)));
+  }
+
+  @Test
+  public void testHandle_Resume() throws Exception {
+    final File dataFile = getTempFile("data");
+    final File checkpointFile = getTempFile("checkpoint");
+    new Checkpoint(dataFile.getAbsolutePath(), Checkpoint.fingerprint(dataFile), 11, false).write(checkpointFile);
+    configuration.setPathToDataFile(dataFile.getPath());
+    configuration.setCheckpointFile(checkpointFile.getPath());
+    configuration.setResume(true);
+    final SolrDocumentHandler handler = new SolrDocumentHandler(configuration, getDataReader(20));
+
+    // rows 0 - 9 are on lines 2 - 11
+    assertEquals(10, handler.handle(solr));
+    assertEquals(10, indexedIds.size());
+    assertTrue(indexedIds.contains("id-10"));
+    assertFalse(indexedIds.contains("id-9"));
+    assertEquals(21, Checkpoint.read(checkpointFile).getLineNumber());
+  }
+
+  @Test(expected = IOException.class)
+  public void testHandle_ResumeOtherDataFile() throws Exception {
+    final File dataFile = getTempFile("data");
+    final File checkpointFile = getTempFile("checkpoint");
+    new Checkpoint("/some/other/file.csv", Checkpoint.fingerprint(dataFile), 11, false).write(checkpointFile);
+    configuration.setPathToDataFile(dataFile.getPath());
+    configuration.setCheckpointFile(checkpointFile.getPath());
+    configuration.setResume(true);
+
+    new SolrDocumentHandler(configuration, getDataReader(20)).handle(solr);
+  }
+
+  private File getTempFile(final String prefix) throws IOException {
+    final File file = File.createTempFile(prefix, ".tmp");
+    file.deleteOnExit();
+    FileUtils.writeStringToFile(file, "id,name\n", StandardCharsets.UTF_8);
+    return file;
+  }
+
+  private DataReader getDataReader(final int rowCount) throws Exception {
+    return getDataReader("id", rowCount);
+  }
+
+  private DataReader getDataReader(final String idPrefix, final int rowCount) throws Exception {
+    final DataReader dataReader = mock(DataReader.class);
+    when(dataReader.getHeader(true)).thenReturn(new Object[]{"id", "name"});
+    final List<List<Object>> rows = new ArrayList<>();
+    for(int i = 0; i < rowCount; i++) {
+      rows.add(new ArrayList<Object>(Arrays.asList(idPrefix + "-" + i, "name-" + i)));
+    }
+    // the header is line 1 and row i is line i + 2
+    final int[] index = new int[1];
+    when(dataReader.read(any(CellProcessor[].class))).thenAnswer(new Answer<List<Object>>() {
+      @Override
+      public List<Object> answer(final InvocationOnMock invocation) {
+        return index[0] < rows.size() ? rows.get(index[0]++) : null;
+      }
+    });
+    when(dataReader.getLineNumber()).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(final InvocationOnMock invocation) {
+        return index[0] + 1;
+      }
+    });
+    when(dataReader.skipTo(anyInt())).thenAnswer(new Answer<Integer>() {
+      @Override
+      public Integer answer(final InvocationOnMock invocation) {
+        final int skipped = Math.min(rows.size(), (Integer) invocation.getArgument(0) - 1) - index[0];
+        index[0] += skipped;
+        return skipped;
+      }
+    });
+    return dataReader;
+  }
+}
@@ -20,6 +20,8 @@ import org.apache.solr.client.solrj.response.UpdateResponse;
 import org.junit.Test;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class SolrjUpdateResponseTest {
   @Test
@@ -32,6 +34,35 @@ public class SolrjUpdateResponseTest {
     assertEquals(docSize, response.getDocSize());
   }
 
+  @Test
+  public void testEstimatedBytes() {
+    final long estimatedBytes = 2048L;
+
+    final SolrjUpdateResponse response = new SolrjUpdateResponse();
+    assertEquals(0L, response.getEstimatedBytes());
+    response.setEstimatedBytes(estimatedBytes);
+
+    assertEquals(estimatedBytes, response.getEstimatedBytes());
+  }
+
+  @Test
+  public void testErrorCode() {
+    final SolrjUpdateResponse response = new SolrjUpdateResponse();
+    assertEquals(0, response.getErrorCode());
+    response.setErrorCode(503);
+
+    assertEquals(503, response.getErrorCode());
+  }
+
+  @Test
+  public void testTimedOut() {
+    final SolrjUpdateResponse response = new SolrjUpdateResponse();
+    assertFalse(response.isTimedOut());
+    response.setTimedOut(true);
+
+    assertTrue(response.isTimedOut());
+  }
+
   @Test
   public void testUpdateResponse() {
     final UpdateResponse updateResponse = new UpdateResponse();
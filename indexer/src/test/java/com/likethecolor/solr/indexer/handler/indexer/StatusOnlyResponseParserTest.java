@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class StatusOnlyResponseParserTest {
+  @Test
+  public void testProcessResponse() {
+    final ByteArrayInputStream body = new ByteArrayInputStream(new byte[20000]);
+    final StatusOnlyResponseParser parser = new StatusOnlyResponseParser();
+
+    final NamedList<Object> response = parser.processResponse(body, "UTF-8");
+
+    // read to the end
+    assertEquals(0, body.available());
+    final UpdateResponse updateResponse = new UpdateResponse();
+    updateResponse.setResponse(response);
+    assertEquals(0, updateResponse.getStatus());
+    assertEquals("javabin", parser.getWriterType());
+    assertNull(parser.getContentType());
+  }
+}
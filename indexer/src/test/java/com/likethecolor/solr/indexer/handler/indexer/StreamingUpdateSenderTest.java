@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import org.apache.solr.client.solrj.SolrClient;
+import org.apache.solr.client.solrj.SolrRequest;
+import org.apache.solr.client.solrj.SolrServerException;
+import org.apache.solr.client.solrj.impl.CloudSolrClient;
+import org.apache.solr.client.solrj.request.UpdateRequest;
+import org.apache.solr.client.solrj.response.UpdateResponse;
+import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.util.NamedList;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class StreamingUpdateSenderTest {
+  private Configuration configuration;
+  private CloudSolrClient cloudSolrClient;
+  private ShardRouterTest.TestShardRouter router;
+  private Map<String, List<Object>> streamedIds;
+  private List<Integer> requestSizes;
+  private AtomicInteger numDocs;
+  private AtomicInteger deadLetterCount;
+  private BatchDispatcher.Listener listener;
+
+  @Before
+  public void setUp() {
+    configuration = new Configuration();
+    configuration.setBatchSize(5);
+    configuration.setStreamMaxDocs(10);
+    configuration.setStreamMaxMillis(60000L);
+    configuration.setRetryCount(1);
+    cloudSolrClient = mock(CloudSolrClient.class);
+    router = new ShardRouterTest.TestShardRouter(ShardRouterTest.getDocCollection(2, 1));
+    streamedIds = Collections.synchronizedMap(new HashMap<String, List<Object>>());
+    requestSizes = Collections.synchronizedList(new ArrayList<Integer>());
+    numDocs = new AtomicInteger();
+    deadLetterCount = new AtomicInteger();
+    listener = new BatchDispatcher.Listener() {
+      @Override
+      public void batchCompleted(SolrjUpdateResponse response) {
+        numDocs.addAndGet(response.getDocSize());
+        deadLetterCount.addAndGet(response.getDeadLetterCount());
+      }
+    };
+  }
+
+  @Test
+  public void testSend() throws Exception {
+    final StreamingUpdateSender sender = new TestStreamingUpdateSender(false);
+
+    sender.send(batch(0, 25));
+    sender.send(batch(25, 25));
+    sender.close();
+
+    assertEquals(50, numDocs.get());
+    int streamed = 0;
+    for(Map.Entry<String, List<Object>> entry : streamedIds.entrySet()) {
+      for(Object id : entry.getValue()) {
+        // each document went to the leader of its shard
+        assertTrue(entry.getKey().contains(router.getShard(ShardRouterTest.doc(id.toString())) + "_"));
+        streamed++;
+      }
+    }
+    assertEquals(50, streamed);
+    for(Integer requestSize : requestSizes) {
+      assertTrue(requestSize <= 10);
+    }
+    verify(cloudSolrClient, never()).add(anyCollection());
+  }
+
+  @Test
+  public void testSend_StreamFailureResendsBatch() throws Exception {
+    final List<Object> resentIds = Collections.synchronizedList(new ArrayList<>());
+    when(cloudSolrClient.add(anyCollection())).thenAnswer(new Answer<UpdateResponse>() {
+      @Override
+      public UpdateResponse answer(final InvocationOnMock invocation) {
+        for(Object doc : (Collection<?>) invocation.getArgument(0)) {
+          resentIds.add(((SolrInputDocument) doc).getFieldValue("id"));
+        }
+        return new UpdateResponse();
+      }
+    });
+    final StreamingUpdateSender sender = new TestStreamingUpdateSender(true);
+
+    sender.send(batch(0, 20));
+    sender.close();
+
+    assertEquals(20, numDocs.get());
+    assertEquals(20, resentIds.size());
+  }
+
+  @Test
+  public void testSend_StreamFailureNotResentWhenIncremented() throws Exception {
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceIncrementFields("stock");
+    final StreamingUpdateSender sender = new TestStreamingUpdateSender(true);
+
+    sender.send(batch(0, 20));
+    sender.close();
+
+    verify(cloudSolrClient, never()).add(anyCollection());
+    assertEquals(0, numDocs.get());
+    assertEquals(20, deadLetterCount.get());
+  }
+
+  @Test
+  public void testSend_ResendFailure() throws Exception {
+    when(cloudSolrClient.add(anyCollection())).thenThrow(new SolrServerException("solr is down"));
+    final StreamingUpdateSender sender = new TestStreamingUpdateSender(true);
+
+    try {
+      sender.send(batch(0, 20));
+      sender.close();
+      fail("expected ExecutionException");
+    }
+    catch(ExecutionException expected) {
+    }
+    finally {
+      sender.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testQueueIterator() {
+    final BlockingQueue<SolrInputDocument> queue = new LinkedBlockingQueue<>();
+    for(int i = 1; i < 5; i++) {
+      queue.add(ShardRouterTest.doc("id-" + i));
+    }
+    final StreamingUpdateSender sender = new StreamingUpdateSender(configuration, cloudSolrClient, router, listener);
+    final StreamingUpdateSender.QueueIterator iterator = sender.new QueueIterator(queue, ShardRouterTest.doc("id-0"), 3, 60000);
+
+    int count = 0;
+    while(iterator.hasNext()) {
+      assertEquals("id-" + count, iterator.next().getFieldValue("id"));
+      count++;
+    }
+
+    // stops at the max number of documents
+    assertEquals(3, count);
+    assertEquals(3, iterator.getSent().size());
+    assertEquals(2, queue.size());
+  }
+
+  @Test
+  public void testQueueIterator_Time() {
+    final StreamingUpdateSender sender = new StreamingUpdateSender(configuration, cloudSolrClient, router, listener);
+    final StreamingUpdateSender.QueueIterator iterator = sender.new QueueIterator(new LinkedBlockingQueue<SolrInputDocument>(), ShardRouterTest.doc("id-0"), 100, 10);
+
+    assertTrue(iterator.hasNext());
+    iterator.next();
+
+    // nothing more arrives before the time is up
+    assertFalse(iterator.hasNext());
+    assertEquals(1, iterator.getSent().size());
+  }
+
+  private DocumentBatch batch(final int start, final int count) {
+    final List<SolrInputDocument> docs = new ArrayList<>();
+    for(int i = start; i < start + count; i++) {
+      docs.add(ShardRouterTest.doc("id-" + i));
+    }
+    return new DocumentBatch(docs, 0);
+  }
+
+  private class TestStreamingUpdateSender extends StreamingUpdateSender {
+    private final boolean fail;
+
+    TestStreamingUpdateSender(final boolean fail) {
+      super(configuration, cloudSolrClient, router, listener);
+      this.fail = fail;
+    }
+
+    @Override
+    protected SolrClient getLeaderClient(final String leaderUrl) {
+      final SolrClient client = mock(SolrClient.class);
+      try {
+        when(client.request(any(SolrRequest.class), isNull())).thenAnswer(new Answer<NamedList<Object>>() {
+          @Override
+          public NamedList<Object> answer(final InvocationOnMock invocation) throws Exception {
+            final Iterator<SolrInputDocument> docs = ((UpdateRequest) invocation.getArgument(0)).getDocIterator();
+            // read the first document before failing, as a broken connection would
+            final List<Object> ids = new ArrayList<>();
+            ids.add(docs.next().getFieldValue("id"));
+            if(fail) {
+              throw new SolrServerException("stream broke");
+            }
+            while(docs.hasNext()) {
+              ids.add(docs.next().getFieldValue("id"));
+            }
+            requestSizes.add(ids.size());
+            synchronized(streamedIds) {
+              if(!streamedIds.containsKey(leaderUrl)) {
+                streamedIds.put(leaderUrl, new ArrayList<>());
+              }
+            }
+            streamedIds.get(leaderUrl).addAll(ids);
+            return new NamedList<>();
+          }
+        });
+      }
+      catch(Exception e) {
+        throw new IllegalStateException(e);
+      }
+      return client;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.handler.indexer;
+
+import com.likethecolor.solr.indexer.Constants;
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.configuration.DocumentModeEnum;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class UpdateActionsTest {
+  @Test
+  public void testFull() {
+    final UpdateActions updateActions = new UpdateActions(DocumentModeEnum.FULL, null, null);
+
+    assertTrue(updateActions.isSent("price"));
+    assertNull(updateActions.getAction("price"));
+    assertEquals(12, updateActions.wrap("price", 12));
+    assertTrue(updateActions.getInplaceFields().isEmpty());
+    assertTrue(updateActions.isIdempotent());
+  }
+
+  @Test
+  public void testAtomic() {
+    final UpdateActions updateActions = UpdateActions.ATOMIC;
+
+    assertEquals(DocumentModeEnum.ATOMIC, updateActions.getDocumentMode());
+    assertTrue(updateActions.isSent("price"));
+    assertEquals(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, updateActions.getAction("price"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, 12), updateActions.wrap("price", 12));
+  }
+
+  @Test
+  public void testInplace() {
+    final UpdateActions updateActions = new UpdateActions(DocumentModeEnum.INPLACE, Collections.singleton("price"), Collections.singleton("stock"));
+
+    assertTrue(updateActions.isSent("price"));
+    assertTrue(updateActions.isSent("stock"));
+    assertFalse(updateActions.isSent("title"));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_UPDATE_DOCUMENT_ACTION, 12), updateActions.wrap("price", 12));
+    assertEquals(Collections.singletonMap(Constants.KEY_FOR_INCREMENT_DOCUMENT_ACTION, 1), updateActions.wrap("stock", 1));
+    assertEquals(new HashSet<>(Arrays.asList("price", "stock")), updateActions.getInplaceFields());
+    assertFalse(updateActions.isIdempotent());
+    assertTrue(new UpdateActions(DocumentModeEnum.INPLACE, Collections.singleton("price"), null).isIdempotent());
+  }
+
+  @Test
+  public void testFromConfiguration() {
+    final Configuration configuration = new Configuration();
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields(" price ; rating;");
+    configuration.setInplaceIncrementFields("stock");
+
+    final UpdateActions updateActions = UpdateActions.fromConfiguration(configuration);
+
+    assertEquals(DocumentModeEnum.INPLACE, updateActions.getDocumentMode());
+    assertEquals(new HashSet<>(Arrays.asList("price", "rating", "stock")), updateActions.getInplaceFields());
+  }
+
+  @Test
+  public void testFromConfiguration_Rebuild() {
+    final Configuration configuration = new Configuration();
+    configuration.setDocumentMode(Constants.DOCUMENT_MODE_INPLACE);
+    configuration.setInplaceFields("price");
+    configuration.setRebuild(true);
+
+    final UpdateActions updateActions = UpdateActions.fromConfiguration(configuration);
+
+    assertEquals(DocumentModeEnum.FULL, updateActions.getDocumentMode());
+    assertTrue(updateActions.isSent("title"));
+  }
+
+  @Test
+  public void testGetFieldNames() {
+    assertEquals(new HashSet<>(Arrays.asList("price", "stock")), UpdateActions.getFieldNames("price; stock ;"));
+    assertTrue(UpdateActions.getFieldNames(null).isEmpty());
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.json;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.field.FieldsParser;
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class JSONFieldExtractorTest {
+  private static final String FIELDS = "id:string;name:string;count:long;score:double;flag:boolean;tags:string;meta:string;missing:string";
+  private static final String FIELDS_TO_JSON = "id:id;name:name;count:count;score:score;flag:flag;tags:tags;meta:meta;missing:missing";
+  private Configuration configuration;
+  private JSONParser parser;
+  private MapToListValuesBuilder mapToListValuesBuilder;
+  private JSONFieldExtractor extractor;
+
+  @Before
+  public void setUp() {
+    configuration = new Configuration();
+    configuration.setFields(FIELDS);
+    configuration.setFieldsToJSON(FIELDS_TO_JSON);
+    parser = new JSONParser(configuration);
+    mapToListValuesBuilder = new MapToListValuesBuilder(new FieldsParser(configuration).parse(configuration.getFields()));
+    extractor = parser.newFieldExtractor(mapToListValuesBuilder);
+  }
+
+  @Test
+  public void testExtract() throws JSONException {
+    final String line = "{\"skip\":{\"a\":[1,2,{\"b\":\"}\"}]},\"id\":\"abc\",\"name\":\"caf\\u00e9 \\\"q\\\"\",\"count\":12,"
+                        + "\"score\":1.50,\"flag\":true,\"tags\":[\"x\", \"y\"],\"meta\":{\"k\": null},\"other\":\"ignored\"}";
+
+    final List<Object> values = extractor.extract(line);
+
+    assertEquals(Arrays.<Object>asList("abc", "café \"q\"", "12", "1.5", "true", "[\"x\",\"y\"]", "{\"k\":null}", ""), values);
+  }
+
+  @Test
+  public void testExtract_SameAsParser() throws JSONException {
+    final String[] lines = {
+        "{}",
+        "  { \"id\" : \"1\" , \"count\" : -3 }  ",
+        "{\"id\":null,\"count\":1e3,\"score\":-0.0,\"flag\":false}",
+        "{\"id\":\"\\/\\\\\\b\\t\"}",
+        "{\"i\\u0064\":\"escaped key\"}",
+        "{\"count\":12345678901,\"score\":3}",
+        "{\"tags\":[],\"meta\":{},\"name\":\"\"}",
+        // relaxed forms only org.json reads
+        "{id:'single quoted',count:7;name:bare}",
+        "{\"id\":\"trailing comma\",}",
+    };
+    for(String line : lines) {
+      assertEquals(line, mapToListValuesBuilder.build(parser.parse(line)), extractor.extract(line));
+    }
+  }
+
+  @Test
+  public void testExtract_SameKeyForTwoFields() throws JSONException {
+    configuration.setFields("id:string;copy:string");
+    configuration.setFieldsToJSON("id:id;copy:id");
+    final MapToListValuesBuilder builder = new MapToListValuesBuilder(new FieldsParser(configuration).parse(configuration.getFields()));
+
+    final List<Object> values = new JSONParser(configuration).newFieldExtractor(builder).extract("{\"id\":\"7\"}");
+
+    assertEquals(Arrays.<Object>asList("7", "7"), values);
+  }
+
+  @Test
+  public void testExtract_Paths() throws JSONException {
+    configuration.setFields("country:string;skus:array;city:string;first:string;tags:array");
+    configuration.setFieldsToJSON("country:user.geo.country;skus:items[*].sku;city:user.geo.city;first:items;tags:items[*].tags[*]");
+    configuration.setMultivalueFieldDelimiter("|");
+    final MapToListValuesBuilder builder = new MapToListValuesBuilder(new FieldsParser(configuration).parse(configuration.getFields()));
+    final JSONParser pathParser = new JSONParser(configuration);
+    final JSONFieldExtractor pathExtractor = pathParser.newFieldExtractor(builder);
+    final String line = "{\"id\":1,\"user\":{\"name\":\"n\",\"geo\":{\"country\":\"us\",\"lat\":1.5}},"
+                        + "\"items\":[{\"sku\":\"a1\",\"tags\":[\"x\",\"y\"]},{\"price\":2},{\"sku\":7,\"tags\":[]},\"not an object\"]}";
+
+    final List<Object> values = pathExtractor.extract(line);
+
+    assertEquals(Arrays.<Object>asList("us", "a1|7", "", pathParser.parse(line).get("first"), "x|y"), values);
+    assertEquals(builder.build(pathParser.parse(line)), values);
+  }
+
+  @Test
+  public void testExtract_Paths_SameAsParser() throws JSONException {
+    configuration.setFields("country:string;skus:array");
+    configuration.setFieldsToJSON("country:user.country;skus:items[*].sku");
+    final MapToListValuesBuilder builder = new MapToListValuesBuilder(new FieldsParser(configuration).parse(configuration.getFields()));
+    final JSONParser pathParser = new JSONParser(configuration);
+    final JSONFieldExtractor pathExtractor = pathParser.newFieldExtractor(builder);
+    final String[] lines = {
+        "{}",
+        "{\"user\":\"not an object\",\"items\":{\"sku\":\"not an array\"}}",
+        "{\"user\":{\"country\":{\"code\":\"us\"}},\"items\":[]}",
+        "{\"items\":[{\"sku\":null},{\"sku\":[1,2]}]}",
+        // a top level key named as the path is used before the path
+        "{\"user.country\":\"flat\",\"user\":{\"country\":\"nested\"}}",
+        // relaxed forms only org.json reads
+        "{user:{country:'ca'}}",
+    };
+    for(String line : lines) {
+      assertEquals(line, builder.build(pathParser.parse(line)), pathExtractor.extract(line));
+    }
+  }
+
+  @Test
+  public void testExtract_Blank() throws JSONException {
+    assertEquals(0, extractor.extract(" ").size());
+    assertEquals(0, extractor.extract(null).size());
+  }
+
+  @Test(expected = JSONException.class)
+  public void testExtract_DuplicateKey() throws JSONException {
+    extractor.extract("{\"id\":\"1\",\"id\":\"2\"}");
+  }
+
+  @Test(expected = JSONException.class)
+  public void testExtract_Malformed() throws JSONException {
+    extractor.extract("{\"id\":\"1\",\"name\"}");
+  }
+
+  @Test(expected = JSONException.class)
+  public void testExtract_NotAnObject() throws JSONException {
+    extractor.extract("[\"id\"]");
+  }
+}
@@ -24,6 +24,9 @@ import org.junit.Test;
 import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class JSONParserTest {
   @Test
@@ -86,4 +89,20 @@ public class JSONParserTest {
 
     assertEquals(0, actualMap.size());
   }
+
+  @Test
+  public void testParse_Path() throws JSONException {
+    Configuration configuration = new Configuration();
+    configuration.setFieldsToJSON("country:user.country;name:name");
+
+    JSONParser parser = new JSONParser(configuration);
+
+    // the path is compiled once, when the parser is made
+    JSONPath path = parser.getPath("user.country");
+    assertNotNull(path);
+    assertNull(parser.getPath("name"));
+    assertEquals("us", parser.parse("{\"user\":{\"country\":\"us\"},\"name\":\"n\"}").get("country"));
+    assertEquals("ca", parser.parse("{\"user\":{\"country\":\"ca\"}}").get("country"));
+    assertSame(path, parser.getPath("user.country"));
+  }
 }
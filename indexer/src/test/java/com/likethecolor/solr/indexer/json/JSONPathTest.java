@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.json;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JSONPathTest {
+  @Test
+  public void testIsPath() {
+    assertTrue(JSONPath.isPath("user.geo.country"));
+    assertTrue(JSONPath.isPath("tags[*]"));
+    assertFalse(JSONPath.isPath("user"));
+    assertFalse(JSONPath.isPath(null));
+  }
+
+  @Test
+  public void testCompile() {
+    final JSONPath path = JSONPath.compile("orders[*].items[*][*].sku");
+
+    assertEquals(Arrays.asList("orders", "items", "sku"), path.getKeys());
+    assertEquals(1, path.getArrayDepth(0));
+    assertEquals(2, path.getArrayDepth(1));
+    assertEquals(0, path.getArrayDepth(2));
+    assertTrue(path.isMultivalued());
+    assertFalse(JSONPath.compile("user.geo").isMultivalued());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompile_EmptyKey() {
+    JSONPath.compile("user..geo");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testCompile_Index() {
+    JSONPath.compile("items[0].sku");
+  }
+
+  @Test
+  public void testEvaluate() {
+    final JSONObject jsonObject = new JSONObject("{\"user\":{\"geo\":{\"country\":\"us\"}},\"items\":[{\"sku\":\"a\"},{},{\"sku\":\"b\"},3]}");
+
+    assertEquals(Collections.<Object>singletonList("us"), JSONPath.compile("user.geo.country").evaluate(jsonObject));
+    assertEquals(Arrays.<Object>asList("a", "b"), JSONPath.compile("items[*].sku").evaluate(jsonObject));
+    assertEquals(Collections.emptyList(), JSONPath.compile("user.geo.city").evaluate(jsonObject));
+    assertEquals(Collections.emptyList(), JSONPath.compile("user[*].geo").evaluate(jsonObject));
+  }
+
+  @Test
+  public void testJoin() {
+    assertEquals("a|b|3", JSONPath.join(Arrays.<Object>asList("a", "b", 3), "|"));
+    assertEquals("a", JSONPath.join(Collections.singletonList("a"), "|"));
+    assertEquals("", JSONPath.join(Collections.emptyList(), "|"));
+  }
+}
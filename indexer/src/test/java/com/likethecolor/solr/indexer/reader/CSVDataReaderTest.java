@@ -24,17 +24,25 @@ import org.mockito.MockitoAnnotations;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.supercsv.cellprocessor.ift.CellProcessor;
 import org.supercsv.io.CsvListReader;
+import org.supercsv.prefs.CsvPreference;
 
+import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.doCallRealMethod;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @RunWith (MockitoJUnitRunner.class)
@@ -102,6 +110,18 @@ public class CSVDataReaderTest {
     assertEquals(0, dataReaderThrowsFileNotFoundException.getLineNumber());
   }
 
+  @Test
+  public void testSkipTo() throws IOException {
+    doCallRealMethod().when(dataReader).skipTo(anyInt());
+    when(csvListReader.getLineNumber())
+        .thenReturn(10, 11, 12);
+    when(csvListReader.read())
+        .thenReturn(new ArrayList<String>());
+
+    assertEquals(2, dataReader.skipTo(12));
+    verify(csvListReader, times(2)).read();
+  }
+
   @Test
   public void testClose() throws IOException {
     dataReader.close();
@@ -116,4 +136,23 @@ public class CSVDataReaderTest {
   public void testClose_ExceptionThrown() throws IOException {
     dataReaderThrowsFileNotFoundException.close();
   }
+
+  @Test
+  public void testRead_Charset() throws IOException {
+    final File file = File.createTempFile("latin1", ".csv");
+    try {
+      Files.write(file.toPath(), "1,caf\u00e9\n".getBytes(StandardCharsets.ISO_8859_1));
+      final CSVDataReader reader = new CSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, new DataFileInput(StandardCharsets.ISO_8859_1, 1));
+      try {
+        assertEquals(Arrays.<Object>asList("1", "caf\u00e9"), reader.read(new CellProcessor[2]));
+        assertEquals(file.length(), reader.getBytesRead());
+      }
+      finally {
+        reader.close();
+      }
+    }
+    finally {
+      file.delete();
+    }
+  }
 }
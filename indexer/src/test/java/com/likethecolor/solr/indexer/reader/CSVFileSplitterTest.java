@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CSVFileSplitterTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("split", ".csv");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    write("a,1\nb,2\nc,3\nd,4\n");
+
+    final List<FileChunk> chunks = new CSVFileSplitter('"').split(file, 2);
+
+    assertEquals(2, chunks.size());
+    assertChunk(0, 8, 0, chunks.get(0));
+    assertChunk(8, 16, 2, chunks.get(1));
+  }
+
+  @Test
+  public void testSplit_QuotedLineBreak() throws Exception {
+    // the first row spans the first target and the second has a line break
+    // between escaped quotes where the second target is
+    write("a,\"1\n\n\n\n\n\n\n\n\n\n2\"\n" + "b,\"\"\"3\n\"\"\"\n" + "c,4\n");
+
+    final List<FileChunk> chunks = new CSVFileSplitter('"').split(file, 3);
+
+    assertEquals(3, chunks.size());
+    assertChunk(0, 17, 0, chunks.get(0));
+    assertChunk(17, 28, 11, chunks.get(1));
+    assertChunk(28, 32, 13, chunks.get(2));
+  }
+
+  @Test
+  public void testSplit_FewerRowsThanParts() throws Exception {
+    write("a,1\nb,2");
+
+    final List<FileChunk> chunks = new CSVFileSplitter('"').split(file, 8);
+
+    assertEquals(2, chunks.size());
+    assertChunk(0, 4, 0, chunks.get(0));
+    assertChunk(4, 7, 1, chunks.get(1));
+  }
+
+  @Test
+  public void testSplit_One() throws Exception {
+    write("a,1\nb,2\n");
+
+    assertEquals(Arrays.asList(8L), lengths(new CSVFileSplitter('"').split(file, 1)));
+  }
+
+  @Test
+  public void testSplit_Empty() throws Exception {
+    assertTrue(new CSVFileSplitter('"').split(file, 4).isEmpty());
+  }
+
+  private void assertChunk(final long startByte, final long endByte, final int startLineNumber, final FileChunk chunk) {
+    assertEquals(startByte, chunk.getStartByte());
+    assertEquals(endByte, chunk.getEndByte());
+    assertEquals(startLineNumber, chunk.getStartLineNumber());
+  }
+
+  private List<Long> lengths(final List<FileChunk> chunks) {
+    final Long[] lengths = new Long[chunks.size()];
+    for(int i = 0; i < lengths.length; i++) {
+      lengths[i] = chunks.get(i).getLength();
+    }
+    return Arrays.asList(lengths);
+  }
+
+  private void write(final String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelReaderTest {
+  // multi-byte characters in UTF-8 that will fall across the buffer ends
+  private static final String CONTENT = "id,name\n1,café\n2,naïve €5\n3,plain ascii\n4,日本語\n";
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("channel", ".csv");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testRead_UTF8() throws Exception {
+    write(CONTENT, StandardCharsets.UTF_8);
+
+    // a buffer must hold the longest byte sequence of a character
+    for(int bufferSize = 4; bufferSize <= 16; bufferSize++) {
+      final ChannelReader reader = new ChannelReader(new FileInputStream(file).getChannel(), 0, Long.MAX_VALUE, StandardCharsets.UTF_8, bufferSize);
+      try {
+        assertEquals("buffer size " + bufferSize, CONTENT, IOUtils.toString(reader));
+        assertEquals(file.length(), reader.getBytesRead());
+      }
+      finally {
+        reader.close();
+      }
+    }
+  }
+
+  @Test
+  public void testRead_NotAsciiCompatible() throws Exception {
+    write(CONTENT, StandardCharsets.UTF_16);
+
+    final ChannelReader reader = new ChannelReader(new FileInputStream(file).getChannel(), 0, Long.MAX_VALUE, StandardCharsets.UTF_16, 7);
+    try {
+      assertEquals(CONTENT, IOUtils.toString(reader));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Range() throws Exception {
+    // one byte a character - those not in the charset become ?
+    final String content = new String(CONTENT.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1);
+    write(content, StandardCharsets.ISO_8859_1);
+    final int start = content.indexOf("2,");
+    final int end = content.indexOf("4,");
+
+    final ChannelReader reader = new ChannelReader(new FileInputStream(file).getChannel(), start, end, StandardCharsets.ISO_8859_1);
+    try {
+      assertEquals(content.substring(start, end), IOUtils.toString(reader));
+      assertEquals(end - start, reader.getBytesRead());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Malformed() throws Exception {
+    Files.write(file.toPath(), new byte[] {'a', (byte) 0xff, 'b'});
+
+    final ChannelReader reader = new ChannelReader(Channels.newChannel(new FileInputStream(file)), StandardCharsets.UTF_8);
+    try {
+      assertEquals("a�b", IOUtils.toString(reader));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testIsAsciiCompatible() {
+    assertTrue(ChannelReader.isAsciiCompatible(StandardCharsets.UTF_8));
+    assertTrue(ChannelReader.isAsciiCompatible(StandardCharsets.US_ASCII));
+    assertTrue(ChannelReader.isAsciiCompatible(StandardCharsets.ISO_8859_1));
+    assertFalse(ChannelReader.isAsciiCompatible(StandardCharsets.UTF_16));
+  }
+
+  private void write(final String content, final Charset charset) throws Exception {
+    Files.write(file.toPath(), content.getBytes(charset));
+  }
+}
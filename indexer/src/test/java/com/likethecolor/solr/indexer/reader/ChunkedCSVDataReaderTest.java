@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+import org.supercsv.util.CsvContext;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChunkedCSVDataReaderTest {
+  private static final CellProcessor[] PROCESSORS = new CellProcessor[2];
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("chunked", ".csv");
+    final StringBuilder content = new StringBuilder("id,value\n");
+    for(int i = 1; i <= 30; i++) {
+      if(i == 12) {
+        // spans lines 13 to 15
+        content.append(i).append(",\"a\n\"\"b\"\"\nc\"\n");
+      }
+      else {
+        content.append(i).append(",v").append(i).append('\n');
+      }
+    }
+    Files.write(file.toPath(), content.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 4, StandardCharsets.UTF_8);
+    try {
+      assertArrayEquals(new Object[] {"id", "value"}, dataReader.getHeader(true));
+      assertEquals(1, dataReader.getLineNumber());
+
+      final Map<Integer, List<Object>> rows = readAll(dataReader);
+
+      assertEquals(4, dataReader.getChunks().size());
+      assertEquals(30, rows.size());
+      assertEquals(Arrays.<Object>asList("1", "v1"), rows.get(2));
+      assertEquals(Arrays.<Object>asList("11", "v11"), rows.get(12));
+      assertEquals(Arrays.<Object>asList("12", "a\n\"b\"\nc"), rows.get(15));
+      assertEquals(Arrays.<Object>asList("13", "v13"), rows.get(16));
+      assertEquals(Arrays.<Object>asList("30", "v30"), rows.get(33));
+      assertEquals(Integer.MAX_VALUE, dataReader.getReadThroughLineNumber());
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ProcessedOnPartThreads() throws Exception {
+    final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+    final CellProcessor toLong = new CellProcessor() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public <T> T execute(final Object value, final CsvContext context) {
+        threads.add(Thread.currentThread());
+        return (T) Long.valueOf((String) value);
+      }
+    };
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 4, StandardCharsets.UTF_8);
+    try {
+      dataReader.getHeader(true);
+      final Map<Integer, List<Object>> rows = new TreeMap<>();
+      List<Object> values;
+      while((values = dataReader.read(new CellProcessor[] {toLong, null})) != null) {
+        rows.put(dataReader.getLineNumber(), values);
+      }
+
+      assertEquals(30, rows.size());
+      assertEquals(Arrays.<Object>asList(1L, "v1"), rows.get(2));
+      assertEquals(Arrays.<Object>asList(30L, "v30"), rows.get(33));
+      assertFalse(threads.isEmpty());
+      assertFalse(threads.contains(Thread.currentThread()));
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testRead_NoHeader() throws Exception {
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 3, StandardCharsets.UTF_8);
+    try {
+      assertNull(dataReader.getHeader(false));
+
+      final Map<Integer, List<Object>> rows = readAll(dataReader);
+
+      assertEquals(31, rows.size());
+      assertEquals(Arrays.<Object>asList("id", "value"), rows.get(1));
+      assertEquals(Arrays.<Object>asList("30", "v30"), rows.get(33));
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testReadThroughLineNumber() throws Exception {
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 2, StandardCharsets.UTF_8);
+    try {
+      dataReader.getHeader(true);
+      final int secondPartStart = dataReader.getChunks().get(1).getStartLineNumber();
+      assertEquals(1, dataReader.getReadThroughLineNumber());
+
+      final int lineNumber = dataReader.read(PROCESSORS) == null ? -1 : dataReader.getLineNumber();
+      if(lineNumber <= secondPartStart) {
+        assertEquals(lineNumber, dataReader.getReadThroughLineNumber());
+      }
+      else {
+        // nothing from the first part has been returned yet
+        assertEquals(1, dataReader.getReadThroughLineNumber());
+      }
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testSkipTo() throws Exception {
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 4, StandardCharsets.UTF_8);
+    try {
+      dataReader.getHeader(true);
+
+      assertEquals(12, dataReader.skipTo(15));
+
+      final Map<Integer, List<Object>> rows = readAll(dataReader);
+      assertEquals(18, rows.size());
+      assertEquals(16, ((TreeMap<Integer, List<Object>>) rows).firstKey().intValue());
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ErrorLineNumber() throws Exception {
+    Files.write(file.toPath(), "a,1\nb,2\nc,3\nd,4\ne,5,extra\nf,6\n".getBytes(StandardCharsets.UTF_8));
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 2, StandardCharsets.UTF_8);
+    try {
+      readAll(dataReader);
+      fail("expected the row with too many columns to fail");
+    }
+    catch(SuperCsvException e) {
+      assertEquals(5, e.getCsvContext().getLineNumber());
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Empty() throws Exception {
+    Files.write(file.toPath(), new byte[0]);
+    final ChunkedCSVDataReader dataReader = new ChunkedCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE, 2, StandardCharsets.UTF_8);
+    try {
+      assertNull(dataReader.getHeader(true));
+      assertNull(dataReader.read(PROCESSORS));
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  private static Map<Integer, List<Object>> readAll(final ChunkedCSVDataReader dataReader) throws Exception {
+    final Map<Integer, List<Object>> rows = new TreeMap<>();
+    List<Object> values;
+    while((values = dataReader.read(PROCESSORS)) != null) {
+      assertNull(rows.put(dataReader.getLineNumber(), values));
+    }
+    return rows;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.field.FieldsParser;
+import com.likethecolor.solr.indexer.json.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ChunkedJSONDataReaderTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("chunked", ".json");
+    final StringBuilder content = new StringBuilder();
+    for(int i = 1; i <= 20; i++) {
+      content.append("{\"id\":\"").append(i).append("\", \"name\":\"name ").append(i).append("\"}\n");
+    }
+    write(content.toString());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    final ChunkedJSONDataReader dataReader = getDataReader(3);
+    try {
+      assertNull(dataReader.getHeader(false));
+
+      final TreeMap<Integer, List<Object>> rows = readAll(dataReader);
+
+      assertEquals(3, dataReader.getChunks().size());
+      assertEquals(20, rows.size());
+      for(int i = 1; i <= 20; i++) {
+        assertEquals(Arrays.<Object>asList(String.valueOf(i), "name " + i), rows.get(i));
+      }
+      assertEquals(Integer.MAX_VALUE, dataReader.getReadThroughLineNumber());
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testSkipTo() throws Exception {
+    final ChunkedJSONDataReader dataReader = getDataReader(4);
+    try {
+      assertEquals(12, dataReader.skipTo(12));
+
+      final TreeMap<Integer, List<Object>> rows = readAll(dataReader);
+      assertEquals(8, rows.size());
+      assertEquals(13, rows.firstKey().intValue());
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ParseFailure() throws Exception {
+    write("{\"id\":\"1\", \"name\":\"a\"}\n{\"id\":\"2\", \"name\":\"b\"}\n{\"id\":\"3\", \"name\":\"c\"}\n{\"id\":\"4\", \"name\":\n{\"id\":\"5\", \"name\":\"e\"}\n");
+    final ChunkedJSONDataReader dataReader = getDataReader(2);
+    try {
+      readAll(dataReader);
+      fail("expected line 4 to fail");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("could not parse line 4 of "));
+    }
+    finally {
+      dataReader.close();
+    }
+  }
+
+  private ChunkedJSONDataReader getDataReader(final int splitCount) {
+    final Configuration configuration = new Configuration();
+    configuration.setFieldsToJSON("id:id;name:name");
+    configuration.setFields("id:string;name:string");
+    return new ChunkedJSONDataReader(file.getPath(), new FieldsParser(configuration).parse(configuration.getFields()), new JSONParser(configuration), splitCount, StandardCharsets.UTF_8);
+  }
+
+  private static TreeMap<Integer, List<Object>> readAll(final ChunkedJSONDataReader dataReader) throws Exception {
+    final TreeMap<Integer, List<Object>> rows = new TreeMap<>();
+    List<Object> values;
+    while((values = dataReader.read(null)) != null) {
+      assertNull(rows.put(dataReader.getLineNumber(), values));
+    }
+    return rows;
+  }
+
+  private void write(final String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
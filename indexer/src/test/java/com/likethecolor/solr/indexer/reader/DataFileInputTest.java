@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DataFileInputTest {
+  private static final String CONTENT = "id,name\n1,café\n2,naïve\n3,plain ascii\n";
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("input", ".data");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testOpen_Plain() throws Exception {
+    try(OutputStream out = new FileOutputStream(file)) {
+      out.write(CONTENT.getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    assertFalse(DataFileInput.isGzipped(file.getPath()));
+    assertEquals(CONTENT, read(new DataFileInput(StandardCharsets.ISO_8859_1, 1)));
+  }
+
+  @Test
+  public void testOpen_Gzipped() throws Exception {
+    try(OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertTrue(DataFileInput.isGzipped(file.getPath()));
+    assertEquals(CONTENT, read(DataFileInput.defaults()));
+  }
+
+  @Test
+  public void testOpen_GzippedMembers() throws Exception {
+    // concatenated gzip members, as written by appending gzip outputs
+    final int split = CONTENT.indexOf("2,");
+    try(OutputStream out = new FileOutputStream(file)) {
+      for(String part : new String[] {CONTENT.substring(0, split), CONTENT.substring(split)}) {
+        final GZIPOutputStream member = new GZIPOutputStream(out) {
+          @Override
+          public void close() {
+            // leave the file open for the next member
+          }
+        };
+        member.write(part.getBytes(StandardCharsets.UTF_8));
+        member.finish();
+      }
+    }
+
+    assertTrue(DataFileInput.isGzipped(file.getPath()));
+    assertEquals(CONTENT, read(new DataFileInput(StandardCharsets.UTF_8, 4)));
+  }
+
+  @Test
+  public void testIsGzipped_Missing() {
+    assertFalse(DataFileInput.isGzipped(file.getPath() + ".missing"));
+  }
+
+  @Test
+  public void testDecompressThreadCount() {
+    assertEquals(1, new DataFileInput(StandardCharsets.UTF_8, 0).getDecompressThreadCount());
+    assertEquals(4, new DataFileInput(StandardCharsets.UTF_8, 4).getDecompressThreadCount());
+  }
+
+  private String read(final DataFileInput input) throws Exception {
+    try(ChannelReader reader = input.open(file.getPath())) {
+      return IOUtils.toString(reader);
+    }
+  }
+}
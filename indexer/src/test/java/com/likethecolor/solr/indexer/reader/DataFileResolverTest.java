@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DataFileResolverTest {
+  private File directory;
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("data-files").toFile();
+    touch("2018-10-21/part-1.csv");
+    touch("2018-10-21/part-0.csv");
+    touch("2018-10-21/.part-2.csv.crc");
+    touch("2018-10-22/part-0.csv");
+    touch("2018-10-22/part-0.json");
+    touch("2018-11-01/part-0.csv");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FileUtils.deleteDirectory(directory);
+  }
+
+  @Test
+  public void testResolve_File() throws Exception {
+    assertEquals(Collections.singletonList("/var/foo/file.data"), new DataFileResolver().resolve("/var/foo/file.data"));
+    assertEquals(Collections.singletonList(null), new DataFileResolver().resolve(null));
+  }
+
+  @Test
+  public void testResolve_Directory() throws Exception {
+    final List<String> dataFiles = new DataFileResolver().resolve(path("2018-10-21"));
+
+    assertEquals(Arrays.asList(path("2018-10-21/part-0.csv"), path("2018-10-21/part-1.csv")), dataFiles);
+  }
+
+  @Test
+  public void testResolve_Glob() throws Exception {
+    final List<String> dataFiles = new DataFileResolver().resolve(path("2018-10-*/part-*.csv"));
+
+    assertEquals(Arrays.asList(path("2018-10-21/part-0.csv"), path("2018-10-21/part-1.csv"), path("2018-10-22/part-0.csv")), dataFiles);
+  }
+
+  @Test
+  public void testResolve_GlobAnyDepth() throws Exception {
+    final List<String> dataFiles = new DataFileResolver().resolve(path("**/part-0.*"));
+
+    assertEquals(Arrays.asList(path("2018-10-21/part-0.csv"), path("2018-10-22/part-0.csv"), path("2018-10-22/part-0.json"), path("2018-11-01/part-0.csv")), dataFiles);
+  }
+
+  @Test
+  public void testResolve_Manifest() throws Exception {
+    final File manifest = new File(directory, "files.txt");
+    FileUtils.writeStringToFile(manifest, "# october\n2018-10-22/part-0.csv\n\n  " + path("2018-11-01/part-0.csv") + "  \n", StandardCharsets.UTF_8);
+
+    final List<String> dataFiles = new DataFileResolver().resolve(DataFileResolver.MANIFEST_PREFIX + manifest.getPath());
+
+    assertEquals(Arrays.asList(path("2018-10-22/part-0.csv"), path("2018-11-01/part-0.csv")), dataFiles);
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void testResolve_GlobMatchesNothing() throws Exception {
+    new DataFileResolver().resolve(path("2019-*/part-*.csv"));
+  }
+
+  @Test(expected = FileNotFoundException.class)
+  public void testResolve_ManifestNotFound() throws Exception {
+    new DataFileResolver().resolve(DataFileResolver.MANIFEST_PREFIX + path("files.txt"));
+  }
+
+  @Test
+  public void testIsGlob() {
+    assertTrue(DataFileResolver.isGlob("/data/*.csv"));
+    assertTrue(DataFileResolver.isGlob("/data/part-?.csv"));
+    assertTrue(DataFileResolver.isGlob("/data/part-[01].csv"));
+    assertTrue(DataFileResolver.isGlob("/data/part-{0,1}.csv"));
+    assertFalse(DataFileResolver.isGlob("/data/part-0.csv"));
+  }
+
+  private String path(final String relativePath) {
+    return new File(directory, relativePath).getPath();
+  }
+
+  private void touch(final String relativePath) throws IOException {
+    FileUtils.writeStringToFile(new File(directory, relativePath), "id,name\n", StandardCharsets.UTF_8);
+  }
+}
@@ -26,6 +26,11 @@ import com.likethecolor.solr.indexer.reader.JSONDataReader;
 import org.junit.Test;
 import org.supercsv.prefs.CsvPreference;
 
+import java.io.File;
+import java.io.FileOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
 import static org.junit.Assert.assertTrue;
 
 public class DataReaderFactoryTest {
@@ -43,6 +48,86 @@ public class DataReaderFactoryTest {
     assertTrue(dataReader.getClass().getSimpleName().equals(CSVDataReader.class.getSimpleName()));
   }
 
+  @Test
+  public void testGetDataReader_ChunkedCSVReader() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_CSV);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setCsvSplitCount(4);
+    CsvPreference csvPreference = CsvPreference.STANDARD_PREFERENCE;
+
+    DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, csvPreference);
+
+    assertTrue(dataReader instanceof ChunkedCSVDataReader);
+  }
+
+  @Test
+  public void testGetDataReader_FastCSVReader() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_FAST_CSV);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    CsvPreference csvPreference = CsvPreference.STANDARD_PREFERENCE;
+
+    DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, csvPreference);
+
+    assertTrue(dataReader instanceof FastCSVDataReader);
+  }
+
+  @Test
+  public void testGetDataReader_FastCSVNotSupported() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_FAST_CSV);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setDataFileEncoding("UTF-16");
+    CsvPreference csvPreference = CsvPreference.STANDARD_PREFERENCE;
+
+    DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, csvPreference);
+
+    assertTrue(dataReader instanceof CSVDataReader);
+  }
+
+  @Test
+  public void testGetDataReader_GzippedCSVIsNotChunked() throws Exception {
+    final File file = File.createTempFile("factory", ".csv.gz");
+    try {
+      try(GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+        out.write("1,one\n2,two\n".getBytes(StandardCharsets.UTF_8));
+      }
+      Configuration configuration = new Configuration();
+      configuration.setDataType(Constants.DATA_TYPE_CSV);
+      configuration.setPathToDataFile(file.getPath());
+      configuration.setCsvSplitCount(4);
+
+      DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, CsvPreference.STANDARD_PREFERENCE);
+
+      assertTrue(dataReader instanceof CSVDataReader);
+    }
+    finally {
+      assertTrue(file.delete());
+    }
+  }
+
+  @Test
+  public void testGetDataReader_DataFile() throws Exception {
+    final File file = File.createTempFile("factory", ".csv.gz");
+    try {
+      try(GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+        out.write("1,one\n2,two\n".getBytes(StandardCharsets.UTF_8));
+      }
+      Configuration configuration = new Configuration();
+      configuration.setDataType(Constants.DATA_TYPE_CSV);
+      configuration.setPathToDataFile("/var/foo/*.data");
+      configuration.setCsvSplitCount(4);
+
+      // the reader is picked for the data file, not the path to the data file
+      assertTrue(DataReaderFactory.getInstance().getDataReader(configuration, CsvPreference.STANDARD_PREFERENCE, file.getPath()) instanceof CSVDataReader);
+      assertTrue(DataReaderFactory.getInstance().getDataReader(configuration, CsvPreference.STANDARD_PREFERENCE, PATH_TO_DATA_FILE) instanceof ChunkedCSVDataReader);
+    }
+    finally {
+      assertTrue(file.delete());
+    }
+  }
+
   @Test
   public void testGetDataReader_JSONReader() {
     Configuration configuration = new Configuration();
@@ -54,6 +139,32 @@ public class DataReaderFactoryTest {
     assertTrue(dataReader.getClass().getSimpleName().equals(JSONDataReader.class.getSimpleName()));
   }
 
+  @Test
+  public void testGetDataReader_ChunkedJSONReader() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setJsonSplitCount(4);
+
+    DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, null);
+
+    assertTrue(dataReader instanceof ChunkedJSONDataReader);
+  }
+
+  @Test
+  public void testGetDataReader_JSONArrayReader() {
+    Configuration configuration = new Configuration();
+    configuration.setDataType(Constants.DATA_TYPE_JSON_ARRAY);
+    configuration.setPathToDataFile(PATH_TO_DATA_FILE);
+    configuration.setJsonArrayPath("response.docs");
+    // an array is not split
+    configuration.setJsonSplitCount(4);
+
+    DataReader dataReader = DataReaderFactory.getInstance().getDataReader(configuration, null);
+
+    assertTrue(dataReader instanceof JSONArrayDataReader);
+  }
+
   @Test
   public void testGetDataReader_Unknown() {
     Configuration configuration = new Configuration();
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares the time {@link CSVDataReader}, through SuperCSV, and
+ * {@link FastCSVDataReader} take to read the same CSV file.  It is not run
+ * with the tests.  Run it from the indexer directory with:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/classes:target/test-classes:$(cat target/cp.txt) \
+ *   com.likethecolor.solr.indexer.reader.FastCSVBenchmark [rows] [path to CSV file]
+ * </pre>
+ *
+ * Without a file one of the given number of rows, default 500000, is made:
+ * twelve columns of numbers, words, quoted values with delimiters and
+ * doubled quotes and values with non ASCII characters.  Each reader reads
+ * the file five times after two warm up reads and the best time is
+ * reported.
+ */
+public class FastCSVBenchmark {
+  private static final int WARM_UP_RUNS = 2;
+  private static final int RUNS = 5;
+  private static final String[] WORDS = {"alpha", "beta", "gamma", "delta", "café", "naïve", "日本語", "solr", "indexer", "€5"};
+
+  public static void main(final String[] args) throws IOException {
+    final int rows = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+    final File file = args.length > 1 ? new File(args[1]) : write(rows);
+    try {
+      final int columns = countColumns(file);
+      System.out.printf("%s: %.1f MB, %d columns%n", file, file.length() / (1024.0 * 1024.0), columns);
+      final double superCsv = run("SuperCSV (csv)", file, columns, false);
+      final double fast = run("fast tokenizer (fast-csv)", file, columns, true);
+      System.out.printf("fast-csv is %.2fx as fast as csv%n", superCsv / fast);
+    }
+    finally {
+      if(args.length < 2 && !file.delete()) {
+        System.err.println("could not delete " + file);
+      }
+    }
+  }
+
+  /**
+   * @return best time, in seconds, to read every row
+   */
+  private static double run(final String name, final File file, final int columns, final boolean fast) throws IOException {
+    double best = Double.MAX_VALUE;
+    long rows = 0;
+    for(int run = 0; run < WARM_UP_RUNS + RUNS; run++) {
+      final long start = System.nanoTime();
+      rows = read(getReader(file, fast), columns);
+      final double seconds = (System.nanoTime() - start) / 1e9;
+      if(run >= WARM_UP_RUNS) {
+        best = Math.min(best, seconds);
+      }
+    }
+    System.out.printf("%-26s %,d rows in %.3f s: %,.0f rows/s, %.1f MB/s%n", name, rows, best, rows / best, file.length() / (1024.0 * 1024.0) / best);
+    return best;
+  }
+
+  private static DataReader getReader(final File file, final boolean fast) {
+    return fast ? new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE) : new CSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+  }
+
+  private static long read(final DataReader reader, final int columns) throws IOException {
+    final CellProcessor[] processors = new CellProcessor[columns];
+    long rows = 0;
+    long length = 0;
+    try {
+      List<Object> row;
+      while((row = reader.read(processors)) != null) {
+        // use the values so the reading cannot be optimized away
+        for(Object value : row) {
+          if(value != null) {
+            length += ((String) value).length();
+          }
+        }
+        rows++;
+      }
+    }
+    finally {
+      reader.close();
+    }
+    return length < 0 ? -1 : rows;
+  }
+
+  private static int countColumns(final File file) throws IOException {
+    final DataReader reader = new CSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      final Object[] header = reader.getHeader(true);
+      return header == null ? 0 : header.length;
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private static File write(final int rows) throws IOException {
+    final File file = File.createTempFile("benchmark", ".csv");
+    final Random random = new Random(42);
+    try(Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+      for(int row = 0; row < rows; row++) {
+        out.write(String.valueOf(row));
+        out.write(',');
+        out.write(String.valueOf(random.nextLong()));
+        out.write(',');
+        out.write(String.valueOf(random.nextDouble()));
+        out.write(',');
+        out.write(word(random));
+        out.write(",\"");
+        out.write(word(random));
+        out.write(", ");
+        out.write(word(random));
+        out.write("\",");
+        out.write(word(random) + ' ' + word(random) + ' ' + word(random));
+        out.write(',');
+        out.write(String.valueOf(random.nextInt(1000)));
+        out.write(",\"say \"\"");
+        out.write(word(random));
+        out.write("\"\"\",,");
+        out.write(word(random));
+        out.write(',');
+        out.write(String.valueOf(random.nextBoolean()));
+        out.write(',');
+        out.write("2018-09-12 10:" + random.nextInt(60) + ':' + random.nextInt(60));
+        out.write('\n');
+      }
+    }
+    return file;
+  }
+
+  private static String word(final Random random) {
+    return WORDS[random.nextInt(WORDS.length)];
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.supercsv.cellprocessor.ParseInt;
+import org.supercsv.cellprocessor.ift.CellProcessor;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FastCSVDataReaderTest {
+  private static final String CSV = "id,name\n1,one\n2,\"two\nlines\"\n3,three\n";
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("fast", ".csv");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    write(CSV);
+
+    final DataReader reader = new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      assertEquals(0, reader.getLineNumber());
+      assertArrayEquals(new Object[] {"id", "name"}, reader.getHeader(true));
+      assertEquals(1, reader.getLineNumber());
+
+      final CellProcessor[] processors = {new ParseInt(), null};
+      assertEquals(Arrays.<Object>asList(1, "one"), reader.read(processors));
+      assertEquals(2, reader.getLineNumber());
+      assertEquals(Arrays.<Object>asList(2, "two\nlines"), reader.read(processors));
+      assertEquals(4, reader.getLineNumber());
+      assertEquals(Arrays.<Object>asList("3", "three"), reader.read(null));
+      assertNull(reader.read(processors));
+      assertEquals(CSV.length(), reader.getBytesRead());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Gzipped() throws Exception {
+    try(OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(CSV.getBytes(StandardCharsets.UTF_8));
+    }
+
+    final DataReader reader = new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      assertArrayEquals(new Object[] {"id", "name"}, reader.getHeader(true));
+      assertEquals(Arrays.<Object>asList("1", "one"), reader.read(new CellProcessor[2]));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ColumnCountNotProcessorCount() throws Exception {
+    write(CSV);
+
+    final DataReader reader = new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      reader.read(new CellProcessor[3]);
+      fail("expected SuperCsvException");
+    }
+    catch(SuperCsvException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("The number of columns to be processed (2) must match the number of CellProcessors (3)"));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test(expected = SuperCsvException.class)
+  public void testGetHeader_NotFirstLine() throws Exception {
+    write(CSV);
+
+    final DataReader reader = new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      reader.read(null);
+      reader.getHeader(true);
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSkipTo() throws Exception {
+    write(CSV);
+
+    final DataReader reader = new FastCSVDataReader(file.getPath(), CsvPreference.STANDARD_PREFERENCE);
+    try {
+      // the row ending on line 4 starts on line 3
+      assertEquals(3, reader.skipTo(3));
+      assertEquals(4, reader.getLineNumber());
+
+      assertEquals(Arrays.<Object>asList("3", "three"), reader.read(null));
+
+      // no more rows
+      assertEquals(0, reader.skipTo(10));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(FastCSVDataReader.isSupported(CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_8));
+    assertTrue(FastCSVDataReader.isSupported(CsvPreference.TAB_PREFERENCE, StandardCharsets.ISO_8859_1));
+    assertFalse(FastCSVDataReader.isSupported(CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_16));
+    assertFalse(FastCSVDataReader.isSupported(new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE).surroundingSpacesNeedQuotes(true).build(), StandardCharsets.UTF_8));
+    assertFalse(FastCSVDataReader.isSupported(new CsvPreference.Builder(CsvPreference.STANDARD_PREFERENCE).maxLinesPerRow(2).build(), StandardCharsets.UTF_8));
+  }
+
+  private void write(final String content) throws IOException {
+    try(OutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.Test;
+import org.supercsv.exception.SuperCsvException;
+import org.supercsv.io.CsvListReader;
+import org.supercsv.prefs.CsvPreference;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FastCSVTokenizerTest {
+  private static final CsvPreference PIPE_PREFERENCE = new CsvPreference.Builder('\'', '|', "\n").build();
+  private static final String[] CSV = {
+      "a,b,c\n1,2,3\n",
+      "a,b,c",
+      "a,,c\n,,\n",
+      "\"a\",\"\",c\r\n\"x,y\",\"say \"\"hi\"\"\",z\r\n",
+      "\"multi\nline\",b\n\"cr\r\nlf\",\"lone\rcr\"\n",
+      "\n\na,b\n\n\nc,d\n\n",
+      "  spaced  , \"quoted\" ,x\"y\"z\n",
+      "\"a\"b\"c\",d\ne,\"\"\"\"\n",
+      "café,naïve €5,日本語\nlonger than the eight bytes of a word,and another one,\"with a quoted, delimited value\"\n",
+      "a,b\r\nc,d\re,f\n",
+      "a,\n,\n",
+      "",
+      "\n\n",
+  };
+
+  @Test
+  public void testReadRow_SameAsSuperCsv() throws Exception {
+    for(String csv : CSV) {
+      // small buffers put the ends of rows, quotes and line endings across refills
+      for(int bufferSize = 16; bufferSize <= 48; bufferSize++) {
+        assertSameAsSuperCsv(csv, CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_8, bufferSize);
+      }
+      assertSameAsSuperCsv(csv, CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_8, 1024);
+    }
+  }
+
+  @Test
+  public void testReadRow_Preference() throws Exception {
+    assertSameAsSuperCsv("a|'b|c'|'it''s'\n'x\ny'|\"z\"|\n", PIPE_PREFERENCE, StandardCharsets.ISO_8859_1, 16);
+    assertSameAsSuperCsv("\n\na,b\n\nc\n", new CsvPreference.Builder('"', ',', "\n").ignoreEmptyLines(false).build(), StandardCharsets.UTF_8, 16);
+  }
+
+  @Test
+  public void testReadRow_UnterminatedQuote() throws Exception {
+    final FastCSVTokenizer tokenizer = getTokenizer("a,b\n\"c,d\ne\n", CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_8, 16);
+    assertTrue(tokenizer.readRow());
+    try {
+      tokenizer.readRow();
+      fail("expected SuperCsvException");
+    }
+    catch(SuperCsvException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("unexpected end of file while reading quoted column beginning on line 2"));
+    }
+  }
+
+  @Test
+  public void testGetBytesRead() throws Exception {
+    final String csv = CSV[8];
+    final FastCSVTokenizer tokenizer = getTokenizer(csv, CsvPreference.STANDARD_PREFERENCE, StandardCharsets.UTF_8, 16);
+    while(tokenizer.readRow()) {
+      // read to the end
+    }
+    assertFalse(tokenizer.readRow());
+    assertEquals(csv.getBytes(StandardCharsets.UTF_8).length, tokenizer.getBytesRead());
+  }
+
+  @Test
+  public void testIsSupported() {
+    assertTrue(FastCSVTokenizer.isSupported(StandardCharsets.UTF_8, '"', ','));
+    assertTrue(FastCSVTokenizer.isSupported(StandardCharsets.ISO_8859_1, '\'', '\t'));
+    assertFalse(FastCSVTokenizer.isSupported(StandardCharsets.UTF_16, '"', ','));
+    assertFalse(FastCSVTokenizer.isSupported(StandardCharsets.UTF_8, '"', '§'));
+    assertFalse(FastCSVTokenizer.isSupported(StandardCharsets.UTF_8, '"', '"'));
+    assertFalse(FastCSVTokenizer.isSupported(StandardCharsets.UTF_8, '"', '\n'));
+  }
+
+  private static void assertSameAsSuperCsv(final String csv, final CsvPreference preference, final Charset charset, final int bufferSize) throws IOException {
+    final CsvListReader expected = new CsvListReader(new StringReader(csv), preference);
+    final FastCSVTokenizer tokenizer = getTokenizer(csv, preference, charset, bufferSize);
+    final String message = "buffer size " + bufferSize + " csv '" + csv + "'";
+    List<String> row;
+    while((row = expected.read()) != null) {
+      assertTrue(message, tokenizer.readRow());
+      final List<String> columns = new ArrayList<>();
+      for(int column = 0; column < tokenizer.getColumnCount(); column++) {
+        columns.add(tokenizer.getColumn(column));
+      }
+      assertEquals(message, row, columns);
+      assertEquals(message + " " + row, expected.getLineNumber(), tokenizer.getLineNumber());
+    }
+    assertFalse(message, tokenizer.readRow());
+    expected.close();
+  }
+
+  private static FastCSVTokenizer getTokenizer(final String csv, final CsvPreference preference, final Charset charset, final int bufferSize) {
+    final ByteArrayInputStream in = new ByteArrayInputStream(csv.getBytes(charset));
+    return new FastCSVTokenizer(Channels.newChannel(in), charset, preference.getQuoteChar(), preference.getDelimiterChar(), preference.isIgnoreEmptyLines(), bufferSize);
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import com.likethecolor.solr.indexer.configuration.Configuration;
+import com.likethecolor.solr.indexer.field.FieldDefinition;
+import com.likethecolor.solr.indexer.field.FieldsParser;
+import com.likethecolor.solr.indexer.json.JSONParser;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JSONArrayDataReaderTest {
+  private static final String FIELDS = "id:string;name:string";
+  private static final String FIELDS_TO_JSON = "id:id;name:name";
+  private static final String ARRAY = "[\n  {\"id\":\"1\", \"name\":\"one\"},\n  {\"id\":\"2\", \"name\":\"two [2]\", \"tags\":[\"a\", {\"b\":\"}\"}]},\n  {\"name\":\"three \\\"3\\\"\", \"id\":\"3\"}\n]\n";
+  private File file;
+  private Configuration configuration;
+  private Map<String, FieldDefinition> fieldDefinitionMap;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("array", ".json");
+    configuration = new Configuration();
+    configuration.setFields(FIELDS);
+    configuration.setFieldsToJSON(FIELDS_TO_JSON);
+    fieldDefinitionMap = new FieldsParser(configuration).parse(configuration.getFields());
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testRead_TopLevelArray() throws Exception {
+    write(ARRAY);
+
+    final DataReader reader = getReader(null);
+    try {
+      assertEquals(Arrays.<List<Object>>asList(
+          Arrays.<Object>asList("1", "one"),
+          Arrays.<Object>asList("2", "two [2]"),
+          Arrays.<Object>asList("3", "three \"3\"")), readAll(reader));
+      assertEquals(3, reader.getLineNumber());
+      assertEquals(file.length(), reader.getBytesRead());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ArrayPath() throws Exception {
+    // values before the array are stepped over, those after are not read
+    write("{\"header\":{\"status\":0, \"docs\":[{\"id\":\"x\"}]}, \"count\":3, \"response\":{\"numFound\":3, \"docs\":" + ARRAY + ", \"start\":0}, \"after\":[1, 2");
+
+    final DataReader reader = getReader("response.docs");
+    try {
+      final List<List<Object>> rows = readAll(reader);
+      assertEquals(3, rows.size());
+      assertEquals(Arrays.<Object>asList("1", "one"), rows.get(0));
+      assertEquals(Arrays.<Object>asList("3", "three \"3\""), rows.get(2));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_ArrayPathNotFound() throws Exception {
+    write("{\"response\":{\"numFound\":0}}");
+
+    final DataReader reader = getReader("response.docs");
+    try {
+      assertNull(reader.read(null));
+      assertEquals(0, reader.getLineNumber());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_EmptyArray() throws Exception {
+    write(" [ ] ");
+
+    final DataReader reader = getReader(null);
+    try {
+      assertNull(reader.getHeader(true));
+      assertNull(reader.read(null));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Gzipped() throws Exception {
+    try(OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(ARRAY.getBytes(StandardCharsets.UTF_8));
+    }
+
+    final DataReader reader = getReader(null);
+    try {
+      assertEquals(3, readAll(reader).size());
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testGetHeader_Read() throws Exception {
+    write(ARRAY);
+
+    final DataReader reader = getReader(null);
+    try {
+      assertArrayEquals(new Object[] {"1", "one"}, reader.getHeader(true));
+      assertEquals(Arrays.<Object>asList("2", "two [2]"), reader.read(null));
+      assertArrayEquals(new Object[] {"1", "one"}, reader.getHeader(true));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testSkipTo() throws Exception {
+    write(ARRAY);
+
+    final DataReader reader = getReader(null);
+    try {
+      assertEquals(2, reader.skipTo(2));
+      assertEquals(2, reader.getLineNumber());
+
+      assertEquals(Arrays.<Object>asList("3", "three \"3\""), reader.read(null));
+      assertEquals(3, reader.getLineNumber());
+
+      // no more elements
+      assertEquals(0, reader.skipTo(5));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_NotAnArray() throws Exception {
+    write("{\"id\":\"1\"}");
+
+    final DataReader reader = getReader(null);
+    try {
+      reader.read(null);
+      fail("expected IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("expected the file to be an array"));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_MissingComma() throws Exception {
+    write("[{\"id\":\"1\", \"name\":\"one\"} {\"id\":\"2\"}]");
+
+    final DataReader reader = getReader(null);
+    try {
+      assertEquals(Arrays.<Object>asList("1", "one"), reader.read(null));
+      reader.read(null);
+      fail("expected IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("after element 1"));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  @Test
+  public void testRead_Truncated() throws Exception {
+    write("[{\"id\":\"1\"}, {\"id\":\"2");
+
+    final DataReader reader = getReader(null);
+    try {
+      reader.read(null);
+      reader.read(null);
+      fail("expected IOException");
+    }
+    catch(IOException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("unterminated string"));
+    }
+    finally {
+      reader.close();
+    }
+  }
+
+  private DataReader getReader(final String arrayPath) {
+    return new JSONArrayDataReader(file.getPath(), fieldDefinitionMap, new JSONParser(configuration), arrayPath, DataFileInput.defaults());
+  }
+
+  private static List<List<Object>> readAll(final DataReader reader) throws IOException {
+    final List<List<Object>> rows = new ArrayList<>();
+    List<Object> row;
+    while((row = reader.read(null)) != null) {
+      rows.add(row);
+    }
+    return rows;
+  }
+
+  private void write(final String content) throws IOException {
+    try(OutputStream out = new FileOutputStream(file)) {
+      out.write(content.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
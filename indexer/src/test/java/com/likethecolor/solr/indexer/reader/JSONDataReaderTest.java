@@ -37,6 +37,7 @@ import java.util.Map;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyInt;
 import static org.mockito.Mockito.doCallRealMethod;
 
 @RunWith (MockitoJUnitRunner.class)
@@ -78,6 +79,7 @@ public class JSONDataReaderTest {
     // data reader using buffered reader that returns 1 row
     doCallRealMethod().when(dataReaderOneLine).read(null);
     doCallRealMethod().when(dataReaderOneLine).readLine();
+    doCallRealMethod().when(dataReaderOneLine).getFieldExtractor();
     given(dataReaderOneLine.getBufferedReader())
         .willReturn(bufferedReaderOneLine);
     given(dataReaderOneLine.getJsonParser())
@@ -86,6 +88,7 @@ public class JSONDataReaderTest {
     // data reader using buffered reader that returns 2 rows
     doCallRealMethod().when(dataReaderTwoLines).read(null);
     doCallRealMethod().when(dataReaderTwoLines).readLine();
+    doCallRealMethod().when(dataReaderTwoLines).getFieldExtractor();
     given(dataReaderTwoLines.getBufferedReader())
         .willReturn(bufferedReaderTwoLines);
     given(dataReaderTwoLines.getJsonParser())
@@ -95,6 +98,7 @@ public class JSONDataReaderTest {
     // expecting that the getHeader method will be called as the first method, then read
     doCallRealMethod().when(dataReaderTwoLinesGetHeader).read(null);
     doCallRealMethod().when(dataReaderTwoLinesGetHeader).readLine();
+    doCallRealMethod().when(dataReaderTwoLinesGetHeader).getFieldExtractor();
     doCallRealMethod().when(dataReaderTwoLinesGetHeader).getHeader(anyBoolean());
     given(dataReaderTwoLinesGetHeader.getBufferedReader())
         .willReturn(bufferedReaderTwoLines);
@@ -281,6 +285,22 @@ public class JSONDataReaderTest {
     assertEquals("62521", row.get(13));
   }
 
+  @Test
+  public void testSkipTo() throws IOException {
+    doCallRealMethod().when(dataReaderTwoLines).skipTo(anyInt());
+    doCallRealMethod().when(dataReaderTwoLines).getLineNumber();
+
+    assertEquals(1, dataReaderTwoLines.skipTo(1));
+    assertEquals(1, dataReaderTwoLines.getLineNumber());
+
+    // the second line is read as a row
+    assertEquals(14, dataReaderTwoLines.read(null).size());
+    assertEquals(2, dataReaderTwoLines.getLineNumber());
+
+    // no more lines
+    assertEquals(0, dataReaderTwoLines.skipTo(5));
+  }
+
   @Test
   public void testRead_BufferedReaderIsNull() throws IOException {
     given(dataReaderOneLine.getBufferedReader())
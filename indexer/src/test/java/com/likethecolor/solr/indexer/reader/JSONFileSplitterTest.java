@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JSONFileSplitterTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("split", ".json");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    // 10 bytes a line
+    write("{\"id\":11}\n{\"id\":12}\n{\"id\":13}\n{\"id\":14}\n{\"id\":15}\n{\"id\":16}\n");
+
+    final List<FileChunk> chunks = new JSONFileSplitter(StandardCharsets.UTF_8).split(file, 3);
+
+    assertEquals(3, chunks.size());
+    assertChunk(0, 20, 0, chunks.get(0));
+    assertChunk(20, 40, 2, chunks.get(1));
+    assertChunk(40, 60, 4, chunks.get(2));
+  }
+
+  @Test
+  public void testSplit_UnevenLines() throws Exception {
+    write("{\"id\":1,\"name\":\"a long line\"}\n{\"id\":2}\n{\"id\":3}");
+
+    final List<FileChunk> chunks = new JSONFileSplitter(StandardCharsets.UTF_8).split(file, 4);
+
+    assertEquals(3, chunks.size());
+    assertChunk(0, 30, 0, chunks.get(0));
+    assertChunk(30, 39, 1, chunks.get(1));
+    assertChunk(39, 47, 2, chunks.get(2));
+  }
+
+  @Test
+  public void testSplit_Charset() throws Exception {
+    // 12 and 13 bytes in ISO-8859-1
+    Files.write(file.toPath(), "{\"n\":\"\u00e9t\u00e9\"}\n{\"n\":\"\u00e0 la\"}\n".getBytes(StandardCharsets.ISO_8859_1));
+
+    final List<FileChunk> chunks = new JSONFileSplitter(StandardCharsets.ISO_8859_1).split(file, 2);
+
+    assertEquals(2, chunks.size());
+    assertChunk(0, 12, 0, chunks.get(0));
+    assertChunk(12, 25, 1, chunks.get(1));
+  }
+
+  @Test
+  public void testSplit_Empty() throws Exception {
+    assertTrue(new JSONFileSplitter(StandardCharsets.UTF_8).split(file, 4).isEmpty());
+  }
+
+  private void assertChunk(final long startByte, final long endByte, final int startLineNumber, final FileChunk chunk) {
+    assertEquals(startByte, chunk.getStartByte());
+    assertEquals(endByte, chunk.getEndByte());
+    assertEquals(startLineNumber, chunk.getStartLineNumber());
+  }
+
+  private void write(final String content) throws Exception {
+    Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+  }
+}
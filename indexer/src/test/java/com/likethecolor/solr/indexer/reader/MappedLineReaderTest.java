@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MappedLineReaderTest {
+  private static final String CONTENT = "first\r\nsecond line\n\nthird line is longer than a window\nlast";
+  private File file;
+  private FileChannel channel;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("mapped", ".json");
+    Files.write(file.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    channel.close();
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testReadLine() throws Exception {
+    // windows of 8 bytes so lines run past the end of a window
+    final MappedLineReader reader = new MappedLineReader(channel, 0, file.length(), StandardCharsets.UTF_8, 8);
+
+    assertEquals("first", reader.readLine());
+    assertEquals("second line", reader.readLine());
+    assertEquals("", reader.readLine());
+    assertEquals("third line is longer than a window", reader.readLine());
+    assertEquals("last", reader.readLine());
+    assertNull(reader.readLine());
+    assertEquals(5, reader.getLineCount());
+  }
+
+  @Test
+  public void testReadLine_Range() throws Exception {
+    final long start = CONTENT.indexOf("second");
+    final long end = CONTENT.indexOf("third");
+    final MappedLineReader reader = new MappedLineReader(channel, start, end, StandardCharsets.UTF_8, 8);
+
+    assertEquals("second line", reader.readLine());
+    assertEquals("", reader.readLine());
+    assertNull(reader.readLine());
+  }
+
+  @Test
+  public void testCountLineBreaks() throws Exception {
+    assertEquals(4, new MappedLineReader(channel, 0, file.length(), StandardCharsets.UTF_8, 8).countLineBreaks());
+    assertEquals(4, new MappedLineReader(channel, 0, file.length(), StandardCharsets.UTF_8).countLineBreaks());
+  }
+
+  @Test
+  public void testNextLineBreak() throws Exception {
+    final MappedLineReader reader = new MappedLineReader(channel, 0, file.length(), StandardCharsets.UTF_8, 8);
+
+    assertEquals(CONTENT.indexOf('\n'), reader.nextLineBreak(0));
+    assertEquals(CONTENT.indexOf('\n', 8), reader.nextLineBreak(8));
+    assertEquals(file.length(), reader.nextLineBreak(CONTENT.indexOf("last")));
+  }
+}
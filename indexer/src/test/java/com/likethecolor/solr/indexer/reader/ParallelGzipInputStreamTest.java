@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2018.  Dan Brown <dan@likethecolor.com>
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License.  You may obtain a copy
+ * of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+
+
+package com.likethecolor.solr.indexer.reader;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ParallelGzipInputStreamTest {
+  private File file;
+
+  @Before
+  public void setUp() throws Exception {
+    file = File.createTempFile("parallel", ".gz");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    assertTrue(file.delete());
+  }
+
+  @Test
+  public void testIsBlockGzipped() throws Exception {
+    writeBlockGzipped(content(1000), 100);
+    try(FileInputStream in = new FileInputStream(file)) {
+      assertTrue(ParallelGzipInputStream.isBlockGzipped(in.getChannel()));
+    }
+
+    try(GZIPOutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(content(1000));
+    }
+    try(FileInputStream in = new FileInputStream(file)) {
+      assertFalse(ParallelGzipInputStream.isBlockGzipped(in.getChannel()));
+    }
+  }
+
+  @Test
+  public void testRead() throws Exception {
+    // enough blocks for several batches
+    final byte[] content = content(3 * ParallelGzipInputStream.BATCH_BYTES);
+    writeBlockGzipped(content, 60000);
+
+    for(int threadCount = 1; threadCount <= 4; threadCount++) {
+      assertArrayEquals("thread count " + threadCount, content, IOUtils.toByteArray(open(threadCount)));
+    }
+  }
+
+  @Test
+  public void testRead_Empty() throws Exception {
+    writeBlockGzipped(new byte[0], 100);
+
+    assertArrayEquals(new byte[0], IOUtils.toByteArray(open(2)));
+  }
+
+  @Test
+  public void testRead_Truncated() throws Exception {
+    writeBlockGzipped(content(1000), 100);
+    try(FileChannel channel = new FileOutputStream(file, true).getChannel()) {
+      channel.truncate(file.length() - 10);
+    }
+
+    try {
+      IOUtils.toByteArray(open(2));
+      fail("expected IOException");
+    }
+    catch(IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void testRead_CorruptCrc() throws Exception {
+    final byte[] content = content(1000);
+    writeBlockGzipped(content, 2000);
+    final byte[] bytes = IOUtils.toByteArray(new FileInputStream(file));
+    // first byte of the CRC of the only block
+    bytes[bytes.length - 8] ^= 1;
+    try(OutputStream out = new FileOutputStream(file)) {
+      out.write(bytes);
+    }
+
+    try {
+      IOUtils.toByteArray(open(2));
+      fail("expected IOException");
+    }
+    catch(IOException e) {
+      // expected
+    }
+  }
+
+  private ParallelGzipInputStream open(final int threadCount) throws IOException {
+    return new ParallelGzipInputStream(new FileInputStream(file).getChannel(), threadCount);
+  }
+
+  private static byte[] content(final int size) {
+    // compressible but not trivially so
+    final byte[] content = new byte[size];
+    final Random random = new Random(size);
+    for(int i = 0; i < size; i++) {
+      content[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return content;
+  }
+
+  /**
+   * Write the content as bgzip does - a gzip member for each block with its
+   * compressed size in a BC extra subfield.
+   */
+  private void writeBlockGzipped(final byte[] content, final int blockSize) throws IOException {
+    try(OutputStream out = new FileOutputStream(file)) {
+      for(int start = 0; start < content.length; start += blockSize) {
+        out.write(member(Arrays.copyOfRange(content, start, Math.min(content.length, start + blockSize))));
+      }
+    }
+  }
+
+  private static byte[] member(final byte[] block) {
+    final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    deflater.setInput(block);
+    deflater.finish();
+    final ByteArrayOutputStream deflated = new ByteArrayOutputStream();
+    final byte[] buffer = new byte[8192];
+    while(!deflater.finished()) {
+      deflated.write(buffer, 0, deflater.deflate(buffer));
+    }
+    deflater.end();
+    final CRC32 crc = new CRC32();
+    crc.update(block);
+
+    final int memberSize = 18 + deflated.size() + 8;
+    final ByteArrayOutputStream member = new ByteArrayOutputStream(memberSize);
+    member.write(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+    writeShort(member, memberSize - 1);
+    member.write(deflated.toByteArray(), 0, deflated.size());
+    writeShort(member, (int) crc.getValue());
+    writeShort(member, (int) (crc.getValue() >>> 16));
+    writeShort(member, block.length);
+    writeShort(member, block.length >>> 16);
+    return member.toByteArray();
+  }
+
+  private static void writeShort(final ByteArrayOutputStream out, final int value) {
+    out.write(value & 0xff);
+    out.write((value >>> 8) & 0xff);
+  }
+}